@@ -0,0 +1,8 @@
+#!/bin/sh
+# Lanceur à démarrage rapide généré par le profil Maven faststart : contexte Spring pré-calculé à la compilation (AOT),
+# beans créés à la demande et classes chargées depuis l'archive AppCDS.
+# Usage : ./treasure-map.sh game1.txt [game2.txt ...]
+DIR=$(cd "$(dirname "$0")" && pwd)
+exec java -XX:SharedArchiveFile="$DIR/@faststart.archive@" -Xshare:auto \
+    -Dspring.aot.enabled=true -Dspring.main.lazy-initialization=true \
+    -jar "$DIR/@project.build.finalName@.jar" "$@"
@@ -0,0 +1,89 @@
+package fr.exercice.treasuremap.benchmark;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.model.GamePhaseClock;
+import fr.exercice.treasuremap.service.*;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare la création d'un jeu depuis le fichier d'entrée du {@link Scenario}, en lignes traitées par seconde :
+ * lecture ligne par ligne du texte par le {@link GameReaderService}, comme dans le {@code GameController},
+ * lecture en mémoire mappée sur plusieurs coeurs par {@link MappedInputParserService}
+ * ou lecture du même jeu converti au format binaire par {@link BinaryInputFileService}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileParsingBenchmark {
+
+    private final InputValidationService inputValidationService = new InputValidationService(new TreasureMapProperties());
+    private final GameAssetsCreatorService gameAssetsCreatorService = new GameAssetsCreatorService();
+    private final MappedInputParserService mappedInputParserService = new MappedInputParserService(new InputFileService(), inputValidationService, gameAssetsCreatorService);
+    private final BinaryInputFileService binaryInputFileService = new BinaryInputFileService(new InputFileService(), inputValidationService, gameAssetsCreatorService);
+    // Sans lecture en mémoire mappée, comme par défaut : les fichiers texte sont lus ligne par ligne
+    private final GameReaderService gameReaderService = new GameReaderService(new InputFileService(), inputValidationService, gameAssetsCreatorService,
+            mappedInputParserService, binaryInputFileService, new TreasureMapProperties());
+    private Path inputDirectory;
+    private Path inputFilePath;
+    private Path binaryFilePath;
+    private int nbInputLines;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ParsedLines {
+        public long lines;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lines = 0;
+        }
+    }
+
+    @Setup
+    public void writeInputFile(Scenario scenario) throws IOException {
+        inputDirectory = Files.createTempDirectory("treasure-map-benchmark");
+        inputFilePath = Files.write(inputDirectory.resolve("benchmark.txt"), scenario.getInputLines(), StandardCharsets.UTF_8);
+        nbInputLines = scenario.getInputLines().size();
+        binaryFilePath = inputDirectory.resolve("benchmark.tmb");
+        binaryInputFileService.writeBinary(scenario.createGame(), binaryFilePath);
+    }
+
+    @TearDown
+    public void deleteInputDirectory() throws IOException {
+        FileUtils.deleteDirectory(inputDirectory.toFile());
+    }
+
+    @Benchmark
+    public Game readLines(ParsedLines parsedLines) throws IOException {
+        Game game = gameReaderService.generateGame(inputFilePath, new GamePhaseClock(false));
+        parsedLines.lines += nbInputLines;
+        return game;
+    }
+
+    @Benchmark
+    public Game mappedParsing(ParsedLines parsedLines) throws IOException {
+        Game game = new Game();
+        mappedInputParserService.parseInto(game, inputFilePath);
+        parsedLines.lines += nbInputLines;
+        return game;
+    }
+
+    @Benchmark
+    public Game binaryReading(ParsedLines parsedLines) throws IOException {
+        Game game = new Game();
+        binaryInputFileService.readInto(game, binaryFilePath);
+        parsedLines.lines += nbInputLines;
+        return game;
+    }
+}
@@ -0,0 +1,39 @@
+package fr.exercice.treasuremap.benchmark;
+
+import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.service.GameAssetsCreatorService;
+import fr.exercice.treasuremap.service.GameReaderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure le débit de la création d'un jeu complet à partir des lignes du {@link Scenario} par le {@link GameReaderService} :
+ * découpage, vérification puis création des assets par {@link GameAssetsCreatorService}, en lignes traitées par seconde.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameCreationBenchmark {
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class CreatedLines {
+        public long lines;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lines = 0;
+        }
+    }
+
+    @Benchmark
+    public Game createGame(Scenario scenario, CreatedLines createdLines) {
+        Game game = scenario.createGame();
+        createdLines.lines += scenario.getInputLines().size();
+        return game;
+    }
+}
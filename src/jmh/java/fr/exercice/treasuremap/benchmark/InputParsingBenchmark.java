@@ -0,0 +1,36 @@
+package fr.exercice.treasuremap.benchmark;
+
+import fr.exercice.treasuremap.service.InputFileService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure le débit du découpage des lignes du fichier d'entrée par {@link InputFileService#getCleanSplitElements(String)},
+ * en lignes découpées par seconde. Chaque appel du benchmark découpe la ligne suivante du {@link Scenario}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InputParsingBenchmark {
+
+    private final InputFileService inputFileService = new InputFileService();
+    private List<String> inputLines;
+    private int nextLine;
+
+    @Setup
+    public void loadLines(Scenario scenario) {
+        inputLines = scenario.getInputLines();
+    }
+
+    @Benchmark
+    public String[] splitLine() {
+        String line = inputLines.get(nextLine);
+        nextLine = (nextLine + 1) % inputLines.size();
+        return inputFileService.getCleanSplitElements(line);
+    }
+}
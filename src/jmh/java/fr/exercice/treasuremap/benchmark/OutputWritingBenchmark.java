@@ -0,0 +1,60 @@
+package fr.exercice.treasuremap.benchmark;
+
+import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.service.OutputFileService;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure le débit de l'écriture du fichier de sortie par {@link OutputFileService#writeOutputFile(Game, Path)},
+ * en lignes écrites par seconde, pour le jeu du {@link Scenario} dans son état initial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputWritingBenchmark {
+
+    private final OutputFileService outputFileService = new OutputFileService();
+    private Game game;
+    private Path outputDirectory;
+    private Path inputFilePath;
+    private int nbOutputLines;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class WrittenLines {
+        public long lines;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            lines = 0;
+        }
+    }
+
+    @Setup
+    public void createGame(Scenario scenario) throws IOException {
+        game = scenario.createGame();
+        nbOutputLines = 1 + game.getMountainCells().size() + game.getTreasureCells().size() + game.getAdventurers().size();
+        outputDirectory = Files.createTempDirectory("treasure-map-benchmark");
+        inputFilePath = outputDirectory.resolve("benchmark.txt");
+    }
+
+    @TearDown
+    public void deleteOutputDirectory() throws IOException {
+        FileUtils.deleteDirectory(outputDirectory.toFile());
+    }
+
+    @Benchmark
+    public void writeOutputFile(WrittenLines writtenLines) throws IOException {
+        outputFileService.writeOutputFile(game, inputFilePath);
+        writtenLines.lines += nbOutputLines;
+    }
+}
@@ -0,0 +1,135 @@
+package fr.exercice.treasuremap.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.model.GamePhaseClock;
+import fr.exercice.treasuremap.service.*;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scénario de jeu paramétrable partagé par tous les benchmarks. Le fichier d'entrée est généré une seule fois par essai,
+ * avec une graine fixe pour que deux versions du moteur soient comparées sur exactement les mêmes parties :
+ * <li>La taille de la carte, jusqu'à la {@code MAPSIZE} de {@link InputValidationService}</li>
+ * <li>La densité de montagnes et de trésors, en proportion du nombre de cases</li>
+ * <li>Le nombre d'aventuriers et la longueur de leurs mouvements</li>
+ */
+@State(Scope.Benchmark)
+public class Scenario {
+
+    private static final long SEED = 42;
+
+    @Param({"290"})
+    public int mapWidth;
+    @Param({"290"})
+    public int mapHeight;
+    @Param({"0.01", "0.2"})
+    public double mountainDensity;
+    @Param({"0.05"})
+    public double treasureDensity;
+    @Param({"100", "5000"})
+    public int nbAdventurers;
+    @Param({"1000"})
+    public int movesLength;
+    // Longueur des suites de rotations : chaque rotation tirée est répétée (ex : -p rotationRunLength=20 pour des mouvements surtout faits de D et de G)
+    @Param({"1"})
+    public int rotationRunLength;
+
+    private List<String> inputLines;
+    private byte[] inputContent;
+    private final GameReaderService gameReaderService = createGameReaderService();
+
+    @Setup
+    public void generateInputLines() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        if ((long) mapWidth * mapHeight > InputValidationService.MAPSIZE) {
+            throw new IllegalArgumentException("La carte du scénario est plus grande que la MAPSIZE du jeu");
+        }
+        Random random = new Random(SEED);
+        List<Integer> cells = new ArrayList<>();
+        for (int cell = 0; cell < (mapWidth + 1) * (mapHeight + 1); cell++) {
+            cells.add(cell);
+        }
+        Collections.shuffle(cells, random);
+
+        int nbMountains = (int) (cells.size() * mountainDensity);
+        int nbTreasures = (int) (cells.size() * treasureDensity);
+        int nbPlacedAdventurers = Math.min(nbAdventurers, cells.size() - nbMountains - nbTreasures);
+        inputLines = new ArrayList<>();
+        inputLines.add(StringUtils.join(List.of("C", mapWidth, mapHeight), " - "));
+        int next = 0;
+        for (int i = 0; i < nbMountains; i++, next++) {
+            inputLines.add(StringUtils.join(List.of("M", posX(cells.get(next)), posY(cells.get(next))), " - "));
+        }
+        for (int i = 0; i < nbTreasures; i++, next++) {
+            inputLines.add(StringUtils.join(List.of("T", posX(cells.get(next)), posY(cells.get(next)), 1 + random.nextInt(3)), " - "));
+        }
+        for (int i = 0; i < nbPlacedAdventurers; i++, next++) {
+            inputLines.add(StringUtils.join(List.of("A", "Aventurier" + i, posX(cells.get(next)), posY(cells.get(next)),
+                    "NSEO".charAt(random.nextInt(4)), generateMoves(random)), " - "));
+        }
+        inputContent = String.join("\n", inputLines).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static GameReaderService createGameReaderService() {
+        TreasureMapProperties properties = new TreasureMapProperties();
+        InputFileService inputFileService = new InputFileService();
+        InputValidationService inputValidationService = new InputValidationService(properties);
+        GameAssetsCreatorService gameAssetsCreatorService = new GameAssetsCreatorService();
+        return new GameReaderService(inputFileService, inputValidationService, gameAssetsCreatorService,
+                new MappedInputParserService(inputFileService, inputValidationService, gameAssetsCreatorService),
+                new BinaryInputFileService(inputFileService, inputValidationService, gameAssetsCreatorService), properties);
+    }
+
+    private int posX(int cell) {
+        return cell % (mapWidth + 1);
+    }
+
+    private int posY(int cell) {
+        return cell / (mapWidth + 1);
+    }
+
+    // Deux tiers de pas en avant pour que les aventuriers se croisent et ramassent des trésors
+    private String generateMoves(Random random) {
+        StringBuilder moves = new StringBuilder(movesLength);
+        while (moves.length() < movesLength) {
+            char move = "AAAADG".charAt(random.nextInt(6));
+            for (int i = move == 'A' ? 1 : rotationRunLength; i > 0 && moves.length() < movesLength; i--) {
+                moves.append(move);
+            }
+        }
+        return moves.toString();
+    }
+
+    public List<String> getInputLines() {
+        return inputLines;
+    }
+
+    /**
+     * Crée un nouveau jeu à partir des lignes du scénario par le {@link GameReaderService}, comme une partie reçue par le serveur de parties :
+     * les lignes sont lues, vérifiées et créées une par une, exactement comme par le {@code GameController}.
+     *
+     * @return Le jeu dans son état initial
+     */
+    public Game createGame() {
+        try {
+            return gameReaderService.generateGame(inputContent, new GamePhaseClock(false));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
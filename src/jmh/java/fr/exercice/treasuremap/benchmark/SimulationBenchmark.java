@@ -0,0 +1,112 @@
+package fr.exercice.treasuremap.benchmark;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.AdventurerPopulation;
+import fr.exercice.treasuremap.model.EventLevel;
+import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.service.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure le débit du moteur de jeu en mouvements joués par seconde, sur une partie complète du {@link Scenario}
+ * jouée par le {@link GameSimulationService}, la boucle de tours du {@code GameController}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+
+    // TRACE mesure le coût de la publication des événements dans le buffer circulaire, les logs INFO étant désactivés par le Scenario
+    @Param({"OFF", "TRACE"})
+    private EventLevel eventLevel;
+
+    // Taille des tuiles du moteur de tours parallèle, sans effet sur le moteur séquentiel (ex : -p tileSize=64)
+    @Param({"0"})
+    private int tileSize;
+
+    // Coût des compteurs de déplacements refusés quand les métriques sont activées (ex : -p metrics=true)
+    @Param({"false"})
+    private boolean metrics;
+
+    // Coût de la carte creuse par blocs pour le moteur séquentiel (ex : -p sparseMap=true)
+    @Param({"false"})
+    private boolean sparseMap;
+
+    private GameEventService gameEventService;
+    private GameSimulationService gameSimulationService;
+    private GameSimulationService parallelGameSimulationService;
+    private Game game;
+    private long nbMoves;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class PlayedMoves {
+        public long moves;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            moves = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void createServices() {
+        TreasureMapProperties properties = createProperties(false);
+        gameEventService = new GameEventService(properties);
+        GameMetricsService gameMetricsService = new GameMetricsService(properties);
+        MoveAdventurerService moveAdventurerService = new MoveAdventurerService(gameEventService, gameMetricsService);
+        ParallelTurnService parallelTurnService = new ParallelTurnService(moveAdventurerService, gameEventService, gameMetricsService);
+        gameSimulationService = new GameSimulationService(properties, gameEventService, moveAdventurerService, parallelTurnService,
+                new CheckpointService(properties), new TrajectoryService(properties));
+        TreasureMapProperties parallelProperties = createProperties(true);
+        parallelGameSimulationService = new GameSimulationService(parallelProperties, gameEventService, moveAdventurerService, parallelTurnService,
+                new CheckpointService(parallelProperties), new TrajectoryService(parallelProperties));
+    }
+
+    /**
+     * Les tours en parallèle sont joués quel que soit le nombre d'aventuriers actifs, mais toujours un par un sur un seul coeur, comme dans le jeu.
+     */
+    private TreasureMapProperties createProperties(boolean parallelTurns) {
+        TreasureMapProperties properties = new TreasureMapProperties();
+        properties.getEvents().setLevel(eventLevel);
+        properties.getMetrics().setEnabled(metrics);
+        properties.getSimulation().setSparseMap(sparseMap && !parallelTurns);
+        properties.getSimulation().setParallelTurns(parallelTurns);
+        properties.getSimulation().setParallelTurnsMinAdventurers(0);
+        properties.getSimulation().setTileSize(tileSize);
+        return properties;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopEvents() throws InterruptedException {
+        gameEventService.destroy();
+    }
+
+    @Setup(Level.Invocation)
+    public void createGame(Scenario scenario) {
+        game = scenario.createGame();
+        nbMoves = game.getAdventurers().stream().mapToLong(adventurer -> adventurer.getPackedMoves().length()).sum();
+    }
+
+    @Benchmark
+    public int playGame(PlayedMoves playedMoves) {
+        int nbTurns = gameSimulationService.playAllTurns(game, new AdventurerPopulation(game.getAdventurers()));
+        playedMoves.moves += nbMoves;
+        return nbTurns;
+    }
+
+    /**
+     * Même partie avec le moteur de tours parallèle.
+     */
+    @Benchmark
+    public int playGameWithParallelTurns(PlayedMoves playedMoves) {
+        int nbTurns = parallelGameSimulationService.playAllTurns(game, new AdventurerPopulation(game.getAdventurers()));
+        playedMoves.moves += nbMoves;
+        return nbTurns;
+    }
+}
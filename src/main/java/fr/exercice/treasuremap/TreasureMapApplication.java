@@ -1,26 +1,114 @@
 package fr.exercice.treasuremap;
 
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.controller.BatchController;
 import fr.exercice.treasuremap.controller.GameController;
+import fr.exercice.treasuremap.controller.ServerController;
+import fr.exercice.treasuremap.model.BatchSummary;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.apachecommons.CommonsLog;
-import org.springframework.boot.CommandLineRunner;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
+/**
+ * Point d'entrée du jeu. Les chemins des fichiers d'entrée peuvent être passés en arguments du programme
+ * (ex : {@code java -jar treasuremap.jar game1.txt game2.txt}) : les parties sont alors jouées sans saisie dans la console.
+ * Sans argument, le répertoire de {@code treasuremap.batch.input} est joué s'il est renseigné, sinon le chemin est demandé dans la console.
+ * Avec l'option {@code --resume}, chaque partie reprend à sa dernière sauvegarde valide.
+ * Avec l'option {@code --convert-to=<fichier>}, le fichier d'entrée passé en argument est converti du format texte au format binaire {@code .tmb}
+ * ou inversement, selon l'extension du fichier cible, sans jouer la partie.
+ * Avec l'option {@code --trajectory-of=<nom>}, la trajectoire de cet aventurier est extraite du fichier de trajectoire {@code .tmt} passé en argument.
+ * Avec l'option {@code --validate}, les fichiers d'entrée passés en arguments sont entièrement vérifiés sans jouer les parties,
+ * et toutes les erreurs de chaque fichier sont écrites dans son rapport {@code <fichier>_errors.log}.
+ * Avec l'option {@code --server}, le moteur reste démarré et joue les parties envoyées au serveur de parties local jusqu'à l'arrêt de l'application.
+ * Le code de sortie du programme vaut 1 si au moins une partie n'a pas pu être jouée ou si un fichier vérifié contient des erreurs.
+ */
 @SpringBootApplication
+@ConfigurationPropertiesScan
 @CommonsLog
 @RequiredArgsConstructor
-public class TreasureMapApplication implements CommandLineRunner {
+public class TreasureMapApplication implements ApplicationRunner, ExitCodeGenerator {
 
     public final GameController gameController;
+    public final BatchController batchController;
+    public final TreasureMapProperties properties;
+    public final ServerController serverController;
+    private boolean success;
 
     public static void main(String[] args) {
-        SpringApplication.run(TreasureMapApplication.class, args);
+        System.exit(SpringApplication.exit(SpringApplication.run(TreasureMapApplication.class, args)));
     }
 
     @Override
-    public void run(String... filepath) {
-        gameController.playGame();
+    public void run(ApplicationArguments args) {
+        if (args.containsOption("resume")) {
+            properties.getCheckpoint().setResume(true);
+        }
+        List<String> inputFilePaths = args.getNonOptionArgs();
+        String batchInput = properties.getBatch().getInput();
+        if (args.containsOption("server")) {
+            success = serverController.serve();
+        } else if (args.containsOption("convert-to")) {
+            success = convertInputFile(inputFilePaths, args.getOptionValues("convert-to"));
+        } else if (args.containsOption("trajectory-of")) {
+            success = exportTrajectory(inputFilePaths, args.getOptionValues("trajectory-of"));
+        } else if (args.containsOption("validate")) {
+            success = validateInputFiles(inputFilePaths);
+        } else if (inputFilePaths.size() == 1) {
+            success = gameController.playGame(Paths.get(inputFilePaths.getFirst()));
+        } else if (!inputFilePaths.isEmpty()) {
+            List<Path> inputFiles = inputFilePaths.stream().map(Paths::get).toList();
+            success = isSuccess(batchController.playBatch(inputFiles));
+        } else if (StringUtils.isNotBlank(batchInput)) {
+            success = isSuccess(batchController.playBatch(batchInput));
+        } else {
+            success = gameController.playGame();
+        }
     }
-}
\ No newline at end of file
+
+    @Override
+    public int getExitCode() {
+        return success ? 0 : 1;
+    }
+
+    private boolean convertInputFile(List<String> inputFilePaths, List<String> targetFilePaths) {
+        if (inputFilePaths.size() != 1 || targetFilePaths == null || targetFilePaths.size() != 1 || StringUtils.isBlank(targetFilePaths.getFirst())) {
+            log.error("La conversion attend un seul fichier d'entrée et un seul fichier cible : --convert-to=<fichier> <fichier d'entrée>");
+            return false;
+        }
+        return gameController.convertInputFile(Paths.get(inputFilePaths.getFirst()), Paths.get(targetFilePaths.getFirst()));
+    }
+
+    private boolean exportTrajectory(List<String> trajectoryFilePaths, List<String> names) {
+        if (trajectoryFilePaths.size() != 1 || names == null || names.size() != 1 || StringUtils.isBlank(names.getFirst())) {
+            log.error("L'extraction attend un seul fichier de trajectoire et un seul nom d'aventurier : --trajectory-of=<nom> <fichier de trajectoire>");
+            return false;
+        }
+        return gameController.exportTrajectory(Paths.get(trajectoryFilePaths.getFirst()), names.getFirst());
+    }
+
+    private boolean validateInputFiles(List<String> inputFilePaths) {
+        if (inputFilePaths.isEmpty()) {
+            log.error("La vérification attend au moins un fichier d'entrée : --validate <fichier d'entrée>...");
+            return false;
+        }
+        boolean allValid = true;
+        for (String inputFilePath : inputFilePaths) {
+            allValid &= gameController.validateInputFile(Paths.get(inputFilePath));
+        }
+        return allValid;
+    }
+
+    private static boolean isSuccess(BatchSummary summary) {
+        return summary.nbGames() > 0 && summary.failures().isEmpty();
+    }
+}
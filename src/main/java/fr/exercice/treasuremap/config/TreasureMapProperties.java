@@ -0,0 +1,200 @@
+package fr.exercice.treasuremap.config;
+
+import fr.exercice.treasuremap.model.EventLevel;
+import fr.exercice.treasuremap.model.FullBufferPolicy;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Options d'exécution du jeu, renseignées dans {@code application.properties} avec le préfixe {@code treasuremap}
+ * ou en ligne de commande (ex : {@code --treasuremap.input.mapped-parsing=true}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "treasuremap")
+public class TreasureMapProperties {
+
+    private final Input input = new Input();
+    private final Batch batch = new Batch();
+    private final Events events = new Events();
+    private final Simulation simulation = new Simulation();
+    private final Checkpoint checkpoint = new Checkpoint();
+    private final Incremental incremental = new Incremental();
+    private final Metrics metrics = new Metrics();
+    private final Trajectory trajectory = new Trajectory();
+    private final Cache cache = new Cache();
+    private final Server server = new Server();
+
+    @Getter
+    @Setter
+    public static class Input {
+        /**
+         * Lecture du fichier d'entrée en mémoire mappée, découpée en blocs de lignes traités sur plusieurs coeurs
+         */
+        private boolean mappedParsing = false;
+        /**
+         * Taille minimale du fichier d'entrée pour utiliser la lecture en mémoire mappée, les petits fichiers sont toujours lus ligne par ligne
+         */
+        private DataSize mappedParsingMinSize = DataSize.ofMegabytes(8);
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+        /**
+         * Répertoire ou motif glob (ex : {@code /data/cartes/*.txt}) des fichiers d'entrée à jouer en batch. Sans valeur, le jeu est interactif
+         */
+        private String input;
+        /**
+         * Nombre de parties jouées en même temps, le nombre de coeurs disponibles s'il vaut 0
+         */
+        private int parallelism = 0;
+        /**
+         * Joue les parties sur des threads virtuels plutôt que sur des threads de plateforme
+         */
+        private boolean virtualThreads = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Events {
+        /**
+         * Détail des événements de jeu : off, summary (un bilan par partie) ou trace (chaque tour et chaque mouvement)
+         */
+        private EventLevel level = EventLevel.SUMMARY;
+        /**
+         * Nombre d'événements pouvant attendre leur écriture au niveau trace, au-delà voir {@link #fullBufferPolicy}
+         */
+        private int bufferSize = 64 * 1024;
+        /**
+         * Lorsque le buffer est plein : drop (l'événement est perdu et compté) ou block (la simulation attend l'écriture des événements)
+         */
+        private FullBufferPolicy fullBufferPolicy = FullBufferPolicy.DROP;
+    }
+
+    @Getter
+    @Setter
+    public static class Simulation {
+        /**
+         * Joue les tours sur plusieurs coeurs : seuls les aventuriers en concurrence pour une même case sont joués un par un dans l'ordre du fichier
+         */
+        private boolean parallelTurns = false;
+        /**
+         * Nombre minimal d'aventuriers actifs pour jouer un tour en parallèle, les tours plus petits sont joués un par un
+         */
+        private int parallelTurnsMinAdventurers = 10_000;
+        /**
+         * Taille du côté des tuiles de la carte pour les tours en parallèle : chaque thread joue les aventuriers des mêmes tuiles d'un tour à l'autre.
+         * Sans tuiles si elle vaut 0
+         */
+        private int tileSize = 0;
+        /**
+         * Représente la carte par blocs de cases alloués seulement là où se trouvent des assets, sans limite de surface.
+         * Les tours sont alors toujours joués un par un
+         */
+        private boolean sparseMap = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Checkpoint {
+        /**
+         * Sauvegarde l'état de la partie tous les N tours, sans sauvegarde par nombre de tours s'il vaut 0
+         */
+        private int everyTurns = 0;
+        /**
+         * Sauvegarde l'état de la partie à cet intervalle de temps (ex : {@code 5m}), sans sauvegarde périodique s'il vaut 0
+         */
+        private Duration interval = Duration.ZERO;
+        /**
+         * Répertoire des sauvegardes, celui du fichier d'entrée sans valeur
+         */
+        private String directory;
+        /**
+         * Reprend chaque partie à sa dernière sauvegarde valide, activé par l'argument {@code --resume}
+         */
+        private boolean resume = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Incremental {
+        /**
+         * Garde l'état final de chaque partie et ses mouvements : une partie rejouée dont seuls les mouvements des aventuriers ont été allongés
+         * reprend à cet état au lieu de rejouer tous les tours
+         */
+        private boolean enabled = false;
+        /**
+         * Répertoire des états finaux, celui du fichier d'entrée sans valeur
+         */
+        private String directory;
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+        /**
+         * Mesure le temps de chaque étape des parties et compte les tours, les mouvements et les trésors ramassés, écrits à l'arrêt de l'application
+         */
+        private boolean enabled = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Trajectory {
+        /**
+         * Écrit la position, l'orientation et les trésors de chaque aventurier à chaque tour dans le fichier binaire {@code <fichier>_<empreinte>_trajectory.tmt}
+         */
+        private boolean enabled = false;
+        /**
+         * Répertoire des trajectoires, celui du fichier d'entrée sans valeur
+         */
+        private String directory;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        /**
+         * Garde le résultat de chaque partie, retrouvé à partir du contenu du fichier d'entrée : un fichier déjà joué n'est pas simulé à nouveau
+         */
+        private boolean enabled = false;
+        /**
+         * Répertoire du cache sur disque, {@code treasuremap-cache} dans le répertoire temporaire du système sans valeur
+         */
+        private String directory;
+        /**
+         * Taille maximale des résultats gardés sur disque, les moins récemment utilisés sont supprimés au-delà
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(256);
+        /**
+         * Taille maximale des résultats gardés en mémoire, devant le cache sur disque, pour les fichiers rejoués pendant un même batch
+         */
+        private DataSize memoryMaxSize = DataSize.ofMegabytes(32);
+    }
+
+    @Getter
+    @Setter
+    public static class Server {
+        /**
+         * Port local du serveur de parties, lancé avec l'argument {@code --server}. Un port libre est choisi s'il vaut 0
+         */
+        private int port = 8080;
+        /**
+         * Nombre de parties jouées en même temps par le serveur, le nombre de coeurs disponibles s'il vaut 0
+         */
+        private int threads = 0;
+        /**
+         * Nombre de parties pouvant attendre un thread libre, au-delà les nouvelles parties sont refusées avec le code 429
+         */
+        private int queueCapacity = 16;
+        /**
+         * Taille maximale du fichier d'entrée d'une partie envoyée au serveur, au-delà la partie est refusée avec le code 413
+         */
+        private DataSize maxRequestSize = DataSize.ofMegabytes(64);
+    }
+}
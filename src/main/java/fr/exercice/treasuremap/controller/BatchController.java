@@ -0,0 +1,117 @@
+package fr.exercice.treasuremap.controller;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.BatchSummary;
+import fr.exercice.treasuremap.service.InputFileService;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Controller;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Ce controller joue en une seule exécution toutes les parties d'un répertoire ou d'un motif glob :
+ * <li>Recherche des fichiers d'entrée</li>
+ * <li>Exécution des parties en parallèle sur un nombre borné de threads, chaque partie ayant son propre état</li>
+ * <li>Création du fichier de sortie de chaque partie à côté de son fichier d'entrée</li>
+ * <li>Bilan des parties réussies et en échec, avec la durée totale du batch</li>
+ */
+@Controller
+@Slf4j
+@RequiredArgsConstructor
+public class BatchController {
+    @NonNull
+    private final InputFileService inputFileService;
+    @NonNull
+    private final GameController gameController;
+    @NonNull
+    private final TreasureMapProperties properties;
+
+    /**
+     * @param directoryOrGlob Le répertoire ou le motif glob des fichiers d'entrée
+     * @return Le bilan du batch
+     */
+    public BatchSummary playBatch(String directoryOrGlob) {
+        long start = System.nanoTime();
+        List<Path> inputFiles;
+        try {
+            inputFiles = inputFileService.findInputFiles(directoryOrGlob);
+        } catch (IllegalArgumentException | IOException e) {
+            log.error("Impossible de lister les fichiers d'entrée du batch : {}", e.getMessage());
+            return new BatchSummary(0, List.of(), Duration.ofNanos(System.nanoTime() - start));
+        }
+        if (inputFiles.isEmpty()) {
+            log.warn("Aucun fichier d'entrée trouvé pour {}", directoryOrGlob);
+        }
+        return playGames(inputFiles, start);
+    }
+
+    /**
+     * @param inputFiles Les chemins des fichiers d'entrée, passés en arguments du programme
+     * @return Le bilan du batch
+     */
+    public BatchSummary playBatch(List<Path> inputFiles) {
+        return playGames(inputFiles, System.nanoTime());
+    }
+
+    private BatchSummary playGames(List<Path> inputFiles, long start) {
+        int nbSuccesses = 0;
+        List<Path> failures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(getParallelism(), getThreadFactory())) {
+            List<Future<Boolean>> results = new ArrayList<>(inputFiles.size());
+            for (Path inputFile : inputFiles) {
+                results.add(executor.submit(() -> gameController.playGame(inputFile)));
+            }
+            for (int i = 0; i < inputFiles.size(); i++) {
+                if (isSuccess(results.get(i), inputFiles.get(i))) {
+                    nbSuccesses++;
+                } else {
+                    failures.add(inputFiles.get(i));
+                }
+            }
+        }
+        BatchSummary summary = new BatchSummary(nbSuccesses, failures, Duration.ofNanos(System.nanoTime() - start));
+        logSummary(summary);
+        return summary;
+    }
+
+    private int getParallelism() {
+        int parallelism = properties.getBatch().getParallelism();
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    private ThreadFactory getThreadFactory() {
+        Thread.Builder threadBuilder = properties.getBatch().isVirtualThreads() ? Thread.ofVirtual() : Thread.ofPlatform();
+        return threadBuilder.name("partie-", 1).factory();
+    }
+
+    private boolean isSuccess(Future<Boolean> result, Path inputFile) {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            log.error("Erreur inattendue pendant la partie {} : {}", inputFile, e.getCause().toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Le batch a été interrompu avant la fin de la partie {}", inputFile);
+        }
+        return false;
+    }
+
+    private void logSummary(BatchSummary summary) {
+        for (Path failure : summary.failures()) {
+            log.warn("Partie en échec : {}", failure);
+        }
+        log.info("Batch terminé en {} ms : {} partie(s) réussie(s) et {} en échec sur {}",
+                summary.wallTime().toMillis(), summary.nbSuccesses(), summary.failures().size(), summary.nbGames());
+    }
+}
@@ -1,55 +1,100 @@
 package fr.exercice.treasuremap.controller;
 
-import fr.exercice.treasuremap.model.Adventurer;
+import fr.exercice.treasuremap.model.AdventurerPopulation;
+import fr.exercice.treasuremap.model.CheckpointSession;
 import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.model.GamePhase;
+import fr.exercice.treasuremap.model.GamePhaseClock;
+import fr.exercice.treasuremap.model.IncrementalSession;
+import fr.exercice.treasuremap.model.InputValidationReport;
+import fr.exercice.treasuremap.model.TrajectoryWriter;
 import fr.exercice.treasuremap.service.*;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.springframework.stereotype.Controller;
 
 import java.io.IOException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Ce controller va porter toute l'exécution de la simulation de jeu :
  * <li>Récupération du chemin du fichier d'entrée</li>
- * <li>Validation de la syntaxe du fichier</li>
- * <li>Création des objets du jeu</li>
- * <li>Exécution du jeu</li>
+ * <li>Validation de la syntaxe du fichier et création des objets du jeu, par le {@link GameReaderService}</li>
+ * <li>Exécution du jeu par le {@link GameSimulationService}, avec ses sauvegardes périodiques et sa trajectoire, éventuellement reprise à l'état final de la partie précédente</li>
  * <li>Génération résultat du jeu</li>
  * <li>Création du fichier de sortie</li>
+ * Le temps passé dans chaque étape est mesuré par le {@link GameMetricsService} si les métriques sont activées.
+ * Si le cache des résultats est activé, un fichier d'entrée déjà joué a son fichier de sortie écrit par le {@link ResultCacheService} sans être simulé.
+ * Il joue aussi les parties reçues par le serveur de parties sans fichier d'entrée, convertit un fichier d'entrée du format texte au format binaire
+ * et inversement, extrait la trajectoire d'un aventurier et vérifie tout un fichier d'entrée pour en rapporter toutes les erreurs.
  */
 @Controller
 @Slf4j
 @RequiredArgsConstructor
 public class GameController {
+    // Nombre d'erreurs de la vérification complète d'un fichier recopiées dans les logs, les autres ne sont que dans le rapport
+    private static final int MAX_LOGGED_ERRORS = 20;
+
     @NonNull
     private final InputFileService inputFileService;
     @NonNull
-    private final InputValidationService inputValidationService;
-    @NonNull
-    private final GameAssetsCreatorService gameAssetsCreatorService;
+    private final GameReaderService gameReaderService;
     @NonNull
-    private final MoveAdventurerService moveAdventurerService;
+    private final GameSimulationService gameSimulationService;
     @NonNull
     private final OutputFileService outputFileService;
     @NonNull
-    private final Game game = new Game();
+    private final GameEventService gameEventService;
+    @NonNull
+    private final CheckpointService checkpointService;
+    @NonNull
+    private final BinaryInputFileService binaryInputFileService;
+    @NonNull
+    private final GameMetricsService gameMetricsService;
+    @NonNull
+    private final TrajectoryService trajectoryService;
+    @NonNull
+    private final ResultCacheService resultCacheService;
+    @NonNull
+    private final IncrementalSimulationService incrementalSimulationService;
+    @NonNull
+    private final InputFileValidationService inputFileValidationService;
 
-    public void playGame() {
+    /**
+     * Partie interactive : le chemin du fichier d'entrée est demandé dans la console.
+     *
+     * @return Si la partie a été jouée et son fichier de sortie créé
+     */
+    public boolean playGame() {
+        return playGame(() -> Paths.get(inputFileService.getAndCheckInputFilePath()));
+    }
+
+    /**
+     * Joue la partie décrite par le fichier d'entrée, passé en argument du programme ou trouvé par le batch, et écrit son résultat à côté de celui-ci.
+     * Chaque appel crée son propre {@link Game} : plusieurs parties peuvent être jouées en même temps.
+     *
+     * @param inputFilePath Le chemin du fichier d'entrée
+     * @return Si la partie a été jouée et son fichier de sortie créé
+     */
+    public boolean playGame(Path inputFilePath) {
+        return playGame(() -> Paths.get(inputFileService.checkInputFilePath(inputFilePath.toString())));
+    }
+
+    private boolean playGame(Supplier<Path> inputFilePathSupplier) {
         try {
-            Path inputFilePath = generateGame();
-            int turn = 0;
-            while (game.getAdventurers().stream().anyMatch(adventurer -> !adventurer.isDoneMoving())) {
-                turn = playTurn(turn);
+            Path inputFilePath = inputFilePathSupplier.get();
+            String previousGame = gameEventService.enterGame(inputFilePath.toString());
+            try {
+                playInputFile(inputFilePath);
+            } finally {
+                gameEventService.exitGame(previousGame);
             }
-            log.info("Fin du jeu, création du fichier de sortie en cours");
-            outputFileService.writeOutputFile(game, inputFilePath);
+            return true;
         } catch (NoSuchFileException e) {
             log.error("Nom du fichier en erreur : {}", e.getMessage());
         } catch (IllegalArgumentException e) {
@@ -59,53 +104,172 @@ public class GameController {
         } catch (IOException e) {
             log.error(e.getMessage());
         }
+        return false;
+    }
+
+    private void playInputFile(Path inputFilePath) throws IOException {
+        String cacheKey = resultCacheService.computeKey(inputFilePath);
+        if (resultCacheService.writeCachedResult(cacheKey, inputFilePath)) {
+            log.info("Le fichier {} a déjà été joué, son résultat a été repris du cache", inputFilePath);
+            return;
+        }
+        GamePhaseClock clock = gameMetricsService.startClock();
+        Game game = gameReaderService.generateGame(inputFilePath, clock);
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        IncrementalSession incrementalSession = incrementalSimulationService.startSession(inputFilePath, game);
+        CheckpointSession checkpointSession = checkpointService.startSession(inputFilePath, game, population);
+        int startTurn = checkpointSession.getStartTurn() > 0 ? checkpointSession.getStartTurn()
+                : incrementalSimulationService.resume(incrementalSession, game, population);
+        long nbTreasuresAtStart = gameMetricsService.countTreasures(population);
+        TrajectoryWriter trajectoryWriter = trajectoryService.startTrajectory(inputFilePath, population, startTurn);
+        clock.lap(GamePhase.BUILD);
+        int nbTurns;
+        try {
+            nbTurns = gameSimulationService.playAllTurns(game, population, checkpointSession, startTurn, trajectoryWriter);
+        } finally {
+            trajectoryService.finishTrajectory(trajectoryWriter);
+        }
+        clock.lap(GamePhase.SIMULATE);
+        gameMetricsService.simulationOver(population, startTurn, nbTurns, nbTreasuresAtStart);
+        population.writeTo(game.getAdventurers());
+        long nbDroppedEvents = gameEventService.gameOver(inputFilePath, nbTurns, population);
+        log.info("Fin du jeu, création du fichier de sortie en cours");
+        outputFileService.writeOutputFile(game, inputFilePath);
+        resultCacheService.storeResult(cacheKey, inputFilePath);
+        incrementalSimulationService.saveState(incrementalSession, population, game.getTreasureCells());
+        clock.lap(GamePhase.WRITE);
+        gameMetricsService.gameOver(clock);
+        gameMetricsService.eventsDropped(nbDroppedEvents);
+        checkpointService.deleteCheckpoints(checkpointSession);
+    }
+
+    /**
+     * Joue une partie reçue sans fichier d'entrée, par le serveur de parties, et renvoie son résultat au format du fichier de sortie.
+     * La partie a son propre {@link Game}, comme avec un fichier, mais n'utilise ni le cache des résultats, ni les sauvegardes,
+     * ni la reprise incrémentale, ni les trajectoires, qui sont rattachés au fichier d'entrée.
+     * Contrairement aux parties jouées depuis un fichier, les erreurs du contenu sont remontées à l'appelant pour lui être renvoyées.
+     *
+     * @param gameName     Le nom de la partie dans les logs
+     * @param inputContent Le contenu du fichier d'entrée, au format texte ou binaire
+     * @return Le contenu du fichier de sortie
+     * @throws IllegalArgumentException Si une ligne du contenu est invalide
+     * @throws IllegalStateException    Si le contenu est mal formaté
+     * @throws IOException              Si une erreur I/O se produit lors de l'écriture du résultat
+     */
+    public byte[] playGame(String gameName, byte[] inputContent) throws IOException {
+        String previousGame = gameEventService.enterGame(gameName);
+        try {
+            return playInputContent(gameName, inputContent);
+        } finally {
+            gameEventService.exitGame(previousGame);
+        }
+    }
+
+    private byte[] playInputContent(String gameName, byte[] inputContent) throws IOException {
+        GamePhaseClock clock = gameMetricsService.startClock();
+        Game game = gameReaderService.generateGame(inputContent, clock);
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        long nbTreasuresAtStart = gameMetricsService.countTreasures(population);
+        clock.lap(GamePhase.BUILD);
+        int nbTurns = gameSimulationService.playAllTurns(game, population);
+        clock.lap(GamePhase.SIMULATE);
+        gameMetricsService.simulationOver(population, 0, nbTurns, nbTreasuresAtStart);
+        population.writeTo(game.getAdventurers());
+        long nbDroppedEvents = gameEventService.gameOver(gameName, nbTurns, population);
+        byte[] output = outputFileService.getOutput(game);
+        clock.lap(GamePhase.WRITE);
+        gameMetricsService.gameOver(clock);
+        gameMetricsService.eventsDropped(nbDroppedEvents);
+        return output;
     }
 
-    private int playTurn(int turn) {
-        log.info("Tour n°" + turn);
-        for (Adventurer adventurer : game.getAdventurers()) {
-            moveAdventurerService.checkIfAdventurerIsDoneMoving(adventurer, turn);
-            if (!adventurer.isDoneMoving()) {
-                moveAdventurerService.playMove(game, adventurer, turn);
+    /**
+     * Convertit un fichier d'entrée dans l'autre format : le fichier source est lu et validé comme pour une partie,
+     * puis le jeu est écrit au format binaire si le fichier cible a l'extension {@code .tmb}, au format texte sinon.
+     *
+     * @param sourcePath Le chemin du fichier d'entrée à convertir, texte ou binaire
+     * @param targetPath Le chemin du fichier converti
+     * @return Si le fichier converti a été créé
+     */
+    public boolean convertInputFile(Path sourcePath, Path targetPath) {
+        try {
+            Path inputFilePath = Paths.get(inputFileService.checkInputFilePath(sourcePath.toString()));
+            String targetFilePath = inputFileService.checkInputFilePath(targetPath.toString());
+            Game game = gameReaderService.generateGame(inputFilePath, gameMetricsService.startClock());
+            if (FilenameUtils.getExtension(targetFilePath).equalsIgnoreCase(BinaryInputFileService.EXTENSION)) {
+                binaryInputFileService.writeBinary(game, targetPath);
+            } else {
+                binaryInputFileService.writeText(game, targetPath);
             }
+            log.info("Le fichier {} a été converti dans le fichier {}", sourcePath, targetPath);
+            return true;
+        } catch (NoSuchFileException e) {
+            log.error("Nom du fichier en erreur : {}", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            log.error("{} Veuillez corriger le fichier", e.getMessage());
+        } catch (IllegalStateException e) {
+            log.error("{} Veuillez revoir le fichier d'entrée", e.getMessage());
+        } catch (IOException e) {
+            log.error(e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Extrait la trajectoire d'un aventurier d'un fichier de trajectoire dans un fichier CSV, voir {@link TrajectoryService#exportPath(Path, String)}.
+     *
+     * @param trajectoryPath Le fichier de trajectoire d'une partie
+     * @param name           Le nom de l'aventurier
+     * @return Si le fichier CSV a été créé
+     */
+    public boolean exportTrajectory(Path trajectoryPath, String name) {
+        try {
+            Path pathFilePath = trajectoryService.exportPath(trajectoryPath, name);
+            log.info("La trajectoire de {} a été écrite dans {}", name, pathFilePath);
+            return true;
+        } catch (NoSuchFileException e) {
+            log.error("Nom du fichier en erreur : {}", e.getMessage());
+        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            log.error(e.getMessage());
         }
-        turn++;
-        return turn;
+        return false;
     }
 
     /**
-     * Cette méthode récupère le chemin du fichier d'entrée, le valide et crée tous les objets nécessaires au jeu.
+     * Vérifie tout le fichier d'entrée sans jouer la partie et écrit toutes ses erreurs dans un rapport, voir {@link InputFileValidationService}.
+     * Un fichier binaire, dont le format ne permet pas de continuer après une erreur, est seulement lu comme pour une partie.
      *
-     * @return inputFilePath le chemin du fichier d'entrée qui va servir pour créer le fichier de sortie à la fin du jeu
-     * @throws IOException Si une erreur I/O se produit lors de la lecture du fichier
+     * @param inputFilePath Le chemin du fichier d'entrée
+     * @return Si le fichier est valide
      */
-    private Path generateGame() throws IOException {
-        String inputFilePath = inputFileService.getAndCheckInputFilePath();
-        List<String> inputLines = inputFileService.readFile(inputFilePath);
-        inputValidationService.doFirstChecks(inputLines);
-        for (String line : inputLines) {
-            String[] splitLine = inputFileService.getCleanSplitElements(line);
-            switch (line) {
-                case String l when StringUtils.startsWithIgnoreCase(l, "C") -> {
-                    inputValidationService.checkMapLine(l, splitLine);
-                    game.setGameMap(gameAssetsCreatorService.createMap(splitLine));
-                }
-                case String l when StringUtils.startsWithIgnoreCase(l, "M") -> {
-                    inputValidationService.checkMountainLine(l, splitLine);
-                    game.getMountainCells().add(gameAssetsCreatorService.createMountain(splitLine, game, l));
-                }
-                case String l when StringUtils.startsWithIgnoreCase(l, "T") -> {
-                    inputValidationService.checkTreasureLine(l, splitLine);
-                    game.getTreasureCells().add(gameAssetsCreatorService.createTreasure(splitLine, game, l));
-                }
-                case String l when StringUtils.startsWithIgnoreCase(l, "A") -> {
-                    inputValidationService.checkAdventurerLine(l, splitLine);
-                    game.getAdventurers().add(gameAssetsCreatorService.createAdventurer(splitLine, game, l));
-                }
-                default ->
-                        throw new IllegalStateException("Problème lors de la génération du jeu à la ligne : " + line);
+    public boolean validateInputFile(Path inputFilePath) {
+        try {
+            Path path = Paths.get(inputFileService.checkInputFilePath(inputFilePath.toString()));
+            if (binaryInputFileService.isBinaryInputFile(path)) {
+                binaryInputFileService.readInto(new Game(), path);
+                log.info("Le fichier {} est valide", path);
+                return true;
+            }
+            long start = System.nanoTime();
+            InputValidationReport report = inputFileValidationService.validate(path);
+            Path reportPath = inputFileValidationService.writeReport(report, path);
+            long durationMs = (System.nanoTime() - start) / 1_000_000;
+            if (report.isValid()) {
+                log.info("Le fichier {} est valide : {} lignes vérifiées en {} ms", path, report.nbLines(), durationMs);
+                return true;
             }
+            log.error("Le fichier {} contient {} erreur(s) sur {} lignes, vérifiées en {} ms. Toutes les erreurs sont dans {}",
+                    path, report.errors().size(), report.nbLines(), durationMs, reportPath);
+            report.errors().stream().limit(MAX_LOGGED_ERRORS).forEach(error -> log.error("{}", error));
+        } catch (NoSuchFileException e) {
+            log.error("Nom du fichier en erreur : {}", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            log.error("{} Veuillez corriger le fichier", e.getMessage());
+        } catch (IllegalStateException e) {
+            log.error("{} Veuillez revoir le fichier d'entrée", e.getMessage());
+        } catch (IOException e) {
+            log.error(e.getMessage());
         }
-        return Paths.get(inputFilePath);
+        return false;
     }
 }
@@ -0,0 +1,218 @@
+package fr.exercice.treasuremap.controller;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ce controller garde le moteur de jeu en mémoire et joue les parties envoyées sur un port local, sans démarrer une JVM par partie :
+ * <li>Le fichier d'entrée d'une partie, texte ou binaire, est envoyé dans le corps d'une requête {@code POST /games}</li>
+ * <li>La partie est jouée sur un nombre borné de threads, avec son propre état, par {@link GameController#playGame(String, byte[])}</li>
+ * <li>Le résultat est renvoyé dans la réponse au format du fichier de sortie, une erreur du fichier d'entrée avec le code 400</li>
+ * <li>Lorsque la file d'attente des parties est pleine, les nouvelles parties sont refusées avec le code 429 plutôt que d'attendre sans limite,
+ * avant même que leur fichier d'entrée ne soit lu</li>
+ * Le serveur n'écoute que l'adresse locale de la machine.
+ */
+@Controller
+@Slf4j
+@RequiredArgsConstructor
+public class ServerController implements DisposableBean {
+    public static final String GAMES_PATH = "/games";
+    public static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private static final String TEXT_CONTENT_TYPE = "text/plain; charset=UTF-8";
+    private static final int RETRY_AFTER_SECONDS = 1;
+    private static final int STOP_TIMEOUT_SECONDS = 10;
+
+    @NonNull
+    private final GameController gameController;
+    @NonNull
+    private final TreasureMapProperties properties;
+
+    private final AtomicLong nbGames = new AtomicLong();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private HttpServer httpServer;
+    private ExecutorService exchangeExecutor;
+    private ThreadPoolExecutor gameExecutor;
+    // Une place par partie jouée ou en attente : une requête sans place est refusée avant la lecture de son corps
+    private Semaphore gameSlots;
+
+    /**
+     * Démarre le serveur et attend son arrêt, à l'arrêt de l'application.
+     *
+     * @return Si le serveur a pu démarrer
+     */
+    public boolean serve() {
+        try {
+            start();
+        } catch (IOException e) {
+            log.error("Impossible de démarrer le serveur de parties sur le port {} : {}", properties.getServer().getPort(), e.getMessage());
+            return false;
+        }
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    /**
+     * Démarre le serveur sans attendre son arrêt.
+     * Les requêtes sont lues sur des threads virtuels, qui attendent le résultat de leur partie sans occuper un thread de plateforme,
+     * et les parties sont jouées par un pool de threads. Le nombre de parties jouées ou en attente est borné par un sémaphore
+     * d'autant de places que de threads et de places dans la file d'attente.
+     *
+     * @throws IOException Si le port ne peut pas être ouvert
+     */
+    public synchronized void start() throws IOException {
+        TreasureMapProperties.Server server = properties.getServer();
+        int nbThreads = server.getThreads() > 0 ? server.getThreads() : Runtime.getRuntime().availableProcessors();
+        // Sans file d'attente, une partie n'est acceptée que si un thread est libre. La file du pool n'a pas besoin d'être bornée :
+        // elle ne contient jamais plus de parties que de places prises dans le sémaphore
+        gameSlots = new Semaphore(nbThreads + Math.max(0, server.getQueueCapacity()));
+        gameExecutor = new ThreadPoolExecutor(nbThreads, nbThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().name("serveur-partie-", 1).factory(), new ThreadPoolExecutor.AbortPolicy());
+        exchangeExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("serveur-requete-", 1).factory());
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()), 0);
+        httpServer.createContext(GAMES_PATH, this::handle);
+        httpServer.setExecutor(exchangeExecutor);
+        httpServer.start();
+        log.info("Serveur de parties démarré sur http://{}:{}{} : {} partie(s) en même temps, {} en attente au plus",
+                httpServer.getAddress().getHostString(), getPort(), GAMES_PATH, nbThreads, server.getQueueCapacity());
+    }
+
+    /**
+     * @return Le port sur lequel le serveur écoute, choisi au démarrage si le port configuré vaut 0
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Arrête de recevoir des parties et laisse un temps limité aux parties en cours et en attente pour se terminer.
+     * Le serveur HTTP n'est fermé qu'ensuite, avec une seconde pour envoyer les derniers résultats : sa fermeture attend
+     * le délai donné en entier, même sans requête en cours.
+     */
+    @Override
+    public synchronized void destroy() throws InterruptedException {
+        if (httpServer != null) {
+            gameExecutor.shutdown();
+            if (!gameExecutor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Des parties étaient encore en cours à l'arrêt du serveur");
+                gameExecutor.shutdownNow();
+            }
+            httpServer.stop(1);
+            exchangeExecutor.shutdownNow();
+            httpServer = null;
+            log.info("Serveur de parties arrêté après {} partie(s) reçue(s)", nbGames.get());
+        }
+        stopped.countDown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                sendText(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Une partie doit être envoyée avec la méthode POST");
+                return;
+            }
+            String gameName = "n°" + nbGames.incrementAndGet();
+            if (!gameSlots.tryAcquire()) {
+                log.warn("File d'attente pleine, la partie {} est refusée", gameName);
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+                sendText(exchange, HTTP_TOO_MANY_REQUESTS, "Trop de parties en attente, veuillez réessayer plus tard");
+                return;
+            }
+            try {
+                playGame(exchange, gameName);
+            } finally {
+                gameSlots.release();
+            }
+        }
+    }
+
+    private void playGame(HttpExchange exchange, String gameName) throws IOException {
+        byte[] inputContent = readBody(exchange);
+        if (inputContent == null) {
+            sendText(exchange, HttpURLConnection.HTTP_ENTITY_TOO_LARGE,
+                    "Le fichier d'entrée dépasse la taille maximale de " + properties.getServer().getMaxRequestSize().toBytes() + " octets");
+            return;
+        }
+        Future<byte[]> result;
+        try {
+            result = gameExecutor.submit(() -> gameController.playGame(gameName, inputContent));
+        } catch (RejectedExecutionException e) {
+            sendText(exchange, HttpURLConnection.HTTP_UNAVAILABLE, "Le serveur s'arrête, la partie n'a pas été jouée");
+            return;
+        }
+        sendResult(exchange, gameName, result);
+    }
+
+    /**
+     * @return Le corps de la requête, null s'il dépasse la taille maximale d'un fichier d'entrée
+     */
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        long maxRequestSize = properties.getServer().getMaxRequestSize().toBytes();
+        try (InputStream body = exchange.getRequestBody()) {
+            byte[] content = body.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxRequestSize + 1));
+            return content.length > maxRequestSize ? null : content;
+        }
+    }
+
+    private void sendResult(HttpExchange exchange, String gameName, Future<byte[]> result) throws IOException {
+        try {
+            byte[] output = result.get();
+            exchange.getResponseHeaders().set("Content-Type", TEXT_CONTENT_TYPE);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, output.length);
+            try (OutputStream responseBody = exchange.getResponseBody()) {
+                responseBody.write(output);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException || e.getCause() instanceof IllegalStateException) {
+                log.error("La partie {} n'a pas pu être jouée : {}", gameName, e.getCause().getMessage());
+                sendText(exchange, HttpURLConnection.HTTP_BAD_REQUEST, e.getCause().getMessage());
+            } else {
+                log.error("Erreur inattendue pendant la partie {} : {}", gameName, e.getCause().toString());
+                sendText(exchange, HttpURLConnection.HTTP_INTERNAL_ERROR, "Erreur inattendue pendant la partie");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            sendText(exchange, HttpURLConnection.HTTP_UNAVAILABLE, "Le serveur s'arrête avant la fin de la partie");
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", TEXT_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+}
@@ -19,9 +19,22 @@ public class Adventurer {
     private int posY;
     @NotNull
     private Orientation orientation;
-    @NotBlank
-    private String moves;
+    // Les mouvements compilés et rangés sur 2 bits, le texte des mouvements n'est pas conservé
+    @NotNull
+    private PackedMoves packedMoves;
     @PositiveOrZero
     private int nbTreasure = 0;
     private boolean isDoneMoving;
+
+    public Adventurer setMoves(String moves) {
+        this.packedMoves = PackedMoves.compile(moves);
+        return this;
+    }
+
+    /**
+     * @return Le texte des mouvements, construit à chaque appel à partir des mouvements compilés
+     */
+    public String getMoves() {
+        return packedMoves == null ? null : packedMoves.toString();
+    }
 }
@@ -0,0 +1,174 @@
+package fr.exercice.treasuremap.model;
+
+import lombok.Getter;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Représentation compacte de l'ensemble des aventuriers d'un jeu, utilisée pendant la simulation.
+ * Chaque aventurier est identifié par son indice dans la liste {@link Game#getAdventurers()} (l'ordre du fichier d'entrée),
+ * et ses données sont rangées dans des tableaux de primitifs parallèles :
+ * <li>Les positions X et Y et le nombre de trésors ramassés dans des {@code int[]}</li>
+ * <li>L'orientation dans un {@code byte[]} (ordinal de {@link Orientation})</li>
+ * <li>L'état "a fini de bouger" dans un bitset</li>
+ * <li>Les mouvements compilés de chaque aventurier ({@link PackedMoves}), partagés avec son {@link Adventurer} sans être recopiés</li>
+ * <li>Le tour jusqu'auquel l'aventurier n'a plus rien à jouer, après une suite de rotations jouée d'un coup</li>
+ * Elle est créée à partir des {@link Adventurer} avant le premier tour et recopiée dans ceux-ci à la fin du jeu.
+ */
+public class AdventurerPopulation {
+
+    @Getter
+    private final int size;
+    private final String[] names;
+    private final int[] posX;
+    private final int[] posY;
+    private final int[] nbTreasure;
+    private final byte[] orientations;
+    private final BitSet doneMoving;
+    private final PackedMoves[] moves;
+    private final int[] rotationRunEnds;
+
+    public AdventurerPopulation(List<Adventurer> adventurers) {
+        this.size = adventurers.size();
+        this.names = new String[size];
+        this.posX = new int[size];
+        this.posY = new int[size];
+        this.nbTreasure = new int[size];
+        this.orientations = new byte[size];
+        this.doneMoving = new BitSet(size);
+        this.moves = new PackedMoves[size];
+        this.rotationRunEnds = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            Adventurer adventurer = adventurers.get(i);
+            names[i] = adventurer.getName();
+            posX[i] = adventurer.getPosX();
+            posY[i] = adventurer.getPosY();
+            nbTreasure[i] = adventurer.getNbTreasure();
+            orientations[i] = (byte) adventurer.getOrientation().ordinal();
+            doneMoving.set(i, adventurer.isDoneMoving());
+            moves[i] = adventurer.getPackedMoves();
+        }
+    }
+
+    /**
+     * Recopie l'état de chaque aventurier dans la liste d'origine, pour que le fichier de sortie puisse être généré.
+     *
+     * @param adventurers La liste d'aventuriers ayant servi à créer la population, dans le même ordre
+     */
+    public void writeTo(List<Adventurer> adventurers) {
+        for (int i = 0; i < size; i++) {
+            adventurers.get(i)
+                    .setPosX(posX[i])
+                    .setPosY(posY[i])
+                    .setNbTreasure(nbTreasure[i])
+                    .setOrientation(getOrientation(i))
+                    .setDoneMoving(doneMoving.get(i));
+        }
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public int getPosX(int index) {
+        return posX[index];
+    }
+
+    public int getPosY(int index) {
+        return posY[index];
+    }
+
+    public void setPosition(int index, int newPosX, int newPosY) {
+        posX[index] = newPosX;
+        posY[index] = newPosY;
+    }
+
+    public int getNbTreasure(int index) {
+        return nbTreasure[index];
+    }
+
+    public void addTreasure(int index) {
+        nbTreasure[index]++;
+    }
+
+    public void setNbTreasure(int index, int newNbTreasure) {
+        nbTreasure[index] = newNbTreasure;
+    }
+
+    public Orientation getOrientation(int index) {
+        return Orientation.getOrientationWithOrdinal(orientations[index]);
+    }
+
+    public void setOrientation(int index, Orientation orientation) {
+        orientations[index] = (byte) orientation.ordinal();
+    }
+
+    public boolean isDoneMoving(int index) {
+        return doneMoving.get(index);
+    }
+
+    public void setDoneMoving(int index) {
+        doneMoving.set(index);
+    }
+
+    public int getNbMoves(int index) {
+        return moves[index].length();
+    }
+
+    public PackedMoves getPackedMoves(int index) {
+        return moves[index];
+    }
+
+    /**
+     * @return Le nombre de mouvements A de l'aventurier avant ce tour
+     */
+    public int countForwardMoves(int index, int toTurn) {
+        return moves[index].countForwardMoves(toTurn);
+    }
+
+    /**
+     * Joue d'un coup la suite de rotations qui commence à ce tour : l'orientation finale est appliquée tout de suite,
+     * puis l'aventurier n'a plus rien à jouer jusqu'au tour de son prochain mouvement A ou de sa fin de mouvements.
+     * Les autres aventuriers ne dépendent jamais de son orientation, seul le tour de ses déplacements compte pour eux.
+     *
+     * @param index L'indice de l'aventurier
+     * @param turn  Le tour en cours, dont le mouvement est une rotation
+     * @return Le tour du prochain mouvement à jouer par l'aventurier
+     */
+    public int playRotationRun(int index, int turn) {
+        PackedMoves packedMoves = moves[index];
+        int nbMoves = packedMoves.length();
+        int nbRightTurns = 0;
+        int runEnd = turn;
+        for (; runEnd < nbMoves && packedMoves.get(runEnd) != Move.FORWARD; runEnd++) {
+            nbRightTurns += packedMoves.get(runEnd) == Move.RIGHT ? 1 : 3;
+        }
+        orientations[index] = (byte) getOrientation(index).turnRight(nbRightTurns).ordinal();
+        rotationRunEnds[index] = runEnd;
+        return runEnd;
+    }
+
+    /**
+     * @return Si le mouvement de ce tour fait partie d'une suite de rotations déjà jouée par {@link #playRotationRun}
+     */
+    public boolean isInRotationRun(int index, int turn) {
+        return turn < rotationRunEnds[index];
+    }
+
+    public int getRotationRunEnd(int index) {
+        return rotationRunEnds[index];
+    }
+
+    public void setRotationRunEnd(int index, int runEnd) {
+        rotationRunEnds[index] = runEnd;
+    }
+
+    /**
+     * @return Le code {@link Move} du mouvement de l'aventurier pour ce tour
+     */
+    public byte getMove(int index, int turn) {
+        return moves[index].get(turn);
+    }
+}
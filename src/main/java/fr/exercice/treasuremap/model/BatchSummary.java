@@ -0,0 +1,15 @@
+package fr.exercice.treasuremap.model;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Bilan d'un batch de parties : le nombre de parties réussies, les fichiers d'entrée des parties en échec et la durée totale du batch.
+ */
+public record BatchSummary(int nbSuccesses, List<Path> failures, Duration wallTime) {
+
+    public int nbGames() {
+        return nbSuccesses + failures.size();
+    }
+}
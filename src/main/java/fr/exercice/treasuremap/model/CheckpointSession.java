@@ -0,0 +1,77 @@
+package fr.exercice.treasuremap.model;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * Sauvegardes d'une partie en cours : les deux fichiers utilisés à tour de rôle, l'empreinte du fichier d'entrée
+ * et le moment de la dernière sauvegarde, pour savoir si la suivante est due à la fin d'un tour.
+ * La sauvegarde la plus ancienne est toujours remplacée : si l'écriture de la dernière est interrompue, la précédente reste valide.
+ */
+public class CheckpointSession {
+
+    @Getter
+    private final Path[] checkpointPaths;
+    @Getter
+    private final long inputChecksum;
+    private final int everyTurns;
+    private final long intervalNanos;
+    @Getter
+    private final int startTurn;
+    private int lastCheckpointTurn;
+    private long lastCheckpointNanos;
+    private int nextSlot;
+
+    /**
+     * @param checkpointPaths Les deux fichiers de sauvegarde de la partie
+     * @param inputChecksum   L'empreinte du fichier d'entrée, pour ne jamais reprendre la sauvegarde d'une autre partie
+     * @param everyTurns      Le nombre de tours entre deux sauvegardes, 0 pour ne pas sauvegarder par nombre de tours
+     * @param intervalNanos   Le temps entre deux sauvegardes, 0 pour ne pas sauvegarder périodiquement
+     * @param startTurn       Le tour auquel la partie commence, celui de la sauvegarde reprise
+     * @param nextSlot        L'indice du prochain fichier de sauvegarde à écrire
+     */
+    public CheckpointSession(Path[] checkpointPaths, long inputChecksum, int everyTurns, long intervalNanos, int startTurn, int nextSlot) {
+        this.checkpointPaths = checkpointPaths;
+        this.inputChecksum = inputChecksum;
+        this.everyTurns = everyTurns;
+        this.intervalNanos = intervalNanos;
+        this.startTurn = startTurn;
+        this.lastCheckpointTurn = startTurn;
+        this.lastCheckpointNanos = System.nanoTime();
+        this.nextSlot = nextSlot;
+    }
+
+    public boolean isEnabled() {
+        return everyTurns > 0 || intervalNanos > 0;
+    }
+
+    /**
+     * @param turn Le prochain tour à jouer
+     * @return Si une sauvegarde doit être écrite avant de jouer ce tour
+     */
+    public boolean isCheckpointDue(int turn) {
+        return (everyTurns > 0 && turn - lastCheckpointTurn >= everyTurns)
+                || (intervalNanos > 0 && System.nanoTime() - lastCheckpointNanos >= intervalNanos);
+    }
+
+    /**
+     * @return Le fichier dans lequel écrire la prochaine sauvegarde
+     */
+    public Path getNextCheckpointPath() {
+        return checkpointPaths[nextSlot];
+    }
+
+    public void checkpointWritten(int turn) {
+        checkpointFailed(turn);
+        nextSlot = 1 - nextSlot;
+    }
+
+    /**
+     * Une sauvegarde en échec n'est retentée qu'à l'échéance suivante, le fichier visé n'ayant pas été modifié.
+     */
+    public void checkpointFailed(int turn) {
+        lastCheckpointTurn = turn;
+        lastCheckpointNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,13 @@
+package fr.exercice.treasuremap.model;
+
+/**
+ * Niveau de détail des événements de jeu ({@code treasuremap.events.level}) :
+ * <li>OFF : aucun événement, seules les erreurs et la création des fichiers sont indiquées</li>
+ * <li>SUMMARY : un bilan par partie (nombre de tours, d'aventuriers et de trésors ramassés)</li>
+ * <li>TRACE : le bilan et le détail de chaque tour et de chaque mouvement, écrits de manière asynchrone</li>
+ */
+public enum EventLevel {
+    OFF,
+    SUMMARY,
+    TRACE
+}
@@ -0,0 +1,11 @@
+package fr.exercice.treasuremap.model;
+
+/**
+ * Comportement de la simulation lorsque le buffer des événements détaillés est plein ({@code treasuremap.events.full-buffer-policy}) :
+ * <li>DROP : l'événement est perdu et compté, la simulation n'attend jamais l'écriture des logs</li>
+ * <li>BLOCK : la simulation attend que le thread d'écriture libère des cases, aucun événement n'est perdu</li>
+ */
+public enum FullBufferPolicy {
+    DROP,
+    BLOCK
+}
@@ -0,0 +1,98 @@
+package fr.exercice.treasuremap.model;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Index des assets d'un jeu en cours de création, pour vérifier en temps constant qu'une case est libre et qu'un nom n'est pas déjà pris :
+ * <li>Le type d'asset présent sur chaque case occupée, dans une {@link PositionTable}</li>
+ * <li>Les noms des aventuriers</li>
+ * Il est créé par le lecteur du fichier d'entrée pour le jeu en cours de création, et passé à chaque création d'asset.
+ * Les assets sont ajoutés aux listes du {@link Game} après leur création : l'index rattrape les éléments ajoutés depuis la dernière mise à jour,
+ * et il est reconstruit si l'une des listes a été remplacée ou raccourcie.
+ */
+public class GameAssetsIndex {
+
+    public enum AssetType {
+        MOUNTAIN,
+        TREASURE,
+        ADVENTURER
+    }
+
+    private static final AssetType[] ASSET_TYPES = AssetType.values();
+
+    private final Game game;
+    // Ordinal du type d'asset présent sur chaque case occupée
+    private final PositionTable assetTypes = new PositionTable();
+    private final Set<String> adventurerNames = new HashSet<>();
+    private List<Cell> indexedMountainCells;
+    private List<Cell> indexedTreasureCells;
+    private List<Adventurer> indexedAdventurers;
+    private int nbIndexedMountains;
+    private int nbIndexedTreasures;
+    private int nbIndexedAdventurers;
+
+    /**
+     * @param game Le jeu en cours de création dont les assets sont indexés
+     */
+    public GameAssetsIndex(Game game) {
+        this.game = game;
+    }
+
+    public Game getGame() {
+        return game;
+    }
+
+    /**
+     * Ajoute à l'index les assets créés depuis la dernière mise à jour. À position égale, le premier type indexé est conservé,
+     * dans l'ordre montagnes, trésors puis aventuriers.
+     */
+    public void update() {
+        if (isOutdated(game.getMountainCells(), indexedMountainCells, nbIndexedMountains)
+                || isOutdated(game.getTreasureCells(), indexedTreasureCells, nbIndexedTreasures)
+                || isOutdated(game.getAdventurers(), indexedAdventurers, nbIndexedAdventurers)) {
+            clear();
+        }
+        for (; nbIndexedMountains < indexedMountainCells.size(); nbIndexedMountains++) {
+            Cell mountain = indexedMountainCells.get(nbIndexedMountains);
+            assetTypes.putIfAbsent(PositionTable.positionKey(mountain.getPosX(), mountain.getPosY()), AssetType.MOUNTAIN.ordinal());
+        }
+        for (; nbIndexedTreasures < indexedTreasureCells.size(); nbIndexedTreasures++) {
+            Cell treasure = indexedTreasureCells.get(nbIndexedTreasures);
+            assetTypes.putIfAbsent(PositionTable.positionKey(treasure.getPosX(), treasure.getPosY()), AssetType.TREASURE.ordinal());
+        }
+        for (; nbIndexedAdventurers < indexedAdventurers.size(); nbIndexedAdventurers++) {
+            Adventurer adventurer = indexedAdventurers.get(nbIndexedAdventurers);
+            assetTypes.putIfAbsent(PositionTable.positionKey(adventurer.getPosX(), adventurer.getPosY()), AssetType.ADVENTURER.ordinal());
+            adventurerNames.add(adventurer.getName());
+        }
+    }
+
+    /**
+     * @return Le type d'asset présent sur la case, {@code null} si elle est libre
+     */
+    public AssetType getAssetType(int posX, int posY) {
+        int assetType = assetTypes.get(PositionTable.positionKey(posX, posY));
+        return assetType == PositionTable.NO_VALUE ? null : ASSET_TYPES[assetType];
+    }
+
+    public boolean containsAdventurerName(String name) {
+        return adventurerNames.contains(name);
+    }
+
+    private static boolean isOutdated(List<?> assets, List<?> indexedAssets, int nbIndexedAssets) {
+        return assets != indexedAssets || assets.size() < nbIndexedAssets;
+    }
+
+    private void clear() {
+        assetTypes.clear();
+        adventurerNames.clear();
+        indexedMountainCells = game.getMountainCells();
+        indexedTreasureCells = game.getTreasureCells();
+        indexedAdventurers = game.getAdventurers();
+        nbIndexedMountains = 0;
+        nbIndexedTreasures = 0;
+        nbIndexedAdventurers = 0;
+    }
+}
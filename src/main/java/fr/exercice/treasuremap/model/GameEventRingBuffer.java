@@ -0,0 +1,110 @@
+package fr.exercice.treasuremap.model;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Buffer circulaire de taille fixe transmettant les événements de jeu des threads de simulation à un unique thread d'écriture.
+ * Chaque événement occupe une case de tableaux de primitifs préalloués (type, partie, nom de l'aventurier et trois entiers) :
+ * publier un événement n'alloue aucun objet et ne prend aucun verrou.
+ * <li>Plusieurs threads peuvent publier en même temps : chacun réserve une case en incrémentant la séquence de publication</li>
+ * <li>Une case est lisible lorsque sa séquence a été publiée, le lecteur libère les cases dans l'ordre des séquences</li>
+ * <li>Si le buffer est plein, l'événement est refusé : c'est à l'appelant de le perdre ou d'attendre que le lecteur libère des cases</li>
+ */
+public class GameEventRingBuffer {
+
+    /**
+     * Reçoit les champs d'un événement lu dans le buffer.
+     */
+    @FunctionalInterface
+    public interface GameEventHandler {
+        void onEvent(GameEventType type, String game, String name, int value1, int value2, int value3);
+    }
+
+    @Getter
+    private final int capacity;
+    private final int mask;
+    private final byte[] types;
+    private final String[] games;
+    private final String[] names;
+    private final int[] values1;
+    private final int[] values2;
+    private final int[] values3;
+    // publishedSequences[case] vaut la séquence de l'événement de la case + 1 une fois celui-ci entièrement écrit, 0 tant que la case n'a jamais servi
+    private final AtomicLongArray publishedSequences;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicLong consumedSequence = new AtomicLong();
+
+    /**
+     * @param minCapacity Le nombre minimal d'événements en attente d'écriture, arrondi à la puissance de 2 supérieure
+     */
+    public GameEventRingBuffer(int minCapacity) {
+        if (minCapacity <= 0 || minCapacity > 1 << 30) {
+            throw new IllegalArgumentException("La taille du buffer d'événements doit être comprise entre 1 et " + (1 << 30) + " : " + minCapacity);
+        }
+        this.capacity = minCapacity == 1 ? 1 : Integer.highestOneBit(minCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.types = new byte[capacity];
+        this.games = new String[capacity];
+        this.names = new String[capacity];
+        this.values1 = new int[capacity];
+        this.values2 = new int[capacity];
+        this.values3 = new int[capacity];
+        this.publishedSequences = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * @param game La partie à laquelle appartient l'événement, pour distinguer les parties jouées en même temps
+     * @return Si l'événement a été publié, {@code false} si le buffer est plein
+     */
+    public boolean offer(GameEventType type, String game, String name, int value1, int value2, int value3) {
+        long sequence;
+        do {
+            sequence = nextSequence.get();
+            if (sequence - consumedSequence.get() >= capacity) {
+                return false;
+            }
+        } while (!nextSequence.compareAndSet(sequence, sequence + 1));
+
+        int index = (int) sequence & mask;
+        types[index] = (byte) type.ordinal();
+        games[index] = game;
+        names[index] = name;
+        values1[index] = value1;
+        values2[index] = value2;
+        values3[index] = value3;
+        publishedSequences.setRelease(index, sequence + 1);
+        return true;
+    }
+
+    /**
+     * Lit dans l'ordre tous les événements publiés à la suite depuis le dernier appel. Un seul thread doit lire le buffer.
+     *
+     * @param handler Reçoit chaque événement lu
+     * @return Le nombre d'événements lus
+     */
+    public int drain(GameEventHandler handler) {
+        long sequence = consumedSequence.get();
+        int nbEvents = 0;
+        int index = (int) sequence & mask;
+        while (publishedSequences.getAcquire(index) == sequence + 1) {
+            handler.onEvent(GameEventType.getTypeWithOrdinal(types[index]), games[index], names[index], values1[index], values2[index], values3[index]);
+            games[index] = null;
+            names[index] = null;
+            sequence++;
+            consumedSequence.setRelease(sequence);
+            nbEvents++;
+            index = (int) sequence & mask;
+        }
+        return nbEvents;
+    }
+
+    /**
+     * @return Si des cases ont été réservées et pas encore lues
+     */
+    public boolean hasPendingEvents() {
+        return nextSequence.get() != consumedSequence.get();
+    }
+}
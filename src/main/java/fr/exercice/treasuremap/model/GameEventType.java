@@ -0,0 +1,34 @@
+package fr.exercice.treasuremap.model;
+
+import lombok.Getter;
+
+/**
+ * Les événements du détail d'une partie, avec le message écrit pour chacun. Dans le {@link GameEventRingBuffer},
+ * un événement est rangé sous la forme de son ordinal, du nom de sa partie, du nom de l'aventurier et de trois entiers dont le sens dépend du type.
+ */
+@Getter
+public enum GameEventType {
+    // Numéro du tour
+    TURN("Tour n°{}"),
+    // Position X, position Y et ordinal de l'orientation
+    NEW_POSITION("Nouvelle position de {}: {}, {} et orientation : {}"),
+    // Nombre de trésors de l'aventurier
+    NEW_TREASURE("Nouveau trésor pour {} ! L'aventurier possède désormais {} trésor(s)"),
+    OUT_OF_MAP("Le mouvement de l'aventurier {} sort de la carte, il ne bouge pas sur ce tour"),
+    MOUNTAIN("Il y a une montagne sur cette case, l'aventurier {} ne bouge pas sur ce tour"),
+    ADVENTURER_PRESENT("Il y a déjà un aventurier sur cette case, l'aventurier {} ne bouge pas sur ce tour"),
+    // Nombre de trésors de l'aventurier
+    DONE_MOVING("L'aventurier {} a terminé tous ses mouvements et possède {} trésor(s)");
+
+    private static final GameEventType[] TYPES = values();
+
+    private final String message;
+
+    GameEventType(String message) {
+        this.message = message;
+    }
+
+    public static GameEventType getTypeWithOrdinal(int ordinal) {
+        return TYPES[ordinal];
+    }
+}
@@ -0,0 +1,148 @@
+package fr.exercice.treasuremap.model;
+
+import lombok.Getter;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Index spatial dense du jeu, construit une seule fois à partir du {@link Game}.
+ * Chaque case de la carte a un indice unique, ce qui permet de savoir en temps constant :
+ * <li>S'il y a une montagne sur la case (bitset)</li>
+ * <li>S'il y a un trésor sur la case (grille d'indices vers {@link Game#getTreasureCells()})</li>
+ * <li>Si un aventurier occupe la case (grille d'occupation mise à jour à chaque déplacement)</li>
+ * Les cases sont rangées ligne par ligne, ou tuile par tuile si une taille de tuile est donnée : les cases d'une même tuile
+ * sont alors contiguës en mémoire, ce qui garde dans le cache du processeur les cases utilisées par le thread qui traite la tuile.
+ * Les tuiles sont carrées, sauf sur un axe où la carte est plus petite qu'une tuile : leur côté y est limité à la carte.
+ * Les indices de cases servent aussi au moteur parallèle, qui ne fonctionne qu'avec cette représentation.
+ */
+@Getter
+public final class GameGrid extends GameWorld {
+
+    // Nombre maximal de cases d'une grille dense, limité par la taille maximale d'un tableau
+    private static final long MAX_NB_CELLS = Integer.MAX_VALUE - 8;
+
+    // Puissances de 2 de la largeur et de la hauteur des tuiles, 0 si les cases sont rangées ligne par ligne
+    private final int tileShiftX;
+    private final int tileShiftY;
+    private final int nbTilesX;
+    private final int nbTilesY;
+    private final int nbCells;
+    private final BitSet mountains;
+    // Indice du trésor dans la liste du jeu + 1, 0 s'il n'y a pas de trésor sur la case
+    private final int[] treasureIndexes;
+    // Indice de l'aventurier dans la liste du jeu + 1, 0 si la case est libre
+    private final int[] occupants;
+
+    public GameGrid(Game game) {
+        this(game, 0);
+    }
+
+    /**
+     * @param game     Le jeu dont les assets sont indexés
+     * @param tileSize La taille du côté des tuiles, arrondie à la puissance de 2 supérieure et limitée sur chaque axe à la taille de la carte,
+     *                 0 ou 1 pour ranger les cases ligne par ligne
+     * @throws IllegalArgumentException Si la taille des tuiles est invalide ou si la carte a trop de cases pour une grille dense
+     */
+    public GameGrid(Game game, int tileSize) {
+        super(game);
+        int width = getWidth();
+        int height = getHeight();
+        if (tileSize < 0 || tileSize > 1 << 15) {
+            throw new IllegalArgumentException("La taille des tuiles doit être comprise entre 0 et " + (1 << 15) + " : " + tileSize);
+        }
+        // Une tuile plus large ou plus haute que la carte ajouterait seulement des cases inutilisées : son côté est limité axe par axe
+        int tileShift = tileSize <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(tileSize - 1);
+        this.tileShiftX = Math.min(tileShift, 32 - Integer.numberOfLeadingZeros(width));
+        this.tileShiftY = Math.min(tileShift, 32 - Integer.numberOfLeadingZeros(height));
+        long nbCellsOfGrid;
+        if (tileShift == 0) {
+            this.nbTilesX = 1;
+            this.nbTilesY = 1;
+            nbCellsOfGrid = (width + 1L) * (height + 1L);
+        } else {
+            this.nbTilesX = (width >> tileShiftX) + 1;
+            this.nbTilesY = (height >> tileShiftY) + 1;
+            nbCellsOfGrid = (long) nbTilesX * nbTilesY << (tileShiftX + tileShiftY);
+        }
+        if (nbCellsOfGrid > MAX_NB_CELLS) {
+            throw new IllegalArgumentException("La carte compte " + nbCellsOfGrid + " cases, au-delà des " + MAX_NB_CELLS
+                    + " cases d'une grille dense. Utilisez treasuremap.simulation.sparse-map pour la jouer");
+        }
+        this.nbCells = (int) nbCellsOfGrid;
+        this.mountains = new BitSet(nbCells);
+        this.treasureIndexes = new int[nbCells];
+        this.occupants = new int[nbCells];
+
+        for (Cell mountain : game.getMountainCells()) {
+            mountains.set(cellIndex(mountain.getPosX(), mountain.getPosY()));
+        }
+        List<Cell> treasureCells = game.getTreasureCells();
+        for (int i = 0; i < treasureCells.size(); i++) {
+            Cell treasure = treasureCells.get(i);
+            treasureIndexes[cellIndex(treasure.getPosX(), treasure.getPosY())] = i + 1;
+        }
+        List<Adventurer> adventurers = game.getAdventurers();
+        for (int i = 0; i < adventurers.size(); i++) {
+            occupants[cellIndex(adventurers.get(i).getPosX(), adventurers.get(i).getPosY())] = i + 1;
+        }
+    }
+
+    public int cellIndex(int posX, int posY) {
+        if (tileShiftX + tileShiftY == 0) {
+            return posY * (getWidth() + 1) + posX;
+        }
+        return (tileIndex(posX, posY) << (tileShiftX + tileShiftY)) + ((posY & ((1 << tileShiftY) - 1)) << tileShiftX) + (posX & ((1 << tileShiftX) - 1));
+    }
+
+    /**
+     * @return L'indice de la tuile qui contient la case, les tuiles étant numérotées ligne par ligne
+     */
+    public int tileIndex(int posX, int posY) {
+        if (tileShiftX + tileShiftY == 0) {
+            return 0;
+        }
+        return (posY >> tileShiftY) * nbTilesX + (posX >> tileShiftX);
+    }
+
+    public int getNbTiles() {
+        return nbTilesX * nbTilesY;
+    }
+
+    @Override
+    public boolean isMountain(int posX, int posY) {
+        return mountains.get(cellIndex(posX, posY));
+    }
+
+    @Override
+    public boolean isOccupied(int posX, int posY) {
+        return isOccupied(cellIndex(posX, posY));
+    }
+
+    public boolean isOccupied(int cellIndex) {
+        return occupants[cellIndex] != 0;
+    }
+
+    public boolean hasTreasure(int cellIndex) {
+        return treasureIndexes[cellIndex] != 0;
+    }
+
+    @Override
+    public void moveOccupant(int fromPosX, int fromPosY, int toPosX, int toPosY) {
+        moveOccupant(cellIndex(fromPosX, fromPosY), cellIndex(toPosX, toPosY));
+    }
+
+    public void moveOccupant(int fromCellIndex, int toCellIndex) {
+        occupants[toCellIndex] = occupants[fromCellIndex];
+        occupants[fromCellIndex] = 0;
+    }
+
+    @Override
+    public boolean pickUpTreasure(int posX, int posY) {
+        return pickUpTreasure(cellIndex(posX, posY));
+    }
+
+    public boolean pickUpTreasure(int cellIndex) {
+        return pickUpTreasureAt(treasureIndexes[cellIndex] - 1);
+    }
+}
@@ -0,0 +1,17 @@
+package fr.exercice.treasuremap.model;
+
+/**
+ * Les étapes d'une partie mesurées par les métriques ({@code treasuremap.metrics.enabled}) :
+ * <li>READ : la lecture et le découpage des lignes du fichier d'entrée</li>
+ * <li>VALIDATE : les vérifications de chaque ligne</li>
+ * <li>BUILD : la création des assets, de la population d'aventuriers et des sauvegardes de la partie</li>
+ * <li>SIMULATE : les tours de jeu</li>
+ * <li>WRITE : l'écriture du fichier de sortie</li>
+ */
+public enum GamePhase {
+    READ,
+    VALIDATE,
+    BUILD,
+    SIMULATE,
+    WRITE
+}
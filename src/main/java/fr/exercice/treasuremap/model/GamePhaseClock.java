@@ -0,0 +1,38 @@
+package fr.exercice.treasuremap.model;
+
+/**
+ * Chronomètre des étapes d'une seule partie : chaque appel à {@link #lap(GamePhase)} attribue le temps écoulé depuis l'appel précédent à l'étape indiquée.
+ * Les étapes entrelacées de la lecture ligne par ligne (lecture, vérification, création) sont ainsi cumulées sur tout le fichier.
+ * Un chronomètre désactivé ne lit jamais l'horloge.
+ */
+public class GamePhaseClock {
+
+    private static final GamePhase[] PHASES = GamePhase.values();
+
+    private final boolean enabled;
+    private final long[] phaseNanos = new long[PHASES.length];
+    private long lastLapNanos;
+
+    public GamePhaseClock(boolean enabled) {
+        this.enabled = enabled;
+        this.lastLapNanos = enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @param phase L'étape qui vient de se terminer
+     */
+    public void lap(GamePhase phase) {
+        if (enabled) {
+            long now = System.nanoTime();
+            phaseNanos[phase.ordinal()] += now - lastLapNanos;
+            lastLapNanos = now;
+        }
+    }
+
+    /**
+     * @return Le temps total passé dans l'étape, en nanosecondes
+     */
+    public long getNanos(GamePhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+}
@@ -0,0 +1,74 @@
+package fr.exercice.treasuremap.model;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Index spatial du jeu, utilisé par le moteur séquentiel pour savoir en temps constant si une case est dans la carte,
+ * si elle porte une montagne ou un trésor et si un aventurier l'occupe. Il a deux représentations :
+ * <li>{@link GameGrid} : une case par position de la carte, dans des tableaux, pour les cartes jusqu'à la taille maximale</li>
+ * <li>{@link SparseGameGrid} : des blocs de cases alloués seulement là où se trouvent des assets, pour les cartes immenses et presque vides</li>
+ * Les positions valides vont de 0 à la largeur (ou hauteur) incluse, comme dans la vérification de sortie de carte du jeu.
+ */
+@Getter
+public abstract class GameWorld {
+
+    private final int width;
+    private final int height;
+    private final List<Cell> treasureCells;
+    // Indice du premier trésor épuisé de la liste : les trésors situés après lui ne sont plus ramassés (comportement historique du jeu)
+    private int firstDepletedTreasureIndex;
+
+    protected GameWorld(Game game) {
+        this.width = game.getGameMap().getWidth();
+        this.height = game.getGameMap().getHeight();
+        this.treasureCells = game.getTreasureCells();
+        this.firstDepletedTreasureIndex = treasureCells.size();
+        for (int i = 0; i < treasureCells.size(); i++) {
+            if (treasureCells.get(i).getNbTreasure() == 0) {
+                firstDepletedTreasureIndex = i;
+                break;
+            }
+        }
+    }
+
+    public boolean isWithinMap(int posX, int posY) {
+        return posX >= 0 && posY >= 0 && posX <= width && posY <= height;
+    }
+
+    public abstract boolean isMountain(int posX, int posY);
+
+    public abstract boolean isOccupied(int posX, int posY);
+
+    /**
+     * Met à jour l'occupation des cases lorsqu'un aventurier quitte sa case pour une autre.
+     */
+    public abstract void moveOccupant(int fromPosX, int fromPosY, int toPosX, int toPosY);
+
+    /**
+     * Ramasse un trésor sur la case s'il y en a un, voir {@link #pickUpTreasureAt(int)}.
+     *
+     * @return Si un trésor a été ramassé
+     */
+    public abstract boolean pickUpTreasure(int posX, int posY);
+
+    /**
+     * Ramasse un trésor de la liste du jeu. Comme le parcours historique de la liste des trésors s'arrêtait
+     * au premier trésor épuisé, seul un trésor placé avant celui-ci dans la liste peut encore être ramassé.
+     *
+     * @param treasureIndex L'indice du trésor de la case dans la liste du jeu, -1 s'il n'y a pas de trésor sur la case
+     * @return Si un trésor a été ramassé
+     */
+    protected boolean pickUpTreasureAt(int treasureIndex) {
+        if (treasureIndex < 0 || treasureIndex >= firstDepletedTreasureIndex) {
+            return false;
+        }
+        Cell treasure = treasureCells.get(treasureIndex);
+        treasure.setNbTreasure(treasure.getNbTreasure() - 1);
+        if (treasure.getNbTreasure() == 0) {
+            firstDepletedTreasureIndex = treasureIndex;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,34 @@
+package fr.exercice.treasuremap.model;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * Reprise incrémentale d'une partie : le fichier de l'état final, l'empreinte de la partie hors mouvements,
+ * calculée avant le premier tour, et le tour auquel la partie commence.
+ */
+@Getter
+public class IncrementalSession {
+
+    private final Path statePath;
+    private final byte[] gameDigest;
+    private int startTurn;
+
+    /**
+     * @param statePath  Le fichier de l'état final de la partie, null si la reprise incrémentale est désactivée
+     * @param gameDigest L'empreinte de la carte, des montagnes, des trésors et de l'état de départ des aventuriers
+     */
+    public IncrementalSession(Path statePath, byte[] gameDigest) {
+        this.statePath = statePath;
+        this.gameDigest = gameDigest;
+    }
+
+    public boolean isEnabled() {
+        return statePath != null;
+    }
+
+    public void resumed(int turn) {
+        this.startTurn = turn;
+    }
+}
@@ -0,0 +1,26 @@
+package fr.exercice.treasuremap.model;
+
+import java.util.List;
+
+/**
+ * Bilan de la vérification complète d'un fichier d'entrée : le nombre de lignes vérifiées et toutes les erreurs trouvées,
+ * triées par numéro de ligne, au plus une par ligne.
+ */
+public record InputValidationReport(long nbLines, List<LineError> errors) {
+
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * @param lineNumber Le numéro de la ligne fautive, à partir de 1
+     * @param message    Le message d'erreur de la ligne, le même que lors de la lecture du fichier pour une partie
+     */
+    public record LineError(long lineNumber, String message) {
+
+        @Override
+        public String toString() {
+            return "Ligne " + lineNumber + " : " + message;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package fr.exercice.treasuremap.model;
+
+/**
+ * Les mouvements possibles d'un aventurier. Les mouvements du fichier d'entrée sont compilés une seule fois au chargement
+ * sous forme de codes (l'ordinal du mouvement, rangé sur 2 bits par {@link PackedMoves}), pour ne plus avoir à les interpréter à chaque tour :
+ * <li>A pour avancer d'une case</li>
+ * <li>D pour se tourner vers la droite</li>
+ * <li>G pour se tourner vers la gauche</li>
+ */
+public enum Move {
+    A,
+    D,
+    G;
+
+    public static final byte FORWARD = 0;
+    public static final byte RIGHT = 1;
+    public static final byte LEFT = 2;
+
+    /**
+     * Tout mouvement qui n'est ni A ni D fait tourner l'aventurier vers la gauche, comme l'interprétation historique des mouvements.
+     *
+     * @param move La lettre du mouvement, en majuscule ou minuscule
+     * @return Le code du mouvement
+     */
+    public static byte compile(char move) {
+        return switch (move) {
+            case 'A', 'a' -> FORWARD;
+            case 'D', 'd' -> RIGHT;
+            default -> LEFT;
+        };
+    }
+
+    /**
+     * @param code Le code du mouvement
+     * @return La lettre majuscule du mouvement
+     */
+    public static char toLetter(byte code) {
+        return switch (code) {
+            case FORWARD -> 'A';
+            case RIGHT -> 'D';
+            default -> 'G';
+        };
+    }
+}
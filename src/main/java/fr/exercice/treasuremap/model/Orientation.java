@@ -7,6 +7,7 @@ import lombok.Getter;
  * La lettre correspondant au point cardinal
  * Un array de deux entiers permettant de calculer les changements de position des aventuriers
  * Une valeur d'angle permettant de calculer les changements d'orientation des aventuriers
+ * Les orientations obtenues en tournant à gauche ou à droite sont précalculées à partir de ces angles
  */
 @Getter
 public enum Orientation {
@@ -15,6 +16,17 @@ public enum Orientation {
     E(new int[]{1, 0}, 90),
     O(new int[]{-1, 0}, 270);
 
+    private static final Orientation[] ORIENTATIONS = values();
+    private static final Orientation[] RIGHT_TURNS = new Orientation[ORIENTATIONS.length];
+    private static final Orientation[] LEFT_TURNS = new Orientation[ORIENTATIONS.length];
+
+    static {
+        for (Orientation orientation : ORIENTATIONS) {
+            RIGHT_TURNS[orientation.ordinal()] = getOrientationWithAngle(orientation.angle + 90);
+            LEFT_TURNS[orientation.ordinal()] = getOrientationWithAngle(orientation.angle - 90);
+        }
+    }
+
     private final int[] coordinates;
     private final int angle;
 
@@ -32,4 +44,36 @@ public enum Orientation {
             default -> null;
         };
     }
+
+    public static Orientation getOrientationWithOrdinal(int ordinal) {
+        return ORIENTATIONS[ordinal];
+    }
+
+    public Orientation turnRight() {
+        return RIGHT_TURNS[ordinal()];
+    }
+
+    public Orientation turnLeft() {
+        return LEFT_TURNS[ordinal()];
+    }
+
+    /**
+     * @param nbRightTurns Le nombre de quarts de tour vers la droite, un quart de tour vers la gauche valant 3 quarts de tour vers la droite
+     * @return L'orientation obtenue après les rotations
+     */
+    public Orientation turnRight(int nbRightTurns) {
+        Orientation orientation = this;
+        for (int i = nbRightTurns & 3; i > 0; i--) {
+            orientation = orientation.turnRight();
+        }
+        return orientation;
+    }
+
+    /**
+     * @param move Le code d'un mouvement de rotation {@link Move#RIGHT} ou {@link Move#LEFT}
+     * @return L'orientation obtenue après la rotation
+     */
+    public Orientation turn(byte move) {
+        return move == Move.RIGHT ? turnRight() : turnLeft();
+    }
 }
@@ -0,0 +1,149 @@
+package fr.exercice.treasuremap.model;
+
+/**
+ * Les mouvements compilés d'un aventurier, rangés sur 2 bits chacun : 32 codes de {@link Move} par {@code long},
+ * le mouvement du tour {@code t} occupant les bits {@code 2 * (t % 32)} du mot {@code t / 32}.
+ * Un script d'un million de mouvements tient ainsi en 250 Ko, et le mouvement d'un tour est lu en temps constant.
+ * Les mouvements ne changent jamais pendant la partie : l'objet est en lecture seule et peut être partagé entre plusieurs threads.
+ * Le texte des mouvements n'est construit qu'à la demande, par {@link #toString()}.
+ */
+public final class PackedMoves {
+
+    public static final int MOVES_PER_WORD = Long.SIZE / 2;
+    private static final int WORD_SHIFT = 5;
+    private static final long MOVE_MASK = 3;
+    // Le bit de poids faible de chaque code : un code vaut 3 si ses deux bits sont à 1
+    private static final long LOW_BITS = 0x5555555555555555L;
+
+    private final long[] words;
+    private final int length;
+
+    private PackedMoves(long[] words, int length) {
+        this.words = words;
+        this.length = length;
+    }
+
+    /**
+     * Compile les lettres des mouvements, voir {@link Move#compile(char)}
+     *
+     * @param moves Les mouvements tels qu'ils sont écrits dans le fichier d'entrée
+     * @return Les mouvements compilés
+     */
+    public static PackedMoves compile(CharSequence moves) {
+        int length = moves.length();
+        long[] words = new long[getNbWords(length)];
+        for (int turn = 0; turn < length; turn++) {
+            words[turn >>> WORD_SHIFT] |= (long) Move.compile(moves.charAt(turn)) << shift(turn);
+        }
+        return new PackedMoves(words, length);
+    }
+
+    /**
+     * Utilise directement des mots déjà rangés, lus dans un fichier d'entrée binaire. Le tableau ne doit plus être modifié par l'appelant.
+     *
+     * @param words  Les mots des mouvements, dont les bits au-delà du dernier mouvement sont à 0
+     * @param length Le nombre de mouvements
+     * @return Les mouvements compilés
+     * @throws IllegalArgumentException Si un code ne correspond à aucun mouvement
+     */
+    public static PackedMoves wrap(long[] words, int length) {
+        if (words.length != getNbWords(length)) {
+            throw new IllegalArgumentException("Le nombre de mots ne correspond pas au nombre de mouvements");
+        }
+        for (long word : words) {
+            if ((word & word >>> 1 & LOW_BITS) != 0) {
+                throw new IllegalArgumentException("L'un des mouvements d'un des aventuriers n'est pas valide");
+            }
+        }
+        if (length % MOVES_PER_WORD != 0 && words[words.length - 1] >>> shift(length) != 0) {
+            throw new IllegalArgumentException("Le dernier mot contient des mouvements au-delà du nombre de mouvements");
+        }
+        return new PackedMoves(words, length);
+    }
+
+    public static int getNbWords(int length) {
+        return (int) ((length + MOVES_PER_WORD - 1L) >>> WORD_SHIFT);
+    }
+
+    /**
+     * Le décalage d'un {@code long} ne garde que les 6 bits de poids faible de sa distance : {@code 2 * turn} revient à {@code 2 * (turn % 32)}
+     */
+    private static int shift(int turn) {
+        return turn << 1;
+    }
+
+    /**
+     * @return Le nombre de mouvements
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @param turn Le tour, entre 0 et {@link #length()} exclu
+     * @return Le code {@link Move} du mouvement de ce tour
+     */
+    public byte get(int turn) {
+        return (byte) (words[turn >>> WORD_SHIFT] >>> shift(turn) & MOVE_MASK);
+    }
+
+    /**
+     * Compte les mouvements A sans lire les mouvements un par un : un code est une rotation si l'un de ses deux bits est à 1.
+     *
+     * @param toTurn Le tour jusqu'auquel compter, exclu
+     * @return Le nombre de mouvements A des tours 0 à {@code toTurn} exclu
+     */
+    public int countForwardMoves(int toTurn) {
+        int end = Math.min(toTurn, length);
+        int nbFullWords = end >>> WORD_SHIFT;
+        int nbRotations = 0;
+        for (int i = 0; i < nbFullWords; i++) {
+            nbRotations += Long.bitCount((words[i] | words[i] >>> 1) & LOW_BITS);
+        }
+        int nbLastMoves = end % MOVES_PER_WORD;
+        if (nbLastMoves > 0) {
+            long lastWord = words[nbFullWords] & ((1L << shift(nbLastMoves)) - 1);
+            nbRotations += Long.bitCount((lastWord | lastWord >>> 1) & LOW_BITS);
+        }
+        return end - nbRotations;
+    }
+
+    /**
+     * Compare les mouvements mot par mot, 32 mouvements à la fois : seul le dernier mot du préfixe est masqué.
+     *
+     * @param prefix Les mouvements attendus au début de ceux-ci
+     * @return Si les premiers mouvements sont exactement ceux du préfixe
+     */
+    public boolean startsWith(PackedMoves prefix) {
+        if (prefix.length > length) {
+            return false;
+        }
+        int nbFullWords = prefix.length >>> WORD_SHIFT;
+        for (int i = 0; i < nbFullWords; i++) {
+            if (words[i] != prefix.words[i]) {
+                return false;
+            }
+        }
+        int nbLastMoves = prefix.length % MOVES_PER_WORD;
+        return nbLastMoves == 0 || (words[nbFullWords] & ((1L << shift(nbLastMoves)) - 1)) == prefix.words[nbFullWords];
+    }
+
+    /**
+     * @return Le mot contenant les mouvements {@code 32 * index} à {@code 32 * index + 31}
+     */
+    public long getWord(int index) {
+        return words[index];
+    }
+
+    /**
+     * @return Les lettres majuscules des mouvements : un caractère du fichier d'entrée autre que A ou D est rendu G
+     */
+    @Override
+    public String toString() {
+        char[] moves = new char[length];
+        for (int turn = 0; turn < length; turn++) {
+            moves[turn] = Move.toLetter(get(turn));
+        }
+        return new String(moves);
+    }
+}
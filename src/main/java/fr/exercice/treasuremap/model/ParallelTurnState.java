@@ -0,0 +1,87 @@
+package fr.exercice.treasuremap.model;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tableaux de travail d'une partie jouée avec le moteur de tours parallèle, alloués une seule fois et réutilisés à chaque tour.
+ * Ils sont indexés par l'indice de l'aventurier dans la {@link AdventurerPopulation}, sauf les réservations indexées par case :
+ * <li>La case visée par chaque aventurier qui avance, ou {@link #NO_TARGET} / {@link #DONE_MOVING}</li>
+ * <li>Si la case visée était occupée au début du tour</li>
+ * <li>Si l'aventurier est arrivé sur une case avec un trésor, le ramassage étant joué ensuite dans l'ordre du fichier</li>
+ * <li>Le nombre d'aventuriers qui visent chaque case pendant le tour, avec le numéro du tour dans les 32 bits de poids fort
+ * pour ne jamais avoir à remettre le tableau à zéro</li>
+ */
+public class ParallelTurnState {
+
+    public static final int NO_TARGET = -1;
+    public static final int DONE_MOVING = -2;
+
+    private final int[] targetCells;
+    private final boolean[] targetsOccupiedAtStart;
+    private final boolean[] treasurePickups;
+    private final AtomicLongArray claims;
+    @Getter
+    private final TileSchedule tileSchedule;
+
+    /**
+     * Si les cases du {@link GameGrid} sont rangées par tuiles, les aventuriers sont répartis entre les tuiles dans un {@link TileSchedule}.
+     */
+    public ParallelTurnState(AdventurerPopulation population, GameGrid gameGrid) {
+        this.targetCells = new int[population.getSize()];
+        this.targetsOccupiedAtStart = new boolean[population.getSize()];
+        this.treasurePickups = new boolean[population.getSize()];
+        this.claims = new AtomicLongArray(gameGrid.getNbCells());
+        this.tileSchedule = gameGrid.getNbTiles() > 1 ? new TileSchedule(population, gameGrid) : null;
+    }
+
+    public int getTargetCell(int index) {
+        return targetCells[index];
+    }
+
+    public void setTargetCell(int index, int cellIndex) {
+        targetCells[index] = cellIndex;
+    }
+
+    public boolean isTargetOccupiedAtStart(int index) {
+        return targetsOccupiedAtStart[index];
+    }
+
+    public void setTargetOccupiedAtStart(int index, boolean occupied) {
+        targetsOccupiedAtStart[index] = occupied;
+    }
+
+    public boolean hasTreasurePickup(int index) {
+        return treasurePickups[index];
+    }
+
+    public void setTreasurePickup(int index, boolean pickup) {
+        treasurePickups[index] = pickup;
+    }
+
+    /**
+     * Réserve la case pour un aventurier qui veut y avancer pendant ce tour. Plusieurs threads peuvent réserver en même temps.
+     */
+    public void claim(int cellIndex, int turn) {
+        long turnStamp = turnStamp(turn);
+        long claim;
+        long newClaim;
+        do {
+            claim = claims.get(cellIndex);
+            newClaim = (claim & 0xFFFFFFFF00000000L) == turnStamp ? claim + 1 : turnStamp | 1;
+        } while (!claims.compareAndSet(cellIndex, claim, newClaim));
+    }
+
+    /**
+     * @return Le nombre d'aventuriers qui veulent avancer sur la case pendant ce tour
+     */
+    public int getNbClaims(int cellIndex, int turn) {
+        long claim = claims.get(cellIndex);
+        return (claim & 0xFFFFFFFF00000000L) == turnStamp(turn) ? (int) claim : 0;
+    }
+
+    private static long turnStamp(int turn) {
+        return (turn + 1L) << 32;
+    }
+}
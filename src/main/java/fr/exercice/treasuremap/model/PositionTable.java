@@ -0,0 +1,184 @@
+package fr.exercice.treasuremap.model;
+
+import java.util.Arrays;
+
+/**
+ * Table à adressage ouvert associant une position de la carte, regroupée dans un {@code long} par {@link #positionKey(int, int)}, à un entier positif ou nul :
+ * <li>Les clés et les valeurs sont rangées dans deux tableaux de primitifs, sans objet par entrée</li>
+ * <li>Le hachage de Fibonacci répartit les clés de position, dont le hachage d'un {@link Long} regrouperait les cases d'une même diagonale</li>
+ * <li>Les collisions sont résolues par sondage linéaire, et la table est agrandie dès qu'elle est à moitié pleine pour que les recherches restent courtes</li>
+ * <li>Une clé retirée libère son emplacement : les clés suivantes de la même séquence de sondage sont reculées, sans marque de suppression</li>
+ * Elle sert à l'index des assets d'un jeu en cours de création, à la recherche des doublons de la validation d'un fichier,
+ * au répertoire des blocs et aux cases occupées de la carte creuse.
+ */
+public class PositionTable {
+
+    // Valeur renvoyée pour une position absente de la table
+    public static final int NO_VALUE = -1;
+
+    private static final long EMPTY_KEY = -1L;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int shift;
+    private int size;
+    // La clé EMPTY_KEY, qui marque les emplacements libres, est rangée à part
+    private int emptyKeyValue = NO_VALUE;
+
+    public PositionTable() {
+        this(0);
+    }
+
+    /**
+     * @param expectedSize Le nombre de positions attendu, pour que la table ne soit pas agrandie en les ajoutant
+     */
+    public PositionTable(int expectedSize) {
+        allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, expectedSize)) << 2));
+    }
+
+    public static long positionKey(int posX, int posY) {
+        return ((long) posX << 32) | (posY & 0xFFFFFFFFL);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return La valeur associée à la clé, {@link #NO_VALUE} si elle n'est pas dans la table
+     */
+    public int get(long key) {
+        if (key == EMPTY_KEY) {
+            return emptyKeyValue;
+        }
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : NO_VALUE;
+    }
+
+    /**
+     * Associe une valeur à la clé, en remplaçant celle qui lui était associée.
+     *
+     * @param value Une valeur positive ou nulle
+     */
+    public void put(long key, int value) {
+        putValue(key, value, true);
+    }
+
+    /**
+     * Associe une valeur à la clé seulement si elle n'est pas encore dans la table.
+     *
+     * @param value Une valeur positive ou nulle
+     * @return La valeur déjà associée à la clé, {@link #NO_VALUE} si la valeur donnée a été ajoutée
+     */
+    public int putIfAbsent(long key, int value) {
+        return putValue(key, value, false);
+    }
+
+    /**
+     * Retire la clé de la table.
+     *
+     * @return La valeur qui était associée à la clé, {@link #NO_VALUE} si elle n'était pas dans la table
+     */
+    public int remove(long key) {
+        if (key == EMPTY_KEY) {
+            int previousValue = emptyKeyValue;
+            if (previousValue != NO_VALUE) {
+                size--;
+                emptyKeyValue = NO_VALUE;
+            }
+            return previousValue;
+        }
+        int hole = slot(key);
+        if (keys[hole] != key) {
+            return NO_VALUE;
+        }
+        int previousValue = values[hole];
+        int mask = keys.length - 1;
+        for (int slot = (hole + 1) & mask; keys[slot] != EMPTY_KEY; slot = (slot + 1) & mask) {
+            // Une clé peut prendre l'emplacement libéré si celui-ci est entre son emplacement d'origine et son emplacement actuel
+            if (((slot - homeSlot(keys[slot])) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = EMPTY_KEY;
+        size--;
+        return previousValue;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        size = 0;
+        emptyKeyValue = NO_VALUE;
+    }
+
+    private int putValue(long key, int value, boolean replace) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Une valeur de la table des positions doit être positive ou nulle : " + value);
+        }
+        if (key == EMPTY_KEY) {
+            int previousValue = emptyKeyValue;
+            if (previousValue == NO_VALUE) {
+                size++;
+            }
+            if (previousValue == NO_VALUE || replace) {
+                emptyKeyValue = value;
+            }
+            return previousValue;
+        }
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            int previousValue = values[slot];
+            if (replace) {
+                values[slot] = value;
+            }
+            return previousValue;
+        }
+        if (2 * (size + 1) > keys.length) {
+            grow();
+            slot = slot(key);
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return NO_VALUE;
+    }
+
+    /**
+     * @return L'emplacement de la clé, ou l'emplacement libre où l'ajouter
+     */
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = homeSlot(key);
+        while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int homeSlot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(2 * oldKeys.length);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != EMPTY_KEY) {
+                int newSlot = slot(oldKeys[slot]);
+                keys[newSlot] = oldKeys[slot];
+                values[newSlot] = oldValues[slot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        this.values = new int[capacity];
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+    }
+}
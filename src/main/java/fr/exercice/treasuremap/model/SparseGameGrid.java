@@ -0,0 +1,129 @@
+package fr.exercice.treasuremap.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index spatial creux du jeu, pour les cartes trop grandes pour une case par position.
+ * La carte est découpée en blocs de 8 x 8 cases qui ne sont alloués que là où se trouvent des montagnes ou des trésors :
+ * <li>Un répertoire à adressage ouvert, une {@link PositionTable}, associe les coordonnées d'un bloc à son numéro, en temps constant en moyenne</li>
+ * <li>Les montagnes d'un bloc tiennent dans un long, un bit par case</li>
+ * <li>Les trésors d'un bloc sont rangés dans un tableau commun à tous les blocs, 64 cases par bloc</li>
+ * <li>Les cases occupées par les aventuriers sont rangées dans leur propre {@link PositionTable}, une entrée par aventurier, retirée lorsqu'il quitte la case</li>
+ * Un bloc sans asset n'existe pas : ses cases sont libres, sans montagne ni trésor. Les blocs sont tous créés avec la carte et les déplacements
+ * n'en ajoutent jamais : la mémoire utilisée croît avec le nombre d'assets et pas avec la surface de la carte ni la distance parcourue.
+ */
+public class SparseGameGrid extends GameWorld {
+
+    private static final int CHUNK_SHIFT = 3;
+    private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+    private static final int CHUNK_CELLS = 1 << (2 * CHUNK_SHIFT);
+    private static final int INITIAL_CAPACITY = 16;
+    // Nombre de blocs au-delà duquel les indices des cases ne tiennent plus dans un tableau
+    private static final int MAX_CHUNKS = (Integer.MAX_VALUE - 8) / CHUNK_CELLS;
+
+    // Répertoire des blocs : numéro de chaque bloc, avec pour clé ses coordonnées
+    private final PositionTable chunkIds;
+    private int nbChunks;
+    // Montagnes de chaque bloc, un bit par case
+    private long[] mountains;
+    // Indice du trésor dans la liste du jeu + 1, 0 s'il n'y a pas de trésor sur la case, 64 cases par bloc
+    private int[] treasureIndexes;
+    // Indice de l'aventurier dans la liste du jeu, avec pour clé la position de sa case
+    private final PositionTable occupants;
+
+    public SparseGameGrid(Game game) {
+        super(game);
+        // Chaque montagne ou trésor ajoute au plus un bloc : le répertoire est dimensionné pour ne pas être agrandi pendant la construction
+        this.chunkIds = new PositionTable(game.getMountainCells().size() + game.getTreasureCells().size());
+        this.mountains = new long[INITIAL_CAPACITY];
+        this.treasureIndexes = new int[INITIAL_CAPACITY * CHUNK_CELLS];
+        this.occupants = new PositionTable(game.getAdventurers().size());
+
+        for (Cell mountain : game.getMountainCells()) {
+            int chunk = getOrCreateChunk(mountain.getPosX(), mountain.getPosY());
+            mountains[chunk] |= 1L << localIndex(mountain.getPosX(), mountain.getPosY());
+        }
+        List<Cell> treasureCells = game.getTreasureCells();
+        for (int i = 0; i < treasureCells.size(); i++) {
+            Cell treasure = treasureCells.get(i);
+            // L'indice est calculé avant l'accès au tableau, que l'ajout d'un bloc peut remplacer
+            int cellIndex = cellIndex(treasure.getPosX(), treasure.getPosY(), true);
+            treasureIndexes[cellIndex] = i + 1;
+        }
+        List<Adventurer> adventurers = game.getAdventurers();
+        for (int i = 0; i < adventurers.size(); i++) {
+            occupants.put(PositionTable.positionKey(adventurers.get(i).getPosX(), adventurers.get(i).getPosY()), i);
+        }
+    }
+
+    public int getNbChunks() {
+        return nbChunks;
+    }
+
+    @Override
+    public boolean isMountain(int posX, int posY) {
+        int chunk = findChunk(posX, posY);
+        return chunk >= 0 && (mountains[chunk] & 1L << localIndex(posX, posY)) != 0;
+    }
+
+    @Override
+    public boolean isOccupied(int posX, int posY) {
+        return occupants.get(PositionTable.positionKey(posX, posY)) != PositionTable.NO_VALUE;
+    }
+
+    @Override
+    public void moveOccupant(int fromPosX, int fromPosY, int toPosX, int toPosY) {
+        int occupant = occupants.remove(PositionTable.positionKey(fromPosX, fromPosY));
+        if (occupant != PositionTable.NO_VALUE) {
+            occupants.put(PositionTable.positionKey(toPosX, toPosY), occupant);
+        }
+    }
+
+    @Override
+    public boolean pickUpTreasure(int posX, int posY) {
+        int cellIndex = cellIndex(posX, posY, false);
+        return cellIndex >= 0 && pickUpTreasureAt(treasureIndexes[cellIndex] - 1);
+    }
+
+    /**
+     * @param create Si le bloc de la case doit être ajouté lorsqu'il n'existe pas encore
+     * @return L'indice de la case dans les tableaux des blocs, -1 si son bloc n'existe pas et n'est pas créé
+     */
+    private int cellIndex(int posX, int posY, boolean create) {
+        int chunk = create ? getOrCreateChunk(posX, posY) : findChunk(posX, posY);
+        return chunk < 0 ? -1 : chunk * CHUNK_CELLS + localIndex(posX, posY);
+    }
+
+    private static int localIndex(int posX, int posY) {
+        return ((posY & CHUNK_MASK) << CHUNK_SHIFT) | (posX & CHUNK_MASK);
+    }
+
+    private static long chunkKey(int posX, int posY) {
+        return PositionTable.positionKey(posX >> CHUNK_SHIFT, posY >> CHUNK_SHIFT);
+    }
+
+    /**
+     * @return Le numéro du bloc de la case, {@link PositionTable#NO_VALUE} s'il n'existe pas
+     */
+    private int findChunk(int posX, int posY) {
+        return chunkIds.get(chunkKey(posX, posY));
+    }
+
+    private int getOrCreateChunk(int posX, int posY) {
+        int chunk = chunkIds.putIfAbsent(chunkKey(posX, posY), nbChunks);
+        if (chunk != PositionTable.NO_VALUE) {
+            return chunk;
+        }
+        if (nbChunks == MAX_CHUNKS) {
+            throw new IllegalStateException("La carte creuse ne peut pas contenir plus de " + MAX_CHUNKS + " blocs de montagnes et de trésors");
+        }
+        chunk = nbChunks++;
+        if (chunk == mountains.length) {
+            int capacity = (int) Math.min(2L * mountains.length, MAX_CHUNKS);
+            mountains = Arrays.copyOf(mountains, capacity);
+            treasureIndexes = Arrays.copyOf(treasureIndexes, capacity * CHUNK_CELLS);
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,97 @@
+package fr.exercice.treasuremap.model;
+
+import java.util.Arrays;
+
+/**
+ * Répartition des aventuriers actifs entre les tuiles du {@link GameGrid} : chaque tuile garde la liste des aventuriers qui s'y trouvent,
+ * et chaque tuile est confiée au même thread de travail d'un tour à l'autre.
+ * Les aventuriers qui ont changé de tuile pendant un tour sont transmis à leur nouvelle tuile à la fin du tour,
+ * en même temps que ceux qui ont terminé leurs mouvements sont retirés.
+ * L'ordre des aventuriers dans une tuile n'a pas d'importance : tout ce qui dépend de l'ordre du fichier est joué dans l'ordre du {@link TurnScheduler}.
+ */
+public class TileSchedule {
+
+    private static final int INITIAL_TILE_CAPACITY = 16;
+
+    private final int[][] residents;
+    private final int[] nbResidents;
+    private final int[][] departures;
+    private final int[] nbDepartures;
+
+    public TileSchedule(AdventurerPopulation population, GameGrid gameGrid) {
+        int nbTiles = gameGrid.getNbTiles();
+        this.residents = new int[nbTiles][INITIAL_TILE_CAPACITY];
+        this.nbResidents = new int[nbTiles];
+        this.departures = new int[nbTiles][INITIAL_TILE_CAPACITY];
+        this.nbDepartures = new int[nbTiles];
+        for (int index = 0; index < population.getSize(); index++) {
+            if (!population.isDoneMoving(index)) {
+                addResident(gameGrid.tileIndex(population.getPosX(index), population.getPosY(index)), index);
+            }
+        }
+    }
+
+    public int getNbTiles() {
+        return residents.length;
+    }
+
+    public int getNbResidents(int tile) {
+        return nbResidents[tile];
+    }
+
+    /**
+     * @return L'indice dans la {@link AdventurerPopulation} d'un aventurier de la tuile
+     */
+    public int getResident(int tile, int position) {
+        return residents[tile][position];
+    }
+
+    /**
+     * Retire de la tuile les aventuriers qui ont terminé leurs mouvements et met de côté ceux qui l'ont quittée.
+     * Ne modifie que les données de la tuile : chaque tuile peut être traitée par un thread différent.
+     *
+     * @param tile       La tuile à mettre à jour
+     * @param population La population d'aventuriers du jeu
+     * @param gameGrid   L'index spatial du jeu
+     */
+    public void removeDepartures(int tile, AdventurerPopulation population, GameGrid gameGrid) {
+        int[] tileResidents = residents[tile];
+        int nbStaying = 0;
+        for (int position = 0; position < nbResidents[tile]; position++) {
+            int index = tileResidents[position];
+            if (population.isDoneMoving(index)) {
+                continue;
+            }
+            if (gameGrid.tileIndex(population.getPosX(index), population.getPosY(index)) == tile) {
+                tileResidents[nbStaying++] = index;
+            } else {
+                if (nbDepartures[tile] == departures[tile].length) {
+                    departures[tile] = Arrays.copyOf(departures[tile], nbDepartures[tile] * 2);
+                }
+                departures[tile][nbDepartures[tile]++] = index;
+            }
+        }
+        nbResidents[tile] = nbStaying;
+    }
+
+    /**
+     * Ajoute les aventuriers mis de côté par {@link #removeDepartures} à leur nouvelle tuile. Doit être appelée par un seul thread,
+     * une fois toutes les tuiles mises à jour.
+     */
+    public void handOffDepartures(AdventurerPopulation population, GameGrid gameGrid) {
+        for (int tile = 0; tile < getNbTiles(); tile++) {
+            for (int position = 0; position < nbDepartures[tile]; position++) {
+                int index = departures[tile][position];
+                addResident(gameGrid.tileIndex(population.getPosX(index), population.getPosY(index)), index);
+            }
+            nbDepartures[tile] = 0;
+        }
+    }
+
+    private void addResident(int tile, int index) {
+        if (nbResidents[tile] == residents[tile].length) {
+            residents[tile] = Arrays.copyOf(residents[tile], nbResidents[tile] * 2);
+        }
+        residents[tile][nbResidents[tile]++] = index;
+    }
+}
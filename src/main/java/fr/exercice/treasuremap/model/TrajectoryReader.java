@@ -0,0 +1,185 @@
+package fr.exercice.treasuremap.model;
+
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lit un fichier de trajectoire écrit par {@link TrajectoryWriter}, en mémoire mappée. L'en-tête est lu à l'ouverture,
+ * puis la trajectoire d'un aventurier est lue octet par octet à sa place dans chaque bloc de tour, sans décoder celle des autres.
+ * Les blocs sont mappés par régions de moins de 2 Go, à la première lecture de chaque région : un fichier de plusieurs dizaines de Go
+ * n'est chargé en mémoire que pour les pages lues.
+ * Un dernier bloc incomplet, si la partie a été interrompue pendant son écriture, est ignoré.
+ */
+public class TrajectoryReader implements Closeable {
+
+    /**
+     * Reçoit l'état d'un aventurier au début de chaque tour
+     */
+    @FunctionalInterface
+    public interface StepConsumer {
+        void accept(int turn, int posX, int posY, Orientation orientation, int nbTreasure);
+    }
+
+    // Abscisse, ordonnée et trésors sur 4 octets, orientation sur 1 octet et longueur du nom sur 2 octets
+    private static final int START_STATE_SIZE = 3 * Integer.BYTES + Byte.BYTES + Short.BYTES;
+
+    private final FileChannel channel;
+    @Getter
+    private final int nbAdventurers;
+    @Getter
+    private final int startTurn;
+    @Getter
+    private final int nbTurns;
+    private final int[] startPosX;
+    private final int[] startPosY;
+    private final int[] startNbTreasure;
+    private final byte[] startOrientations;
+    private final String[] names;
+    private final long blocksOffset;
+    private final int blockSize;
+    private final int twoBitColumnSize;
+    private final int blocksPerRegion;
+    private final MappedByteBuffer[] regions;
+
+    private TrajectoryReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long fileSize = channel.size();
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, Integer.MAX_VALUE));
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (header.getInt() != TrajectoryWriter.MAGIC || Short.toUnsignedInt(header.getShort()) != TrajectoryWriter.VERSION) {
+                throw new IllegalArgumentException("Le fichier n'est pas une trajectoire de partie");
+            }
+            header.getShort();
+            this.nbAdventurers = header.getInt();
+            this.startTurn = header.getInt();
+            if (nbAdventurers < 0) {
+                throw new IllegalArgumentException("Le nombre d'aventuriers de la trajectoire est invalide");
+            }
+            if ((long) nbAdventurers * START_STATE_SIZE > header.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            this.startPosX = readIntColumn(header, nbAdventurers);
+            this.startPosY = readIntColumn(header, nbAdventurers);
+            this.startNbTreasure = readIntColumn(header, nbAdventurers);
+            this.startOrientations = new byte[nbAdventurers];
+            header.get(startOrientations);
+            this.names = new String[nbAdventurers];
+            for (int id = 0; id < nbAdventurers; id++) {
+                byte[] name = new byte[Short.toUnsignedInt(header.getShort())];
+                header.get(name);
+                names[id] = new String(name, StandardCharsets.UTF_8);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("Le fichier de trajectoire est tronqué");
+        }
+        this.blocksOffset = header.position();
+        this.blockSize = TrajectoryWriter.getBlockSize(nbAdventurers);
+        this.twoBitColumnSize = TrajectoryWriter.getTwoBitColumnSize(nbAdventurers);
+        long nbCompleteTurns = blockSize == 0 ? 0 : (fileSize - blocksOffset) / blockSize;
+        this.nbTurns = (int) Math.min(nbCompleteTurns, Integer.MAX_VALUE);
+        this.blocksPerRegion = Math.max(1, Integer.MAX_VALUE / Math.max(1, blockSize));
+        this.regions = new MappedByteBuffer[nbTurns == 0 ? 0 : (nbTurns - 1) / blocksPerRegion + 1];
+    }
+
+    /**
+     * @param trajectoryPath Le fichier de trajectoire
+     * @return Le lecteur du fichier, à fermer après usage
+     * @throws IOException              Si le fichier ne peut pas être lu
+     * @throws IllegalArgumentException Si le fichier n'est pas une trajectoire de partie
+     * @throws IllegalStateException    Si l'en-tête du fichier est tronqué
+     */
+    public static TrajectoryReader open(Path trajectoryPath) throws IOException {
+        FileChannel channel = FileChannel.open(trajectoryPath, StandardOpenOption.READ);
+        try {
+            return new TrajectoryReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static int[] readIntColumn(MappedByteBuffer header, int nbAdventurers) {
+        int[] column = new int[nbAdventurers];
+        header.asIntBuffer().get(column);
+        header.position(header.position() + nbAdventurers * Integer.BYTES);
+        return column;
+    }
+
+    /**
+     * @return Le nom de l'aventurier, son identifiant étant sa place dans le fichier d'entrée
+     */
+    public String getName(int id) {
+        return names[id];
+    }
+
+    /**
+     * @return L'identifiant du premier aventurier qui porte ce nom, -1 s'il n'y en a aucun
+     */
+    public int findAdventurer(String name) {
+        for (int id = 0; id < nbAdventurers; id++) {
+            if (names[id].equals(name)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parcourt la trajectoire d'un aventurier : son état au tour de départ, puis au début de chaque tour suivant un tour joué.
+     * Seuls les 4 octets qui le concernent sont lus dans chaque bloc.
+     *
+     * @param id       L'identifiant de l'aventurier
+     * @param consumer Reçoit l'état de l'aventurier au début de chaque tour
+     */
+    public void readPath(int id, StepConsumer consumer) throws IOException {
+        int posX = startPosX[id];
+        int posY = startPosY[id];
+        int nbTreasure = startNbTreasure[id];
+        Orientation orientation = Orientation.getOrientationWithOrdinal(startOrientations[id]);
+        consumer.accept(startTurn, posX, posY, orientation, nbTreasure);
+        int twoBitByte = id >>> 2;
+        int twoBitShift = (id & 3) << 1;
+        int treasureByte = 3 * twoBitColumnSize + (id >>> 3);
+        int treasureBit = id & 7;
+        for (int turn = 0; turn < nbTurns; turn++) {
+            MappedByteBuffer region = getRegion(turn / blocksPerRegion);
+            int blockOffset = (turn % blocksPerRegion) * blockSize;
+            posX += decodeDelta(region.get(blockOffset + twoBitByte) >> twoBitShift);
+            posY += decodeDelta(region.get(blockOffset + twoBitColumnSize + twoBitByte) >> twoBitShift);
+            orientation = Orientation.getOrientationWithOrdinal(region.get(blockOffset + 2 * twoBitColumnSize + twoBitByte) >> twoBitShift & 3);
+            nbTreasure += region.get(blockOffset + treasureByte) >> treasureBit & 1;
+            consumer.accept(startTurn + turn + 1, posX, posY, orientation, nbTreasure);
+        }
+    }
+
+    /**
+     * Les codes 0, 1 et 3 correspondent aux déplacements 0, 1 et -1 : les 2 bits sont étendus avec leur signe
+     */
+    private static int decodeDelta(int code) {
+        return code << 30 >> 30;
+    }
+
+    private MappedByteBuffer getRegion(int regionIndex) throws IOException {
+        if (regions[regionIndex] == null) {
+            long regionStart = blocksOffset + (long) regionIndex * blocksPerRegion * blockSize;
+            long regionBlocks = Math.min(blocksPerRegion, nbTurns - (long) regionIndex * blocksPerRegion);
+            regions[regionIndex] = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionBlocks * blockSize);
+        }
+        return regions[regionIndex];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,190 @@
+package fr.exercice.treasuremap.model;
+
+import lombok.Getter;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Écrit la trajectoire d'une partie au fil des tours, dans un fichier binaire en little-endian lu par {@link TrajectoryReader} :
+ * <li>En-tête : magic "TMTJ", version sur 2 octets, 2 octets réservés, nombre d'aventuriers et tour de départ de la partie</li>
+ * <li>État de départ, en colonnes : abscisses, ordonnées et trésors des aventuriers sur 4 octets, puis leurs orientations sur 1 octet</li>
+ * <li>Noms des aventuriers, dans l'ordre du fichier d'entrée : longueur sur 2 octets puis octets UTF-8</li>
+ * <li>Un bloc par tour joué, en colonnes de taille fixe : déplacement en X et en Y de chaque aventurier (-1, 0 ou 1 sur 2 bits),
+ * son orientation à la fin du tour (ordinal de {@link Orientation} sur 2 bits) et s'il a ramassé un trésor pendant le tour (1 bit)</li>
+ * L'identifiant d'un aventurier est son indice dans la {@link AdventurerPopulation}, et ses valeurs sont rangées à la même place dans chaque bloc :
+ * le lecteur lit la trajectoire d'un aventurier sans décoder celle des autres. Un aventurier avance d'au plus une case et ramasse au plus un trésor par tour,
+ * un bloc tient donc en 7 bits par aventurier.
+ * Seuls l'état du dernier tour et le bloc en cours sont gardés en mémoire, quel que soit le nombre de tours de la partie.
+ */
+public class TrajectoryWriter implements Closeable {
+
+    // "TMTJ" : Treasure Map TraJectory, lu en little-endian
+    public static final int MAGIC = 0x4A544D54;
+    public static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Getter
+    private final Path trajectoryPath;
+    private final OutputStream outputStream;
+    private final int[] posX;
+    private final int[] posY;
+    private final int[] nbTreasure;
+    private final byte[] orientations;
+    // Le bloc du tour en cours : les colonnes des déplacements et des trésors sont remises à 0 à chaque tour, celle des orientations est conservée
+    private final byte[] block;
+    private final int deltaYOffset;
+    private final int orientationOffset;
+    private final int treasureOffset;
+    @Getter
+    private int nbTurns;
+
+    /**
+     * Ouvre le fichier de trajectoire et écrit l'état de la population au tour de départ.
+     * Une suite de rotations déjà jouée d'un coup est défaite pour écrire l'orientation réelle de l'aventurier à ce tour.
+     *
+     * @param trajectoryPath Le fichier de trajectoire, remplacé s'il existe
+     * @param population     La population d'aventuriers au tour de départ
+     * @param startTurn      Le tour auquel la partie commence
+     * @throws IOException Si le fichier ne peut pas être créé
+     */
+    public TrajectoryWriter(Path trajectoryPath, AdventurerPopulation population, int startTurn) throws IOException {
+        int nbAdventurers = population.getSize();
+        this.trajectoryPath = trajectoryPath;
+        this.posX = new int[nbAdventurers];
+        this.posY = new int[nbAdventurers];
+        this.nbTreasure = new int[nbAdventurers];
+        this.orientations = new byte[nbAdventurers];
+        int twoBitColumnSize = getTwoBitColumnSize(nbAdventurers);
+        this.deltaYOffset = twoBitColumnSize;
+        this.orientationOffset = 2 * twoBitColumnSize;
+        this.treasureOffset = 3 * twoBitColumnSize;
+        this.block = new byte[getBlockSize(nbAdventurers)];
+        for (int index = 0; index < nbAdventurers; index++) {
+            posX[index] = population.getPosX(index);
+            posY[index] = population.getPosY(index);
+            nbTreasure[index] = population.getNbTreasure(index);
+            orientations[index] = (byte) getOrientationAtTurn(population, index, startTurn).ordinal();
+            setTwoBits(orientationOffset, index, orientations[index]);
+        }
+        this.outputStream = new BufferedOutputStream(Files.newOutputStream(trajectoryPath), BUFFER_SIZE);
+        try {
+            writeHeader(population, startTurn);
+        } catch (IOException e) {
+            outputStream.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Le nombre d'octets d'une colonne de 2 bits par aventurier
+     */
+    public static int getTwoBitColumnSize(int nbAdventurers) {
+        return (nbAdventurers + 3) >>> 2;
+    }
+
+    /**
+     * @return Le nombre d'octets du bloc d'un tour
+     */
+    public static int getBlockSize(int nbAdventurers) {
+        return 3 * getTwoBitColumnSize(nbAdventurers) + ((nbAdventurers + 7) >>> 3);
+    }
+
+    /**
+     * L'orientation de la population est celle de la fin de la suite de rotations en cours : les rotations pas encore jouées sont défaites.
+     */
+    private static Orientation getOrientationAtTurn(AdventurerPopulation population, int index, int turn) {
+        Orientation orientation = population.getOrientation(index);
+        for (int runTurn = turn; runTurn < population.getRotationRunEnd(index); runTurn++) {
+            orientation = orientation.turn(population.getMove(index, runTurn) == Move.RIGHT ? Move.LEFT : Move.RIGHT);
+        }
+        return orientation;
+    }
+
+    private void writeHeader(AdventurerPopulation population, int startTurn) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        writeInt(buffer, MAGIC);
+        // La version sur 2 octets, suivie des 2 octets réservés à 0
+        writeInt(buffer, VERSION);
+        writeInt(buffer, population.getSize());
+        writeInt(buffer, startTurn);
+        for (int[] column : new int[][]{posX, posY, nbTreasure}) {
+            for (int value : column) {
+                writeInt(buffer, value);
+            }
+        }
+        outputStream.write(orientations);
+        for (int index = 0; index < population.getSize(); index++) {
+            byte[] name = population.getName(index).getBytes(StandardCharsets.UTF_8);
+            outputStream.write(name.length & 0xFF);
+            outputStream.write(name.length >>> 8 & 0xFF);
+            outputStream.write(name);
+        }
+    }
+
+    private void writeInt(ByteBuffer buffer, int value) throws IOException {
+        outputStream.write(buffer.putInt(0, value).array());
+    }
+
+    /**
+     * Écrit le bloc d'un tour qui vient d'être joué. Seuls les aventuriers encore actifs dans le {@link TurnScheduler} sont parcourus :
+     * un aventurier retiré à ce tour a joué son dernier mouvement au tour précédent. L'orientation est déduite du mouvement du tour,
+     * et non de la population qui joue une suite de rotations d'un coup à son premier tour.
+     *
+     * @param population    La population d'aventuriers à la fin du tour
+     * @param turnScheduler Le planificateur des tours, dont les aventuriers terminés ont été retirés
+     * @param turn          Le tour qui vient d'être joué
+     * @throws IOException          Si le bloc ne peut pas être écrit
+     * @throws IllegalStateException Si un aventurier s'est déplacé de plus d'une case
+     */
+    public void writeTurn(AdventurerPopulation population, TurnScheduler turnScheduler, int turn) throws IOException {
+        Arrays.fill(block, 0, orientationOffset, (byte) 0);
+        Arrays.fill(block, treasureOffset, block.length, (byte) 0);
+        for (int position = 0; position < turnScheduler.getNbActiveAdventurers(); position++) {
+            int index = turnScheduler.getActiveAdventurer(position);
+            int deltaX = population.getPosX(index) - posX[index];
+            int deltaY = population.getPosY(index) - posY[index];
+            if ((deltaX | deltaY) != 0) {
+                if (Math.abs(deltaX) + Math.abs(deltaY) > 1) {
+                    throw new IllegalStateException("L'aventurier " + population.getName(index) + " s'est déplacé de plus d'une case au tour " + turn);
+                }
+                setTwoBits(0, index, deltaX);
+                setTwoBits(deltaYOffset, index, deltaY);
+                posX[index] += deltaX;
+                posY[index] += deltaY;
+            }
+            if (population.getNbTreasure(index) != nbTreasure[index]) {
+                block[treasureOffset + (index >>> 3)] |= (byte) (1 << (index & 7));
+                nbTreasure[index] = population.getNbTreasure(index);
+            }
+            if (turn < population.getNbMoves(index)) {
+                byte move = population.getMove(index, turn);
+                if (move != Move.FORWARD) {
+                    orientations[index] = (byte) Orientation.getOrientationWithOrdinal(orientations[index]).turn(move).ordinal();
+                    setTwoBits(orientationOffset, index, orientations[index]);
+                }
+            }
+        }
+        outputStream.write(block);
+        nbTurns++;
+    }
+
+    private void setTwoBits(int columnOffset, int index, int value) {
+        int shift = (index & 3) << 1;
+        int byteIndex = columnOffset + (index >>> 2);
+        block[byteIndex] = (byte) (block[byteIndex] & ~(3 << shift) | (value & 3) << shift);
+    }
+
+    @Override
+    public void close() throws IOException {
+        outputStream.close();
+    }
+}
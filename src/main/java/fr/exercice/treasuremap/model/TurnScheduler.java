@@ -0,0 +1,53 @@
+package fr.exercice.treasuremap.model;
+
+/**
+ * Planificateur des tours de jeu : il ne garde que les aventuriers qui ont encore des mouvements à jouer,
+ * dans l'ordre du fichier d'entrée. Un aventurier est retiré à la fin du tour où il a terminé ses mouvements,
+ * le coût d'un tour est donc proportionnel au nombre d'aventuriers encore actifs.
+ */
+public class TurnScheduler {
+
+    private final int[] activeAdventurers;
+    private int nbActiveAdventurers;
+
+    public TurnScheduler(AdventurerPopulation population) {
+        this.activeAdventurers = new int[population.getSize()];
+        for (int index = 0; index < population.getSize(); index++) {
+            if (!population.isDoneMoving(index)) {
+                activeAdventurers[nbActiveAdventurers++] = index;
+            }
+        }
+    }
+
+    public boolean hasActiveAdventurers() {
+        return nbActiveAdventurers > 0;
+    }
+
+    public int getNbActiveAdventurers() {
+        return nbActiveAdventurers;
+    }
+
+    /**
+     * @param position La position de l'aventurier parmi les aventuriers actifs
+     * @return L'indice de l'aventurier dans la {@link AdventurerPopulation}
+     */
+    public int getActiveAdventurer(int position) {
+        return activeAdventurers[position];
+    }
+
+    /**
+     * Retire les aventuriers qui ont terminé leurs mouvements pendant le tour, sans changer l'ordre des autres.
+     *
+     * @param population La population d'aventuriers du jeu
+     */
+    public void removeDoneAdventurers(AdventurerPopulation population) {
+        int nbStillActive = 0;
+        for (int position = 0; position < nbActiveAdventurers; position++) {
+            int index = activeAdventurers[position];
+            if (!population.isDoneMoving(index)) {
+                activeAdventurers[nbStillActive++] = index;
+            }
+        }
+        nbActiveAdventurers = nbStillActive;
+    }
+}
@@ -0,0 +1,337 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.model.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Ce service lit et écrit le format binaire compact des fichiers d'entrée ({@code .tmb}), qui décrit le même jeu que le format texte
+ * sans rien avoir à découper ni à convertir au chargement. Tous les entiers sont écrits en little-endian :
+ * <li>L'en-tête : les octets {@code TMAP}, la version du format sur 2 octets et 2 octets réservés</li>
+ * <li>La largeur et la hauteur de la carte, puis le nombre de montagnes, de trésors et d'aventuriers, sur 4 octets chacun</li>
+ * <li>Les montagnes (X, Y), puis les trésors (X, Y, quantité), sur 4 octets par valeur, dans l'ordre du fichier texte</li>
+ * <li>La table des noms des aventuriers : pour chacun, la longueur du nom en UTF-8 sur 2 octets puis ses octets</li>
+ * <li>Les aventuriers dans l'ordre de jeu : X et Y sur 4 octets, l'orientation sur 1 octet (l'ordre de {@link Orientation} : N, S, E, O),
+ * le nombre de mouvements sur 4 octets puis les codes de {@link Move} sur 2 bits, 4 par octet en commençant par les bits de poids faible</li>
+ * Les valeurs lues sont soumises aux mêmes règles que le format texte, avec les mêmes messages d'erreur.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BinaryInputFileService {
+
+    public static final String EXTENSION = "tmb";
+    // "TMAP" : Treasure MAP, lu en little-endian
+    private static final int MAGIC = 0x50414D54;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MOVES_PER_BYTE = 4;
+
+    private final InputFileService inputFileService;
+    private final InputValidationService inputValidationService;
+    private final GameAssetsCreatorService gameAssetsCreatorService;
+
+    /**
+     * Le format du fichier d'entrée est reconnu à ses premiers octets et non à son extension.
+     *
+     * @param path Le chemin du fichier d'entrée
+     * @return Si le fichier commence par l'en-tête du format binaire
+     * @throws IOException Si une erreur I/O se produit lors de la lecture du fichier
+     */
+    public boolean isBinaryInputFile(Path path) throws IOException {
+        try (FileChannel channel = inputFileService.openChannel(path)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Un fichier de moins de 4 octets n'est pas binaire
+            }
+            return !header.hasRemaining() && header.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Lit le fichier binaire, mappé en mémoire, et crée tous les assets du jeu dans l'ordre du fichier.
+     *
+     * @param game Le jeu à remplir
+     * @param path Le chemin du fichier d'entrée
+     * @throws IOException Si une erreur I/O se produit lors de la lecture du fichier
+     */
+    public void readInto(Game game, Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = inputFileService.openChannel(path)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Le fichier binaire dépasse la taille maximale de 2 Go");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        readAll(game, buffer);
+    }
+
+    /**
+     * @param content Le contenu d'un fichier d'entrée reçu sans fichier, par le serveur de parties
+     * @return Si le contenu commence par l'en-tête du format binaire
+     */
+    public boolean isBinaryInput(byte[] content) {
+        return content.length >= Integer.BYTES && ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN).getInt(0) == MAGIC;
+    }
+
+    /**
+     * Crée tous les assets du jeu à partir du contenu d'un fichier binaire déjà en mémoire, comme {@link #readInto(Game, Path)}.
+     *
+     * @param game    Le jeu à remplir
+     * @param content Le contenu du fichier d'entrée binaire
+     */
+    public void readInto(Game game, byte[] content) {
+        readAll(game, ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    private void readAll(Game game, ByteBuffer buffer) {
+        try {
+            readInto(game, buffer);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("Le fichier binaire est tronqué, impossible de créer le jeu.");
+        }
+        if (buffer.hasRemaining()) {
+            throw new IllegalStateException("Le fichier binaire contient des données après le dernier aventurier, impossible de créer le jeu.");
+        }
+    }
+
+    private void readInto(Game game, ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC || Short.toUnsignedInt(buffer.getShort()) != VERSION) {
+            throw new IllegalStateException("Le fichier n'est pas un fichier d'entrée binaire dans un format connu.");
+        }
+        buffer.getShort();
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        inputValidationService.checkMapSize(width, height);
+        GameMap gameMap = new GameMap().setWidth(width).setHeight(height);
+        game.setGameMap(gameMap);
+        GameAssetsIndex assetsIndex = new GameAssetsIndex(game);
+        int nbMountains = readCount(buffer);
+        int nbTreasures = readCount(buffer);
+        int nbAdventurers = readCount(buffer);
+        if (nbAdventurers == 0) {
+            throw new IllegalStateException("Le fichier binaire ne contient aucun aventurier, impossible de créer le jeu.");
+        }
+        for (int i = 0; i < nbMountains; i++) {
+            int posX = buffer.getInt();
+            int posY = buffer.getInt();
+            if (isOutOfMap(posX, posY, gameMap)) {
+                String line = "M - " + posX + " - " + posY;
+                inputValidationService.checkMountainLine(line, inputFileService.getCleanSplitElements(line), gameMap);
+                throw new IllegalArgumentException("La position d'une des montagnes sort de la taille de la carte");
+            }
+            game.getMountainCells().add(gameAssetsCreatorService.createMountain(posX, posY, assetsIndex, () -> "M - " + posX + " - " + posY));
+        }
+        for (int i = 0; i < nbTreasures; i++) {
+            int posX = buffer.getInt();
+            int posY = buffer.getInt();
+            int nbTreasure = buffer.getInt();
+            if (isOutOfMap(posX, posY, gameMap) || nbTreasure < 1) {
+                String line = "T - " + posX + " - " + posY + " - " + nbTreasure;
+                inputValidationService.checkTreasureLine(line, inputFileService.getCleanSplitElements(line), gameMap);
+                throw new IllegalArgumentException("La quantité ou la position d'un des trésors est invalide");
+            }
+            game.getTreasureCells().add(gameAssetsCreatorService.createTreasure(posX, posY, nbTreasure, assetsIndex, () -> "T - " + posX + " - " + posY + " - " + nbTreasure));
+        }
+        String[] names = new String[nbAdventurers];
+        for (int i = 0; i < nbAdventurers; i++) {
+            byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+            checkName(names[i]);
+        }
+        for (int i = 0; i < nbAdventurers; i++) {
+            readAdventurer(assetsIndex, buffer, names[i]);
+        }
+    }
+
+    private void readAdventurer(GameAssetsIndex assetsIndex, ByteBuffer buffer, String name) {
+        Game game = assetsIndex.getGame();
+        GameMap gameMap = game.getGameMap();
+        int posX = buffer.getInt();
+        int posY = buffer.getInt();
+        int orientation = Byte.toUnsignedInt(buffer.get());
+        int nbMoves = buffer.getInt();
+        if (nbMoves < 0 || (nbMoves + MOVES_PER_BYTE - 1L) / MOVES_PER_BYTE > buffer.remaining()) {
+            throw new IllegalStateException("Le fichier binaire est tronqué, impossible de créer le jeu.");
+        }
+        PackedMoves packedMoves = readMoves(buffer, nbMoves);
+        if (isOutOfMap(posX, posY, gameMap) || orientation >= Orientation.values().length || packedMoves == null) {
+            String line = "A - " + name + " - " + posX + " - " + posY + " - "
+                    + (orientation < Orientation.values().length ? Orientation.getOrientationWithOrdinal(orientation).name() : "?") + " - "
+                    + (packedMoves != null ? packedMoves : "?");
+            inputValidationService.checkAdventurerLine(line, inputFileService.getCleanSplitElements(line), gameMap);
+            throw new IllegalArgumentException("L'aventurier " + name + " est invalide");
+        }
+        Orientation adventurerOrientation = Orientation.getOrientationWithOrdinal(orientation);
+        game.getAdventurers().add(gameAssetsCreatorService.createAdventurer(name, posX, posY, adventurerOrientation, packedMoves, assetsIndex,
+                () -> "A - " + name + " - " + posX + " - " + posY + " - " + adventurerOrientation.name() + " - " + packedMoves));
+    }
+
+    /**
+     * Les octets des mouvements sont rangés comme les mots de {@link PackedMoves} lus en little-endian : ils y sont copiés tels quels, 8 par mot.
+     *
+     * @return Les mouvements, {@code null} s'il n'y en a aucun ou si l'un des codes ne correspond à aucun mouvement
+     */
+    private static PackedMoves readMoves(ByteBuffer buffer, int nbMoves) {
+        int nbBytes = (int) ((nbMoves + MOVES_PER_BYTE - 1L) / MOVES_PER_BYTE);
+        long[] words = new long[PackedMoves.getNbWords(nbMoves)];
+        int nbFullWords = nbBytes / Long.BYTES;
+        buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(words, 0, nbFullWords);
+        buffer.position(buffer.position() + nbFullWords * Long.BYTES);
+        for (int i = nbFullWords * Long.BYTES; i < nbBytes; i++) {
+            words[nbFullWords] |= Byte.toUnsignedLong(buffer.get()) << (Byte.SIZE * (i % Long.BYTES));
+        }
+        if (nbMoves == 0) {
+            return null;
+        }
+        try {
+            return PackedMoves.wrap(words, nbMoves);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Un nom ne peut pas contenir de séparateur ni d'espace, pour que le fichier puisse être converti au format texte sans changer le jeu
+     */
+    private static void checkName(String name) {
+        if (StringUtils.isBlank(name)) {
+            throw new IllegalArgumentException("Le nom d'un des aventuriers est vide");
+        }
+        if (StringUtils.containsAny(name, '-', '\r', '\n') || StringUtils.containsWhitespace(name)) {
+            throw new IllegalArgumentException("Le nom d'un des aventuriers contient un espace ou un tiret : " + name);
+        }
+    }
+
+    private static int readCount(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalStateException("Le fichier binaire est tronqué, impossible de créer le jeu.");
+        }
+        return count;
+    }
+
+    private static boolean isOutOfMap(int posX, int posY, GameMap gameMap) {
+        return posX < 0 || posY < 0 || posX > gameMap.getWidth() || posY > gameMap.getHeight();
+    }
+
+    /**
+     * Écrit le jeu au format binaire. Les mots des mouvements compilés sont écrits tels quels :
+     * un caractère autre que A ou D dans le fichier texte, déjà interprété comme G, est donc écrit G.
+     *
+     * @param game Le jeu créé à partir d'un fichier d'entrée
+     * @param path Le chemin du fichier binaire à écrire
+     * @throws IOException Si une erreur I/O se produit lors de l'écriture du fichier
+     */
+    public void writeBinary(Game game, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putShort((short) VERSION).putShort((short) 0);
+            buffer.putInt(game.getGameMap().getWidth()).putInt(game.getGameMap().getHeight());
+            buffer.putInt(game.getMountainCells().size()).putInt(game.getTreasureCells().size()).putInt(game.getAdventurers().size());
+            for (Cell mountain : game.getMountainCells()) {
+                ensureRemaining(channel, buffer, 2 * Integer.BYTES);
+                buffer.putInt(mountain.getPosX()).putInt(mountain.getPosY());
+            }
+            for (Cell treasure : game.getTreasureCells()) {
+                ensureRemaining(channel, buffer, 3 * Integer.BYTES);
+                buffer.putInt(treasure.getPosX()).putInt(treasure.getPosY()).putInt(treasure.getNbTreasure());
+            }
+            for (Adventurer adventurer : game.getAdventurers()) {
+                byte[] name = adventurer.getName().getBytes(StandardCharsets.UTF_8);
+                if (name.length > 0xFFFF) {
+                    throw new IllegalArgumentException("Le nom de l'aventurier " + adventurer.getName() + " est trop long pour le format binaire");
+                }
+                ensureRemaining(channel, buffer, Short.BYTES);
+                buffer.putShort((short) name.length);
+                put(channel, buffer, name);
+            }
+            for (Adventurer adventurer : game.getAdventurers()) {
+                PackedMoves packedMoves = adventurer.getPackedMoves();
+                ensureRemaining(channel, buffer, 2 * Integer.BYTES + 1 + Integer.BYTES);
+                buffer.putInt(adventurer.getPosX()).putInt(adventurer.getPosY()).put((byte) adventurer.getOrientation().ordinal()).putInt(packedMoves.length());
+                int nbBytes = (int) ((packedMoves.length() + MOVES_PER_BYTE - 1L) / MOVES_PER_BYTE);
+                for (int i = 0; i < nbBytes; i += Long.BYTES) {
+                    long word = packedMoves.getWord(i / Long.BYTES);
+                    if (nbBytes - i >= Long.BYTES) {
+                        ensureRemaining(channel, buffer, Long.BYTES);
+                        buffer.putLong(word);
+                    } else {
+                        for (int j = i; j < nbBytes; j++) {
+                            ensureRemaining(channel, buffer, 1);
+                            buffer.put((byte) (word >>> (Byte.SIZE * (j - i))));
+                        }
+                    }
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Écrit le jeu au format texte, une ligne par asset dans l'ordre du jeu.
+     *
+     * @param game Le jeu créé à partir d'un fichier d'entrée
+     * @param path Le chemin du fichier texte à écrire
+     * @throws IOException Si une erreur I/O se produit lors de l'écriture du fichier
+     */
+    public void writeText(Game game, Path path) throws IOException {
+        String separator = OutputFileService.SEPARATOR;
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("C" + separator + game.getGameMap().getWidth() + separator + game.getGameMap().getHeight());
+            writer.newLine();
+            for (Cell mountain : game.getMountainCells()) {
+                writer.write("M" + separator + mountain.getPosX() + separator + mountain.getPosY());
+                writer.newLine();
+            }
+            for (Cell treasure : game.getTreasureCells()) {
+                writer.write("T" + separator + treasure.getPosX() + separator + treasure.getPosY() + separator + treasure.getNbTreasure());
+                writer.newLine();
+            }
+            for (Adventurer adventurer : game.getAdventurers()) {
+                writer.write("A" + separator + adventurer.getName() + separator + adventurer.getPosX() + separator + adventurer.getPosY()
+                        + separator + adventurer.getOrientation().name() + separator + adventurer.getMoves());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int size) throws IOException {
+        if (buffer.remaining() < size) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void put(FileChannel channel, ByteBuffer buffer, byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensureRemaining(channel, buffer, 1);
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
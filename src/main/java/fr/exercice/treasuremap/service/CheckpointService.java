@@ -0,0 +1,260 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.AdventurerPopulation;
+import fr.exercice.treasuremap.model.Cell;
+import fr.exercice.treasuremap.model.CheckpointSession;
+import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.model.Orientation;
+import fr.exercice.treasuremap.utils.WorkingFileUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Ce service sauvegarde l'état d'une partie en cours dans un fichier binaire compact, tous les N tours ou à intervalle de temps régulier,
+ * et reprend une partie interrompue à partir de sa dernière sauvegarde valide. Une sauvegarde contient :
+ * <li>L'empreinte CRC32C du fichier d'entrée, pour ne jamais reprendre la sauvegarde d'une autre partie</li>
+ * <li>Le prochain tour à jouer</li>
+ * <li>Pour chaque aventurier : sa position, son orientation, ses trésors ramassés, s'il a terminé ses mouvements
+ * et le tour de fin de sa suite de rotations en cours</li>
+ * <li>Le nombre de trésors restants sur chaque case de trésor</li>
+ * <li>L'empreinte CRC32C de tout ce qui précède, pour écarter une sauvegarde tronquée ou abîmée</li>
+ * Les montagnes et les mouvements ne changent jamais pendant la partie : ils sont relus dans le fichier d'entrée.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CheckpointService {
+
+    // "TMCP" : Treasure Map CheckPoint
+    private static final int MAGIC = 0x544D4350;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String[] CHECKPOINT_NAME_SUFFIXES = {"_checkpoint_a.bin", "_checkpoint_b.bin"};
+
+    private final TreasureMapProperties properties;
+
+    /**
+     * Prépare les sauvegardes de la partie. Avec l'option {@code --resume}, la dernière sauvegarde valide de la partie est rechargée
+     * dans la population et les trésors du jeu, et la partie reprend au tour sauvegardé.
+     *
+     * @param inputFilePath Le chemin du fichier d'entrée de la partie
+     * @param game          Le jeu créé à partir du fichier d'entrée
+     * @param population    La population d'aventuriers du jeu, avant le premier tour
+     * @return Les sauvegardes de la partie, avec le tour auquel elle commence
+     * @throws IOException Si le fichier d'entrée ne peut pas être relu pour calculer son empreinte
+     */
+    public CheckpointSession startSession(Path inputFilePath, Game game, AdventurerPopulation population) throws IOException {
+        TreasureMapProperties.Checkpoint checkpoint = properties.getCheckpoint();
+        Path[] checkpointPaths = getCheckpointPaths(inputFilePath);
+        long intervalNanos = checkpoint.getInterval().toNanos();
+        if (!checkpoint.isResume() && checkpoint.getEveryTurns() <= 0 && intervalNanos <= 0) {
+            return new CheckpointSession(checkpointPaths, 0, 0, 0, 0, 0);
+        }
+        long inputChecksum = checksum(inputFilePath);
+        int startTurn = 0;
+        int nextSlot = 0;
+        if (checkpoint.isResume()) {
+            int resumedSlot = findLatestCheckpoint(checkpointPaths, inputChecksum, population.getSize(), game.getTreasureCells().size());
+            if (resumedSlot < 0) {
+                log.info("Aucune sauvegarde valide de la partie {}, elle commence au premier tour", inputFilePath);
+            } else {
+                startTurn = readCheckpoint(checkpointPaths[resumedSlot], inputChecksum, population, game.getTreasureCells());
+                population.writeTo(game.getAdventurers());
+                nextSlot = 1 - resumedSlot;
+                log.info("Reprise de la partie {} au tour {} à partir de la sauvegarde {}", inputFilePath, startTurn, checkpointPaths[resumedSlot]);
+            }
+        }
+        return new CheckpointSession(checkpointPaths, inputChecksum, Math.max(0, checkpoint.getEveryTurns()), Math.max(0, intervalNanos), startTurn, nextSlot);
+    }
+
+    /**
+     * Écrit l'état de la partie au début d'un tour dans le plus ancien des deux fichiers de sauvegarde.
+     * La sauvegarde est écrite dans un fichier temporaire, forcée sur le disque puis renommée de façon atomique.
+     * Une sauvegarde en échec est signalée sans interrompre la partie.
+     *
+     * @param session       Les sauvegardes de la partie
+     * @param turn          Le prochain tour à jouer
+     * @param population    La population d'aventuriers du jeu
+     * @param treasureCells Les cases de trésor du jeu
+     */
+    public void writeCheckpoint(CheckpointSession session, int turn, AdventurerPopulation population, List<Cell> treasureCells) {
+        Path checkpointPath = session.getNextCheckpointPath();
+        try {
+            WorkingFileUtils.writeAtomically(checkpointPath, tempFilePath -> writeCheckpoint(tempFilePath, session.getInputChecksum(), turn, population, treasureCells));
+            session.checkpointWritten(turn);
+            log.debug("Sauvegarde du tour {} écrite dans {}", turn, checkpointPath);
+        } catch (IOException e) {
+            session.checkpointFailed(turn);
+            log.warn("La sauvegarde du tour {} n'a pas pu être écrite dans {} : {}", turn, checkpointPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Supprime les sauvegardes d'une partie terminée, dont le fichier de sortie a été créé.
+     */
+    public void deleteCheckpoints(CheckpointSession session) throws IOException {
+        for (Path checkpointPath : session.getCheckpointPaths()) {
+            Files.deleteIfExists(checkpointPath);
+        }
+    }
+
+    /**
+     * @return Les deux fichiers de sauvegarde de la partie, dans le répertoire {@code treasuremap.checkpoint.directory} ou à côté du fichier d'entrée
+     */
+    public Path[] getCheckpointPaths(Path inputFilePath) {
+        String directory = properties.getCheckpoint().getDirectory();
+        Path checkpointDirectory = StringUtils.isBlank(directory) ? inputFilePath.toAbsolutePath().getParent() : Paths.get(directory);
+        String gameFileName = InputFileService.getGameFileName(inputFilePath);
+        Path[] checkpointPaths = new Path[CHECKPOINT_NAME_SUFFIXES.length];
+        for (int slot = 0; slot < checkpointPaths.length; slot++) {
+            checkpointPaths[slot] = checkpointDirectory.resolve(gameFileName + CHECKPOINT_NAME_SUFFIXES[slot]);
+        }
+        return checkpointPaths;
+    }
+
+    /**
+     * @return L'indice du fichier contenant la sauvegarde valide du tour le plus avancé, -1 s'il n'y en a aucune
+     */
+    private int findLatestCheckpoint(Path[] checkpointPaths, long inputChecksum, int nbAdventurers, int nbTreasureCells) {
+        int latestSlot = -1;
+        int latestTurn = -1;
+        for (int slot = 0; slot < checkpointPaths.length; slot++) {
+            if (!Files.exists(checkpointPaths[slot])) {
+                continue;
+            }
+            try {
+                int turn = validateCheckpoint(checkpointPaths[slot], inputChecksum, nbAdventurers, nbTreasureCells);
+                if (turn > latestTurn) {
+                    latestSlot = slot;
+                    latestTurn = turn;
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.warn("La sauvegarde {} est ignorée : {}", checkpointPaths[slot], e.getMessage());
+            }
+        }
+        return latestSlot;
+    }
+
+    private void writeCheckpoint(Path checkpointPath, long inputChecksum, int turn, AdventurerPopulation population, List<Cell> treasureCells) throws IOException {
+        try (FileChannel channel = FileChannel.open(checkpointPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checkedOutput = new CheckedOutputStream(Channels.newOutputStream(channel), new CRC32C());
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(checkedOutput, BUFFER_SIZE));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(inputChecksum);
+            output.writeInt(turn);
+            output.writeInt(population.getSize());
+            for (int index = 0; index < population.getSize(); index++) {
+                output.writeInt(population.getPosX(index));
+                output.writeInt(population.getPosY(index));
+                output.writeByte(population.getOrientation(index).ordinal());
+                output.writeInt(population.getNbTreasure(index));
+                output.writeBoolean(population.isDoneMoving(index));
+                output.writeInt(population.getRotationRunEnd(index));
+            }
+            output.writeInt(treasureCells.size());
+            for (Cell treasure : treasureCells) {
+                output.writeInt(treasure.getNbTreasure());
+            }
+            output.flush();
+            output.writeLong(checkedOutput.getChecksum().getValue());
+            output.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Relit entièrement la sauvegarde pour vérifier son empreinte, sans modifier la partie.
+     *
+     * @return Le tour sauvegardé
+     */
+    private int validateCheckpoint(Path checkpointPath, long inputChecksum, int nbAdventurers, int nbTreasureCells) throws IOException {
+        return readCheckpoint(checkpointPath, inputChecksum, nbAdventurers, nbTreasureCells, null, null);
+    }
+
+    private int readCheckpoint(Path checkpointPath, long inputChecksum, AdventurerPopulation population, List<Cell> treasureCells) throws IOException {
+        return readCheckpoint(checkpointPath, inputChecksum, population.getSize(), treasureCells.size(), population, treasureCells);
+    }
+
+    /**
+     * @param population    La population dans laquelle recharger les aventuriers, {@code null} pour seulement vérifier la sauvegarde
+     * @param treasureCells Les cases de trésor dans lesquelles recharger les trésors restants, {@code null} pour seulement vérifier la sauvegarde
+     */
+    private int readCheckpoint(Path checkpointPath, long inputChecksum, int nbAdventurers, int nbTreasureCells,
+                               AdventurerPopulation population, List<Cell> treasureCells) throws IOException {
+        // L'empreinte est calculée au-dessus du tampon de lecture, pour ne compter que les octets déjà lus de la sauvegarde
+        try (CheckedInputStream checkedInput = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(checkpointPath), BUFFER_SIZE), new CRC32C());
+             DataInputStream input = new DataInputStream(checkedInput)) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IllegalStateException("Le fichier n'est pas une sauvegarde de partie dans un format connu");
+            }
+            if (input.readLong() != inputChecksum) {
+                throw new IllegalStateException("La sauvegarde a été faite pour un autre fichier d'entrée");
+            }
+            int turn = input.readInt();
+            if (input.readInt() != nbAdventurers) {
+                throw new IllegalStateException("Le nombre d'aventuriers ne correspond pas à la partie");
+            }
+            for (int index = 0; index < nbAdventurers; index++) {
+                int posX = input.readInt();
+                int posY = input.readInt();
+                int orientation = input.readUnsignedByte();
+                int nbTreasure = input.readInt();
+                boolean doneMoving = input.readBoolean();
+                int rotationRunEnd = input.readInt();
+                if (population != null) {
+                    population.setPosition(index, posX, posY);
+                    population.setOrientation(index, Orientation.getOrientationWithOrdinal(orientation));
+                    population.setNbTreasure(index, nbTreasure);
+                    if (doneMoving) {
+                        population.setDoneMoving(index);
+                    }
+                    population.setRotationRunEnd(index, rotationRunEnd);
+                }
+            }
+            if (input.readInt() != nbTreasureCells) {
+                throw new IllegalStateException("Le nombre de cases de trésor ne correspond pas à la partie");
+            }
+            for (int i = 0; i < nbTreasureCells; i++) {
+                int nbTreasure = input.readInt();
+                if (treasureCells != null) {
+                    treasureCells.get(i).setNbTreasure(nbTreasure);
+                }
+            }
+            long expectedChecksum = checkedInput.getChecksum().getValue();
+            if (input.readLong() != expectedChecksum || input.read() != -1) {
+                throw new IllegalStateException("L'empreinte de la sauvegarde est incorrecte");
+            }
+            return turn;
+        }
+    }
+
+    /**
+     * @return L'empreinte CRC32C du contenu du fichier d'entrée
+     */
+    private static long checksum(Path inputFilePath) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(inputFilePath, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+}
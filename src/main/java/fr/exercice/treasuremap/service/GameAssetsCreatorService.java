@@ -6,10 +6,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.util.function.Supplier;
 
 /**
- * Ce service permet de créer tous les objets nécessaires au jeu, en s'assurant que ladite création est possible dans le contexte de l'objet {@link Game}
+ * Ce service permet de créer tous les objets nécessaires au jeu, en s'assurant que ladite création est possible dans le contexte de l'objet {@link Game},
+ * dont les assets déjà créés sont indexés par un {@link GameAssetsIndex}
  */
 @Service
 @RequiredArgsConstructor
@@ -40,15 +41,26 @@ public class GameAssetsCreatorService {
      *                          Le deuxième {@code int} correspond à la position Y (ordonnée) de la montagne
      * @return {@link Cell} de type {@link CellType} {@code MOUNTAIN}
      */
-    public Cell createMountain(String[] mountainSplitLine, Game game, String mountainLine) {
-        int posX = Integer.parseInt(mountainSplitLine[1]);
-        int posY = Integer.parseInt(mountainSplitLine[2]);
-        if (isEmptyCell(posX, posY, game)) {
+    public Cell createMountain(String[] mountainSplitLine, GameAssetsIndex assetsIndex, String mountainLine) {
+        return createMountain(Integer.parseInt(mountainSplitLine[1]), Integer.parseInt(mountainSplitLine[2]), assetsIndex, () -> mountainLine);
+    }
+
+    /**
+     * Création d'une montagne à partir de valeurs déjà lues et validées, la ligne n'étant construite qu'en cas d'erreur
+     *
+     * @param posX         La position X (abscisse) de la montagne
+     * @param posY         La position Y (ordonnée) de la montagne
+     * @param assetsIndex  L'index des assets déjà créés du jeu
+     * @param mountainLine La ligne du fichier d'entrée, utilisée dans le message d'erreur
+     * @return {@link Cell} de type {@link CellType} {@code MOUNTAIN}
+     */
+    public Cell createMountain(int posX, int posY, GameAssetsIndex assetsIndex, Supplier<String> mountainLine) {
+        if (isEmptyCell(posX, posY, assetsIndex)) {
             return new Cell()
                     .setType(CellType.MOUTAIN)
                     .setPosX(posX)
                     .setPosY(posY);
-        } else throw new IllegalArgumentException("Impossible de créer la montagne de la ligne " + mountainLine);
+        } else throw new IllegalArgumentException("Impossible de créer la montagne de la ligne " + mountainLine.get());
     }
 
     /**
@@ -61,17 +73,29 @@ public class GameAssetsCreatorService {
      *                          Le troisième {@code int} correspond au nombre de trésors sur la case.
      * @return {@link Cell} de type {@link CellType} {@code TREASURE}
      */
-    public Cell createTreasure(String[] treasureSplitLine, Game game, String treasureLine) {
-        int posX = Integer.parseInt(treasureSplitLine[1]);
-        int posY = Integer.parseInt(treasureSplitLine[2]);
-        if (isEmptyCell(posX, posY, game)) {
+    public Cell createTreasure(String[] treasureSplitLine, GameAssetsIndex assetsIndex, String treasureLine) {
+        return createTreasure(Integer.parseInt(treasureSplitLine[1]), Integer.parseInt(treasureSplitLine[2]), Integer.parseInt(treasureSplitLine[3]), assetsIndex, () -> treasureLine);
+    }
+
+    /**
+     * Création d'un trésor à partir de valeurs déjà lues et validées, la ligne n'étant construite qu'en cas d'erreur
+     *
+     * @param posX         La position X (abscisse) du trésor
+     * @param posY         La position Y (ordonnée) du trésor
+     * @param nbTreasure   Le nombre de trésors sur la case
+     * @param assetsIndex  L'index des assets déjà créés du jeu
+     * @param treasureLine La ligne du fichier d'entrée, utilisée dans le message d'erreur
+     * @return {@link Cell} de type {@link CellType} {@code TREASURE}
+     */
+    public Cell createTreasure(int posX, int posY, int nbTreasure, GameAssetsIndex assetsIndex, Supplier<String> treasureLine) {
+        if (isEmptyCell(posX, posY, assetsIndex)) {
             Cell treasureCell = new Cell();
             return treasureCell
                     .setType(CellType.TREASURE)
-                    .setPosX(Integer.parseInt(treasureSplitLine[1]))
-                    .setPosY(Integer.parseInt(treasureSplitLine[2]))
-                    .setNbTreasure(Integer.parseInt(treasureSplitLine[3]));
-        } else throw new IllegalArgumentException("Impossible de créer le trésor de la ligne " + treasureLine);
+                    .setPosX(posX)
+                    .setPosY(posY)
+                    .setNbTreasure(nbTreasure);
+        } else throw new IllegalArgumentException("Impossible de créer le trésor de la ligne " + treasureLine.get());
     }
 
     /**
@@ -85,63 +109,98 @@ public class GameAssetsCreatorService {
      *                       La {@code String} correspond aux mouvements de l'aventurier.
      * @return {@link Adventurer}
      */
-    public Adventurer createAdventurer(String[] adventurerSplitLine, Game game, String adventurerLine) {
-        int posX = Integer.parseInt(adventurerSplitLine[2]);
-        int posY = Integer.parseInt(adventurerSplitLine[3]);
-        if (isEmptyCell(posX, posY, game) && nameDoesNotAlreadyExist(adventurerSplitLine[1], game.getAdventurers())) {
+    public Adventurer createAdventurer(String[] adventurerSplitLine, GameAssetsIndex assetsIndex, String adventurerLine) {
+        return createAdventurer(adventurerSplitLine[1], Integer.parseInt(adventurerSplitLine[2]), Integer.parseInt(adventurerSplitLine[3]),
+                Orientation.valueOf(StringUtils.upperCase(adventurerSplitLine[4])), adventurerSplitLine[5], assetsIndex, () -> adventurerLine);
+    }
+
+    /**
+     * Création d'un aventurier à partir de valeurs déjà lues et validées, la ligne n'étant construite qu'en cas d'erreur
+     *
+     * @param name           Le nom de l'aventurier tel qu'il est écrit dans le fichier d'entrée, il est capitalisé à la création
+     * @param posX           La position X (abscisse) de l'aventurier
+     * @param posY           La position Y (ordonnée) de l'aventurier
+     * @param orientation    L'orientation de l'aventurier
+     * @param moves          Les mouvements de l'aventurier
+     * @param assetsIndex    L'index des assets déjà créés du jeu
+     * @param adventurerLine La ligne du fichier d'entrée, utilisée dans le message d'erreur
+     * @return {@link Adventurer}
+     */
+    public Adventurer createAdventurer(String name, int posX, int posY, Orientation orientation, String moves, GameAssetsIndex assetsIndex, Supplier<String> adventurerLine) {
+        return createAdventurer(name, posX, posY, orientation, assetsIndex, adventurerLine).setMoves(moves);
+    }
+
+    /**
+     * Création d'un aventurier lu dans un fichier d'entrée binaire, dont les mouvements sont déjà compilés et rangés
+     *
+     * @param packedMoves    Les mouvements compilés de l'aventurier
+     * @param adventurerLine La description de l'aventurier, utilisée dans le message d'erreur
+     * @return {@link Adventurer}
+     */
+    public Adventurer createAdventurer(String name, int posX, int posY, Orientation orientation, PackedMoves packedMoves, GameAssetsIndex assetsIndex, Supplier<String> adventurerLine) {
+        return createAdventurer(name, posX, posY, orientation, assetsIndex, adventurerLine).setPackedMoves(packedMoves);
+    }
+
+    private Adventurer createAdventurer(String name, int posX, int posY, Orientation orientation, GameAssetsIndex assetsIndex, Supplier<String> adventurerLine) {
+        if (isEmptyCell(posX, posY, assetsIndex) && nameDoesNotAlreadyExist(name, assetsIndex)) {
             Adventurer adventurer = new Adventurer();
             return adventurer
-                    .setName(StringUtils.capitalize(adventurerSplitLine[1]))
-                    .setPosX(Integer.parseInt(adventurerSplitLine[2]))
-                    .setPosY(Integer.parseInt(adventurerSplitLine[3]))
-                    .setOrientation(Orientation.valueOf(StringUtils.upperCase(adventurerSplitLine[4])))
-                    .setMoves(adventurerSplitLine[5]);
-        } else throw new IllegalArgumentException("Impossible de créer l'aventurier de la ligne " + adventurerLine);
+                    .setName(StringUtils.capitalize(name))
+                    .setPosX(posX)
+                    .setPosY(posY)
+                    .setOrientation(orientation);
+        } else throw new IllegalArgumentException("Impossible de créer l'aventurier de la ligne " + adventurerLine.get());
+    }
+
+    /**
+     * @return Le message d'erreur d'une case déjà occupée, partagé avec la vérification complète du fichier d'entrée
+     */
+    public static String getOccupiedCellMessage(GameAssetsIndex.AssetType assetType, int posX, int posY) {
+        String asset = switch (assetType) {
+            case MOUNTAIN -> "une montagne";
+            case TREASURE -> "un trésor";
+            case ADVENTURER -> "un aventurier";
+        };
+        return "Il existe déjà " + asset + " à la position " + posX + " - " + posY;
+    }
+
+    /**
+     * @return Le message d'erreur d'un nom d'aventurier déjà pris, partagé avec la vérification complète du fichier d'entrée
+     */
+    public static String getExistingNameMessage(String name) {
+        return "Il existe déjà un aventurier qui se nomme " + name;
     }
 
     /**
      * Cette méthode permet de vérifier qu'il n'existe pas déjà un asset du jeu sur la case de l'objet en cours de création.
+     * La recherche passe par l'index {@link GameAssetsIndex} du jeu, le coût d'une vérification ne dépend donc pas du nombre d'assets déjà créés.
      *
-     * @param posX L'abscisse de la position de l'objet en cours de création
-     * @param posY L'ordonnée de la position de l'objet en cours de création
-     * @param game Le jeu contenant tous les assets déjà créés
+     * @param posX        L'abscisse de la position de l'objet en cours de création
+     * @param posY        L'ordonnée de la position de l'objet en cours de création
+     * @param assetsIndex L'index des assets déjà créés du jeu
      * @return Si la case est déjà occupée par un asset
      */
-    private boolean isEmptyCell(int posX, int posY, Game game) {
-        for (Cell mountainCell : game.getMountainCells()) {
-            if (mountainCell.getPosX() == posX && mountainCell.getPosY() == posY) {
-                log.error("Il existe déjà une montagne à la position {} - {}", mountainCell.getPosX(), mountainCell.getPosY());
-                return false;
-            }
-        }
-        for (Cell treasureCell : game.getTreasureCells()) {
-            if (treasureCell.getPosX() == posX && treasureCell.getPosY() == posY) {
-                log.error("Il existe déjà un trésor à la position {} - {}", treasureCell.getPosX(), treasureCell.getPosY());
-                return false;
-            }
+    private boolean isEmptyCell(int posX, int posY, GameAssetsIndex assetsIndex) {
+        assetsIndex.update();
+        GameAssetsIndex.AssetType assetType = assetsIndex.getAssetType(posX, posY);
+        if (assetType == null) {
+            return true;
         }
-        for (Adventurer adventurer : game.getAdventurers()) {
-            if (adventurer.getPosX() == posX && adventurer.getPosY() == posY) {
-                log.error("Il existe déjà un aventurier à la position {} - {}", adventurer.getPosX(), adventurer.getPosY());
-                return false;
-            }
-        }
-        return true;
+        log.error(getOccupiedCellMessage(assetType, posX, posY));
+        return false;
     }
 
     /**
      * Chaque aventurier doit avoir un nom différent pour pouvoir les distinguer
      *
      * @param name        Le nom de l'aventurier en cours de création
-     * @param adventurers La liste des aventuriers déjà créés
+     * @param assetsIndex L'index des assets déjà créés du jeu, mis à jour par la vérification de la case
      * @return Si un aventurier avec le même nom existe déjà
      */
-    private boolean nameDoesNotAlreadyExist(String name, List<Adventurer> adventurers) {
-        for (Adventurer adventurer : adventurers) {
-            if (adventurer.getName().equals(name)) {
-                log.error("Il existe déjà un aventurier qui se nomme {}", adventurer.getName());
-                return false;
-            }
+    private boolean nameDoesNotAlreadyExist(String name, GameAssetsIndex assetsIndex) {
+        if (assetsIndex.containsAdventurerName(name)) {
+            log.error(getExistingNameMessage(name));
+            return false;
         }
         return true;
     }
@@ -0,0 +1,217 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.AdventurerPopulation;
+import fr.exercice.treasuremap.model.EventLevel;
+import fr.exercice.treasuremap.model.FullBufferPolicy;
+import fr.exercice.treasuremap.model.GameEventRingBuffer;
+import fr.exercice.treasuremap.model.GameEventType;
+import fr.exercice.treasuremap.model.Orientation;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Service recevant les événements des parties, suivant le niveau {@code treasuremap.events.level} :
+ * <li>Le bilan de chaque partie est écrit directement, aux niveaux SUMMARY et TRACE</li>
+ * <li>Au niveau TRACE, le détail des tours et des mouvements est publié dans un {@link GameEventRingBuffer}
+ * et mis en forme par un thread dédié : les threads de simulation n'attendent ni le formatage ni l'écriture des logs.
+ * Lorsque le buffer est plein, suivant {@code treasuremap.events.full-buffer-policy}, l'événement est perdu et compté ({@link FullBufferPolicy#DROP})
+ * ou la simulation attend que des cases soient libérées ({@link FullBufferPolicy#BLOCK})</li>
+ * Chaque événement détaillé est préfixé par la partie en cours sur le thread qui le publie, déclarée avec {@link #enterGame(String)} :
+ * les lignes des parties jouées en même temps, par le batch ou le serveur de parties, restent attribuables,
+ * tout comme les événements perdus, indiqués dans le bilan de leur partie.
+ * Les événements encore en attente sont écrits à l'arrêt de l'application.
+ */
+@Service
+@Slf4j
+public class GameEventService implements DisposableBean {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_BUFFER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private static final String NO_GAME = "-";
+    private static final String[] GAME_PREFIXED_MESSAGES = Arrays.stream(GameEventType.values())
+            .map(type -> "[{}] " + type.getMessage())
+            .toArray(String[]::new);
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    @Getter
+    private final EventLevel level;
+    private final FullBufferPolicy fullBufferPolicy;
+    private final GameEventRingBuffer ringBuffer;
+    private final Thread writerThread;
+    private final ThreadLocal<String> currentGame = new ThreadLocal<>();
+    private final AtomicLong nbDroppedEvents = new AtomicLong();
+    // Événements perdus de chaque partie en cours, retirés à l'écriture de son bilan
+    private final ConcurrentHashMap<String, LongAdder> droppedEventsByGame = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    public GameEventService(TreasureMapProperties properties) {
+        this.level = properties.getEvents().getLevel();
+        this.fullBufferPolicy = properties.getEvents().getFullBufferPolicy();
+        if (level == EventLevel.TRACE) {
+            this.ringBuffer = new GameEventRingBuffer(properties.getEvents().getBufferSize());
+            this.writerThread = Thread.ofPlatform().daemon().name("evenements-jeu").start(this::writeEvents);
+        } else {
+            this.ringBuffer = null;
+            this.writerThread = null;
+        }
+    }
+
+    /**
+     * Rattache les événements publiés ensuite par le thread courant à une partie.
+     *
+     * @param gameName Le nom de la partie, celui de son fichier d'entrée ou de sa requête pour le serveur de parties
+     * @return La partie précédemment rattachée au thread, à rendre à {@link #exitGame(String)}
+     */
+    public String enterGame(String gameName) {
+        String previousGame = currentGame.get();
+        currentGame.set(gameName);
+        return previousGame;
+    }
+
+    /**
+     * Rattache de nouveau le thread courant à la partie qu'il jouait avant {@link #enterGame(String)}.
+     */
+    public void exitGame(String previousGame) {
+        if (previousGame == null) {
+            currentGame.remove();
+        } else {
+            currentGame.set(previousGame);
+        }
+    }
+
+    /**
+     * @return La partie rattachée au thread courant, null si aucune
+     */
+    public String getCurrentGame() {
+        return currentGame.get();
+    }
+
+    public void turnStarted(int turn) {
+        publish(GameEventType.TURN, null, turn, 0, 0);
+    }
+
+    public void newPosition(String name, int posX, int posY, Orientation orientation) {
+        publish(GameEventType.NEW_POSITION, name, posX, posY, orientation.ordinal());
+    }
+
+    public void newTreasure(String name, int nbTreasure) {
+        publish(GameEventType.NEW_TREASURE, name, nbTreasure, 0, 0);
+    }
+
+    /**
+     * @param type OUT_OF_MAP, MOUNTAIN ou ADVENTURER_PRESENT suivant ce qui empêche l'aventurier d'avancer
+     */
+    public void moveBlocked(GameEventType type, String name) {
+        publish(type, name, 0, 0, 0);
+    }
+
+    public void doneMoving(String name, int nbTreasure) {
+        publish(GameEventType.DONE_MOVING, name, nbTreasure, 0, 0);
+    }
+
+    /**
+     * Écrit le bilan d'une partie terminée, aux niveaux SUMMARY et TRACE, avec le nombre d'événements détaillés perdus
+     * par la partie rattachée au thread courant lorsque le buffer était plein.
+     *
+     * @param inputFilePath Le chemin du fichier d'entrée de la partie
+     * @param nbTurns       Le nombre de tours joués
+     * @param population    La population d'aventuriers à la fin de la partie
+     * @return Le nombre d'événements détaillés perdus par la partie
+     */
+    public long gameOver(Path inputFilePath, int nbTurns, AdventurerPopulation population) {
+        return gameOver(String.valueOf(inputFilePath.getFileName()), nbTurns, population);
+    }
+
+    /**
+     * @param gameName Le nom de la partie, celui de son fichier d'entrée ou de sa requête pour le serveur de parties
+     */
+    public long gameOver(String gameName, int nbTurns, AdventurerPopulation population) {
+        LongAdder droppedEvents = droppedEventsByGame.remove(getGameKey(currentGame.get()));
+        long nbGameDroppedEvents = droppedEvents == null ? 0 : droppedEvents.sum();
+        if (level == EventLevel.OFF) {
+            return nbGameDroppedEvents;
+        }
+        int nbTreasures = 0;
+        for (int i = 0; i < population.getSize(); i++) {
+            nbTreasures += population.getNbTreasure(i);
+        }
+        if (nbGameDroppedEvents > 0) {
+            log.info("Partie {} terminée en {} tour(s) : {} aventurier(s), {} trésor(s) ramassé(s), {} événement(s) perdu(s) car le buffer était plein",
+                    gameName, nbTurns, population.getSize(), nbTreasures, nbGameDroppedEvents);
+        } else {
+            log.info("Partie {} terminée en {} tour(s) : {} aventurier(s), {} trésor(s) ramassé(s)",
+                    gameName, nbTurns, population.getSize(), nbTreasures);
+        }
+        return nbGameDroppedEvents;
+    }
+
+    private void publish(GameEventType type, String name, int value1, int value2, int value3) {
+        if (ringBuffer == null) {
+            return;
+        }
+        String game = currentGame.get();
+        // Buffer plein : l'événement est perdu, sauf si la simulation doit attendre que le thread d'écriture libère des cases
+        while (!ringBuffer.offer(type, game, name, value1, value2, value3)) {
+            if (fullBufferPolicy == FullBufferPolicy.DROP || !running) {
+                nbDroppedEvents.incrementAndGet();
+                droppedEventsByGame.computeIfAbsent(getGameKey(game), key -> new LongAdder()).increment();
+                return;
+            }
+            LockSupport.parkNanos(FULL_BUFFER_PARK_NANOS);
+        }
+    }
+
+    private static String getGameKey(String game) {
+        return game != null ? game : NO_GAME;
+    }
+
+    private void writeEvents() {
+        GameEventRingBuffer.GameEventHandler handler = this::writeEvent;
+        while (running || ringBuffer.hasPendingEvents()) {
+            if (ringBuffer.drain(handler) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private void writeEvent(GameEventType type, String game, String name, int value1, int value2, int value3) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        String message = GAME_PREFIXED_MESSAGES[type.ordinal()];
+        game = getGameKey(game);
+        switch (type) {
+            case TURN -> log.info(message, game, value1);
+            case NEW_POSITION -> log.info(message, game, name, value1, value2, Orientation.getOrientationWithOrdinal(value3));
+            case NEW_TREASURE, DONE_MOVING -> log.info(message, game, name, value1);
+            default -> log.info(message, game, name);
+        }
+    }
+
+    /**
+     * Écrit les événements encore en attente avant l'arrêt de l'application.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        if (nbDroppedEvents.get() > 0) {
+            log.warn("{} événement(s) perdu(s) depuis le démarrage, le buffer étant plein ou l'écriture arrêtée", nbDroppedEvents.get());
+        }
+    }
+}
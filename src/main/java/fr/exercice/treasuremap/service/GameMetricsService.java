@@ -0,0 +1,210 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.AdventurerPopulation;
+import fr.exercice.treasuremap.model.GameEventType;
+import fr.exercice.treasuremap.model.GamePhase;
+import fr.exercice.treasuremap.model.GamePhaseClock;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Service des métriques Micrometer de l'exécution, activées par l'option {@code treasuremap.metrics.enabled} :
+ * <li>{@code treasuremap.phase} : le temps passé dans chaque étape des parties ({@link GamePhase}), une mesure par partie</li>
+ * <li>{@code treasuremap.turns} et {@code treasuremap.turns.per.second} : les tours joués et leur débit pendant les étapes SIMULATE</li>
+ * <li>{@code treasuremap.moves.forward.attempted}, {@code treasuremap.moves.rotation} et {@code treasuremap.treasures.collected} :
+ * les déplacements tentés, les rotations et les trésors ramassés</li>
+ * <li>{@code treasuremap.moves.blocked} : les déplacements refusés, avec le motif (out_of_map, mountain ou adventurer)</li>
+ * <li>{@code treasuremap.events.dropped} : les événements détaillés perdus lorsque le buffer des événements était plein</li>
+ * Seuls les déplacements refusés sont comptés pendant les tours. Les autres compteurs sont calculés à la fin des tours de chaque partie,
+ * à partir des mouvements joués et des trésors de la population : ils ne coûtent rien aux tours de jeu.
+ * Les déplacements réussis sont les déplacements tentés moins les déplacements refusés, une fois les parties terminées.
+ * Les métriques sont tenues dans un {@link SimpleMeterRegistry} et écrites à l'arrêt de l'application.
+ * Désactivées, elles ne coûtent qu'un test par déplacement refusé et l'horloge n'est jamais lue.
+ */
+@Service
+@Slf4j
+public class GameMetricsService implements DisposableBean {
+
+    @Getter
+    private final MeterRegistry registry;
+    private final Meters meters;
+
+    public GameMetricsService(TreasureMapProperties properties) {
+        if (properties.getMetrics().isEnabled()) {
+            this.registry = new SimpleMeterRegistry();
+            this.meters = Meters.register(registry);
+        } else {
+            this.registry = null;
+            this.meters = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return registry != null;
+    }
+
+    /**
+     * @return Un chronomètre pour les étapes d'une nouvelle partie, qui ne lit jamais l'horloge si les métriques sont désactivées
+     */
+    public GamePhaseClock startClock() {
+        return new GamePhaseClock(isEnabled());
+    }
+
+    /**
+     * @param type OUT_OF_MAP, MOUNTAIN ou ADVENTURER_PRESENT suivant ce qui empêche l'aventurier d'avancer
+     */
+    public void moveBlocked(GameEventType type) {
+        if (registry == null) {
+            return;
+        }
+        switch (type) {
+            case OUT_OF_MAP -> meters.outOfMapMoves().increment();
+            case MOUNTAIN -> meters.mountainMoves().increment();
+            default -> meters.adventurerMoves().increment();
+        }
+    }
+
+    /**
+     * Calcule les compteurs d'une partie dont tous les tours ont été joués. Tous les aventuriers ont joué tous leurs mouvements :
+     * les mouvements joués sont ceux qui suivent le tour de départ de la partie, qui n'est pas le premier pour une partie reprise.
+     *
+     * @param population         La population d'aventuriers à la fin de la partie
+     * @param startTurn          Le tour auquel la partie a commencé
+     * @param nbTurns            Le nombre de tours joués, depuis le premier tour de la partie
+     * @param nbTreasuresAtStart Le nombre de trésors des aventuriers au tour de départ, voir {@link #countTreasures(AdventurerPopulation)}
+     */
+    public void simulationOver(AdventurerPopulation population, int startTurn, int nbTurns, long nbTreasuresAtStart) {
+        if (registry == null) {
+            return;
+        }
+        long nbMoves = 0;
+        long nbForwardMoves = 0;
+        for (int index = 0; index < population.getSize(); index++) {
+            nbMoves += Math.max(0, population.getNbMoves(index) - startTurn);
+            nbForwardMoves += population.countForwardMoves(index, Integer.MAX_VALUE) - population.countForwardMoves(index, startTurn);
+        }
+        meters.turns().increment(nbTurns - startTurn);
+        meters.forwardAttempts().increment(nbForwardMoves);
+        meters.rotations().increment(nbMoves - nbForwardMoves);
+        meters.treasuresCollected().increment(countTreasures(population) - nbTreasuresAtStart);
+    }
+
+    /**
+     * @return Le nombre total de trésors des aventuriers, 0 si les métriques sont désactivées
+     */
+    public long countTreasures(AdventurerPopulation population) {
+        if (registry == null) {
+            return 0;
+        }
+        long nbTreasures = 0;
+        for (int index = 0; index < population.getSize(); index++) {
+            nbTreasures += population.getNbTreasure(index);
+        }
+        return nbTreasures;
+    }
+
+    /**
+     * Enregistre le temps passé dans chaque étape d'une partie terminée.
+     *
+     * @param clock Le chronomètre de la partie
+     */
+    public void gameOver(GamePhaseClock clock) {
+        if (registry == null) {
+            return;
+        }
+        for (GamePhase phase : GamePhase.values()) {
+            meters.phaseTimers()[phase.ordinal()].record(clock.getNanos(phase), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Compte les événements détaillés perdus par une partie terminée, voir {@link GameEventService#gameOver(String, int, AdventurerPopulation)}.
+     *
+     * @param nbEvents Le nombre d'événements perdus
+     */
+    public void eventsDropped(long nbEvents) {
+        if (registry == null || nbEvents == 0) {
+            return;
+        }
+        meters.droppedEvents().increment(nbEvents);
+    }
+
+    /**
+     * @return Le nombre total de déplacements refusés depuis le démarrage, 0 si les métriques sont désactivées
+     */
+    public long getNbBlockedMoves() {
+        if (registry == null) {
+            return 0;
+        }
+        return (long) (meters.outOfMapMoves().count() + meters.mountainMoves().count() + meters.adventurerMoves().count());
+    }
+
+    /**
+     * Écrit toutes les métriques de l'exécution avant l'arrêt de l'application.
+     */
+    @Override
+    public void destroy() {
+        if (registry == null) {
+            return;
+        }
+        registry.getMeters().stream()
+                .sorted(Comparator.comparing(meter -> meter.getId().getName()))
+                .forEach(meter -> log.info("Métrique {}{} : {}", meter.getId().getName(), formatTags(meter), formatValue(meter)));
+    }
+
+    private static String formatTags(Meter meter) {
+        return meter.getId().getTags().isEmpty() ? "" : meter.getId().getTags().stream()
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    private static String formatValue(Meter meter) {
+        return switch (meter) {
+            case Timer timer -> String.format("%d mesure(s), %.1f ms au total", timer.count(), timer.totalTime(TimeUnit.MILLISECONDS));
+            case Counter counter -> String.format("%.0f", counter.count());
+            case Gauge gauge -> String.format("%.1f", gauge.value());
+            default -> String.valueOf(meter.measure());
+        };
+    }
+
+    /**
+     * Les compteurs et chronomètres de l'exécution, enregistrés une seule fois dans le registre.
+     */
+    private record Meters(Timer[] phaseTimers, Counter turns, Counter forwardAttempts, Counter rotations, Counter treasuresCollected,
+                          Counter outOfMapMoves, Counter mountainMoves, Counter adventurerMoves, Counter droppedEvents) {
+
+        private static Meters register(MeterRegistry registry) {
+            Timer[] phaseTimers = new Timer[GamePhase.values().length];
+            for (GamePhase phase : GamePhase.values()) {
+                phaseTimers[phase.ordinal()] = Timer.builder("treasuremap.phase").tag("phase", phase.name().toLowerCase()).register(registry);
+            }
+            Counter turns = Counter.builder("treasuremap.turns").register(registry);
+            Timer simulateTimer = phaseTimers[GamePhase.SIMULATE.ordinal()];
+            Gauge.builder("treasuremap.turns.per.second", turns, counter -> {
+                double simulateSeconds = simulateTimer.totalTime(TimeUnit.SECONDS);
+                return simulateSeconds > 0 ? counter.count() / simulateSeconds : 0;
+            }).register(registry);
+            return new Meters(phaseTimers, turns,
+                    Counter.builder("treasuremap.moves.forward.attempted").register(registry),
+                    Counter.builder("treasuremap.moves.rotation").register(registry),
+                    Counter.builder("treasuremap.treasures.collected").register(registry),
+                    blockedMoves(registry, "out_of_map"),
+                    blockedMoves(registry, "mountain"),
+                    blockedMoves(registry, "adventurer"),
+                    Counter.builder("treasuremap.events.dropped").register(registry));
+        }
+
+        private static Counter blockedMoves(MeterRegistry registry, String reason) {
+            return Counter.builder("treasuremap.moves.blocked").tag("reason", reason).register(registry);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.model.GameAssetsIndex;
+import fr.exercice.treasuremap.model.GamePhase;
+import fr.exercice.treasuremap.model.GamePhaseClock;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Ce service crée le jeu à partir d'un fichier d'entrée ou du contenu d'une partie reçue par le serveur, dans l'un des trois modes de lecture :
+ * <li>Le format binaire, reconnu à son en-tête, lu par le {@link BinaryInputFileService}</li>
+ * <li>La lecture en mémoire mappée sur plusieurs coeurs par le {@link MappedInputParserService}, pour les fichiers texte volumineux</li>
+ * <li>La lecture ligne par ligne, où chaque ligne est validée puis son asset créé avant de lire la suivante</li>
+ * Le temps passé à lire, valider et créer les assets est attribué aux étapes du {@link GamePhaseClock} de la partie.
+ */
+@Service
+@RequiredArgsConstructor
+public class GameReaderService {
+
+    private final InputFileService inputFileService;
+    private final InputValidationService inputValidationService;
+    private final GameAssetsCreatorService gameAssetsCreatorService;
+    private final MappedInputParserService mappedInputParserService;
+    private final BinaryInputFileService binaryInputFileService;
+    private final TreasureMapProperties properties;
+
+    /**
+     * Crée le jeu à partir du fichier d'entrée. Les fichiers texte volumineux peuvent être lus en mémoire mappée
+     * si l'option {@code treasuremap.input.mapped-parsing} est activée, les autres sont lus ligne par ligne.
+     * Les lectures binaire et mappée vérifient et créent les assets au fil de la lecture : leur temps est attribué en entier à l'étape READ.
+     *
+     * @param inputFilePath le chemin du fichier d'entrée
+     * @param clock         Le chronomètre des étapes de la partie
+     * @return Le jeu avec tous ses assets
+     * @throws IOException Si une erreur I/O se produit lors de la lecture du fichier
+     */
+    public Game generateGame(Path inputFilePath, GamePhaseClock clock) throws IOException {
+        Game game = new Game();
+        if (binaryInputFileService.isBinaryInputFile(inputFilePath)) {
+            binaryInputFileService.readInto(game, inputFilePath);
+            clock.lap(GamePhase.READ);
+        } else if (isMappedParsingUsed(inputFilePath) && mappedInputParserService.parseInto(game, inputFilePath)) {
+            clock.lap(GamePhase.READ);
+        } else {
+            readGame(game, inputFileService.openFile(inputFilePath.toString()), clock);
+        }
+        return game;
+    }
+
+    /**
+     * Crée le jeu à partir du contenu d'un fichier d'entrée reçu sans fichier, au format binaire ou lu ligne par ligne.
+     *
+     * @param inputContent Le contenu du fichier d'entrée, au format texte ou binaire
+     * @param clock        Le chronomètre des étapes de la partie
+     * @return Le jeu avec tous ses assets
+     * @throws IOException Si une erreur I/O se produit lors de la lecture du contenu
+     */
+    public Game generateGame(byte[] inputContent, GamePhaseClock clock) throws IOException {
+        Game game = new Game();
+        if (binaryInputFileService.isBinaryInput(inputContent)) {
+            binaryInputFileService.readInto(game, inputContent);
+            clock.lap(GamePhase.READ);
+        } else {
+            readGame(game, new BufferedReader(new InputStreamReader(new ByteArrayInputStream(inputContent), StandardCharsets.UTF_8)), clock);
+        }
+        return game;
+    }
+
+    private boolean isMappedParsingUsed(Path path) throws IOException {
+        TreasureMapProperties.Input input = properties.getInput();
+        return input.isMappedParsing() && Files.isRegularFile(path) && Files.size(path) >= input.getMappedParsingMinSize().toBytes();
+    }
+
+    /**
+     * Lit le fichier ligne par ligne : chaque ligne est validée et l'objet correspondant est créé avant de lire la suivante,
+     * la mémoire utilisée dépend donc du jeu et non de la taille du fichier.
+     * Une ligne d'avance est lue pour vérifier dès le début que le fichier contient au moins deux lignes et pour reconnaître la dernière ligne.
+     *
+     * @param game   Le jeu à remplir
+     * @param reader Le lecteur du fichier d'entrée ou du contenu reçu par le serveur de parties, fermé à la fin de la lecture
+     * @param clock  Le chronomètre des étapes de la partie
+     * @throws IOException Si une erreur I/O se produit lors de la lecture du fichier
+     */
+    private void readGame(Game game, BufferedReader reader, GamePhaseClock clock) throws IOException {
+        try (reader) {
+            String line = reader.readLine();
+            String nextLine = reader.readLine();
+            clock.lap(GamePhase.READ);
+            inputValidationService.checkFirstLines(line, nextLine);
+            clock.lap(GamePhase.VALIDATE);
+            GameAssetsIndex assetsIndex = new GameAssetsIndex(game);
+            while (line != null) {
+                if (nextLine == null) {
+                    inputValidationService.checkLastLine(line);
+                }
+                createAsset(assetsIndex, line, clock);
+                line = nextLine;
+                nextLine = reader.readLine();
+                clock.lap(GamePhase.READ);
+            }
+        }
+    }
+
+    private void createAsset(GameAssetsIndex assetsIndex, String line, GamePhaseClock clock) {
+        Game game = assetsIndex.getGame();
+        String[] splitLine = inputFileService.getCleanSplitElements(line);
+        clock.lap(GamePhase.READ);
+        switch (line) {
+            case String l when StringUtils.startsWithIgnoreCase(l, "C") -> {
+                inputValidationService.checkMapLine(l, splitLine);
+                clock.lap(GamePhase.VALIDATE);
+                game.setGameMap(gameAssetsCreatorService.createMap(splitLine));
+            }
+            case String l when StringUtils.startsWithIgnoreCase(l, "M") -> {
+                inputValidationService.checkMountainLine(l, splitLine, game.getGameMap());
+                clock.lap(GamePhase.VALIDATE);
+                game.getMountainCells().add(gameAssetsCreatorService.createMountain(splitLine, assetsIndex, l));
+            }
+            case String l when StringUtils.startsWithIgnoreCase(l, "T") -> {
+                inputValidationService.checkTreasureLine(l, splitLine, game.getGameMap());
+                clock.lap(GamePhase.VALIDATE);
+                game.getTreasureCells().add(gameAssetsCreatorService.createTreasure(splitLine, assetsIndex, l));
+            }
+            case String l when StringUtils.startsWithIgnoreCase(l, "A") -> {
+                inputValidationService.checkAdventurerLine(l, splitLine, game.getGameMap());
+                clock.lap(GamePhase.VALIDATE);
+                game.getAdventurers().add(gameAssetsCreatorService.createAdventurer(splitLine, assetsIndex, l));
+            }
+            default -> throw new IllegalStateException(InputValidationService.UNKNOWN_LINE_MESSAGE + line);
+        }
+        clock.lap(GamePhase.BUILD);
+    }
+}
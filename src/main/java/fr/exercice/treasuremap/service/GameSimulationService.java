@@ -0,0 +1,140 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.AdventurerPopulation;
+import fr.exercice.treasuremap.model.CheckpointSession;
+import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.model.GameGrid;
+import fr.exercice.treasuremap.model.GameWorld;
+import fr.exercice.treasuremap.model.ParallelTurnState;
+import fr.exercice.treasuremap.model.SparseGameGrid;
+import fr.exercice.treasuremap.model.TrajectoryWriter;
+import fr.exercice.treasuremap.model.TurnScheduler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ce service joue tous les tours d'une partie créée, jusqu'à ce que tous les aventuriers aient terminé leurs mouvements.
+ * Il choisit l'index spatial de la partie ({@link GameGrid} ou {@link SparseGameGrid}) et, tour par tour, le moteur séquentiel
+ * du {@link MoveAdventurerService} ou le moteur parallèle du {@link ParallelTurnService}.
+ * Entre deux tours, il écrit les sauvegardes dues par le {@link CheckpointService} et la trajectoire par le {@link TrajectoryService}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class GameSimulationService {
+
+    // Les parties sans fichier d'entrée ne sont jamais sauvegardées : la session sans sauvegarde n'est jamais modifiée et peut être partagée
+    private static final CheckpointSession NO_CHECKPOINT_SESSION = new CheckpointSession(null, 0, 0, 0, 0, 0);
+
+    private final TreasureMapProperties properties;
+    private final GameEventService gameEventService;
+    private final MoveAdventurerService moveAdventurerService;
+    private final ParallelTurnService parallelTurnService;
+    private final CheckpointService checkpointService;
+    private final TrajectoryService trajectoryService;
+
+    private final AtomicBoolean firstTurnReported = new AtomicBoolean();
+
+    /**
+     * Joue la partie depuis le premier tour, sans sauvegarde ni trajectoire, comme pour les parties reçues par le serveur.
+     *
+     * @param game       Le jeu en cours
+     * @param population La population d'aventuriers du jeu
+     * @return Le nombre de tours joués
+     */
+    public int playAllTurns(Game game, AdventurerPopulation population) {
+        return playAllTurns(game, population, NO_CHECKPOINT_SESSION, 0, null);
+    }
+
+    /**
+     * Joue les tours tant qu'il reste des aventuriers actifs dans le {@link TurnScheduler}.
+     * Les aventuriers qui ont terminé leurs mouvements ne sont plus parcourus lors des tours suivants.
+     * Une partie reprise commence au tour de sa sauvegarde ou de l'état final de la partie précédente,
+     * et l'état de la partie est sauvegardé entre deux tours quand une sauvegarde est due.
+     * Chaque tour joué est ajouté à la trajectoire de la partie si elle est enregistrée.
+     *
+     * @param game              Le jeu en cours
+     * @param population        La population d'aventuriers du jeu
+     * @param checkpointSession Les sauvegardes de la partie
+     * @param startTurn         Le tour auquel la partie commence
+     * @param trajectoryWriter  La trajectoire de la partie, null si elle n'est pas enregistrée
+     * @return Le nombre de tours joués, depuis le premier tour de la partie
+     */
+    public int playAllTurns(Game game, AdventurerPopulation population, CheckpointSession checkpointSession, int startTurn, TrajectoryWriter trajectoryWriter) {
+        reportTimeToFirstTurn();
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+        int turn = startTurn;
+        if (!turnScheduler.hasActiveAdventurers()) {
+            return turn;
+        }
+        GameWorld gameWorld;
+        ParallelTurnState parallelTurnState = null;
+        if (properties.getSimulation().isSparseMap()) {
+            if (properties.getSimulation().isParallelTurns()) {
+                log.info("La carte creuse est activée : les tours sont joués un par un");
+            }
+            gameWorld = new SparseGameGrid(game);
+        } else if (isParallelTurn(population.getSize())) {
+            GameGrid gameGrid = new GameGrid(game, properties.getSimulation().getTileSize());
+            parallelTurnState = new ParallelTurnState(population, gameGrid);
+            gameWorld = gameGrid;
+        } else {
+            gameWorld = new GameGrid(game);
+        }
+        while (turnScheduler.hasActiveAdventurers()) {
+            turn = playTurn(gameWorld, population, turnScheduler, parallelTurnState, turn);
+            if (trajectoryWriter != null && !trajectoryService.writeTurn(trajectoryWriter, population, turnScheduler, turn - 1)) {
+                trajectoryWriter = null;
+            }
+            if (checkpointSession.isEnabled() && turnScheduler.hasActiveAdventurers() && checkpointSession.isCheckpointDue(turn)) {
+                checkpointService.writeCheckpoint(checkpointSession, turn, population, game.getTreasureCells());
+            }
+        }
+        return turn;
+    }
+
+    /**
+     * Les tours sont joués en parallèle si l'option {@code treasuremap.simulation.parallel-turns} est activée, qu'il reste assez d'aventuriers actifs
+     * et que plusieurs coeurs sont disponibles : sur un seul coeur, les passes du moteur parallèle coûtent plus cher qu'un tour séquentiel.
+     * Le moteur parallèle réserve les cases visées par leur indice dans le {@link GameGrid} : il n'est pas utilisé avec la carte creuse.
+     */
+    private boolean isParallelTurn(int nbActiveAdventurers) {
+        TreasureMapProperties.Simulation simulation = properties.getSimulation();
+        return simulation.isParallelTurns() && nbActiveAdventurers >= simulation.getParallelTurnsMinAdventurers()
+                && Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    /**
+     * Indique une seule fois par exécution le temps écoulé entre le démarrage de la JVM et le premier tour,
+     * à comparer avec le temps de démarrage de Spring affiché juste avant ("process running for").
+     */
+    private void reportTimeToFirstTurn() {
+        if (firstTurnReported.compareAndSet(false, true)) {
+            log.info("Premier tour lancé {} ms après le démarrage de la JVM", ManagementFactory.getRuntimeMXBean().getUptime());
+        }
+    }
+
+    private int playTurn(GameWorld gameWorld, AdventurerPopulation population, TurnScheduler turnScheduler, ParallelTurnState parallelTurnState, int turn) {
+        gameEventService.turnStarted(turn);
+        if (parallelTurnState != null && isParallelTurn(turnScheduler.getNbActiveAdventurers())) {
+            // L'état des tours en parallèle n'est créé qu'avec la grille dense
+            parallelTurnService.playTurn(parallelTurnState, (GameGrid) gameWorld, population, turnScheduler, turn);
+        } else {
+            for (int position = 0; position < turnScheduler.getNbActiveAdventurers(); position++) {
+                int index = turnScheduler.getActiveAdventurer(position);
+                moveAdventurerService.checkIfAdventurerIsDoneMoving(population, index, turn);
+                if (!population.isDoneMoving(index)) {
+                    moveAdventurerService.playMove(gameWorld, population, index, turn);
+                }
+            }
+        }
+        turnScheduler.removeDoneAdventurers(population);
+        turn++;
+        return turn;
+    }
+}
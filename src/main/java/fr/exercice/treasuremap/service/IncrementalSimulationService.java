@@ -0,0 +1,259 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.*;
+import fr.exercice.treasuremap.utils.WorkingFileUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Ce service garde l'état final de chaque partie si l'option {@code treasuremap.incremental.enabled} est activée,
+ * pour qu'une partie rejouée dont seuls les mouvements des aventuriers ont été allongés reprenne à cet état au lieu de rejouer tous les tours.
+ * L'état final, écrit dans le fichier {@code <fichier>_<empreinte>_state.bin}, contient :
+ * <li>L'empreinte SHA-256 de la carte, des montagnes, des trésors et de l'état de départ des aventuriers</li>
+ * <li>Le tour de l'état final, le nombre de mouvements du plus long script</li>
+ * <li>Pour chaque aventurier : ses mouvements compilés, sa position, son orientation et ses trésors ramassés à la fin de la partie</li>
+ * <li>Le nombre de trésors restants sur chaque case de trésor</li>
+ * <li>L'empreinte CRC32C de tout ce qui précède, pour écarter un état tronqué ou abîmé</li>
+ * L'état d'un tour ne dépend que des mouvements joués avant lui, mais un aventurier qui a terminé avant la fin de la partie est resté immobile
+ * pendant que les autres jouaient : allonger ses mouvements change les tours qui suivent sa fin. L'état final n'est donc repris que si
+ * les mouvements de chaque aventurier commencent par ceux de la partie précédente, et que seuls ceux des plus longs scripts ont été allongés.
+ * Dans tous les autres cas, la partie est rejouée depuis le premier tour.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class IncrementalSimulationService {
+
+    // "TMIS" : Treasure Map Incremental State
+    private static final int MAGIC = 0x544D4953;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String STATE_NAME_SUFFIX = "_state.bin";
+
+    private final TreasureMapProperties properties;
+
+    /**
+     * Calcule l'empreinte de la partie hors mouvements, avant le premier tour et avant la reprise d'une sauvegarde.
+     *
+     * @param inputFilePath Le chemin du fichier d'entrée de la partie
+     * @param game          Le jeu créé à partir du fichier d'entrée
+     * @return La reprise incrémentale de la partie, désactivée si l'option n'est pas activée
+     */
+    public IncrementalSession startSession(Path inputFilePath, Game game) {
+        if (!properties.getIncremental().isEnabled()) {
+            return new IncrementalSession(null, null);
+        }
+        return new IncrementalSession(getStatePath(inputFilePath), digest(game));
+    }
+
+    /**
+     * Recharge l'état final de la partie précédente dans la population et les trésors du jeu, s'il peut être repris.
+     * Les aventuriers dont les mouvements n'ont pas été allongés et qui avaient terminé avant le tour de l'état final restent terminés.
+     *
+     * @param session    La reprise incrémentale de la partie
+     * @param game       Le jeu créé à partir du fichier d'entrée
+     * @param population La population d'aventuriers du jeu, avant le premier tour
+     * @return Le tour auquel la partie reprend, 0 si elle est jouée depuis le premier tour
+     */
+    public int resume(IncrementalSession session, Game game, AdventurerPopulation population) {
+        if (!session.isEnabled() || !Files.exists(session.getStatePath())) {
+            return 0;
+        }
+        try {
+            int turn = readState(session, population, game.getTreasureCells());
+            population.writeTo(game.getAdventurers());
+            session.resumed(turn);
+            log.info("Seuls des mouvements ont été ajoutés depuis la partie précédente, reprise au tour {} à partir de l'état final {}", turn, session.getStatePath());
+            return turn;
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            log.info("L'état final {} n'est pas repris, la partie est jouée depuis le premier tour : {}", session.getStatePath(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Écrit l'état final d'une partie terminée, dans un fichier temporaire renommé de façon atomique.
+     * Un état en échec est signalé sans interrompre la partie : la suivante sera jouée depuis le premier tour.
+     *
+     * @param session       La reprise incrémentale de la partie
+     * @param population    La population d'aventuriers à la fin de la partie
+     * @param treasureCells Les cases de trésor à la fin de la partie
+     */
+    public void saveState(IncrementalSession session, AdventurerPopulation population, List<Cell> treasureCells) {
+        if (!session.isEnabled()) {
+            return;
+        }
+        Path statePath = session.getStatePath();
+        try {
+            WorkingFileUtils.writeAtomically(statePath, tempFilePath -> writeState(tempFilePath, session.getGameDigest(), population, treasureCells));
+            log.debug("État final de la partie écrit dans {}", statePath);
+        } catch (IOException e) {
+            log.warn("L'état final de la partie n'a pas pu être écrit dans {} : {}", statePath, e.getMessage());
+        }
+    }
+
+    /**
+     * @return Le fichier de l'état final de la partie, dans le répertoire {@code treasuremap.incremental.directory} ou à côté du fichier d'entrée
+     */
+    public Path getStatePath(Path inputFilePath) {
+        String directory = properties.getIncremental().getDirectory();
+        Path stateDirectory = StringUtils.isBlank(directory) ? inputFilePath.toAbsolutePath().getParent() : Paths.get(directory);
+        return stateDirectory.resolve(InputFileService.getGameFileName(inputFilePath) + STATE_NAME_SUFFIX);
+    }
+
+    /**
+     * @return L'empreinte SHA-256 de tout ce qui définit la partie, sauf les mouvements des aventuriers
+     */
+    private static byte[] digest(Game game) {
+        MessageDigest digest = WorkingFileUtils.newSha256Digest();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest), BUFFER_SIZE))) {
+            output.writeInt(game.getGameMap().getWidth());
+            output.writeInt(game.getGameMap().getHeight());
+            output.writeInt(game.getMountainCells().size());
+            for (Cell mountain : game.getMountainCells()) {
+                output.writeInt(mountain.getPosX());
+                output.writeInt(mountain.getPosY());
+            }
+            output.writeInt(game.getTreasureCells().size());
+            for (Cell treasure : game.getTreasureCells()) {
+                output.writeInt(treasure.getPosX());
+                output.writeInt(treasure.getPosY());
+                output.writeInt(treasure.getNbTreasure());
+            }
+            output.writeInt(game.getAdventurers().size());
+            for (Adventurer adventurer : game.getAdventurers()) {
+                byte[] name = adventurer.getName().getBytes(StandardCharsets.UTF_8);
+                output.writeInt(name.length);
+                output.write(name);
+                output.writeInt(adventurer.getPosX());
+                output.writeInt(adventurer.getPosY());
+                output.writeByte(adventurer.getOrientation().ordinal());
+                output.writeInt(adventurer.getNbTreasure());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return digest.digest();
+    }
+
+    private void writeState(Path statePath, byte[] gameDigest, AdventurerPopulation population, List<Cell> treasureCells) throws IOException {
+        int turn = 0;
+        for (int index = 0; index < population.getSize(); index++) {
+            turn = Math.max(turn, population.getNbMoves(index));
+        }
+        try (OutputStream fileOutput = Files.newOutputStream(statePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checkedOutput = new CheckedOutputStream(fileOutput, new CRC32C());
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(checkedOutput, BUFFER_SIZE));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.write(gameDigest);
+            output.writeInt(turn);
+            output.writeInt(population.getSize());
+            for (int index = 0; index < population.getSize(); index++) {
+                PackedMoves moves = population.getPackedMoves(index);
+                output.writeInt(moves.length());
+                for (int i = 0; i < PackedMoves.getNbWords(moves.length()); i++) {
+                    output.writeLong(moves.getWord(i));
+                }
+                output.writeInt(population.getPosX(index));
+                output.writeInt(population.getPosY(index));
+                output.writeByte(population.getOrientation(index).ordinal());
+                output.writeInt(population.getNbTreasure(index));
+            }
+            output.writeInt(treasureCells.size());
+            for (Cell treasure : treasureCells) {
+                output.writeInt(treasure.getNbTreasure());
+            }
+            output.flush();
+            output.writeLong(checkedOutput.getChecksum().getValue());
+            output.flush();
+        }
+    }
+
+    /**
+     * Relit entièrement l'état final et vérifie qu'il peut être repris avant de modifier la partie.
+     *
+     * @return Le tour de l'état final
+     * @throws IllegalStateException Si l'état est abîmé, a été écrit pour une autre partie ou si des mouvements ont été modifiés autrement qu'allongés
+     */
+    private int readState(IncrementalSession session, AdventurerPopulation population, List<Cell> treasureCells) throws IOException {
+        int nbAdventurers = population.getSize();
+        try (CheckedInputStream checkedInput = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(session.getStatePath()), BUFFER_SIZE), new CRC32C());
+             DataInputStream input = new DataInputStream(checkedInput)) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IllegalStateException("Le fichier n'est pas un état final de partie dans un format connu");
+            }
+            byte[] gameDigest = new byte[session.getGameDigest().length];
+            input.readFully(gameDigest);
+            if (!Arrays.equals(gameDigest, session.getGameDigest())) {
+                throw new IllegalStateException("La carte, les montagnes, les trésors ou le départ des aventuriers ont changé");
+            }
+            int turn = input.readInt();
+            if (input.readInt() != nbAdventurers) {
+                throw new IllegalStateException("Le nombre d'aventuriers a changé");
+            }
+            int[] posX = new int[nbAdventurers];
+            int[] posY = new int[nbAdventurers];
+            byte[] orientations = new byte[nbAdventurers];
+            int[] nbTreasure = new int[nbAdventurers];
+            for (int index = 0; index < nbAdventurers; index++) {
+                int nbMoves = input.readInt();
+                if (nbMoves < 0 || nbMoves > turn) {
+                    throw new IllegalStateException("Le nombre de mouvements d'un aventurier est invalide");
+                }
+                long[] words = new long[PackedMoves.getNbWords(nbMoves)];
+                for (int i = 0; i < words.length; i++) {
+                    words[i] = input.readLong();
+                }
+                PackedMoves moves = population.getPackedMoves(index);
+                if (!moves.startsWith(PackedMoves.wrap(words, nbMoves))) {
+                    throw new IllegalStateException("Les mouvements de " + population.getName(index) + " ne commencent plus par ceux de la partie précédente");
+                }
+                if (moves.length() > nbMoves && nbMoves < turn) {
+                    throw new IllegalStateException("Les mouvements de " + population.getName(index) + " ont été allongés alors qu'il avait terminé avant la fin de la partie précédente");
+                }
+                posX[index] = input.readInt();
+                posY[index] = input.readInt();
+                orientations[index] = input.readByte();
+                nbTreasure[index] = input.readInt();
+            }
+            if (input.readInt() != treasureCells.size()) {
+                throw new IllegalStateException("Le nombre de cases de trésor a changé");
+            }
+            int[] nbCellTreasures = new int[treasureCells.size()];
+            for (int i = 0; i < nbCellTreasures.length; i++) {
+                nbCellTreasures[i] = input.readInt();
+            }
+            long expectedChecksum = checkedInput.getChecksum().getValue();
+            if (input.readLong() != expectedChecksum || input.read() != -1) {
+                throw new IllegalStateException("L'empreinte de l'état final est incorrecte");
+            }
+            for (int index = 0; index < nbAdventurers; index++) {
+                population.setPosition(index, posX[index], posY[index]);
+                population.setOrientation(index, Orientation.getOrientationWithOrdinal(orientations[index]));
+                population.setNbTreasure(index, nbTreasure[index]);
+                if (population.getNbMoves(index) < turn) {
+                    population.setDoneMoving(index);
+                }
+            }
+            for (int i = 0; i < nbCellTreasures.length; i++) {
+                treasureCells.get(i).setNbTreasure(nbCellTreasures[i]);
+            }
+            return turn;
+        }
+    }
+}
@@ -1,19 +1,28 @@
 package fr.exercice.treasuremap.service;
 
+import fr.exercice.treasuremap.utils.WorkingFileUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Scanner;
+import java.util.stream.Stream;
 
 /**
  * Ce service gère tout ce qui va concerner le fichier d'entrée du jeu. Il récupère son chemin, valide sa valeur, l'extension du fichier, lit et nettoie le contenu.
@@ -23,6 +32,10 @@ import java.util.Scanner;
 @Slf4j
 public class InputFileService {
 
+    private static final String GLOB_CHARACTERS = "*?[{";
+    // Nombre d'octets de l'empreinte du chemin gardés dans le nom des fichiers de travail d'une partie
+    private static final int GAME_FILE_DIGEST_SIZE = 8;
+
     /**
      * Méthode qui permet de recevoir le chemin absolu du fichier d'entrée du jeu. Elle vérifie que la valeur n'est pas vide et l'extension correcte
      *
@@ -31,37 +44,126 @@ public class InputFileService {
     public String getAndCheckInputFilePath() {
         log.info("Veuillez entrer le chemin du fichier d'entrée : ");
         Scanner s = new Scanner(System.in);
-        String filepath = s.nextLine();
+        return checkInputFilePath(s.nextLine());
+    }
+
+    /**
+     * Vérifie que le chemin du fichier d'entrée, saisi dans la console ou passé en argument du programme, n'est pas vide et que l'extension est correcte
+     *
+     * @param filepath le chemin du fichier d'entrée
+     * @return le chemin du fichier d'entrée
+     */
+    public String checkInputFilePath(String filepath) {
         if (StringUtils.isBlank(filepath)) {
             throw new IllegalStateException("Le chemin de fichier entré est vide, veuillez réessayer.");
         }
-        if (!FilenameUtils.getExtension(filepath).equalsIgnoreCase("txt")) {
-            throw new IllegalArgumentException("L'extension du fichier doit être '.txt', veuillez réessayer.");
+        if (!hasInputFileExtension(filepath)) {
+            throw new IllegalArgumentException("L'extension du fichier doit être '.txt' ou '.tmb', veuillez réessayer.");
         }
         return filepath;
     }
 
     /**
-     * Lit le contenu du fichier texte d'entrée
+     * @return Si le fichier a l'extension d'un fichier d'entrée texte ou binaire, voir {@link BinaryInputFileService}
+     */
+    private static boolean hasInputFileExtension(String filepath) {
+        return StringUtils.equalsAnyIgnoreCase(FilenameUtils.getExtension(filepath), "txt", BinaryInputFileService.EXTENSION);
+    }
+
+    /**
+     * Nom de base des fichiers de travail d'une partie (sauvegardes, trajectoire, état final). Le nom du fichier d'entrée sans son extension
+     * est suivi de l'empreinte de son chemin absolu normalisé : {@code a/game.txt}, {@code b/game.txt} et {@code game.tmb} n'ont jamais
+     * les mêmes fichiers de travail, même rangés dans un répertoire commun.
+     *
+     * @param inputFilePath Le chemin du fichier d'entrée de la partie
+     * @return {@code <fichier>_<empreinte>}, l'empreinte étant le début du SHA-256 du chemin en hexadécimal
+     */
+    public static String getGameFileName(Path inputFilePath) {
+        byte[] pathDigest = WorkingFileUtils.newSha256Digest()
+                .digest(inputFilePath.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+        return FilenameUtils.getBaseName(String.valueOf(inputFilePath.getFileName())) + "_" + HexFormat.of().formatHex(pathDigest, 0, GAME_FILE_DIGEST_SIZE);
+    }
+
+    /**
+     * Recherche les fichiers d'entrée d'un batch : tous les fichiers {@code .txt} et {@code .tmb} d'un répertoire, ou ceux qui correspondent à un motif glob
+     * (ex : {@code /data/cartes/*.txt}, avec {@code **} pour parcourir aussi les sous-répertoires). Les fichiers de sortie {@code _result.txt} sont ignorés.
+     *
+     * @param directoryOrGlob Le chemin d'un répertoire ou un motif glob
+     * @return Les chemins des fichiers d'entrée, triés
+     * @throws IOException si une erreur I/O se produit lors du parcours des répertoires
+     */
+    public List<Path> findInputFiles(String directoryOrGlob) throws IOException {
+        int globStart = StringUtils.indexOfAny(directoryOrGlob, GLOB_CHARACTERS);
+        if (globStart < 0) {
+            Path directory = Paths.get(directoryOrGlob);
+            if (!Files.isDirectory(directory)) {
+                throw new IllegalArgumentException("Le répertoire des fichiers d'entrée est introuvable : " + directoryOrGlob);
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                return files.filter(this::isInputFile).sorted().toList();
+            }
+        }
+        int baseDirectoryEnd = Math.max(directoryOrGlob.lastIndexOf('/', globStart), directoryOrGlob.lastIndexOf(File.separatorChar, globStart));
+        Path baseDirectory = Paths.get(baseDirectoryEnd < 0 ? "." : directoryOrGlob.substring(0, baseDirectoryEnd + 1));
+        String glob = directoryOrGlob.substring(baseDirectoryEnd + 1);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        int maxDepth = glob.contains("**") ? Integer.MAX_VALUE : StringUtils.countMatches(glob, '/') + 1;
+        try (Stream<Path> files = Files.walk(baseDirectory, maxDepth)) {
+            return files.filter(file -> matcher.matches(baseDirectory.relativize(file)))
+                    .filter(this::isInputFile)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private boolean isInputFile(Path path) {
+        String fileName = String.valueOf(path.getFileName());
+        return Files.isRegularFile(path)
+                && hasInputFileExtension(fileName)
+                && !fileName.endsWith(OutputFileService.RESULT_NAME_SUFFIX);
+    }
+
+    /**
+     * Ouvre le fichier texte d'entrée pour qu'il soit lu ligne par ligne, sans jamais charger tout son contenu en mémoire
      *
      * @param filename le chemin absolu du fichier
-     * @return une liste de String contenant chaque ligne du fichier les unes à la suite des autres
-     * @throws IOException si une erreur I/O se produit lors de la lecture du fichier
+     * @return un lecteur du fichier, à fermer par l'appelant une fois la lecture terminée
+     * @throws IOException si une erreur I/O se produit lors de l'ouverture du fichier
      */
-    public List<String> readFile(String filename) throws IOException {
-        List<String> inputLines;
+    public BufferedReader openFile(String filename) throws IOException {
         try {
             Path path = Paths.get(filename);
-            inputLines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            throw fileNotFound(e);
+        } catch (IOException e) {
+            log.error("Une erreur s'est produite lors de la lecture du fichier : " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Ouvre le fichier d'entrée en lecture seule pour qu'il soit mappé en mémoire par blocs
+     *
+     * @param path le chemin du fichier
+     * @return un canal sur le fichier, à fermer par l'appelant une fois les blocs mappés
+     * @throws IOException si une erreur I/O se produit lors de l'ouverture du fichier
+     */
+    public FileChannel openChannel(Path path) throws IOException {
+        try {
+            return FileChannel.open(path, StandardOpenOption.READ);
         } catch (NoSuchFileException e) {
-            String message = "Le fichier spécifié est introuvable : ";
-            log.error(message);
-            throw new NoSuchFileException(message + e.getMessage());
+            throw fileNotFound(e);
         } catch (IOException e) {
             log.error("Une erreur s'est produite lors de la lecture du fichier : " + e.getMessage());
             throw e;
         }
-        return inputLines;
+    }
+
+    private NoSuchFileException fileNotFound(NoSuchFileException e) {
+        String message = "Le fichier spécifié est introuvable : ";
+        log.error(message);
+        return new NoSuchFileException(message + e.getMessage());
     }
 
     /**
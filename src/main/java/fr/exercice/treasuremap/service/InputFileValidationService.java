@@ -0,0 +1,292 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.model.GameAssetsIndex;
+import fr.exercice.treasuremap.model.GameMap;
+import fr.exercice.treasuremap.model.InputValidationReport;
+import fr.exercice.treasuremap.model.InputValidationReport.LineError;
+import fr.exercice.treasuremap.model.PositionTable;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static fr.exercice.treasuremap.service.InputValidationService.UNKNOWN_LINE_MESSAGE;
+import static fr.exercice.treasuremap.service.MappedInputParserService.*;
+
+/**
+ * Ce service vérifie tout un fichier d'entrée texte sans s'arrêter à la première erreur, pour qu'un fichier puisse être corrigé en une seule passe.
+ * Le fichier est mappé en mémoire et découpé en blocs de lignes entières vérifiés en parallèle, comme avec le {@link MappedInputParserService} :
+ * <li>Chaque ligne passe par les vérifications de {@link InputValidationService} : longueur, nombres, limites de la carte, orientation et mouvements</li>
+ * <li>Les positions déjà occupées et les noms déjà pris sont ensuite recherchés dans l'ordre du fichier, avec les règles du {@link GameAssetsCreatorService}</li>
+ * Une ligne en erreur ne crée pas d'asset, comme lors d'une partie. Les positions ne sont comparées à la carte que si la première ligne est une carte valide,
+ * et si la carte est redéfinie dans le fichier, les lignes suivantes dépendent de la nouvelle carte : le fichier est alors vérifié d'un seul bloc.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InputFileValidationService {
+
+    public static final String REPORT_NAME_SUFFIX = "_errors.log";
+    private static final String NOT_UTF8_MESSAGE = "La ligne n'est pas un texte UTF-8 valide.";
+    private static final byte MOUNTAIN = 1;
+    private static final byte TREASURE = 2;
+    private static final byte ADVENTURER = 3;
+
+    private final InputFileService inputFileService;
+    private final InputValidationService inputValidationService;
+    private final GameAssetsCreatorService gameAssetsCreatorService;
+
+    /**
+     * Vérifie toutes les lignes du fichier d'entrée.
+     *
+     * @param path Le chemin du fichier d'entrée texte
+     * @return Le bilan de la vérification avec toutes les erreurs du fichier
+     * @throws IOException Si une erreur I/O se produit lors de la lecture du fichier
+     */
+    public InputValidationReport validate(Path path) throws IOException {
+        return validate(path, 0);
+    }
+
+    /**
+     * @param nbChunks Le nombre de blocs du fichier, calculé d'après sa taille et le nombre de coeurs s'il vaut 0
+     */
+    InputValidationReport validate(Path path, int nbChunks) throws IOException {
+        List<LineError> errors = new ArrayList<>();
+        GameMap gameMap = null;
+        List<MappedByteBuffer> buffers;
+        try (FileChannel channel = inputFileService.openChannel(path)) {
+            long size = channel.size();
+            long firstLineEnd = indexOfLineEnd(channel, 0, size, true);
+            long secondLineStart = nextLineStart(channel, firstLineEnd, size);
+            try {
+                String firstLine = size == 0 ? null : readLine(channel, 0, firstLineEnd);
+                // Seule la présence de la deuxième ligne est vérifiée ici, son contenu est vérifié avec les autres lignes
+                inputValidationService.checkFirstLines(firstLine, secondLineStart < size ? "" : null);
+                gameMap = createMap(firstLine);
+            } catch (CharacterCodingException e) {
+                errors.add(new LineError(1, NOT_UTF8_MESSAGE));
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                errors.add(new LineError(1, e.getMessage()));
+            }
+            if (secondLineStart >= size) {
+                return new InputValidationReport(size == 0 ? 0 : 1, errors);
+            }
+            buffers = mapChunks(channel, secondLineStart, size, nbChunks > 0 ? nbChunks : computeNbChunks(size - secondLineStart));
+        }
+        log.info("Vérification du fichier {} sur {} bloc(s)", path, buffers.size());
+
+        GameMap checkedMap = gameMap != null ? gameMap : new GameMap().setWidth(Integer.MAX_VALUE).setHeight(Integer.MAX_VALUE);
+        List<ChunkReport> chunks = IntStream.range(0, buffers.size())
+                .parallel()
+                .mapToObj(i -> new ChunkValidator(List.of(buffers.get(i)), checkedMap, i == buffers.size() - 1).validate())
+                .toList();
+        if (chunks.size() > 1 && chunks.stream().anyMatch(chunk -> chunk.mapRedefined)) {
+            log.info("La carte est redéfinie dans le fichier, il va être vérifié d'un seul bloc");
+            chunks = List.of(new ChunkValidator(new ArrayList<>(buffers), checkedMap, true).validate());
+        }
+        long nbLines = checkDuplicates(chunks, errors);
+        errors.sort(Comparator.comparingLong(LineError::lineNumber));
+        return new InputValidationReport(nbLines, errors);
+    }
+
+    /**
+     * Écrit les erreurs du fichier d'entrée dans le fichier {@code <fichier>_errors.log}, une par ligne,
+     * ou supprime le rapport d'une vérification précédente si le fichier est valide.
+     *
+     * @param report        Le bilan de la vérification
+     * @param inputFilePath Le chemin du fichier d'entrée
+     * @return Le chemin du rapport
+     * @throws IOException Si une erreur I/O se produit lors de l'écriture du rapport
+     */
+    public Path writeReport(InputValidationReport report, Path inputFilePath) throws IOException {
+        Path reportPath = getReportPath(inputFilePath);
+        if (report.isValid()) {
+            Files.deleteIfExists(reportPath);
+            return reportPath;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8)) {
+            for (LineError error : report.errors()) {
+                writer.write(error.toString());
+                writer.newLine();
+            }
+        }
+        return reportPath;
+    }
+
+    public Path getReportPath(Path inputFilePath) {
+        return inputFilePath.resolveSibling(FilenameUtils.getBaseName(String.valueOf(inputFilePath.getFileName())) + REPORT_NAME_SUFFIX);
+    }
+
+    private GameMap createMap(String mapLine) {
+        if (!StringUtils.startsWithIgnoreCase(mapLine, "C")) {
+            throw new IllegalStateException(UNKNOWN_LINE_MESSAGE + mapLine);
+        }
+        String[] splitLine = inputFileService.getCleanSplitElements(mapLine);
+        inputValidationService.checkMapLine(mapLine, splitLine);
+        return gameAssetsCreatorService.createMap(splitLine);
+    }
+
+    /**
+     * Recherche dans l'ordre du fichier les assets placés sur une case déjà occupée ou dont le nom est déjà pris.
+     * Comme lors de la création des assets, la case est vérifiée avant le nom, et un nom est comparé aux noms capitalisés des aventuriers déjà créés.
+     *
+     * @return Le nombre de lignes du fichier
+     */
+    private static long checkDuplicates(List<ChunkReport> chunks, List<LineError> errors) {
+        PositionTable assetTypes = new PositionTable(chunks.stream().mapToInt(chunk -> chunk.nbAssets).sum());
+        Set<String> adventurerNames = new HashSet<>();
+        // Les lignes des blocs suivent la ligne de la carte
+        long firstLineNumber = 2;
+        for (ChunkReport chunk : chunks) {
+            for (int asset = 0; asset < chunk.nbAssets; asset++) {
+                int posX = chunk.posX[asset];
+                int posY = chunk.posY[asset];
+                long positionKey = PositionTable.positionKey(posX, posY);
+                int existingType = assetTypes.get(positionKey);
+                if (existingType != PositionTable.NO_VALUE) {
+                    errors.add(new LineError(firstLineNumber + chunk.assetLines[asset], GameAssetsCreatorService.getOccupiedCellMessage(toAssetType(existingType), posX, posY)));
+                } else if (chunk.types[asset] == ADVENTURER && adventurerNames.contains(chunk.names[asset])) {
+                    errors.add(new LineError(firstLineNumber + chunk.assetLines[asset], GameAssetsCreatorService.getExistingNameMessage(chunk.names[asset])));
+                } else {
+                    assetTypes.put(positionKey, chunk.types[asset]);
+                    if (chunk.types[asset] == ADVENTURER) {
+                        adventurerNames.add(StringUtils.capitalize(chunk.names[asset]));
+                    }
+                }
+            }
+            for (LineError error : chunk.errors) {
+                errors.add(new LineError(firstLineNumber + error.lineNumber(), error.message()));
+            }
+            firstLineNumber += chunk.nbLines;
+        }
+        return firstLineNumber - 1;
+    }
+
+    private static GameAssetsIndex.AssetType toAssetType(int type) {
+        return switch (type) {
+            case MOUNTAIN -> GameAssetsIndex.AssetType.MOUNTAIN;
+            case TREASURE -> GameAssetsIndex.AssetType.TREASURE;
+            default -> GameAssetsIndex.AssetType.ADVENTURER;
+        };
+    }
+
+    /**
+     * Le bilan d'un bloc : ses erreurs, numérotées à partir de sa première ligne, et ses assets valides rangés dans des tableaux parallèles
+     * pour la recherche des doublons. Seuls les aventuriers ont un nom.
+     */
+    private static final class ChunkReport {
+        private final List<LineError> errors = new ArrayList<>();
+        private int nbLines;
+        private int nbAssets;
+        private int[] assetLines = new int[64];
+        private byte[] types = new byte[64];
+        private int[] posX = new int[64];
+        private int[] posY = new int[64];
+        private String[] names = new String[64];
+        private boolean mapRedefined;
+
+        private void addAsset(int line, byte type, int x, int y, String name) {
+            if (nbAssets == types.length) {
+                int capacity = nbAssets * 2;
+                assetLines = Arrays.copyOf(assetLines, capacity);
+                types = Arrays.copyOf(types, capacity);
+                posX = Arrays.copyOf(posX, capacity);
+                posY = Arrays.copyOf(posY, capacity);
+                names = Arrays.copyOf(names, capacity);
+            }
+            assetLines[nbAssets] = line;
+            types[nbAssets] = type;
+            posX[nbAssets] = x;
+            posY[nbAssets] = y;
+            names[nbAssets] = name;
+            nbAssets++;
+        }
+    }
+
+    /**
+     * Vérification des lignes d'un ou plusieurs blocs consécutifs par un seul thread, avec les mêmes règles que la lecture ligne par ligne du fichier.
+     * Une carte redéfinie est utilisée pour les lignes suivantes du validateur et signalée dans le bilan du bloc.
+     */
+    private final class ChunkValidator {
+        private final List<? extends ByteBuffer> buffers;
+        private final boolean lastChunk;
+        private final ChunkReport report = new ChunkReport();
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        private GameMap gameMap;
+
+        private ChunkValidator(List<? extends ByteBuffer> buffers, GameMap gameMap, boolean lastChunk) {
+            this.buffers = buffers;
+            this.gameMap = gameMap;
+            this.lastChunk = lastChunk;
+        }
+
+        private ChunkReport validate() {
+            for (int b = 0; b < buffers.size(); b++) {
+                ByteBuffer buffer = buffers.get(b);
+                int limit = buffer.limit();
+                int start = 0;
+                while (start < limit) {
+                    int end = start;
+                    while (end < limit && buffer.get(end) != '\n' && buffer.get(end) != '\r') {
+                        end++;
+                    }
+                    int nextStart = end < limit && buffer.get(end) == '\r' && end + 1 < limit && buffer.get(end + 1) == '\n' ? end + 2 : end + 1;
+                    validateLine(buffer, start, end, lastChunk && b == buffers.size() - 1 && nextStart >= limit);
+                    report.nbLines++;
+                    start = nextStart;
+                }
+            }
+            return report;
+        }
+
+        private void validateLine(ByteBuffer buffer, int lineStart, int lineEnd, boolean lastLine) {
+            int lineIndex = report.nbLines;
+            try {
+                String line = decoder.decode(buffer.slice(lineStart, lineEnd - lineStart)).toString();
+                if (lastLine) {
+                    inputValidationService.checkLastLine(line);
+                }
+                String[] splitLine = inputFileService.getCleanSplitElements(line);
+                if (StringUtils.startsWithIgnoreCase(line, "C")) {
+                    inputValidationService.checkMapLine(line, splitLine);
+                    gameMap = gameAssetsCreatorService.createMap(splitLine);
+                    report.mapRedefined = true;
+                } else if (StringUtils.startsWithIgnoreCase(line, "M")) {
+                    inputValidationService.checkMountainLine(line, splitLine, gameMap);
+                    report.addAsset(lineIndex, MOUNTAIN, Integer.parseInt(splitLine[1]), Integer.parseInt(splitLine[2]), null);
+                } else if (StringUtils.startsWithIgnoreCase(line, "T")) {
+                    inputValidationService.checkTreasureLine(line, splitLine, gameMap);
+                    report.addAsset(lineIndex, TREASURE, Integer.parseInt(splitLine[1]), Integer.parseInt(splitLine[2]), null);
+                } else if (StringUtils.startsWithIgnoreCase(line, "A")) {
+                    inputValidationService.checkAdventurerLine(line, splitLine, gameMap);
+                    report.addAsset(lineIndex, ADVENTURER, Integer.parseInt(splitLine[2]), Integer.parseInt(splitLine[3]), splitLine[1]);
+                } else {
+                    throw new IllegalStateException(UNKNOWN_LINE_MESSAGE + line);
+                }
+            } catch (CharacterCodingException e) {
+                report.errors.add(new LineError(lineIndex, NOT_UTF8_MESSAGE));
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                report.errors.add(new LineError(lineIndex, e.getMessage()));
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package fr.exercice.treasuremap.service;
 
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.GameMap;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
@@ -8,6 +10,8 @@ import java.util.List;
 
 /**
  * Ce service a pour rôle de vérifier toutes les valeurs du fichier d'entrée. Si l'une d'entre elles ne respecte pas les normes du jeu, le jeu s'arrête.
+ * Il ne garde aucun état : la carte du jeu en cours de création lui est passée pour vérifier les positions, plusieurs jeux peuvent donc être vérifiés en même temps.
+ * La limite de surface de la carte ne s'applique pas lorsque la carte creuse {@code treasuremap.simulation.sparse-map} est activée.
  */
 @Service
 @RequiredArgsConstructor
@@ -22,8 +26,10 @@ public class InputValidationService {
     public static final int TREASURE_MAX_SPLIT_LENGTH = 4;
     public static final int ADVENTURER_MAX_NB_CHARACTERS = 11;
     public static final int ADVENTURER_MAX_SPLIT_LENGTH = 6;
-    private int mapWidth = 0;
-    private int mapHeight = 0;
+    public static final String UNKNOWN_LINE_MESSAGE = "Problème lors de la génération du jeu à la ligne : ";
+    private static final String BAD_FORMAT_MESSAGE = "Le fichier est mal formaté, impossible de créer le jeu. Il doit au moins commencer par C et sa dernière ligne par A.";
+
+    private final TreasureMapProperties properties;
 
     /**
      * On part du principe que pour être valide, le fichier doit comporter au moins une ligne "carte" commençant par C, et une ligne "aventurier" commençant par A.
@@ -32,12 +38,33 @@ public class InputValidationService {
      * @param inputLines l'ensemble des lignes du fichier d'entrée qui doit avoir au minimum une taille de 2 pour être valide.
      */
     public void doFirstChecks(List<String> inputLines) {
-        if (inputLines.size() < 2) {
+        checkFirstLines(inputLines.isEmpty() ? null : inputLines.getFirst(), inputLines.size() < 2 ? null : inputLines.get(1));
+        checkLastLine(inputLines.getLast());
+    }
+
+    /**
+     * Vérifications du début du fichier lorsqu'il est lu ligne par ligne : il doit contenir au moins deux lignes et la première doit commencer par C.
+     *
+     * @param firstLine  La première ligne du fichier, {@code null} si le fichier est vide
+     * @param secondLine La deuxième ligne du fichier, {@code null} si le fichier contient moins de deux lignes
+     */
+    public void checkFirstLines(String firstLine, String secondLine) {
+        if (firstLine == null || secondLine == null) {
             throw new IllegalStateException("Le fichier est incomplet, impossible de créer le jeu. Il doit contenir au moins une ligne pour la carte et une pour un aventurier");
         }
-        if (!StringUtils.startsWith(StringUtils.strip(StringUtils.upperCase(inputLines.getFirst())), "C")
-                || !StringUtils.startsWith(StringUtils.strip(StringUtils.upperCase(inputLines.getLast())), "A")) {
-            throw new IllegalStateException("Le fichier est mal formaté, impossible de créer le jeu. Il doit au moins commencer par C et sa dernière ligne par A.");
+        if (!StringUtils.startsWith(StringUtils.strip(StringUtils.upperCase(firstLine)), "C")) {
+            throw new IllegalStateException(BAD_FORMAT_MESSAGE);
+        }
+    }
+
+    /**
+     * Vérification de la fin du fichier lorsqu'il est lu ligne par ligne : la dernière ligne doit commencer par A.
+     *
+     * @param lastLine La dernière ligne du fichier
+     */
+    public void checkLastLine(String lastLine) {
+        if (!StringUtils.startsWith(StringUtils.strip(StringUtils.upperCase(lastLine)), "A")) {
+            throw new IllegalStateException(BAD_FORMAT_MESSAGE);
         }
     }
 
@@ -46,7 +73,7 @@ public class InputValidationService {
      * Elle doit avoir :
      * <li>Le bon nombre minimum de caractères et de champs split</li>
      * <li>Une hauteur et une largeur sous forme d'entiers supérieurs à zéro</li>
-     * <li>Une surface finale plus petite que la {@code MAPSIZE} : taille du département de la Madre de Dios</li>
+     * <li>Une surface finale plus petite que la {@code MAPSIZE} : taille du département de la Madre de Dios, sauf avec la carte creuse</li>
      *
      * @param mapLine  La ligne du fichier à traiter correspondant à la carte qui est loggée en cas d'erreur
      * @param mapSplit La ligne splittée et nettoyée
@@ -54,12 +81,21 @@ public class InputValidationService {
     public void checkMapLine(String mapLine, String[] mapSplit) {
         checkNumberOfCharacters(mapLine, mapSplit, MAP_MAX_NB_CHARACTERS, MAP_MAX_SPLIT_LENGTH, "La ligne de la carte ne contient pas le bon nombre de caractères");
         checkIfCoordinatesAreNumbers(mapSplit, 1, 2, "La hauteur ou la largeur de la carte n'est pas un nombre entier");
-        mapWidth = Integer.parseInt(StringUtils.strip(mapSplit[1]));
-        mapHeight = Integer.parseInt(StringUtils.strip(mapSplit[2]));
+        checkMapSize(Integer.parseInt(StringUtils.strip(mapSplit[1])), Integer.parseInt(StringUtils.strip(mapSplit[2])));
+    }
+
+    /**
+     * Vérification des dimensions de la carte, quel que soit le format du fichier d'entrée : une hauteur et une largeur supérieures à zéro,
+     * et une surface plus petite que la {@code MAPSIZE} si la carte est représentée en entier en mémoire.
+     *
+     * @param mapWidth  La largeur de la carte
+     * @param mapHeight La hauteur de la carte
+     */
+    public void checkMapSize(int mapWidth, int mapHeight) {
         if (mapWidth < 1 || mapHeight < 1) {
             throw new IllegalArgumentException("La carte a une hauteur ou une largeur inférieure à 1");
         }
-        if (mapWidth * mapHeight > MAPSIZE) {
+        if ((long) mapWidth * mapHeight > MAPSIZE && !properties.getSimulation().isSparseMap()) {
             throw new IllegalArgumentException("La carte est plus grande que le département de la Madre de Dios ! Veuillez revoir la hauteur ou la largeur de la carte");
         }
     }
@@ -72,11 +108,12 @@ public class InputValidationService {
      *
      * @param mountainLine  La ligne du fichier à traiter correspondant à la montagne qui est loggée en cas d'erreur
      * @param mountainSplit La ligne splittée et nettoyée
+     * @param gameMap       La carte du jeu en cours de création
      */
-    public void checkMountainLine(String mountainLine, String[] mountainSplit) {
+    public void checkMountainLine(String mountainLine, String[] mountainSplit, GameMap gameMap) {
         checkNumberOfCharacters(mountainLine, mountainSplit, MOUNTAIN_MAX_NB_CHARACTERS, MOUNTAIN_MAX_SPLIT_LENGTH, "La ligne d'une des montagnes ne contient pas le bon nombre de caractères");
         checkIfCoordinatesAreNumbers(mountainSplit, 1, 2, "La position d'une des montagnes n'est pas un nombre entier");
-        checkIfIsOutOfMap(mountainSplit, 1, 2, "La position d'une des montagnes sort de la taille de la carte");
+        checkIfIsOutOfMap(mountainSplit, 1, 2, gameMap, "La position d'une des montagnes sort de la taille de la carte");
     }
 
     /**
@@ -88,8 +125,9 @@ public class InputValidationService {
      *
      * @param treasureLine  La ligne du fichier à traiter correspondant à la montagne qui est loggée en cas d'erreur
      * @param treasureSplit La ligne splittée et nettoyée
+     * @param gameMap       La carte du jeu en cours de création
      */
-    public void checkTreasureLine(String treasureLine, String[] treasureSplit) {
+    public void checkTreasureLine(String treasureLine, String[] treasureSplit, GameMap gameMap) {
         checkNumberOfCharacters(treasureLine, treasureSplit, TREASURE_MAX_NB_CHARACTERS, TREASURE_MAX_SPLIT_LENGTH, "La ligne d'un des trésors ne contient pas le bon nombre de caractères");
         checkIfCoordinatesAreNumbers(treasureSplit, 1, 2, "La position d'un des trésors n'est pas un nombre entier");
         String nbTreasure = treasureSplit[3];
@@ -99,7 +137,7 @@ public class InputValidationService {
         if (Integer.parseInt(nbTreasure) < 1) {
             throw new IllegalArgumentException("La quantité d'un des trésors est invalide. Elle doit être de 1 ou plus");
         }
-        checkIfIsOutOfMap(treasureSplit, 1, 2, "La position d'un des trésors sort de la taille de la carte");
+        checkIfIsOutOfMap(treasureSplit, 1, 2, gameMap, "La position d'un des trésors sort de la taille de la carte");
     }
 
     /**
@@ -113,11 +151,12 @@ public class InputValidationService {
      *
      * @param adventurerLine  La ligne du fichier à traiter correspondant au trésor qui est loggée en cas d'erreur
      * @param adventurerSplit La ligne splittée et nettoyée
+     * @param gameMap         La carte du jeu en cours de création
      */
-    public void checkAdventurerLine(String adventurerLine, String[] adventurerSplit) {
+    public void checkAdventurerLine(String adventurerLine, String[] adventurerSplit, GameMap gameMap) {
         checkNumberOfCharacters(adventurerLine, adventurerSplit, ADVENTURER_MAX_NB_CHARACTERS, ADVENTURER_MAX_SPLIT_LENGTH, "La ligne d'un des aventuriers ne contient pas le bon nombre de caractères");
         checkIfCoordinatesAreNumbers(adventurerSplit, 2, 3, "La position d'un des aventuriers n'est pas un nombre entier");
-        checkIfIsOutOfMap(adventurerSplit, 2, 3, "La position d'un des aventuriers sort de la taille de la carte");
+        checkIfIsOutOfMap(adventurerSplit, 2, 3, gameMap, "La position d'un des aventuriers sort de la taille de la carte");
 
         String name = StringUtils.strip(adventurerSplit[1]);
         if (StringUtils.isBlank(name)) {
@@ -147,8 +186,8 @@ public class InputValidationService {
         }
     }
 
-    private void checkIfIsOutOfMap(String[] split, int indexOfX, int indexOfY, String errorMessage) {
-        if (Integer.parseInt(StringUtils.strip(split[indexOfX])) > mapWidth || Integer.parseInt(StringUtils.strip(split[indexOfY])) > mapHeight) {
+    private void checkIfIsOutOfMap(String[] split, int indexOfX, int indexOfY, GameMap gameMap, String errorMessage) {
+        if (Integer.parseInt(StringUtils.strip(split[indexOfX])) > gameMap.getWidth() || Integer.parseInt(StringUtils.strip(split[indexOfY])) > gameMap.getHeight()) {
             throw new IllegalArgumentException(errorMessage);
         }
     }
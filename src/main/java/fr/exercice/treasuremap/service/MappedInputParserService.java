@@ -0,0 +1,461 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.model.GameAssetsIndex;
+import fr.exercice.treasuremap.model.GameMap;
+import fr.exercice.treasuremap.model.Orientation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static fr.exercice.treasuremap.service.InputValidationService.*;
+
+/**
+ * Ce service lit les très gros fichiers d'entrée : le fichier est mappé en mémoire puis découpé en blocs de lignes entières,
+ * lus en parallèle sur plusieurs coeurs.
+ * <li>Les lignes de montagne, de trésor et d'aventurier écrites en ASCII sont lues directement depuis les octets du fichier</li>
+ * <li>Toutes les autres lignes (caractères non ASCII, ligne invalide...) passent par le découpage de {@link InputFileService}
+ * et les vérifications de {@link InputValidationService}, ce qui garantit les mêmes règles et les mêmes messages d'erreur</li>
+ * Les assets sont ensuite créés dans l'ordre du fichier, dont dépend l'ordre de jeu des aventuriers,
+ * et chaque message d'erreur est précédé du numéro de la ligne fautive.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MappedInputParserService {
+
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 1L << 30;
+    private static final int SCAN_BUFFER_SIZE = 8192;
+    private static final byte MOUNTAIN = 1;
+    private static final byte TREASURE = 2;
+    private static final byte ADVENTURER = 3;
+
+    private final InputFileService inputFileService;
+    private final InputValidationService inputValidationService;
+    private final GameAssetsCreatorService gameAssetsCreatorService;
+
+    /**
+     * Lit le fichier d'entrée et crée tous les assets du jeu. Le jeu n'est modifié qu'une fois tous les blocs lus :
+     * si le fichier redéfinit la carte après sa première ligne, les lignes suivantes dépendent de la nouvelle carte
+     * et le fichier doit être lu ligne par ligne, le jeu est alors laissé vide.
+     *
+     * @param game Le jeu à remplir
+     * @param path Le chemin du fichier d'entrée
+     * @return Si le jeu a été créé, {@code false} si le fichier doit être lu ligne par ligne
+     * @throws IOException Si une erreur I/O se produit lors de la lecture du fichier
+     */
+    public boolean parseInto(Game game, Path path) throws IOException {
+        return parseInto(game, path, 0);
+    }
+
+    /**
+     * @param nbChunks Le nombre de blocs du fichier, calculé d'après sa taille et le nombre de coeurs s'il vaut 0
+     */
+    boolean parseInto(Game game, Path path, int nbChunks) throws IOException {
+        GameMap gameMap;
+        List<MappedByteBuffer> buffers;
+        try (FileChannel channel = inputFileService.openChannel(path)) {
+            long size = channel.size();
+            long firstLineEnd = indexOfLineEnd(channel, 0, size, true);
+            long secondLineStart = nextLineStart(channel, firstLineEnd, size);
+            String firstLine = size == 0 ? null : readLine(channel, 0, firstLineEnd);
+            String secondLine = secondLineStart >= size ? null : readLine(channel, secondLineStart, indexOfLineEnd(channel, secondLineStart, size, true));
+            inputValidationService.checkFirstLines(firstLine, secondLine);
+            try {
+                gameMap = createMap(firstLine);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                throw withLineNumber(1, e);
+            }
+            buffers = mapChunks(channel, secondLineStart, size, nbChunks > 0 ? nbChunks : computeNbChunks(size - secondLineStart));
+        }
+        log.info("Lecture du fichier {} en mémoire mappée sur {} bloc(s)", path, buffers.size());
+
+        List<ParsedChunk> chunks = IntStream.range(0, buffers.size())
+                .parallel()
+                .mapToObj(i -> new ChunkParser(buffers.get(i), gameMap).parse())
+                .toList();
+        if (chunks.stream().anyMatch(chunk -> chunk.mapRedefined)) {
+            log.info("La carte est redéfinie dans le fichier, il va être lu ligne par ligne");
+            return false;
+        }
+        game.setGameMap(gameMap);
+        createAssets(chunks, game);
+        return true;
+    }
+
+    private GameMap createMap(String mapLine) {
+        if (!StringUtils.startsWithIgnoreCase(mapLine, "C")) {
+            throw new IllegalStateException(UNKNOWN_LINE_MESSAGE + mapLine);
+        }
+        String[] splitLine = inputFileService.getCleanSplitElements(mapLine);
+        inputValidationService.checkMapLine(mapLine, splitLine);
+        return gameAssetsCreatorService.createMap(splitLine);
+    }
+
+    /**
+     * Crée les assets bloc par bloc dans l'ordre du fichier. Une ligne en erreur est toujours la dernière ligne lue de son bloc :
+     * l'erreur n'est levée qu'une fois toutes les lignes précédentes créées, comme lors d'une lecture ligne par ligne.
+     */
+    private void createAssets(List<ParsedChunk> chunks, Game game) {
+        GameAssetsIndex assetsIndex = new GameAssetsIndex(game);
+        long lineNumber = 1;
+        for (int c = 0; c < chunks.size(); c++) {
+            ParsedChunk chunk = chunks.get(c);
+            boolean lastChunk = c == chunks.size() - 1;
+            for (int line = 0; line < chunk.nbLines; line++) {
+                lineNumber++;
+                try {
+                    if (lastChunk && chunk.reachedEnd && line == chunk.nbLines - 1) {
+                        inputValidationService.checkLastLine(chunk.getLine(line));
+                    }
+                    if (chunk.error != null && line == chunk.nbLines - 1) {
+                        throw chunk.error;
+                    }
+                    createAsset(chunk, line, assetsIndex);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    throw withLineNumber(lineNumber, e);
+                }
+            }
+        }
+    }
+
+    private void createAsset(ParsedChunk chunk, int line, GameAssetsIndex assetsIndex) {
+        Game game = assetsIndex.getGame();
+        switch (chunk.types[line]) {
+            case MOUNTAIN -> game.getMountainCells().add(gameAssetsCreatorService.createMountain(
+                    chunk.posX[line], chunk.posY[line], assetsIndex, () -> chunk.getLine(line)));
+            case TREASURE -> game.getTreasureCells().add(gameAssetsCreatorService.createTreasure(
+                    chunk.posX[line], chunk.posY[line], chunk.values[line], assetsIndex, () -> chunk.getLine(line)));
+            default -> game.getAdventurers().add(gameAssetsCreatorService.createAdventurer(
+                    chunk.names[line], chunk.posX[line], chunk.posY[line], Orientation.getOrientationWithOrdinal(chunk.values[line]),
+                    chunk.moves[line], assetsIndex, () -> chunk.getLine(line)));
+        }
+    }
+
+    private static RuntimeException withLineNumber(long lineNumber, RuntimeException e) {
+        String message = "Ligne " + lineNumber + " : " + e.getMessage();
+        return e instanceof IllegalStateException ? new IllegalStateException(message, e) : new IllegalArgumentException(message, e);
+    }
+
+    static int computeNbChunks(long bodySize) {
+        long nbChunksForCores = Math.min(Runtime.getRuntime().availableProcessors() * 4L, bodySize / MIN_CHUNK_SIZE);
+        long nbChunksForMapping = (bodySize + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE;
+        return (int) Math.max(1, Math.max(nbChunksForCores, nbChunksForMapping));
+    }
+
+    /**
+     * Découpe le fichier en blocs de tailles proches, chaque bloc se terminant juste après un retour à la ligne pour ne jamais couper une ligne
+     */
+    static List<MappedByteBuffer> mapChunks(FileChannel channel, long start, long size, int nbChunks) throws IOException {
+        List<MappedByteBuffer> buffers = new ArrayList<>();
+        long bodySize = size - start;
+        long chunkStart = start;
+        for (int i = 1; i <= nbChunks && chunkStart < size; i++) {
+            long target = Math.max(chunkStart, start + bodySize * i / nbChunks);
+            long chunkEnd = i == nbChunks ? size : Math.min(size, indexOfLineEnd(channel, target, size, false) + 1);
+            buffers.add(channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart));
+            chunkStart = chunkEnd;
+        }
+        return buffers;
+    }
+
+    /**
+     * @param anyLineEnd Si un retour chariot seul termine aussi la ligne, comme pour {@link java.io.BufferedReader#readLine()}
+     * @return La position du prochain caractère de fin de ligne à partir de {@code from}, ou la taille du fichier s'il n'y en a pas
+     */
+    static long indexOfLineEnd(FileChannel channel, long from, long size, boolean anyLineEnd) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' || (anyLineEnd && b == '\r')) {
+                    return position + i;
+                }
+            }
+            position += Math.max(read, 0);
+        }
+        return size;
+    }
+
+    static long nextLineStart(FileChannel channel, long lineEnd, long size) throws IOException {
+        if (lineEnd >= size) {
+            return size;
+        }
+        ByteBuffer lineSeparator = ByteBuffer.allocate(2);
+        channel.read(lineSeparator, lineEnd);
+        return lineSeparator.get(0) == '\r' && lineSeparator.position() == 2 && lineSeparator.get(1) == '\n' ? lineEnd + 2 : lineEnd + 1;
+    }
+
+    static String readLine(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer line = ByteBuffer.allocate((int) (end - start));
+        while (line.hasRemaining()) {
+            if (channel.read(line, start + line.position()) < 0) {
+                break;
+            }
+        }
+        return StandardCharsets.UTF_8.newDecoder().decode(line.flip()).toString();
+    }
+
+    /**
+     * Les lignes lues d'un bloc, rangées dans des tableaux parallèles. Une montagne n'utilise que les positions,
+     * un trésor y ajoute sa quantité dans {@code values}, un aventurier son orientation (ordinal de {@link Orientation}),
+     * son nom et ses mouvements.
+     */
+    private static final class ParsedChunk {
+        private final ByteBuffer buffer;
+        private int nbLines;
+        private byte[] types = new byte[64];
+        private int[] lineStarts = new int[64];
+        private int[] lineEnds = new int[64];
+        private int[] posX = new int[64];
+        private int[] posY = new int[64];
+        private int[] values = new int[64];
+        private String[] names = new String[64];
+        private String[] moves = new String[64];
+        // Erreur de la dernière ligne lue, la lecture du bloc s'arrête à la première erreur
+        private RuntimeException error;
+        private boolean mapRedefined;
+        private boolean reachedEnd;
+
+        private ParsedChunk(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private void add(int lineStart, int lineEnd, byte type, int x, int y, int value, String name, String moveLine) {
+            if (nbLines == types.length) {
+                int capacity = nbLines * 2;
+                types = Arrays.copyOf(types, capacity);
+                lineStarts = Arrays.copyOf(lineStarts, capacity);
+                lineEnds = Arrays.copyOf(lineEnds, capacity);
+                posX = Arrays.copyOf(posX, capacity);
+                posY = Arrays.copyOf(posY, capacity);
+                values = Arrays.copyOf(values, capacity);
+                names = Arrays.copyOf(names, capacity);
+                moves = Arrays.copyOf(moves, capacity);
+            }
+            types[nbLines] = type;
+            lineStarts[nbLines] = lineStart;
+            lineEnds[nbLines] = lineEnd;
+            posX[nbLines] = x;
+            posY[nbLines] = y;
+            values[nbLines] = value;
+            names[nbLines] = name;
+            moves[nbLines] = moveLine;
+            nbLines++;
+        }
+
+        private void addError(int lineStart, int lineEnd, RuntimeException lineError) {
+            add(lineStart, lineEnd, (byte) 0, 0, 0, 0, null, null);
+            error = lineError;
+        }
+
+        /**
+         * @return Le texte de la ligne, construit uniquement pour les vérifications et les messages d'erreur
+         */
+        private String getLine(int line) {
+            byte[] bytes = new byte[lineEnds[line] - lineStarts[line]];
+            buffer.get(lineStarts[line], bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Lecture d'un bloc par un seul thread : chaque ligne est d'abord lue directement depuis les octets,
+     * puis par le découpage et les vérifications habituels si elle n'est pas une ligne ASCII valide.
+     */
+    private final class ChunkParser {
+        private static final int MAX_NB_FIELDS = ADVENTURER_MAX_SPLIT_LENGTH;
+
+        private final ByteBuffer buffer;
+        private final GameMap gameMap;
+        private final int mapWidth;
+        private final int mapHeight;
+        private final ParsedChunk chunk;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        private final int[] fieldStarts = new int[MAX_NB_FIELDS];
+        private final int[] fieldEnds = new int[MAX_NB_FIELDS];
+        private int lineStart;
+        private int lineEnd;
+
+        private ChunkParser(ByteBuffer buffer, GameMap gameMap) {
+            this.buffer = buffer;
+            this.gameMap = gameMap;
+            this.mapWidth = gameMap.getWidth();
+            this.mapHeight = gameMap.getHeight();
+            this.chunk = new ParsedChunk(buffer);
+        }
+
+        private ParsedChunk parse() {
+            int limit = buffer.limit();
+            int start = 0;
+            while (start < limit && chunk.error == null && !chunk.mapRedefined) {
+                int end = start;
+                while (end < limit && buffer.get(end) != '\n' && buffer.get(end) != '\r') {
+                    end++;
+                }
+                lineStart = start;
+                lineEnd = end;
+                if (!parseAsciiLine()) {
+                    parseLine();
+                }
+                start = end < limit && buffer.get(end) == '\r' && end + 1 < limit && buffer.get(end + 1) == '\n' ? end + 2 : end + 1;
+            }
+            chunk.reachedEnd = start >= limit;
+            return chunk;
+        }
+
+        /**
+         * Lecture d'une ligne sous forme de texte, avec les mêmes règles que la lecture ligne par ligne du fichier
+         */
+        private void parseLine() {
+            try {
+                String line = decoder.decode(buffer.slice(lineStart, lineEnd - lineStart)).toString();
+                String[] splitLine = inputFileService.getCleanSplitElements(line);
+                if (StringUtils.startsWithIgnoreCase(line, "C")) {
+                    chunk.mapRedefined = true;
+                } else if (StringUtils.startsWithIgnoreCase(line, "M")) {
+                    inputValidationService.checkMountainLine(line, splitLine, gameMap);
+                    chunk.add(lineStart, lineEnd, MOUNTAIN, Integer.parseInt(splitLine[1]), Integer.parseInt(splitLine[2]), 0, null, null);
+                } else if (StringUtils.startsWithIgnoreCase(line, "T")) {
+                    inputValidationService.checkTreasureLine(line, splitLine, gameMap);
+                    chunk.add(lineStart, lineEnd, TREASURE, Integer.parseInt(splitLine[1]), Integer.parseInt(splitLine[2]),
+                            Integer.parseInt(splitLine[3]), null, null);
+                } else if (StringUtils.startsWithIgnoreCase(line, "A")) {
+                    inputValidationService.checkAdventurerLine(line, splitLine, gameMap);
+                    chunk.add(lineStart, lineEnd, ADVENTURER, Integer.parseInt(splitLine[2]), Integer.parseInt(splitLine[3]),
+                            Orientation.valueOf(StringUtils.upperCase(splitLine[4])).ordinal(), splitLine[1], splitLine[5]);
+                } else {
+                    throw new IllegalStateException(UNKNOWN_LINE_MESSAGE + line);
+                }
+            } catch (CharacterCodingException e) {
+                chunk.addError(lineStart, lineEnd, new IllegalArgumentException("La ligne n'est pas un texte UTF-8 valide."));
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                chunk.addError(lineStart, lineEnd, e);
+            }
+        }
+
+        /**
+         * Lecture directe d'une ligne ASCII de montagne, de trésor ou d'aventurier. Les espaces et tabulations sont ignorés
+         * comme avec {@link InputFileService#getCleanSplitElements(String)}.
+         *
+         * @return {@code false} si la ligne n'est pas une ligne valide de ce type, elle doit alors être lue sous forme de texte
+         */
+        private boolean parseAsciiLine() {
+            if (lineStart == lineEnd) {
+                return false;
+            }
+            int nbFields = 0;
+            fieldStarts[0] = lineStart;
+            for (int i = lineStart; i < lineEnd; i++) {
+                byte b = buffer.get(i);
+                if (b < 0 || (b < ' ' && b != '\t')) {
+                    return false;
+                }
+                if (b == '-') {
+                    fieldEnds[nbFields] = i;
+                    if (++nbFields == MAX_NB_FIELDS) {
+                        return false;
+                    }
+                    fieldStarts[nbFields] = i + 1;
+                }
+            }
+            fieldEnds[nbFields++] = lineEnd;
+            int length = lineEnd - lineStart;
+            return switch (buffer.get(lineStart)) {
+                case 'M', 'm' -> length >= MOUNTAIN_MAX_NB_CHARACTERS && nbFields == MOUNTAIN_MAX_SPLIT_LENGTH && addMountain();
+                case 'T', 't' -> length >= TREASURE_MAX_NB_CHARACTERS && nbFields == TREASURE_MAX_SPLIT_LENGTH && addTreasure();
+                case 'A', 'a' -> length >= ADVENTURER_MAX_NB_CHARACTERS && nbFields == ADVENTURER_MAX_SPLIT_LENGTH && addAdventurer();
+                default -> false;
+            };
+        }
+
+        private boolean addMountain() {
+            int x = readNumber(1);
+            int y = readNumber(2);
+            if (!isWithinMap(x, y)) {
+                return false;
+            }
+            chunk.add(lineStart, lineEnd, MOUNTAIN, x, y, 0, null, null);
+            return true;
+        }
+
+        private boolean addTreasure() {
+            int x = readNumber(1);
+            int y = readNumber(2);
+            int nbTreasure = readNumber(3);
+            if (!isWithinMap(x, y) || nbTreasure < 1) {
+                return false;
+            }
+            chunk.add(lineStart, lineEnd, TREASURE, x, y, nbTreasure, null, null);
+            return true;
+        }
+
+        private boolean addAdventurer() {
+            int x = readNumber(2);
+            int y = readNumber(3);
+            String name = readText(1);
+            String orientation = readText(4);
+            String moves = readText(5);
+            if (!isWithinMap(x, y) || name.isEmpty() || !StringUtils.equalsAny(orientation, "N", "S", "E", "O", "n", "s", "e", "o")
+                    || moves.isEmpty() || !StringUtils.containsOnly(moves, "ADGadg,")) {
+                return false;
+            }
+            int orientationOrdinal = Orientation.valueOf(StringUtils.upperCase(orientation)).ordinal();
+            chunk.add(lineStart, lineEnd, ADVENTURER, x, y, orientationOrdinal, name, moves);
+            return true;
+        }
+
+        private boolean isWithinMap(int x, int y) {
+            return x >= 0 && y >= 0 && x <= mapWidth && y <= mapHeight;
+        }
+
+        /**
+         * @return L'entier du champ, ou -1 s'il ne contient pas que des chiffres (les nombres de plus de 9 chiffres sont laissés à la lecture texte)
+         */
+        private int readNumber(int field) {
+            int value = 0;
+            int nbDigits = 0;
+            for (int i = fieldStarts[field]; i < fieldEnds[field]; i++) {
+                byte b = buffer.get(i);
+                if (b == ' ' || b == '\t') {
+                    continue;
+                }
+                if (b < '0' || b > '9' || ++nbDigits > 9) {
+                    return -1;
+                }
+                value = value * 10 + (b - '0');
+            }
+            return nbDigits == 0 ? -1 : value;
+        }
+
+        private String readText(int field) {
+            byte[] text = new byte[fieldEnds[field] - fieldStarts[field]];
+            int length = 0;
+            for (int i = fieldStarts[field]; i < fieldEnds[field]; i++) {
+                byte b = buffer.get(i);
+                if (b != ' ' && b != '\t') {
+                    text[length++] = b;
+                }
+            }
+            return new String(text, 0, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
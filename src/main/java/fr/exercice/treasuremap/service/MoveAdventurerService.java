@@ -2,128 +2,117 @@ package fr.exercice.treasuremap.service;
 
 import fr.exercice.treasuremap.model.*;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
-import static fr.exercice.treasuremap.model.Orientation.getOrientationWithAngle;
-
 /**
- * Service gérant les mouvements de l'aventurier : s'il peut avancer ou non, s'il change d'orientation ou s'il ramasse un trésor
+ * Service gérant les mouvements de l'aventurier : s'il peut avancer ou non, s'il change d'orientation ou s'il ramasse un trésor.
+ * Chaque mouvement est signalé au {@link GameEventService}, qui ne le met en forme qu'au niveau d'événements TRACE.
+ * Les déplacements refusés sont aussi comptés par le {@link GameMetricsService}.
  */
 @Service
 @RequiredArgsConstructor
-@Slf4j
 public class MoveAdventurerService {
 
-    private static final String NEW_POS_ADVENTURER = "Nouvelle position de {}: {}, {} et orientation : {}";
+    private final GameEventService gameEventService;
+    private final GameMetricsService gameMetricsService;
 
     /**
-     * Vérifie si l'aventurier {@link Adventurer} a terminé ses mouvements et change son état isDoneMoving le cas échéant.
+     * Vérifie si l'aventurier de la {@link AdventurerPopulation} a terminé ses mouvements et change son état isDoneMoving le cas échéant.
      * On considère qu'il a fini de bouger lorsque la valeur du tour dépasse le nombre de mouvements de l'aventurier.
      *
-     * @param adventurer L'aventurier qui s'apprête à jouer son tour
+     * @param population La population d'aventuriers du jeu
+     * @param index      L'indice de l'aventurier qui s'apprête à jouer son tour
      * @param turn       Le tour en train d'être joué
      */
-    public void checkIfAdventurerIsDoneMoving(Adventurer adventurer, int turn) {
-        if (!adventurer.isDoneMoving() && turn >= adventurer.getMoves().length()) {
-            log.info("L'aventurier {} a terminé tous ses mouvements et possède {} trésor(s)", adventurer.getName(), adventurer.getNbTreasure());
-            adventurer.setDoneMoving(true);
+    public void checkIfAdventurerIsDoneMoving(AdventurerPopulation population, int index, int turn) {
+        if (!population.isDoneMoving(index) && turn >= population.getNbMoves(index)) {
+            gameEventService.doneMoving(population.getName(index), population.getNbTreasure(index));
+            population.setDoneMoving(index);
         }
     }
 
     /**
-     * Gestionnaire des mouvements de l'aventurier en train de jouer son tour.
+     * Gestionnaire des mouvements de l'aventurier de la {@link AdventurerPopulation} en train de jouer son tour.
      * Il va gérer les interactions suivant s'il avance, rencontre une montagne ou un autre aventurier, ramasse un trésor ou change d'orientation.
+     * Les mouvements sont lus sous leur forme compilée {@link Move} et les rotations passent par les tables de {@link Orientation} :
+     * aucun objet n'est alloué pour jouer un mouvement.
+     * Sauf au niveau d'événements TRACE, qui signale chaque rotation, une suite de rotations est jouée d'un coup à son premier tour
+     * et les tours suivants de la suite ne coûtent plus rien : le tour des mouvements A et de la fin des mouvements ne change pas.
      *
-     * @param game       Le jeu en cours avec tous ses assets (montagnes, trésors, aventuriers)
-     * @param adventurer L'aventurier en train de jouer son mouvement
+     * @param gameWorld  L'index spatial du jeu en cours (montagnes, trésors, aventuriers)
+     * @param population La population d'aventuriers du jeu
+     * @param index      L'indice de l'aventurier en train de jouer son mouvement
      * @param turn       Le tour en cours
      */
-    public void playMove(Game game, Adventurer adventurer, int turn) {
-        String move = String.valueOf(adventurer.getMoves().charAt(turn));
-        if (StringUtils.equalsIgnoreCase(move, "A")) {
-            int newPosX = adventurer.getPosX() + adventurer.getOrientation().getCoordinates()[0];
-            int newPosY = adventurer.getPosY() + adventurer.getOrientation().getCoordinates()[1];
-            if (isMovePossible(game, newPosX, newPosY, adventurer.getName())) {
-                moveForward(game, adventurer, newPosX, newPosY);
+    public void playMove(GameWorld gameWorld, AdventurerPopulation population, int index, int turn) {
+        if (population.isInRotationRun(index, turn)) {
+            return;
+        }
+        byte move = population.getMove(index, turn);
+        Orientation orientation = population.getOrientation(index);
+        if (move == Move.FORWARD) {
+            int posX = population.getPosX(index);
+            int posY = population.getPosY(index);
+            int newPosX = posX + orientation.getCoordinates()[0];
+            int newPosY = posY + orientation.getCoordinates()[1];
+            if (isMovePossible(gameWorld, newPosX, newPosY, population.getName(index))) {
+                gameWorld.moveOccupant(posX, posY, newPosX, newPosY);
+                population.setPosition(index, newPosX, newPosY);
+                if (gameWorld.pickUpTreasure(newPosX, newPosY)) {
+                    population.addTreasure(index);
+                    gameEventService.newTreasure(population.getName(index), population.getNbTreasure(index));
+                }
+                gameEventService.newPosition(population.getName(index), newPosX, newPosY, orientation);
             }
+        } else if (gameEventService.getLevel() == EventLevel.TRACE) {
+            population.setOrientation(index, orientation.turn(move));
+            gameEventService.newPosition(population.getName(index), population.getPosX(index), population.getPosY(index), population.getOrientation(index));
         } else {
-            setOrientation(move, adventurer);
+            population.playRotationRun(index, turn);
         }
     }
 
-    private void setOrientation(String move, Adventurer adventurer) {
-        if (StringUtils.equalsIgnoreCase(move, "D")) {
-            adventurer.setOrientation(getOrientationWithAngle(adventurer.getOrientation().getAngle() + 90));
-        } else adventurer.setOrientation(getOrientationWithAngle(adventurer.getOrientation().getAngle() - 90));
-        log.info(NEW_POS_ADVENTURER, adventurer.getName(), adventurer.getPosX(), adventurer.getPosY(), adventurer.getOrientation());
-    }
-
     /**
      * Pour que l'aventurier puisse avancer, trois vérifications doivent être faites :
      * <li>La nouvelle position ne doit pas mener hors des dimensions de la carte {@link GameMap}</li>
      * <li>La nouvelle position ne doit pas mener sur une case {@link Cell} occupée par une montagne de {@link CellType} MOUTAIN</li>
      * <li>La nouvelle position ne doit pas mener sur une case occupée par un aventurier</li>
      *
-     * @param game    Le jeu en cours avec tous ses assets (montagnes, trésors, aventuriers)
-     * @param newPosX L'abscisse X visée par le prochain mouvement de l'aventurier
-     * @param newPosY L'ordonnée Y visée par le prochain mouvement de l'aventurier
-     * @param name    Le nom de l'aventurier utilisé dans le logging
+     * @param gameWorld L'index spatial du jeu en cours (montagnes, trésors, aventuriers)
+     * @param newPosX  L'abscisse X visée par le prochain mouvement de l'aventurier
+     * @param newPosY  L'ordonnée Y visée par le prochain mouvement de l'aventurier
+     * @param name     Le nom de l'aventurier utilisé dans les événements de jeu
      * @return Si l'aventurier peut avancer
      */
-    private boolean isMovePossible(Game game, int newPosX, int newPosY, String name) {
-        return (isWithinMap(game, newPosX, newPosY, name)
-                && !isMountainCell(game, newPosX, newPosY, name)
-                && !isAdventurerPresent(game, newPosX, newPosY, name));
-    }
-
-    private void moveForward(Game game, Adventurer adventurer, int newPosX, int newPosY) {
-        adventurer.setPosX(newPosX).setPosY(newPosY);
-        if (isTreasureCell(game, newPosX, newPosY, adventurer)) {
-            log.info("Nouveau trésor pour {} ! L'aventurier possède désormais {} trésor(s)", adventurer.getName(), adventurer.getNbTreasure());
-        }
-        log.info(NEW_POS_ADVENTURER, adventurer.getName(), adventurer.getPosX(), adventurer.getPosY(), adventurer.getOrientation());
+    private boolean isMovePossible(GameWorld gameWorld, int newPosX, int newPosY, String name) {
+        return (isWithinMap(gameWorld, newPosX, newPosY, name)
+                && !isMountainCell(gameWorld, newPosX, newPosY, name)
+                && !isAdventurerPresent(gameWorld, newPosX, newPosY, name));
     }
 
-    private boolean isWithinMap(Game game, int newPosX, int newPosY, String name) {
-        boolean isOutOfMap = newPosX > game.getGameMap().getWidth() || newPosY > game.getGameMap().getHeight();
-        boolean areNegativeCoordinates = newPosX < 0 || newPosY < 0;
-        if (isOutOfMap || areNegativeCoordinates) {
-            log.info("Le mouvement de l'aventurier {} sort de la carte, il ne bouge pas sur ce tour", name);
+    private boolean isWithinMap(GameWorld gameWorld, int newPosX, int newPosY, String name) {
+        if (!gameWorld.isWithinMap(newPosX, newPosY)) {
+            gameEventService.moveBlocked(GameEventType.OUT_OF_MAP, name);
+            gameMetricsService.moveBlocked(GameEventType.OUT_OF_MAP);
             return false;
         }
         return true;
     }
 
-    private boolean isTreasureCell(Game game, int newPosX, int newPosY, Adventurer adventurer) {
-        for (Cell treasure : game.getTreasureCells()) {
-            if (treasure.getNbTreasure() == 0) return false;
-            if (treasure.getPosX() == newPosX && treasure.getPosY() == newPosY) {
-                adventurer.setNbTreasure(adventurer.getNbTreasure() + 1);
-                treasure.setNbTreasure(treasure.getNbTreasure() - 1);
-                return true;
-            }
+    private boolean isMountainCell(GameWorld gameWorld, int newPosX, int newPosY, String name) {
+        if (gameWorld.isMountain(newPosX, newPosY)) {
+            gameEventService.moveBlocked(GameEventType.MOUNTAIN, name);
+            gameMetricsService.moveBlocked(GameEventType.MOUNTAIN);
+            return true;
         }
         return false;
     }
 
-    private boolean isMountainCell(Game game, int newPosX, int newPosY, String name) {
-        for (Cell mountain : game.getMountainCells()) {
-            if (mountain.getPosX() == newPosX && mountain.getPosY() == newPosY) {
-                log.info("Il y a une montagne sur cette case, l'aventurier {} ne bouge pas sur ce tour", name);
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private boolean isAdventurerPresent(Game game, int newPosX, int newPosY, String name) {
-        for (Adventurer adventurer : game.getAdventurers()) {
-            if (adventurer.getPosX() == newPosX && adventurer.getPosY() == newPosY) {
-                log.info("Il y a déjà un aventurier sur cette case, l'aventurier {} ne bouge pas sur ce tour", name);
-                return true;
-            }
+    private boolean isAdventurerPresent(GameWorld gameWorld, int newPosX, int newPosY, String name) {
+        if (gameWorld.isOccupied(newPosX, newPosY)) {
+            gameEventService.moveBlocked(GameEventType.ADVENTURER_PRESENT, name);
+            gameMetricsService.moveBlocked(GameEventType.ADVENTURER_PRESENT);
+            return true;
         }
         return false;
     }
@@ -3,19 +3,21 @@ package fr.exercice.treasuremap.service;
 import fr.exercice.treasuremap.model.Adventurer;
 import fr.exercice.treasuremap.model.Cell;
 import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.utils.WorkingFileUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 
 /**
  * Ce service sert à générer le fichier de sortie contenant le résultat final du jeu.
@@ -32,26 +34,66 @@ public class OutputFileService {
     // Le fichier de sortie sera nommé comme le fichier d'entrée suivi du suffixe
     public static final String RESULT_NAME_SUFFIX = "_result.txt";
 
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
     /**
-     * Méthode qui crée le fichier de sortie. S'il en existe déjà un du même nom, il va le supprimer et en créer un nouveau.
+     * Méthode qui crée le fichier de sortie. S'il en existe déjà un du même nom, il est remplacé.
+     * Le résultat est d'abord écrit dans un fichier temporaire du même répertoire, ouvert une seule fois, puis renommé de façon atomique :
+     * un lecteur du fichier de sortie ne voit jamais un résultat à moitié écrit.
      *
      * @param game          Le jeu dans son état final
      * @param inputFilePath Le chemin absolu du fichier d'entrée, qui va servir à créer celui de sortie.
-     * @throws IOException Si une erreur I/O se produit lors de la suppression ou création d'un des fichiers
+     * @throws IOException Si une erreur I/O se produit lors de l'écriture ou du renommage d'un des fichiers
      */
     public void writeOutputFile(Game game, Path inputFilePath) throws IOException {
-        List<String> txtOutput = generateOutput(game);
-        Path outputFilePath = Paths.get(String.valueOf(inputFilePath.getParent()),
-                FilenameUtils.getBaseName(String.valueOf(inputFilePath.getFileName())) + RESULT_NAME_SUFFIX);
-        Files.deleteIfExists(outputFilePath);
-        Files.createFile(outputFilePath);
-        for (String str : txtOutput) {
-            Files.writeString(outputFilePath, str + System.lineSeparator(),
-                    StandardOpenOption.APPEND);
+        writeOutputFile(inputFilePath, writer -> writeOutput(game, writer));
+    }
+
+    /**
+     * Crée le fichier de sortie à partir d'un résultat déjà calculé, de la même façon que {@link #writeOutputFile(Game, Path)}.
+     *
+     * @param result        Le contenu du fichier de sortie
+     * @param inputFilePath Le chemin absolu du fichier d'entrée, qui va servir à créer celui de sortie.
+     * @throws IOException Si une erreur I/O se produit lors de l'écriture ou du renommage d'un des fichiers
+     */
+    public void writeOutputFile(byte[] result, Path inputFilePath) throws IOException {
+        writeOutputFile(inputFilePath, writer -> writer.write(result));
+    }
+
+    /**
+     * Écrit le résultat du jeu en mémoire, dans le même format que le fichier de sortie, pour les parties qui n'ont pas de fichier d'entrée.
+     *
+     * @param game Le jeu dans son état final
+     * @return Le contenu du fichier de sortie
+     * @throws IOException Si une erreur I/O se produit lors de l'écriture du résultat
+     */
+    public byte[] getOutput(Game game) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ResultWriter writer = new ResultWriter(Channels.newChannel(output))) {
+            writeOutput(game, writer);
         }
+        return output.toByteArray();
+    }
+
+    private void writeOutputFile(Path inputFilePath, OutputWriting outputWriting) throws IOException {
+        Path outputFilePath = getOutputFilePath(inputFilePath);
+        WorkingFileUtils.writeAtomically(outputFilePath, tempFilePath -> {
+            try (ResultWriter writer = new ResultWriter(FileChannel.open(tempFilePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE))) {
+                outputWriting.writeTo(writer);
+            }
+        });
         log.info("Le fichier de sortie a été créé à l'emplacement {}", outputFilePath);
     }
 
+    /**
+     * @return Le chemin du fichier de sortie, dans le même répertoire que le fichier d'entrée
+     */
+    public Path getOutputFilePath(Path inputFilePath) {
+        String outputFileName = FilenameUtils.getBaseName(String.valueOf(inputFilePath.getFileName())) + RESULT_NAME_SUFFIX;
+        return Paths.get(String.valueOf(inputFilePath.getParent()), outputFileName);
+    }
+
     /**
      * On attend un format final (où posX est une abscisse et posY une ordonnée sur la carte) :
      * <li>Entièrement en majuscules, sauf le nom de l'aventurier</li>
@@ -60,24 +102,113 @@ public class OutputFileService {
      * <li>La ou les lignes de montagne, de la forme "M, posX, posY"</li>
      * <li>La ou les lignes de trésor qui ont un nombre de trésors restants > 0, de la forme "T, posX, posY, nombre de trésors restants"</li>
      * <li>La ou les lignes des aventuriers, de la forme "A, posX, posY, orientation, nombre de trésors ramassés"</li>
+     * Chaque ligne est encodée directement dans le tampon d'écriture, sans construire de liste de lignes intermédiaire.
      *
-     * @param game Le jeu à traiter dans son état final
-     * @return La liste de toutes les lignes à insérer dans le fichier dans l'ordre
+     * @param game   Le jeu à traiter dans son état final
+     * @param writer Le fichier de sortie en cours d'écriture
      */
-    private List<String> generateOutput(Game game) {
-        List<String> outputLines = new ArrayList<>();
-        outputLines.add(StringUtils.join(List.of("C", game.getGameMap().getWidth(), game.getGameMap().getHeight()), SEPARATOR));
+    private void writeOutput(Game game, ResultWriter writer) throws IOException {
+        writer.writeAscii('C').writeSeparator().write(game.getGameMap().getWidth()).writeSeparator().write(game.getGameMap().getHeight()).writeLineSeparator();
         for (Cell mountain : game.getMountainCells()) {
-            outputLines.add(StringUtils.join(List.of("M", mountain.getPosX(), mountain.getPosY()), SEPARATOR));
+            writer.writeAscii('M').writeSeparator().write(mountain.getPosX()).writeSeparator().write(mountain.getPosY()).writeLineSeparator();
         }
         for (Cell treasure : game.getTreasureCells()) {
             if (treasure.getNbTreasure() > 0) {
-                outputLines.add(StringUtils.join(List.of("T", treasure.getPosX(), treasure.getPosY(), treasure.getNbTreasure()), SEPARATOR));
+                writer.writeAscii('T').writeSeparator().write(treasure.getPosX()).writeSeparator().write(treasure.getPosY())
+                        .writeSeparator().write(treasure.getNbTreasure()).writeLineSeparator();
             }
         }
         for (Adventurer adventurer : game.getAdventurers()) {
-            outputLines.add(StringUtils.join(List.of("A", adventurer.getName(), adventurer.getPosX(), adventurer.getPosY(), adventurer.getOrientation().name(), adventurer.getNbTreasure()), SEPARATOR));
+            writer.writeAscii('A').writeSeparator().write(adventurer.getName()).writeSeparator().write(adventurer.getPosX()).writeSeparator().write(adventurer.getPosY())
+                    .writeSeparator().write(adventurer.getOrientation().name()).writeSeparator().write(adventurer.getNbTreasure()).writeLineSeparator();
+        }
+    }
+
+    @FunctionalInterface
+    private interface OutputWriting {
+        void writeTo(ResultWriter writer) throws IOException;
+    }
+
+    /**
+     * Écriture du fichier de sortie à travers un tampon, vidé dans le canal du fichier ou de la mémoire uniquement lorsqu'il est plein et à la fermeture.
+     * Les entiers sont encodés chiffre par chiffre et le texte en UTF-8.
+     */
+    private static final class ResultWriter implements Closeable {
+        private static final byte[] SEPARATOR_BYTES = SEPARATOR.getBytes(StandardCharsets.UTF_8);
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        private final byte[] digits = new byte[11];
+
+        private ResultWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        private ResultWriter writeAscii(char character) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) character);
+            return this;
+        }
+
+        private ResultWriter write(String text) throws IOException {
+            return write(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private ResultWriter write(byte[] bytes) throws IOException {
+            if (buffer.remaining() < bytes.length) {
+                flush();
+            }
+            if (bytes.length > buffer.capacity()) {
+                // Un canal peut n'écrire qu'une partie des octets à chaque appel
+                ByteBuffer largeBytes = ByteBuffer.wrap(bytes);
+                while (largeBytes.hasRemaining()) {
+                    channel.write(largeBytes);
+                }
+            } else {
+                buffer.put(bytes);
+            }
+            return this;
+        }
+
+        private ResultWriter write(int value) throws IOException {
+            if (value < 0) {
+                return write(Integer.toString(value));
+            }
+            int start = digits.length;
+            do {
+                digits[--start] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            if (buffer.remaining() < digits.length - start) {
+                flush();
+            }
+            buffer.put(digits, start, digits.length - start);
+            return this;
+        }
+
+        private ResultWriter writeSeparator() throws IOException {
+            return write(SEPARATOR_BYTES);
+        }
+
+        private ResultWriter writeLineSeparator() throws IOException {
+            return write(LINE_SEPARATOR);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                flush();
+            }
         }
-        return outputLines;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,204 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.model.AdventurerPopulation;
+import fr.exercice.treasuremap.model.EventLevel;
+import fr.exercice.treasuremap.model.GameEventType;
+import fr.exercice.treasuremap.model.GameGrid;
+import fr.exercice.treasuremap.model.Move;
+import fr.exercice.treasuremap.model.Orientation;
+import fr.exercice.treasuremap.model.ParallelTurnState;
+import fr.exercice.treasuremap.model.TileSchedule;
+import fr.exercice.treasuremap.model.TurnScheduler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Moteur de tours parallèle, qui donne exactement le même résultat que les mouvements joués un par un dans l'ordre du fichier
+ * par le {@link MoveAdventurerService}. Un tour est joué en trois passes :
+ * <li>En parallèle : les rotations sont jouées (d'un coup pour une suite de rotations, comme dans le {@link MoveAdventurerService}), les sorties de carte et les montagnes bloquent l'aventurier, et chaque aventurier qui avance réserve la case visée</li>
+ * <li>En parallèle : les aventuriers qui avancent sans concurrence sont déplacés, c'est-à-dire ceux dont la case visée était libre au début du tour
+ * et n'est réservée par personne d'autre, et dont la case de départ n'est visée par personne</li>
+ * <li>Dans l'ordre du fichier : les aventuriers en concurrence pour une case sont déplacés comme dans le moteur séquentiel,
+ * puis les trésors sont ramassés et les aventuriers qui ont terminé leurs mouvements sont marqués</li>
+ * Les déplacements sans concurrence ne touchent aucune case utilisée par les autres aventuriers : l'ordre dans lequel ils sont joués ne change pas le résultat.
+ * Les ramassages de trésors sont toujours joués dans l'ordre du fichier, car un trésor épuisé empêche de ramasser les trésors suivants de la liste.
+ * Si la carte est découpée en tuiles ({@link TileSchedule}), chaque tuile est jouée par le même thread de travail d'un tour à l'autre
+ * et les aventuriers qui changent de tuile lui sont transmis à la fin du tour.
+ * Au niveau d'événements TRACE, l'ordre des événements de deux aventuriers différents n'est pas celui du fichier.
+ */
+@Service
+@RequiredArgsConstructor
+public class ParallelTurnService {
+
+    // Nombre minimal d'aventuriers traités par une tâche, pour que le découpage coûte moins cher que les mouvements joués
+    private static final int MIN_ADVENTURERS_PER_CHUNK = 2048;
+
+    private final MoveAdventurerService moveAdventurerService;
+    private final GameEventService gameEventService;
+    private final GameMetricsService gameMetricsService;
+
+    /**
+     * Joue un tour pour tous les aventuriers actifs du {@link TurnScheduler}.
+     * Si la carte est découpée en tuiles, chaque thread de travail joue les deux passes parallèles des aventuriers d'un bloc de tuiles voisines.
+     *
+     * @param state         Les tableaux de travail de la partie
+     * @param gameGrid      L'index spatial du jeu en cours
+     * @param population    La population d'aventuriers du jeu
+     * @param turnScheduler Le planificateur des tours de la partie
+     * @param turn          Le tour en cours
+     */
+    public void playTurn(ParallelTurnState state, GameGrid gameGrid, AdventurerPopulation population, TurnScheduler turnScheduler, int turn) {
+        int nbWorkers;
+        if (state.getTileSchedule() != null) {
+            nbWorkers = Math.min(ForkJoinPool.getCommonPoolParallelism(), state.getTileSchedule().getNbTiles());
+        } else {
+            nbWorkers = Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, Math.ceilDiv(turnScheduler.getNbActiveAdventurers(), MIN_ADVENTURERS_PER_CHUNK));
+        }
+        playTurn(state, gameGrid, population, turnScheduler, turn, Math.max(1, nbWorkers));
+    }
+
+    void playTurn(ParallelTurnState state, GameGrid gameGrid, AdventurerPopulation population, TurnScheduler turnScheduler, int turn, int nbWorkers) {
+        forEachActiveAdventurer(state, turnScheduler, nbWorkers, index -> prepareMove(state, gameGrid, population, index, turn));
+        forEachActiveAdventurer(state, turnScheduler, nbWorkers, index -> playUncontestedMove(state, gameGrid, population, index, turn));
+        for (int position = 0; position < turnScheduler.getNbActiveAdventurers(); position++) {
+            playInFileOrder(state, gameGrid, population, turnScheduler.getActiveAdventurer(position), turn);
+        }
+        TileSchedule tileSchedule = state.getTileSchedule();
+        if (tileSchedule != null) {
+            IntStream.range(0, nbWorkers).parallel().forEach(worker -> {
+                for (int tile = share(worker, nbWorkers, tileSchedule.getNbTiles()); tile < share(worker + 1, nbWorkers, tileSchedule.getNbTiles()); tile++) {
+                    tileSchedule.removeDepartures(tile, population, gameGrid);
+                }
+            });
+            tileSchedule.handOffDepartures(population, gameGrid);
+        }
+    }
+
+    /**
+     * Répartit les aventuriers actifs entre les threads de travail : par blocs de tuiles si la carte est découpée en tuiles,
+     * sinon par tranches de la liste du {@link TurnScheduler}.
+     * Les threads de travail publient leurs événements au nom de la partie du thread qui joue le tour.
+     */
+    private void forEachActiveAdventurer(ParallelTurnState state, TurnScheduler turnScheduler, int nbWorkers, IntConsumer action) {
+        TileSchedule tileSchedule = state.getTileSchedule();
+        String game = gameEventService.getCurrentGame();
+        IntStream.range(0, nbWorkers).parallel().forEach(worker -> {
+            String previousGame = gameEventService.enterGame(game);
+            try {
+                forEachActiveAdventurerOfWorker(tileSchedule, turnScheduler, worker, nbWorkers, action);
+            } finally {
+                gameEventService.exitGame(previousGame);
+            }
+        });
+    }
+
+    private static void forEachActiveAdventurerOfWorker(TileSchedule tileSchedule, TurnScheduler turnScheduler, int worker, int nbWorkers, IntConsumer action) {
+        if (tileSchedule != null) {
+            for (int tile = share(worker, nbWorkers, tileSchedule.getNbTiles()); tile < share(worker + 1, nbWorkers, tileSchedule.getNbTiles()); tile++) {
+                for (int position = 0; position < tileSchedule.getNbResidents(tile); position++) {
+                    action.accept(tileSchedule.getResident(tile, position));
+                }
+            }
+        } else {
+            int nbActiveAdventurers = turnScheduler.getNbActiveAdventurers();
+            for (int position = share(worker, nbWorkers, nbActiveAdventurers); position < share(worker + 1, nbWorkers, nbActiveAdventurers); position++) {
+                action.accept(turnScheduler.getActiveAdventurer(position));
+            }
+        }
+    }
+
+    private static int share(int worker, int nbWorkers, int nbItems) {
+        return (int) ((long) worker * nbItems / nbWorkers);
+    }
+
+    /**
+     * Première passe : seules les données de l'aventurier sont modifiées, la grille d'occupation est seulement lue.
+     */
+    private void prepareMove(ParallelTurnState state, GameGrid gameGrid, AdventurerPopulation population, int index, int turn) {
+        state.setTargetCell(index, ParallelTurnState.NO_TARGET);
+        if (population.isInRotationRun(index, turn)) {
+            return;
+        }
+        if (turn >= population.getNbMoves(index)) {
+            state.setTargetCell(index, ParallelTurnState.DONE_MOVING);
+            return;
+        }
+        byte move = population.getMove(index, turn);
+        Orientation orientation = population.getOrientation(index);
+        if (move != Move.FORWARD) {
+            if (gameEventService.getLevel() == EventLevel.TRACE) {
+                population.setOrientation(index, orientation.turn(move));
+                gameEventService.newPosition(population.getName(index), population.getPosX(index), population.getPosY(index), population.getOrientation(index));
+            } else {
+                population.playRotationRun(index, turn);
+            }
+            return;
+        }
+        int newPosX = population.getPosX(index) + orientation.getCoordinates()[0];
+        int newPosY = population.getPosY(index) + orientation.getCoordinates()[1];
+        if (!gameGrid.isWithinMap(newPosX, newPosY)) {
+            gameEventService.moveBlocked(GameEventType.OUT_OF_MAP, population.getName(index));
+            gameMetricsService.moveBlocked(GameEventType.OUT_OF_MAP);
+        } else if (gameGrid.isMountain(newPosX, newPosY)) {
+            gameEventService.moveBlocked(GameEventType.MOUNTAIN, population.getName(index));
+            gameMetricsService.moveBlocked(GameEventType.MOUNTAIN);
+        } else {
+            int targetCell = gameGrid.cellIndex(newPosX, newPosY);
+            state.setTargetCell(index, targetCell);
+            state.setTargetOccupiedAtStart(index, gameGrid.isOccupied(targetCell));
+            state.claim(targetCell, turn);
+        }
+    }
+
+    /**
+     * Deuxième passe : un aventurier sans concurrence écrit seulement sa case de départ et la case visée, qu'aucun autre aventurier n'utilise pendant ce tour.
+     */
+    private void playUncontestedMove(ParallelTurnState state, GameGrid gameGrid, AdventurerPopulation population, int index, int turn) {
+        int targetCell = state.getTargetCell(index);
+        if (targetCell < 0 || state.isTargetOccupiedAtStart(index) || state.getNbClaims(targetCell, turn) != 1) {
+            return;
+        }
+        int startCell = gameGrid.cellIndex(population.getPosX(index), population.getPosY(index));
+        if (state.getNbClaims(startCell, turn) != 0) {
+            return;
+        }
+        moveForward(state, gameGrid, population, index, startCell, targetCell);
+    }
+
+    /**
+     * Troisième passe, dans l'ordre du fichier : déplacements en concurrence, ramassages de trésors et fins de mouvements.
+     */
+    private void playInFileOrder(ParallelTurnState state, GameGrid gameGrid, AdventurerPopulation population, int index, int turn) {
+        int targetCell = state.getTargetCell(index);
+        if (targetCell == ParallelTurnState.DONE_MOVING) {
+            moveAdventurerService.checkIfAdventurerIsDoneMoving(population, index, turn);
+        } else if (targetCell >= 0) {
+            if (gameGrid.isOccupied(targetCell)) {
+                gameEventService.moveBlocked(GameEventType.ADVENTURER_PRESENT, population.getName(index));
+                gameMetricsService.moveBlocked(GameEventType.ADVENTURER_PRESENT);
+            } else {
+                moveForward(state, gameGrid, population, index, gameGrid.cellIndex(population.getPosX(index), population.getPosY(index)), targetCell);
+            }
+        }
+        if (state.hasTreasurePickup(index)) {
+            state.setTreasurePickup(index, false);
+            if (gameGrid.pickUpTreasure(population.getPosX(index), population.getPosY(index))) {
+                population.addTreasure(index);
+                gameEventService.newTreasure(population.getName(index), population.getNbTreasure(index));
+            }
+        }
+    }
+
+    private void moveForward(ParallelTurnState state, GameGrid gameGrid, AdventurerPopulation population, int index, int startCell, int targetCell) {
+        gameGrid.moveOccupant(startCell, targetCell);
+        Orientation orientation = population.getOrientation(index);
+        population.setPosition(index, population.getPosX(index) + orientation.getCoordinates()[0], population.getPosY(index) + orientation.getCoordinates()[1]);
+        state.setTargetCell(index, ParallelTurnState.NO_TARGET);
+        state.setTreasurePickup(index, gameGrid.hasTreasure(targetCell));
+        gameEventService.newPosition(population.getName(index), population.getPosX(index), population.getPosY(index), orientation);
+    }
+}
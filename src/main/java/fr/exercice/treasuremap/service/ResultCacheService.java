@@ -0,0 +1,271 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.utils.WorkingFileUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Ce service garde le résultat de chaque partie si l'option {@code treasuremap.cache.enabled} est activée.
+ * Un résultat est retrouvé à partir de l'empreinte SHA-256 du contenu du fichier d'entrée, de la version du moteur {@link #ENGINE_VERSION}
+ * et des options qui changent la validation du fichier : un fichier déjà joué avec les mêmes options, même renommé ou déplacé,
+ * a son fichier de sortie écrit sans être simulé à nouveau.
+ * Les résultats sont gardés sur deux niveaux, chacun limité en taille et vidé de ses résultats les moins récemment utilisés :
+ * <li>Sur disque, un fichier {@code <empreinte>.txt} par résultat : la date de modification d'un fichier est celle de sa dernière utilisation,
+ * l'ordre des résultats est donc retrouvé au redémarrage de l'application</li>
+ * <li>En mémoire, devant le disque, pour les fichiers joués plusieurs fois pendant un même batch</li>
+ * Une erreur du cache n'interrompt jamais la partie : le résultat est alors simulé, ou n'est pas gardé.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ResultCacheService {
+
+    // À incrémenter quand les règles du jeu ou le format du fichier de sortie changent : les résultats d'une version précédente ne sont plus retrouvés
+    public static final int ENGINE_VERSION = 1;
+    private static final String CACHE_DIRECTORY_NAME = "treasuremap-cache";
+    private static final String RESULT_EXTENSION = ".txt";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TreasureMapProperties properties;
+    private final OutputFileService outputFileService;
+
+    // Les résultats sont rangés dans l'ordre d'accès : le premier est le moins récemment utilisé
+    private final LinkedHashMap<String, byte[]> memoryResults = new LinkedHashMap<>(16, 0.75f, true);
+    private long memorySize;
+    // Taille des résultats sur disque, lus au premier accès au cache
+    private LinkedHashMap<String, Long> diskResults;
+    private long diskSize;
+
+    /**
+     * Calcule la clé du résultat d'un fichier d'entrée, en le lisant en entier.
+     * Une partie dont la trajectoire est enregistrée n'utilise pas le cache : sa trajectoire ne peut pas être écrite sans la simuler.
+     *
+     * @param inputFilePath Le chemin du fichier d'entrée
+     * @return L'empreinte en hexadécimal de la version du moteur, des options de validation et du contenu du fichier, null si le cache n'est pas utilisé
+     * @throws IOException Si le fichier d'entrée ne peut pas être lu
+     */
+    public String computeKey(Path inputFilePath) throws IOException {
+        if (!properties.getCache().isEnabled() || properties.getTrajectory().isEnabled()) {
+            return null;
+        }
+        MessageDigest digest = WorkingFileUtils.newSha256Digest();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.putInt(ENGINE_VERSION);
+        putValidationSettings(buffer);
+        try (FileChannel channel = FileChannel.open(inputFilePath, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        buffer.flip();
+        digest.update(buffer);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Ajoute à l'empreinte les options qui changent l'acceptation d'un fichier d'entrée : un fichier refusé avec ces options
+     * ne doit pas retrouver le résultat d'une partie jouée avec d'autres. Seule la carte creuse, qui lève la limite de surface
+     * de la carte, est concernée : les autres options changent la façon de jouer la partie mais pas son résultat.
+     */
+    private void putValidationSettings(ByteBuffer buffer) {
+        buffer.put((byte) (properties.getSimulation().isSparseMap() ? 1 : 0));
+    }
+
+    /**
+     * Écrit le fichier de sortie à partir du résultat gardé pour cette clé, cherché en mémoire puis sur disque.
+     * Un résultat trouvé sur disque est ajouté au cache en mémoire.
+     *
+     * @param key           La clé du fichier d'entrée, null si le cache n'est pas utilisé
+     * @param inputFilePath Le chemin du fichier d'entrée
+     * @return Si un résultat a été trouvé et le fichier de sortie créé
+     * @throws IOException Si le fichier de sortie ne peut pas être écrit
+     */
+    public boolean writeCachedResult(String key, Path inputFilePath) throws IOException {
+        if (key == null) {
+            return false;
+        }
+        byte[] result = getMemoryResult(key);
+        if (result == null) {
+            result = readDiskResult(key);
+            if (result == null) {
+                return false;
+            }
+            putMemoryResult(key, result);
+        }
+        outputFileService.writeOutputFile(result, inputFilePath);
+        return true;
+    }
+
+    /**
+     * Garde le fichier de sortie qui vient d'être écrit, en mémoire et sur disque. Un résultat plus grand que la taille maximale d'un niveau n'y est pas gardé.
+     *
+     * @param key           La clé du fichier d'entrée, null si le cache n'est pas utilisé
+     * @param inputFilePath Le chemin du fichier d'entrée
+     */
+    public void storeResult(String key, Path inputFilePath) {
+        if (key == null) {
+            return;
+        }
+        TreasureMapProperties.Cache cache = properties.getCache();
+        try {
+            Path outputFilePath = outputFileService.getOutputFilePath(inputFilePath);
+            long size = Files.size(outputFilePath);
+            if (size > cache.getMaxSize().toBytes() && size > cache.getMemoryMaxSize().toBytes()) {
+                return;
+            }
+            byte[] result = Files.readAllBytes(outputFilePath);
+            putMemoryResult(key, result);
+            if (result.length <= cache.getMaxSize().toBytes()) {
+                writeDiskResult(key, result);
+            }
+        } catch (IOException e) {
+            log.warn("Le résultat n'a pas pu être gardé dans le cache : {}", e.getMessage());
+        }
+    }
+
+    private synchronized byte[] getMemoryResult(String key) {
+        return memoryResults.get(key);
+    }
+
+    private synchronized void putMemoryResult(String key, byte[] result) {
+        long maxSize = properties.getCache().getMemoryMaxSize().toBytes();
+        if (result.length > maxSize) {
+            return;
+        }
+        byte[] previous = memoryResults.put(key, result);
+        memorySize += result.length - (previous == null ? 0 : previous.length);
+        Iterator<byte[]> iterator = memoryResults.values().iterator();
+        while (memorySize > maxSize) {
+            memorySize -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Lit un résultat sur disque et met à jour sa date de dernière utilisation.
+     * Un résultat supprimé entre-temps, par une autre partie ou à la main, est retiré du cache.
+     */
+    private byte[] readDiskResult(String key) {
+        Path resultPath = getCacheDirectory().resolve(key + RESULT_EXTENSION);
+        try {
+            if (!containsDiskResult(key)) {
+                return null;
+            }
+            byte[] result = Files.readAllBytes(resultPath);
+            Files.setLastModifiedTime(resultPath, FileTime.fromMillis(System.currentTimeMillis()));
+            return result;
+        } catch (NoSuchFileException e) {
+            removeDiskResult(key);
+        } catch (IOException e) {
+            log.warn("Le résultat {} n'a pas pu être lu dans le cache : {}", resultPath, e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Le résultat est écrit dans un fichier temporaire du répertoire du cache puis renommé : un résultat à moitié écrit n'est jamais lu.
+     */
+    private void writeDiskResult(String key, byte[] result) throws IOException {
+        Path cacheDirectory = Files.createDirectories(getCacheDirectory());
+        Path resultPath = cacheDirectory.resolve(key + RESULT_EXTENSION);
+        WorkingFileUtils.writeAtomically(resultPath, tempFilePath -> Files.write(tempFilePath, result, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+        for (Path evictedPath : addDiskResult(key, result.length)) {
+            Files.deleteIfExists(evictedPath);
+        }
+    }
+
+    private synchronized boolean containsDiskResult(String key) throws IOException {
+        return getDiskResults().get(key) != null;
+    }
+
+    private synchronized void removeDiskResult(String key) {
+        Long size = diskResults == null ? null : diskResults.remove(key);
+        if (size != null) {
+            diskSize -= size;
+        }
+    }
+
+    /**
+     * Ajoute un résultat au cache sur disque et retire les moins récemment utilisés au-delà de la taille maximale.
+     *
+     * @return Les fichiers des résultats retirés, à supprimer
+     */
+    private synchronized List<Path> addDiskResult(String key, long size) throws IOException {
+        Long previous = getDiskResults().put(key, size);
+        diskSize += size - (previous == null ? 0 : previous);
+        return evictDiskResults();
+    }
+
+    private List<Path> evictDiskResults() {
+        long maxSize = properties.getCache().getMaxSize().toBytes();
+        List<Path> evictedPaths = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> iterator = diskResults.entrySet().iterator();
+        while (diskSize > maxSize) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            diskSize -= eldest.getValue();
+            evictedPaths.add(getCacheDirectory().resolve(eldest.getKey() + RESULT_EXTENSION));
+            iterator.remove();
+        }
+        return evictedPaths;
+    }
+
+    /**
+     * Au premier accès, les résultats déjà présents dans le répertoire du cache sont rangés par date de dernière utilisation,
+     * et les plus anciens sont supprimés si la taille maximale a été réduite depuis la dernière exécution.
+     */
+    private LinkedHashMap<String, Long> getDiskResults() throws IOException {
+        if (diskResults == null) {
+            LinkedHashMap<String, Long> results = new LinkedHashMap<>(16, 0.75f, true);
+            diskSize = 0;
+            Path cacheDirectory = getCacheDirectory();
+            if (Files.isDirectory(cacheDirectory)) {
+                List<Path> resultPaths;
+                try (Stream<Path> paths = Files.list(cacheDirectory)) {
+                    resultPaths = paths.filter(path -> path.getFileName().toString().endsWith(RESULT_EXTENSION))
+                            .sorted(Comparator.comparing(ResultCacheService::getLastModifiedTime))
+                            .toList();
+                }
+                for (Path resultPath : resultPaths) {
+                    long size = Files.size(resultPath);
+                    results.put(StringUtils.removeEnd(resultPath.getFileName().toString(), RESULT_EXTENSION), size);
+                    diskSize += size;
+                }
+            }
+            diskResults = results;
+            for (Path evictedPath : evictDiskResults()) {
+                Files.deleteIfExists(evictedPath);
+            }
+        }
+        return diskResults;
+    }
+
+    private static FileTime getLastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * @return Le répertoire du cache sur disque, {@code treasuremap.cache.directory} ou {@code treasuremap-cache} dans le répertoire temporaire du système
+     */
+    public Path getCacheDirectory() {
+        String directory = properties.getCache().getDirectory();
+        return StringUtils.isBlank(directory) ? Paths.get(System.getProperty("java.io.tmpdir"), CACHE_DIRECTORY_NAME) : Paths.get(directory);
+    }
+}
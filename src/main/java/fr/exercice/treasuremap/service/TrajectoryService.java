@@ -0,0 +1,152 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.AdventurerPopulation;
+import fr.exercice.treasuremap.model.TrajectoryReader;
+import fr.exercice.treasuremap.model.TrajectoryWriter;
+import fr.exercice.treasuremap.model.TurnScheduler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Ce service enregistre la trajectoire de chaque aventurier, tour par tour, si l'option {@code treasuremap.trajectory.enabled} est activée.
+ * Chaque tour est écrit dans le fichier {@code <fichier>_<empreinte>_trajectory.tmt} dès qu'il a été joué, dans le format décrit par {@link TrajectoryWriter} :
+ * la mémoire utilisée ne dépend pas du nombre de tours de la partie.
+ * Une trajectoire qui ne peut pas être écrite est signalée sans interrompre la partie.
+ * Il extrait aussi la trajectoire d'un seul aventurier dans un fichier texte, avec le {@link TrajectoryReader}.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TrajectoryService {
+
+    public static final String EXTENSION = "tmt";
+    private static final String TRAJECTORY_NAME_SUFFIX = "_trajectory." + EXTENSION;
+    // Les trajectoires extraites ne doivent pas avoir l'extension d'un fichier d'entrée : un batch sur leur répertoire les jouerait comme des parties
+    private static final String PATH_EXTENSION = ".csv";
+    private static final String PATH_SEPARATOR = ",";
+
+    private final TreasureMapProperties properties;
+
+    /**
+     * Ouvre la trajectoire de la partie et y écrit l'état des aventuriers au tour de départ.
+     *
+     * @param inputFilePath Le chemin du fichier d'entrée de la partie
+     * @param population    La population d'aventuriers au tour de départ
+     * @param startTurn     Le tour auquel la partie commence, celui de la sauvegarde reprise
+     * @return La trajectoire en cours d'écriture, null si l'option est désactivée ou si le fichier n'a pas pu être créé
+     */
+    public TrajectoryWriter startTrajectory(Path inputFilePath, AdventurerPopulation population, int startTurn) {
+        if (!properties.getTrajectory().isEnabled()) {
+            return null;
+        }
+        Path trajectoryPath = getTrajectoryPath(inputFilePath);
+        try {
+            return new TrajectoryWriter(trajectoryPath, population, startTurn);
+        } catch (IOException e) {
+            log.warn("La trajectoire de la partie ne peut pas être écrite dans {} : {}", trajectoryPath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Écrit le tour qui vient d'être joué. Après une erreur d'écriture, la trajectoire est fermée et les tours suivants ne sont plus écrits.
+     *
+     * @param trajectoryWriter La trajectoire en cours d'écriture
+     * @param population       La population d'aventuriers à la fin du tour
+     * @param turnScheduler    Le planificateur des tours, dont les aventuriers terminés ont été retirés
+     * @param turn             Le tour qui vient d'être joué
+     * @return Si la trajectoire est toujours en cours d'écriture
+     */
+    public boolean writeTurn(TrajectoryWriter trajectoryWriter, AdventurerPopulation population, TurnScheduler turnScheduler, int turn) {
+        try {
+            trajectoryWriter.writeTurn(population, turnScheduler, turn);
+            return true;
+        } catch (IOException e) {
+            log.warn("Le tour {} de la trajectoire {} n'a pas pu être écrit, la trajectoire s'arrête : {}", turn, trajectoryWriter.getTrajectoryPath(), e.getMessage());
+            closeTrajectory(trajectoryWriter);
+            return false;
+        }
+    }
+
+    /**
+     * Ferme la trajectoire d'une partie dont tous les tours ont été joués, ou interrompue.
+     *
+     * @param trajectoryWriter La trajectoire en cours d'écriture, null s'il n'y en a pas
+     */
+    public void finishTrajectory(TrajectoryWriter trajectoryWriter) {
+        if (trajectoryWriter != null && closeTrajectory(trajectoryWriter)) {
+            log.info("Trajectoire de {} tours écrite dans {}", trajectoryWriter.getNbTurns(), trajectoryWriter.getTrajectoryPath());
+        }
+    }
+
+    private boolean closeTrajectory(TrajectoryWriter trajectoryWriter) {
+        try {
+            trajectoryWriter.close();
+            return true;
+        } catch (IOException e) {
+            log.warn("La trajectoire {} n'a pas pu être fermée : {}", trajectoryWriter.getTrajectoryPath(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return Le fichier de trajectoire de la partie, dans le répertoire {@code treasuremap.trajectory.directory} ou à côté du fichier d'entrée
+     */
+    public Path getTrajectoryPath(Path inputFilePath) {
+        String directory = properties.getTrajectory().getDirectory();
+        Path trajectoryDirectory = StringUtils.isBlank(directory) ? inputFilePath.toAbsolutePath().getParent() : Paths.get(directory);
+        return trajectoryDirectory.resolve(InputFileService.getGameFileName(inputFilePath) + TRAJECTORY_NAME_SUFFIX);
+    }
+
+    /**
+     * Extrait la trajectoire d'un aventurier dans le fichier CSV {@code <trajectoire>_<nom>.csv}, à côté du fichier de trajectoire.
+     * Les caractères du nom autres que les lettres, les chiffres, {@code _} et {@code -} sont remplacés par {@code _} dans le nom du fichier.
+     * Chaque ligne donne l'état de l'aventurier au début d'un tour, de la forme "tour,posX,posY,orientation,nombre de trésors ramassés".
+     *
+     * @param trajectoryPath Le fichier de trajectoire
+     * @param name           Le nom de l'aventurier
+     * @return Le fichier texte créé
+     * @throws IOException              Si une erreur I/O se produit lors de la lecture ou de l'écriture
+     * @throws IllegalArgumentException Si aucun aventurier de la trajectoire ne porte ce nom
+     */
+    public Path exportPath(Path trajectoryPath, String name) throws IOException {
+        try (TrajectoryReader reader = TrajectoryReader.open(trajectoryPath)) {
+            int id = reader.findAdventurer(name);
+            if (id < 0) {
+                throw new IllegalArgumentException("Aucun aventurier ne se nomme " + name + " dans la trajectoire");
+            }
+            Path pathFilePath = trajectoryPath.resolveSibling(FilenameUtils.getBaseName(String.valueOf(trajectoryPath.getFileName())) + "_" + getPathFileName(name) + PATH_EXTENSION);
+            try (BufferedWriter writer = Files.newBufferedWriter(pathFilePath)) {
+                reader.readPath(id, (turn, posX, posY, orientation, nbTreasure) -> {
+                    try {
+                        writer.write(turn + PATH_SEPARATOR + posX + PATH_SEPARATOR + posY + PATH_SEPARATOR + orientation.name() + PATH_SEPARATOR + nbTreasure);
+                        writer.newLine();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return pathFilePath;
+        }
+    }
+
+    /**
+     * @return Le nom de l'aventurier utilisable dans un nom de fichier, sans séparateur de répertoire ni point
+     */
+    private static String getPathFileName(String name) {
+        return name.replaceAll("[^\\p{L}\\p{N}_-]", "_");
+    }
+}
@@ -0,0 +1,63 @@
+package fr.exercice.treasuremap.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Méthodes communes aux services qui écrivent les fichiers d'une partie (fichier de sortie, sauvegardes, état final, cache des résultats) :
+ * <li>L'écriture atomique, à travers un fichier temporaire du même répertoire renommé une fois complet : un fichier à moitié écrit n'est jamais lu</li>
+ * <li>L'empreinte SHA-256, utilisée pour nommer et reconnaître ces fichiers</li>
+ */
+@Slf4j
+public final class WorkingFileUtils {
+
+    private WorkingFileUtils() {
+    }
+
+    /**
+     * Écrit le fichier dans un fichier temporaire de son répertoire, propre au processus et à l'écriture, puis le renomme de façon atomique.
+     * Si le système de fichiers ne le permet pas, le fichier est renommé sans garantie d'atomicité.
+     * Le fichier temporaire est toujours supprimé, même après une erreur.
+     *
+     * @param target  Le fichier à écrire, remplacé s'il existe déjà
+     * @param writing L'écriture du contenu dans le fichier temporaire, à créer par elle
+     * @throws IOException Si une erreur I/O se produit lors de l'écriture ou du renommage
+     */
+    public static void writeAtomically(Path target, TempFileWriting writing) throws IOException {
+        Path tempFilePath = target.resolveSibling("." + target.getFileName() + "." + ProcessHandle.current().pid() + "." + System.nanoTime() + ".tmp");
+        try {
+            writing.writeTo(tempFilePath);
+            try {
+                Files.move(tempFilePath, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                log.warn("Le système de fichiers ne permet pas de renommer {} de façon atomique : {}", target, e.getMessage());
+                Files.move(tempFilePath, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFilePath);
+        }
+    }
+
+    /**
+     * @return Un nouveau calcul d'empreinte SHA-256
+     */
+    public static MessageDigest newSha256Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("L'algorithme SHA-256 n'est pas disponible", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface TempFileWriting {
+        void writeTo(Path tempFilePath) throws IOException;
+    }
+}
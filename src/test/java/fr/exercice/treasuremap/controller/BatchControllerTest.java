@@ -0,0 +1,120 @@
+package fr.exercice.treasuremap.controller;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.BatchSummary;
+import fr.exercice.treasuremap.service.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchControllerTest {
+
+    private static final Path TEST_FILES_DIR = Paths.get("", "src", "test", "java", "resources", "testFiles");
+    private static final List<String> WORKING_GAMES = List.of("game1", "game2", "game3", "game4");
+    private static final String NOT_WORKING_GAME = "game5_notWorking_becauseNotEmptyCell";
+
+    private final InputFileService inputFileService = new InputFileService();
+    private final TreasureMapProperties properties = new TreasureMapProperties();
+    private final InputValidationService inputValidationService = new InputValidationService(properties);
+    private final GameAssetsCreatorService gameAssetsCreatorService = new GameAssetsCreatorService();
+    private GameEventService gameEventService;
+    private TrajectoryService trajectoryService;
+    private GameController gameController;
+    private BatchController batchController;
+
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        gameEventService = new GameEventService(properties);
+        GameMetricsService gameMetricsService = new GameMetricsService(properties);
+        MoveAdventurerService moveAdventurerService = new MoveAdventurerService(gameEventService, gameMetricsService);
+        CheckpointService checkpointService = new CheckpointService(properties);
+        trajectoryService = new TrajectoryService(properties);
+        BinaryInputFileService binaryInputFileService = new BinaryInputFileService(inputFileService, inputValidationService, gameAssetsCreatorService);
+        GameReaderService gameReaderService = new GameReaderService(inputFileService, inputValidationService, gameAssetsCreatorService,
+                new MappedInputParserService(inputFileService, inputValidationService, gameAssetsCreatorService), binaryInputFileService, properties);
+        GameSimulationService gameSimulationService = new GameSimulationService(properties, gameEventService, moveAdventurerService,
+                new ParallelTurnService(moveAdventurerService, gameEventService, gameMetricsService), checkpointService, trajectoryService);
+        gameController = new GameController(inputFileService, gameReaderService, gameSimulationService, new OutputFileService(), gameEventService, checkpointService,
+                binaryInputFileService, gameMetricsService, trajectoryService, new ResultCacheService(properties, new OutputFileService()),
+                new IncrementalSimulationService(properties), new InputFileValidationService(inputFileService, inputValidationService, gameAssetsCreatorService));
+        batchController = new BatchController(inputFileService, gameController, properties);
+        for (String game : WORKING_GAMES) {
+            Files.copy(TEST_FILES_DIR.resolve(game + ".txt"), tempDir.resolve(game + ".txt"));
+        }
+        Files.copy(TEST_FILES_DIR.resolve(NOT_WORKING_GAME + ".txt"), tempDir.resolve(NOT_WORKING_GAME + ".txt"));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gameEventService.destroy();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void playBatch_shouldPlayEveryGameOfTheDirectory_ok(boolean virtualThreads) throws IOException {
+        properties.getBatch().setParallelism(2);
+        properties.getBatch().setVirtualThreads(virtualThreads);
+
+        BatchSummary summary = batchController.playBatch(tempDir.toString());
+
+        assertEquals(5, summary.nbGames());
+        assertEquals(4, summary.nbSuccesses());
+        assertEquals(List.of(tempDir.resolve(NOT_WORKING_GAME + ".txt")), summary.failures());
+        for (String game : WORKING_GAMES) {
+            assertEquals(-1L, Files.mismatch(tempDir.resolve(game + "_result.txt"), TEST_FILES_DIR.resolve(game + "_result_compare.txt")),
+                    "Le résultat de " + game + " est incorrect");
+        }
+        assertFalse(Files.exists(tempDir.resolve(NOT_WORKING_GAME + "_result.txt")));
+    }
+
+    @Test
+    void playBatch_withGlob_shouldPlayOnlyMatchingGames_ok() {
+        BatchSummary summary = batchController.playBatch(tempDir + "/game[12].txt");
+
+        assertEquals(2, summary.nbSuccesses());
+        assertTrue(summary.failures().isEmpty());
+        assertTrue(Files.exists(tempDir.resolve("game1_result.txt")));
+        assertFalse(Files.exists(tempDir.resolve("game3_result.txt")));
+    }
+
+    /**
+     * Les trajectoires enregistrées et extraites pendant un premier batch sont rangées à côté des fichiers d'entrée :
+     * le batch suivant sur le même répertoire ne doit jouer que les parties.
+     */
+    @Test
+    void playBatch_afterATrajectoryExport_shouldOnlyPlayTheGames_ok() throws IOException {
+        properties.getTrajectory().setEnabled(true);
+        batchController.playBatch(tempDir.toString());
+        Path trajectoryPath = trajectoryService.getTrajectoryPath(tempDir.resolve("game1.txt"));
+        assertTrue(gameController.exportTrajectory(trajectoryPath, "Lara"));
+
+        BatchSummary summary = batchController.playBatch(tempDir.toString());
+        BatchSummary globSummary = batchController.playBatch(tempDir + "/*.txt");
+
+        assertEquals(5, summary.nbGames());
+        assertEquals(List.of(tempDir.resolve(NOT_WORKING_GAME + ".txt")), summary.failures());
+        assertEquals(5, globSummary.nbGames());
+        assertEquals(List.of(tempDir.resolve(NOT_WORKING_GAME + ".txt")), globSummary.failures());
+    }
+
+    @Test
+    void playBatch_whenDirectoryDoesNotExist_returnsEmptySummary() {
+        BatchSummary summary = batchController.playBatch(tempDir.resolve("inconnu").toString());
+
+        assertEquals(0, summary.nbGames());
+    }
+}
@@ -1,5 +1,7 @@
 package fr.exercice.treasuremap.controller;
 
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.CheckpointSession;
 import fr.exercice.treasuremap.model.Game;
 import fr.exercice.treasuremap.service.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,9 +10,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,23 +36,81 @@ class GameControllerTest {
     @Mock
     private OutputFileService outputFileServiceMock;
 
+    @Mock
+    private MappedInputParserService mappedInputParserServiceMock;
+
+    @Mock
+    private GameEventService gameEventServiceMock;
+
+    @Mock
+    private ParallelTurnService parallelTurnServiceMock;
+
+    @Mock
+    private CheckpointService checkpointServiceMock;
+
+    @Mock
+    private BinaryInputFileService binaryInputFileServiceMock;
+
+    @Mock
+    private TrajectoryService trajectoryServiceMock;
+
+    @Mock
+    private ResultCacheService resultCacheServiceMock;
+
+    @Mock
+    private IncrementalSimulationService incrementalSimulationServiceMock;
+    @Mock
+    private InputFileValidationService inputFileValidationServiceMock;
+
     private GameController gameController;
 
     @BeforeEach
     void setUp() {
-        gameController = new GameController(inputFileServiceMock, inputValidationServiceMock, gameAssetsCreatorServiceMock, moveAdventurerServiceMock, outputFileServiceMock);
+        TreasureMapProperties properties = new TreasureMapProperties();
+        GameReaderService gameReaderService = new GameReaderService(inputFileServiceMock, inputValidationServiceMock, gameAssetsCreatorServiceMock,
+                mappedInputParserServiceMock, binaryInputFileServiceMock, properties);
+        GameSimulationService gameSimulationService = new GameSimulationService(properties, gameEventServiceMock, moveAdventurerServiceMock,
+                parallelTurnServiceMock, checkpointServiceMock, trajectoryServiceMock);
+        gameController = new GameController(inputFileServiceMock, gameReaderService, gameSimulationService, outputFileServiceMock, gameEventServiceMock,
+                checkpointServiceMock, binaryInputFileServiceMock, new GameMetricsService(properties), trajectoryServiceMock,
+                resultCacheServiceMock, incrementalSimulationServiceMock, inputFileValidationServiceMock);
     }
 
     @Test
     void playGame_ok() throws IOException {
         when(inputFileServiceMock.getAndCheckInputFilePath()).thenReturn("testInputFilePath");
-        when(inputFileServiceMock.readFile(anyString())).thenReturn(new ArrayList<>());
+        when(inputFileServiceMock.openFile(anyString())).thenReturn(new BufferedReader(new StringReader("")));
+        CheckpointSession checkpointSession = new CheckpointSession(new Path[0], 0, 0, 0, 0, 0);
+        when(checkpointServiceMock.startSession(any(), any(Game.class), any())).thenReturn(checkpointSession);
 
         gameController.playGame();
 
         verify(inputFileServiceMock, times(1)).getAndCheckInputFilePath();
-        verify(inputFileServiceMock, times(1)).readFile(anyString());
-        verify(inputValidationServiceMock, times(1)).doFirstChecks(anyList());
+        verify(inputFileServiceMock, times(1)).openFile(anyString());
+        verify(inputValidationServiceMock, times(1)).checkFirstLines(null, null);
         verify(outputFileServiceMock, times(1)).writeOutputFile(any(Game.class), any());
+        verify(checkpointServiceMock, times(1)).deleteCheckpoints(checkpointSession);
+        verifyNoInteractions(mappedInputParserServiceMock);
+    }
+
+    @Test
+    void playGame_withInputFilePath_returnsFalseWhenFileIsInvalid() throws IOException {
+        when(inputFileServiceMock.checkInputFilePath("game.txt")).thenReturn("game.txt");
+        when(inputFileServiceMock.openFile(anyString())).thenReturn(new BufferedReader(new StringReader("")));
+        doThrow(new IllegalStateException("Le fichier est vide")).when(inputValidationServiceMock).checkFirstLines(null, null);
+
+        assertFalse(gameController.playGame(Paths.get("game.txt")));
+
+        verify(inputFileServiceMock, never()).getAndCheckInputFilePath();
+        verifyNoInteractions(outputFileServiceMock);
+    }
+
+    @Test
+    void playGame_withInputFilePath_returnsFalseWhenExtensionIsNotTxt() {
+        when(inputFileServiceMock.checkInputFilePath("game.pdf")).thenThrow(new IllegalArgumentException("L'extension du fichier doit être '.txt' ou '.tmb', veuillez réessayer."));
+
+        assertFalse(gameController.playGame(Paths.get("game.pdf")));
+
+        verifyNoInteractions(inputValidationServiceMock, outputFileServiceMock);
     }
 }
@@ -1,23 +1,38 @@
 package fr.exercice.treasuremap.controller;
 
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.Game;
 import fr.exercice.treasuremap.service.*;
 import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -28,15 +43,32 @@ class GameControllerTestIT {
     @Mock
     private InputFileService inputFileServiceMock;
 
-    private final InputValidationService inputValidationService = new InputValidationService();
+    private final TreasureMapProperties properties = new TreasureMapProperties();
+    private final InputValidationService inputValidationService = new InputValidationService(properties);
     private final GameAssetsCreatorService gameAssetsCreatorService = new GameAssetsCreatorService();
-    private final MoveAdventurerService moveAdventurerService = new MoveAdventurerService();
     private final OutputFileService outputFileService = new OutputFileService();
+    private final MappedInputParserService mappedInputParserService = new MappedInputParserService(new InputFileService(), inputValidationService, gameAssetsCreatorService);
+    private final BinaryInputFileService binaryInputFileService = new BinaryInputFileService(new InputFileService(), inputValidationService, gameAssetsCreatorService);
+    private final GameMetricsService gameMetricsService = new GameMetricsService(properties);
+    private final TrajectoryService trajectoryService = new TrajectoryService(properties);
+    private final ResultCacheService resultCacheService = new ResultCacheService(properties, outputFileService);
+    private final IncrementalSimulationService incrementalSimulationService = new IncrementalSimulationService(properties);
+    private final InputFileValidationService inputFileValidationService = new InputFileValidationService(new InputFileService(), inputValidationService, gameAssetsCreatorService);
+    private GameEventService gameEventService;
     private GameController gameController;
 
+    @TempDir
+    private Path tempDir;
+
     @BeforeEach
     void setUp() {
-        gameController = new GameController(inputFileServiceMock, inputValidationService, gameAssetsCreatorService, moveAdventurerService, outputFileService);
+        gameEventService = new GameEventService(properties);
+        gameController = createGameController(outputFileService, new CheckpointService(properties), resultCacheService);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gameEventService.destroy();
     }
 
     @ParameterizedTest
@@ -53,7 +85,7 @@ class GameControllerTestIT {
 
 
         when(inputFileServiceMock.getAndCheckInputFilePath()).thenReturn(filepath);
-        when(inputFileServiceMock.readFile(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.openFile(anyString())).thenCallRealMethod();
         when(inputFileServiceMock.getCleanSplitElements(anyString())).thenCallRealMethod();
 
         gameController.playGame();
@@ -64,5 +96,295 @@ class GameControllerTestIT {
 
         assertTrue(IOUtils.contentEquals(new FileInputStream(resultFilePath.toFile()), new FileInputStream(resultCompareFilePath.toFile())));
     }
-}
 
+    @ParameterizedTest
+    @CsvSource({("game1.txt, game1_result.txt, game1_result_compare.txt"),
+            ("game2.txt, game2_result.txt, game2_result_compare.txt"),
+            ("game2_shuffled.txt, game2_shuffled_result.txt, game2_result_compare.txt"),
+            ("game3.txt, game3_result.txt, game3_result_compare.txt"),
+            ("game4.txt, game4_result.txt, game4_result_compare.txt")})
+    void playGame_withMappedParsing_shouldResultFileBeTheSame_ok(String testGamefileName, String expectedResultFileName, String compareResultFile) throws IOException {
+        String testDir = Paths.get("", "src", "test", "java", "resources", "testFiles").toAbsolutePath().toString();
+        String filepath = Paths.get(testDir, testGamefileName).toAbsolutePath().toString();
+        Path resultFilePath = Paths.get(testDir, expectedResultFileName).toAbsolutePath();
+        Path resultCompareFilePath = Paths.get(testDir, compareResultFile).toAbsolutePath();
+
+
+        when(inputFileServiceMock.getAndCheckInputFilePath()).thenReturn(filepath);
+        Files.deleteIfExists(resultFilePath);
+        properties.getInput().setMappedParsing(true);
+        properties.getInput().setMappedParsingMinSize(DataSize.ofBytes(0));
+
+        gameController.playGame();
+
+        try (Stream<Path> fileList = Files.list(Paths.get(filepath).getParent())) {
+            assertTrue(fileList.anyMatch(file -> Files.exists(resultFilePath)));
+        }
+
+        assertTrue(IOUtils.contentEquals(new FileInputStream(resultFilePath.toFile()), new FileInputStream(resultCompareFilePath.toFile())));
+    }
+
+    @ParameterizedTest
+    @CsvSource({("game1, game1_result_compare.txt"),
+            ("game2, game2_result_compare.txt"),
+            ("game3, game3_result_compare.txt"),
+            ("game4, game4_result_compare.txt")})
+    void playGame_withBinaryInputFile_shouldResultFileBeTheSame_ok(String testGame, String compareResultFile) throws IOException {
+        Path testFile = Paths.get("", "src", "test", "java", "resources", "testFiles", testGame + ".txt").toAbsolutePath();
+        Path binaryFilePath = tempDir.resolve(testGame + ".tmb");
+        Path convertedFilePath = tempDir.resolve(testGame + "_converted.txt");
+        Path reconvertedFilePath = tempDir.resolve(testGame + "_reconverted.tmb");
+        when(inputFileServiceMock.checkInputFilePath(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.openFile(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.getCleanSplitElements(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.getAndCheckInputFilePath()).thenReturn(binaryFilePath.toString());
+
+        assertTrue(gameController.convertInputFile(testFile, binaryFilePath));
+        assertTrue(gameController.convertInputFile(binaryFilePath, convertedFilePath));
+        assertTrue(gameController.convertInputFile(convertedFilePath, reconvertedFilePath));
+        assertTrue(gameController.playGame());
+
+        assertEquals(-1L, Files.mismatch(binaryFilePath, reconvertedFilePath), "La conversion au format texte doit décrire le même jeu");
+        assertEquals(-1L, Files.mismatch(tempDir.resolve(testGame + "_result.txt"), testFile.resolveSibling(compareResultFile)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"game1", "game2", "game3", "game4"})
+    void playGame_withoutInputFile_shouldResultBeTheSameAsTheResultFile_ok(String testGame) throws IOException {
+        Path testFile = Paths.get("", "src", "test", "java", "resources", "testFiles", testGame + ".txt").toAbsolutePath();
+        Path binaryFilePath = tempDir.resolve(testGame + ".tmb");
+        when(inputFileServiceMock.checkInputFilePath(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.openFile(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.getCleanSplitElements(anyString())).thenCallRealMethod();
+        assertTrue(gameController.convertInputFile(testFile, binaryFilePath));
+
+        byte[] textResult = gameController.playGame(testGame, Files.readAllBytes(testFile));
+        byte[] binaryResult = gameController.playGame(testGame, Files.readAllBytes(binaryFilePath));
+
+        assertArrayEquals(Files.readAllBytes(testFile.resolveSibling(testGame + "_result_compare.txt")), textResult);
+        assertArrayEquals(textResult, binaryResult);
+        assertFalse(Files.exists(tempDir.resolve(testGame + "_result.txt")), "Une partie sans fichier d'entrée n'écrit pas de fichier de sortie");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"game1", "game2", "game3", "game4"})
+    void validateInputFile_withAValidFile_shouldNotWriteAReport_ok(String testGame) throws IOException {
+        Path inputFilePath = Files.copy(Paths.get("", "src", "test", "java", "resources", "testFiles", testGame + ".txt"), tempDir.resolve(testGame + ".txt"));
+        when(inputFileServiceMock.checkInputFilePath(anyString())).thenCallRealMethod();
+
+        assertTrue(gameController.validateInputFile(inputFilePath));
+
+        assertFalse(Files.exists(tempDir.resolve(testGame + "_errors.log")));
+    }
+
+    @Test
+    void validateInputFile_withErrors_shouldWriteThemAllInTheReport_ko() throws IOException {
+        Path inputFilePath = Files.copy(Paths.get("", "src", "test", "java", "resources", "testFiles", "game5_notWorking_becauseNotEmptyCell.txt"),
+                tempDir.resolve("game5.txt"));
+        Files.writeString(inputFilePath, Files.readString(inputFilePath).replace("T - 12 - 34 - 1", "T - 12 - 60 - 1"));
+        when(inputFileServiceMock.checkInputFilePath(anyString())).thenCallRealMethod();
+
+        assertFalse(gameController.validateInputFile(inputFilePath));
+
+        List<String> errors = Files.readAllLines(tempDir.resolve("game5_errors.log"));
+        assertEquals(2, errors.size());
+        assertThat(errors.getFirst()).startsWith("Ligne 5 : ");
+        assertEquals("Ligne 7 : Il existe déjà un aventurier à la position 1 - 1", errors.get(1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void playGame_withTrajectory_shouldTheLastStateOfThePathBeTheResult_ok(boolean parallelTurns) throws IOException {
+        Path testFile = Paths.get("", "src", "test", "java", "resources", "testFiles", "game1.txt").toAbsolutePath();
+        Path inputFilePath = Files.copy(testFile, tempDir.resolve("game1.txt"));
+        when(inputFileServiceMock.getAndCheckInputFilePath()).thenReturn(inputFilePath.toString());
+        when(inputFileServiceMock.openFile(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.getCleanSplitElements(anyString())).thenCallRealMethod();
+        properties.getTrajectory().setEnabled(true);
+        properties.getSimulation().setParallelTurns(parallelTurns);
+        properties.getSimulation().setParallelTurnsMinAdventurers(1);
+
+        assertTrue(gameController.playGame());
+        assertTrue(gameController.exportTrajectory(tempDir.resolve(InputFileService.getGameFileName(inputFilePath) + "_trajectory.tmt"), "Lara"));
+        assertFalse(gameController.exportTrajectory(tempDir.resolve(InputFileService.getGameFileName(inputFilePath) + "_trajectory.tmt"), "Indiana"));
+
+        List<String> path = Files.readAllLines(tempDir.resolve(InputFileService.getGameFileName(inputFilePath) + "_trajectory_Lara.csv"));
+        assertEquals("0,1,1,S,0", path.getFirst());
+        assertEquals("10,0,3,S,3", path.getLast());
+    }
+
+    /**
+     * La seconde partie est une copie renommée de la première : son résultat est repris du cache sans relire ni simuler le fichier.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void playGame_withCache_shouldTheSameInputFileNotBeSimulatedTwice_ok(boolean restarted) throws IOException {
+        Path testDir = Paths.get("", "src", "test", "java", "resources", "testFiles").toAbsolutePath();
+        Path inputFilePath = Files.copy(testDir.resolve("game2.txt"), tempDir.resolve("game2.txt"));
+        Path copyFilePath = Files.copy(testDir.resolve("game2.txt"), tempDir.resolve("game2_copy.txt"));
+        when(inputFileServiceMock.getAndCheckInputFilePath()).thenReturn(inputFilePath.toString(), copyFilePath.toString());
+        when(inputFileServiceMock.openFile(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.getCleanSplitElements(anyString())).thenCallRealMethod();
+        properties.getCache().setEnabled(true);
+        properties.getCache().setDirectory(tempDir.resolve("cache").toString());
+
+        assertTrue(gameController.playGame());
+        if (restarted) {
+            // Un nouveau service n'a plus que le cache sur disque
+            gameController = createGameController(outputFileService, new CheckpointService(properties), new ResultCacheService(properties, outputFileService));
+        }
+        assertTrue(gameController.playGame());
+
+        verify(inputFileServiceMock, times(1)).openFile(anyString());
+        assertEquals(-1L, Files.mismatch(tempDir.resolve("game2_copy_result.txt"), testDir.resolve("game2_result_compare.txt")));
+    }
+
+    /**
+     * Une carte plus grande que la taille maximale est acceptée avec la carte creuse : son résultat gardé dans le cache
+     * ne doit pas être repris lorsque la même partie est rejouée sans la carte creuse, qui la refuse.
+     */
+    @Test
+    void playGame_withCache_whenTheSparseMapIsDisabledAfterAGame_shouldRefuseTheTooBigMap_ko() throws IOException {
+        Path inputFilePath = tempDir.resolve("huge_game.txt");
+        Files.writeString(inputFilePath, "C - 1000000 - 1000000\nA - Lara - 1000000 - 0 - S - AAAAAA\n");
+        when(inputFileServiceMock.getAndCheckInputFilePath()).thenReturn(inputFilePath.toString());
+        when(inputFileServiceMock.openFile(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.getCleanSplitElements(anyString())).thenCallRealMethod();
+        properties.getCache().setEnabled(true);
+        properties.getCache().setDirectory(tempDir.resolve("cache").toString());
+        properties.getSimulation().setSparseMap(true);
+
+        assertTrue(gameController.playGame());
+        Files.delete(tempDir.resolve("huge_game_result.txt"));
+        properties.getSimulation().setSparseMap(false);
+
+        assertFalse(gameController.playGame(), "La carte dépasse la taille maximale sans la carte creuse");
+        assertFalse(Files.exists(tempDir.resolve("huge_game_result.txt")));
+        properties.getSimulation().setSparseMap(true);
+        assertTrue(gameController.playGame());
+        verify(inputFileServiceMock, times(2)).openFile(anyString());
+    }
+
+    /**
+     * La partie est rejouée avec des mouvements allongés : reprise à l'état final de la première partie ou rejouée depuis le premier tour,
+     * son résultat doit être celui de la même partie jouée depuis le premier tour sans état final.
+     */
+    @ParameterizedTest
+    @CsvSource({("AAADAAAAADAGGGGDAG, AADADA, AAADADAGGA"),
+            ("AAADAAAA, AADADA, AAADADAGDDDA"),
+            ("AAADAAAAA, AADADAA, AAADADAG"),
+            ("AAADAAAD, AADADA, AAADADAGA")})
+    void playGame_withIncrementalSimulation_shouldResultFileBeTheSameAsAFullGame_ok(String mississippiMoves, String ohioMoves, String illinoisMoves) throws IOException {
+        Path inputFilePath = tempDir.resolve("game.txt");
+        Path fullGameFilePath = tempDir.resolve("full_game.txt");
+        when(inputFileServiceMock.getAndCheckInputFilePath()).thenReturn(inputFilePath.toString(), inputFilePath.toString(), fullGameFilePath.toString());
+        when(inputFileServiceMock.openFile(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.getCleanSplitElements(anyString())).thenCallRealMethod();
+        properties.getIncremental().setEnabled(true);
+
+        Files.writeString(inputFilePath, generateRiverGame("AAADAAAA", "AADADA", "AAADADAG"));
+        assertTrue(gameController.playGame());
+        Files.writeString(inputFilePath, generateRiverGame(mississippiMoves, ohioMoves, illinoisMoves));
+        assertTrue(gameController.playGame());
+        Files.writeString(fullGameFilePath, generateRiverGame(mississippiMoves, ohioMoves, illinoisMoves));
+        assertTrue(gameController.playGame());
+
+        assertEquals(Files.readString(tempDir.resolve("full_game_result.txt")), Files.readString(tempDir.resolve("game_result.txt")));
+    }
+
+    private static String generateRiverGame(String mississippiMoves, String ohioMoves, String illinoisMoves) {
+        return "C - 9 - 6\nM - 2 - 2\nT - 0 - 5 - 2\nT - 6 - 1 - 1\nT - 8 - 2 - 3\n"
+                + "A - Mississippi - 1 - 1 - S - " + mississippiMoves + "\n"
+                + "A - Ohio - 7 - 3 - E - " + ohioMoves + "\n"
+                + "A - Illinois - 3 - 3 - N - " + illinoisMoves + "\n";
+    }
+
+    /**
+     * Avec la carte creuse, les tours en parallèle demandés sont joués un par un : le résultat ne change pas.
+     */
+    @ParameterizedTest
+    @CsvSource({("game1, false"),
+            ("game2, true"),
+            ("game3, false"),
+            ("game4, true")})
+    void playGame_withSparseMap_shouldResultFileBeTheSame_ok(String testGame, boolean parallelTurns) throws IOException {
+        Path testDir = Paths.get("", "src", "test", "java", "resources", "testFiles").toAbsolutePath();
+        Path inputFilePath = Files.copy(testDir.resolve(testGame + ".txt"), tempDir.resolve(testGame + ".txt"));
+        when(inputFileServiceMock.getAndCheckInputFilePath()).thenReturn(inputFilePath.toString());
+        when(inputFileServiceMock.openFile(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.getCleanSplitElements(anyString())).thenCallRealMethod();
+        properties.getSimulation().setSparseMap(true);
+        properties.getSimulation().setParallelTurns(parallelTurns);
+        properties.getSimulation().setParallelTurnsMinAdventurers(1);
+
+        assertTrue(gameController.playGame());
+
+        assertEquals(-1L, Files.mismatch(tempDir.resolve(testGame + "_result.txt"), testDir.resolve(testGame + "_result_compare.txt")));
+    }
+
+    @Test
+    void playGame_withSparseMap_whenTheMapIsBiggerThanTheMaximumSize_ok() throws IOException {
+        Path inputFilePath = tempDir.resolve("huge_game.txt");
+        Files.writeString(inputFilePath, "C - 1000000 - 1000000\nM - 999999 - 5\nT - 1000000 - 4 - 1\n"
+                + "A - Lara - 1000000 - 0 - S - AAAAAA\nA - Indiana - 999999 - 0 - S - AAAAA\n");
+        when(inputFileServiceMock.getAndCheckInputFilePath()).thenReturn(inputFilePath.toString());
+        when(inputFileServiceMock.openFile(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.getCleanSplitElements(anyString())).thenCallRealMethod();
+
+        assertFalse(gameController.playGame(), "La carte dépasse la taille maximale sans la carte creuse");
+        properties.getSimulation().setSparseMap(true);
+        assertTrue(gameController.playGame());
+
+        assertThat(Files.readAllLines(tempDir.resolve("huge_game_result.txt")))
+                .contains("A - Lara - 1000000 - 6 - S - 1", "A - Indiana - 999999 - 4 - S - 0");
+    }
+
+    /**
+     * La première partie est interrompue juste avant l'écriture de son fichier de sortie, après plusieurs sauvegardes.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void playGame_whenResumedFromCheckpoint_shouldResultFileBeTheSame_ok(boolean corruptLatestCheckpoint) throws IOException {
+        Path testFile = Paths.get("", "src", "test", "java", "resources", "testFiles", "game4.txt").toAbsolutePath();
+        Path inputFilePath = Files.copy(testFile, tempDir.resolve("game4.txt"));
+        Path resultFilePath = tempDir.resolve("game4_result.txt");
+        Path resultCompareFilePath = testFile.resolveSibling("game4_result_compare.txt");
+        when(inputFileServiceMock.getAndCheckInputFilePath()).thenReturn(inputFilePath.toString());
+        when(inputFileServiceMock.openFile(anyString())).thenCallRealMethod();
+        when(inputFileServiceMock.getCleanSplitElements(anyString())).thenCallRealMethod();
+        properties.getCheckpoint().setEveryTurns(3);
+        OutputFileService interruptedOutputFileService = new OutputFileService() {
+            @Override
+            public void writeOutputFile(Game game, Path inputFilePath) throws IOException {
+                throw new IOException("Arrêt de la partie");
+            }
+        };
+        CheckpointService checkpointService = new CheckpointService(properties);
+        GameController interruptedGameController = createGameController(interruptedOutputFileService, checkpointService, resultCacheService);
+
+        assertFalse(interruptedGameController.playGame());
+        Path[] checkpointPaths = checkpointService.getCheckpointPaths(inputFilePath);
+        assertTrue(Files.exists(checkpointPaths[0]) && Files.exists(checkpointPaths[1]), "Les deux sauvegardes doivent avoir été écrites");
+        if (corruptLatestCheckpoint) {
+            // Le tour sauvegardé suit l'en-tête, la version et l'empreinte du fichier d'entrée
+            Path latestCheckpointPath = ByteBuffer.wrap(Files.readAllBytes(checkpointPaths[0])).getInt(16) > ByteBuffer.wrap(Files.readAllBytes(checkpointPaths[1])).getInt(16)
+                    ? checkpointPaths[0] : checkpointPaths[1];
+            Files.write(latestCheckpointPath, new byte[]{1, 2, 3});
+        }
+        properties.getCheckpoint().setResume(true);
+        gameController.playGame();
+
+        assertTrue(IOUtils.contentEquals(new FileInputStream(resultFilePath.toFile()), new FileInputStream(resultCompareFilePath.toFile())));
+        assertFalse(Files.exists(checkpointPaths[0]) || Files.exists(checkpointPaths[1]), "Les sauvegardes doivent être supprimées à la fin de la partie");
+    }
+
+    private GameController createGameController(OutputFileService outputFileService, CheckpointService checkpointService, ResultCacheService resultCacheService) {
+        MoveAdventurerService moveAdventurerService = new MoveAdventurerService(gameEventService, gameMetricsService);
+        GameReaderService gameReaderService = new GameReaderService(inputFileServiceMock, inputValidationService, gameAssetsCreatorService,
+                mappedInputParserService, binaryInputFileService, properties);
+        GameSimulationService gameSimulationService = new GameSimulationService(properties, gameEventService, moveAdventurerService,
+                new ParallelTurnService(moveAdventurerService, gameEventService, gameMetricsService), checkpointService, trajectoryService);
+        return new GameController(inputFileServiceMock, gameReaderService, gameSimulationService, outputFileService, gameEventService, checkpointService,
+                binaryInputFileService, gameMetricsService, trajectoryService, resultCacheService, incrementalSimulationService, inputFileValidationService);
+    }
+}
@@ -0,0 +1,177 @@
+package fr.exercice.treasuremap.controller;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.service.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ServerControllerTest {
+
+    private static final Path TEST_FILES_DIR = Paths.get("", "src", "test", "java", "resources", "testFiles");
+
+    private final InputFileService inputFileService = new InputFileService();
+    private final TreasureMapProperties properties = new TreasureMapProperties();
+    private final InputValidationService inputValidationService = new InputValidationService(properties);
+    private final GameAssetsCreatorService gameAssetsCreatorService = new GameAssetsCreatorService();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private GameEventService gameEventService;
+    private GameController gameController;
+    private ServerController serverController;
+
+    @BeforeEach
+    void setUp() {
+        properties.getServer().setPort(0);
+        gameEventService = new GameEventService(properties);
+        GameMetricsService gameMetricsService = new GameMetricsService(properties);
+        MoveAdventurerService moveAdventurerService = new MoveAdventurerService(gameEventService, gameMetricsService);
+        CheckpointService checkpointService = new CheckpointService(properties);
+        TrajectoryService trajectoryService = new TrajectoryService(properties);
+        BinaryInputFileService binaryInputFileService = new BinaryInputFileService(inputFileService, inputValidationService, gameAssetsCreatorService);
+        GameReaderService gameReaderService = new GameReaderService(inputFileService, inputValidationService, gameAssetsCreatorService,
+                new MappedInputParserService(inputFileService, inputValidationService, gameAssetsCreatorService), binaryInputFileService, properties);
+        GameSimulationService gameSimulationService = new GameSimulationService(properties, gameEventService, moveAdventurerService,
+                new ParallelTurnService(moveAdventurerService, gameEventService, gameMetricsService), checkpointService, trajectoryService);
+        gameController = new GameController(inputFileService, gameReaderService, gameSimulationService, new OutputFileService(), gameEventService, checkpointService,
+                binaryInputFileService, gameMetricsService, trajectoryService, new ResultCacheService(properties, new OutputFileService()),
+                new IncrementalSimulationService(properties), new InputFileValidationService(inputFileService, inputValidationService, gameAssetsCreatorService));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (serverController != null) {
+            serverController.destroy();
+        }
+        gameEventService.destroy();
+    }
+
+    /**
+     * Les parties envoyées en même temps ont chacune leur propre état : chaque réponse est le résultat de sa propre partie.
+     */
+    @Test
+    void postGame_whenGamesAreSentTogether_shouldEachResponseBeTheResultOfItsGame_ok() throws IOException {
+        properties.getServer().setThreads(4);
+        startServer(gameController);
+        List<String> games = List.of("game1", "game2", "game3", "game4");
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            for (String game : games) {
+                responses.add(postGameAsync(Files.readAllBytes(TEST_FILES_DIR.resolve(game + ".txt"))));
+            }
+        }
+
+        for (int i = 0; i < responses.size(); i++) {
+            HttpResponse<String> response = responses.get(i).join();
+            assertEquals(200, response.statusCode());
+            assertEquals(Files.readString(TEST_FILES_DIR.resolve(games.get(i % games.size()) + "_result_compare.txt")), response.body());
+        }
+    }
+
+    @Test
+    void postGame_withAnInvalidInputFile_shouldRespondWithTheError_ko() throws IOException, InterruptedException {
+        startServer(gameController);
+
+        HttpResponse<String> response = postGame(Files.readAllBytes(TEST_FILES_DIR.resolve("game5_notWorking_becauseNotEmptyCell.txt")));
+
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().startsWith("Impossible de créer l'aventurier de la ligne A - Minnesota - 1 - 1 - E - GGADADDAAA"));
+    }
+
+    @Test
+    void getGame_shouldBeRefused_ko() throws IOException, InterruptedException {
+        startServer(gameController);
+
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(getGamesUri()).GET().build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(405, response.statusCode());
+        assertEquals("POST", response.headers().firstValue("Allow").orElseThrow());
+    }
+
+    @Test
+    void postGame_whenTheInputFileIsTooLarge_shouldBeRefused_ko() throws IOException, InterruptedException {
+        properties.getServer().setMaxRequestSize(DataSize.ofBytes(10));
+        startServer(gameController);
+
+        HttpResponse<String> response = postGame(Files.readAllBytes(TEST_FILES_DIR.resolve("game1.txt")));
+
+        assertEquals(413, response.statusCode());
+    }
+
+    /**
+     * Avec un seul thread et une seule place dans la file d'attente, une troisième partie envoyée pendant que la première est jouée est refusée.
+     * Selon l'ordre d'arrivée, c'est la deuxième ou la troisième partie qui est refusée, l'autre attend son tour.
+     * Tant que la file est pleine, une partie est refusée avant la lecture de son fichier d'entrée, même trop volumineux.
+     */
+    @Test
+    void postGame_whenTheQueueIsFull_shouldRefuseTheGameWith429_ko() throws IOException, InterruptedException {
+        properties.getServer().setThreads(1);
+        properties.getServer().setQueueCapacity(1);
+        properties.getServer().setMaxRequestSize(DataSize.ofBytes(10));
+        GameController blockingGameController = mock(GameController.class);
+        CountDownLatch gameStarted = new CountDownLatch(1);
+        CountDownLatch gameReleased = new CountDownLatch(1);
+        when(blockingGameController.playGame(anyString(), any())).thenAnswer(invocation -> {
+            gameStarted.countDown();
+            gameReleased.await();
+            return "C - 3 - 4".getBytes();
+        });
+        startServer(blockingGameController);
+
+        CompletableFuture<HttpResponse<String>> firstResponse = postGameAsync(new byte[]{1});
+        assertTrue(gameStarted.await(10, TimeUnit.SECONDS));
+        CompletableFuture<HttpResponse<String>> secondResponse = postGameAsync(new byte[]{2});
+        CompletableFuture<HttpResponse<String>> thirdResponse = postGameAsync(new byte[]{3});
+        HttpResponse<String> refusedResponse = secondResponse.applyToEither(thirdResponse, Function.identity()).join();
+        HttpResponse<String> tooLargeResponse = postGame(new byte[11]);
+        gameReleased.countDown();
+
+        assertEquals(429, refusedResponse.statusCode());
+        assertEquals("1", refusedResponse.headers().firstValue("Retry-After").orElseThrow());
+        assertEquals(429, tooLargeResponse.statusCode());
+        assertEquals(200, firstResponse.join().statusCode());
+        HttpResponse<String> queuedResponse = refusedResponse == secondResponse.join() ? thirdResponse.join() : secondResponse.join();
+        assertEquals(200, queuedResponse.statusCode());
+        assertEquals("C - 3 - 4", queuedResponse.body());
+    }
+
+    private void startServer(GameController controller) throws IOException {
+        serverController = new ServerController(controller, properties);
+        serverController.start();
+    }
+
+    private URI getGamesUri() {
+        return URI.create("http://127.0.0.1:" + serverController.getPort() + ServerController.GAMES_PATH);
+    }
+
+    private HttpResponse<String> postGame(byte[] inputContent) throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder(getGamesUri()).POST(HttpRequest.BodyPublishers.ofByteArray(inputContent)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private CompletableFuture<HttpResponse<String>> postGameAsync(byte[] inputContent) {
+        return httpClient.sendAsync(HttpRequest.newBuilder(getGamesUri()).POST(HttpRequest.BodyPublishers.ofByteArray(inputContent)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,77 @@
+package fr.exercice.treasuremap.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEventRingBufferTest {
+
+    @ParameterizedTest
+    @CsvSource({("1, 1"), ("3, 4"), ("4, 4"), ("65536, 65536"), ("65537, 131072")})
+    void constructor_shouldRoundCapacityToPowerOfTwo_ok(int minCapacity, int expectedCapacity) {
+        assertEquals(expectedCapacity, new GameEventRingBuffer(minCapacity).getCapacity());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1})
+    void constructor_whenCapacityIsNotPositive_throwsIllegalArgumentException(int minCapacity) {
+        assertThrows(IllegalArgumentException.class, () -> new GameEventRingBuffer(minCapacity));
+    }
+
+    @Test
+    void offer_whenBufferIsFull_refusesEventsUntilTheyAreRead() {
+        GameEventRingBuffer ringBuffer = new GameEventRingBuffer(4);
+        for (int turn = 0; turn < 4; turn++) {
+            assertTrue(ringBuffer.offer(GameEventType.TURN, "game1.txt", null, turn, 0, 0));
+        }
+
+        assertFalse(ringBuffer.offer(GameEventType.TURN, "game1.txt", null, 4, 0, 0));
+
+        List<Integer> turns = new ArrayList<>();
+        assertEquals(4, ringBuffer.drain((type, game, name, value1, value2, value3) -> turns.add(value1)));
+        assertEquals(List.of(0, 1, 2, 3), turns);
+        assertFalse(ringBuffer.hasPendingEvents());
+
+        assertTrue(ringBuffer.offer(GameEventType.NEW_POSITION, "game2.txt", "Lara", 1, 2, Orientation.S.ordinal()));
+        ringBuffer.drain((type, game, name, value1, value2, value3) -> {
+            assertEquals(GameEventType.NEW_POSITION, type);
+            assertEquals("game2.txt", game);
+            assertEquals("Lara", name);
+            assertEquals(Orientation.S, Orientation.getOrientationWithOrdinal(value3));
+        });
+    }
+
+    @Test
+    void offer_fromSeveralThreads_shouldKeepEveryEvent_ok() throws InterruptedException {
+        GameEventRingBuffer ringBuffer = new GameEventRingBuffer(1 << 16);
+        int nbThreads = 4;
+        int nbEventsPerThread = 10_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < nbThreads; t++) {
+            int threadIndex = t;
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < nbEventsPerThread; i++) {
+                    assertTrue(ringBuffer.offer(GameEventType.NEW_TREASURE, "game" + threadIndex, "Lara", threadIndex, i, 0));
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int[] lastEventOfThread = {-1, -1, -1, -1};
+        int nbEvents = ringBuffer.drain((type, game, name, value1, value2, value3) -> {
+            assertEquals("game" + value1, game);
+            assertEquals(lastEventOfThread[value1] + 1, value2, "Les événements d'un même thread doivent rester dans l'ordre");
+            lastEventOfThread[value1] = value2;
+        });
+
+        assertEquals(nbThreads * nbEventsPerThread, nbEvents);
+    }
+}
@@ -0,0 +1,73 @@
+package fr.exercice.treasuremap.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedMovesTest {
+
+    @Test
+    void compile_shouldGiveTheMoveOfEachTurnAcrossSeveralWords_ok() {
+        String moves = "AADADAGGA".repeat(8);
+
+        PackedMoves packedMoves = PackedMoves.compile(moves);
+
+        assertEquals(72, packedMoves.length());
+        for (int turn = 0; turn < moves.length(); turn++) {
+            assertEquals(Move.compile(moves.charAt(turn)), packedMoves.get(turn), "Mauvais mouvement au tour " + turn);
+        }
+        assertEquals(moves, packedMoves.toString());
+    }
+
+    @Test
+    void toString_shouldWriteEveryRotationThatIsNotRightAsLeft_ok() {
+        assertEquals("AGDGG", PackedMoves.compile("a,d,g").toString());
+    }
+
+    @Test
+    void countForwardMoves_shouldCountTheForwardMovesBeforeTheTurn_ok() {
+        PackedMoves packedMoves = PackedMoves.compile("AADADAGGA".repeat(8));
+
+        assertEquals(0, packedMoves.countForwardMoves(0));
+        assertEquals(3, packedMoves.countForwardMoves(5));
+        assertEquals(18, packedMoves.countForwardMoves(32));
+        assertEquals(20, packedMoves.countForwardMoves(36));
+        assertEquals(40, packedMoves.countForwardMoves(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void startsWith_shouldCompareOnlyTheMovesOfThePrefix_ok() {
+        PackedMoves packedMoves = PackedMoves.compile("AADADAGGA".repeat(8));
+
+        assertTrue(packedMoves.startsWith(PackedMoves.compile("")));
+        assertTrue(packedMoves.startsWith(PackedMoves.compile("AADADAGGA".repeat(4))));
+        assertTrue(packedMoves.startsWith(PackedMoves.compile("AADADAGGA".repeat(4).substring(0, 32))));
+        assertTrue(packedMoves.startsWith(PackedMoves.compile("aadadaxxa")), "Un caractère autre que A ou D est une rotation à gauche");
+        assertTrue(packedMoves.startsWith(packedMoves));
+        assertFalse(packedMoves.startsWith(PackedMoves.compile("AADADAGGA".repeat(4) + "D")));
+        assertFalse(packedMoves.startsWith(PackedMoves.compile("AADADAGGA".repeat(8) + "A")));
+    }
+
+    @Test
+    void wrap_shouldUseTheWordsAsTheyAre_ok() {
+        PackedMoves packedMoves = PackedMoves.compile("DGAGD");
+
+        PackedMoves wrappedMoves = PackedMoves.wrap(new long[]{packedMoves.getWord(0)}, 5);
+
+        assertEquals("DGAGD", wrappedMoves.toString());
+    }
+
+    @Test
+    void wrap_whenACodeIsNotAMove_throwsIllegalArgumentException() {
+        long[] words = {0b11_00_01L};
+
+        assertThrows(IllegalArgumentException.class, () -> PackedMoves.wrap(words, 3));
+    }
+
+    @Test
+    void wrap_whenTheLastWordContainsMoreMoves_throwsIllegalArgumentException() {
+        long[] words = {0b01_00_00_01L};
+
+        assertThrows(IllegalArgumentException.class, () -> PackedMoves.wrap(words, 3));
+    }
+}
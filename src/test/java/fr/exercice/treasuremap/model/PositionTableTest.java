@@ -0,0 +1,91 @@
+package fr.exercice.treasuremap.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionTableTest {
+
+    @Test
+    void put_shouldKeepEveryPositionWhileTheTableGrows_ok() {
+        PositionTable positionTable = new PositionTable();
+        // Les cases d'une même diagonale ont toutes le même hachage de Long : la table doit quand même les répartir
+        for (int i = 0; i < 10_000; i++) {
+            positionTable.put(PositionTable.positionKey(i, i), i);
+            positionTable.put(PositionTable.positionKey(i, 10_001 - i), 10_000 + i);
+        }
+
+        assertEquals(20_000, positionTable.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, positionTable.get(PositionTable.positionKey(i, i)));
+            assertEquals(10_000 + i, positionTable.get(PositionTable.positionKey(i, 10_001 - i)));
+        }
+        assertEquals(PositionTable.NO_VALUE, positionTable.get(PositionTable.positionKey(10_000, 10_000)));
+    }
+
+    @Test
+    void putIfAbsent_shouldKeepTheFirstValueOfAPosition_ok() {
+        PositionTable positionTable = new PositionTable(4);
+        long key = PositionTable.positionKey(3, 4);
+
+        assertEquals(PositionTable.NO_VALUE, positionTable.putIfAbsent(key, 1));
+        assertEquals(1, positionTable.putIfAbsent(key, 2));
+        assertEquals(1, positionTable.get(key));
+
+        positionTable.put(key, 2);
+
+        assertEquals(2, positionTable.get(key));
+        assertEquals(1, positionTable.size());
+    }
+
+    /**
+     * La clé qui marque les emplacements libres dans la table, celle de la position -1, -1, est une position comme les autres.
+     */
+    @Test
+    void put_withTheKeyOfTheEmptySlots_shouldStoreIt_ok() {
+        PositionTable positionTable = new PositionTable();
+        long key = PositionTable.positionKey(-1, -1);
+
+        assertEquals(PositionTable.NO_VALUE, positionTable.get(key));
+        assertEquals(PositionTable.NO_VALUE, positionTable.putIfAbsent(key, 7));
+        assertEquals(7, positionTable.get(key));
+        assertEquals(1, positionTable.size());
+
+        positionTable.clear();
+
+        assertEquals(PositionTable.NO_VALUE, positionTable.get(key));
+        assertEquals(0, positionTable.size());
+    }
+
+    /**
+     * Les clés rangées après une clé retirée, dans la même séquence de sondage, doivent toujours être trouvées.
+     */
+    @Test
+    void remove_shouldKeepTheOtherPositionsReachable_ok() {
+        PositionTable positionTable = new PositionTable();
+        for (int i = 0; i < 1_000; i++) {
+            positionTable.put(PositionTable.positionKey(i, i), i);
+        }
+
+        for (int i = 0; i < 1_000; i += 2) {
+            assertEquals(i, positionTable.remove(PositionTable.positionKey(i, i)));
+        }
+
+        assertEquals(500, positionTable.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(i % 2 == 0 ? PositionTable.NO_VALUE : i, positionTable.get(PositionTable.positionKey(i, i)));
+        }
+        assertEquals(PositionTable.NO_VALUE, positionTable.remove(PositionTable.positionKey(0, 0)));
+        assertEquals(PositionTable.NO_VALUE, positionTable.putIfAbsent(PositionTable.positionKey(0, 0), 3));
+        assertEquals(3, positionTable.remove(PositionTable.positionKey(0, 0)));
+        assertEquals(PositionTable.NO_VALUE, positionTable.remove(PositionTable.positionKey(-1, -1)));
+        assertEquals(500, positionTable.size());
+    }
+
+    @Test
+    void put_withANegativeValue_throwsIllegalArgumentException() {
+        PositionTable positionTable = new PositionTable();
+
+        assertThrows(IllegalArgumentException.class, () -> positionTable.put(PositionTable.positionKey(1, 1), -1));
+    }
+}
@@ -0,0 +1,150 @@
+package fr.exercice.treasuremap.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseGameGridTest {
+
+    @Test
+    void sparseGameGrid_onAHugeMap_shouldOnlyAllocateTheChunksOfTheMountainsAndTreasures_ok() {
+        Game game = createGame(2_000_000_000, 1_500_000_000);
+        game.getMountainCells().add(new Cell().setPosX(1_999_999_999).setPosY(3).setType(CellType.MOUTAIN));
+        game.getTreasureCells().add(new Cell().setPosX(5).setPosY(1_500_000_000).setNbTreasure(1).setType(CellType.TREASURE));
+        game.getAdventurers().add(createAdventurer("Lara", 2_000_000_000, 1_500_000_000));
+
+        SparseGameGrid sparseGameGrid = new SparseGameGrid(game);
+
+        assertEquals(2, sparseGameGrid.getNbChunks());
+        assertTrue(sparseGameGrid.isWithinMap(2_000_000_000, 1_500_000_000));
+        assertFalse(sparseGameGrid.isWithinMap(2_000_000_000, 1_500_000_001));
+        assertTrue(sparseGameGrid.isMountain(1_999_999_999, 3));
+        assertFalse(sparseGameGrid.isMountain(1_999_999_998, 3));
+        assertFalse(sparseGameGrid.isMountain(1_000, 1_000), "Une case d'un bloc qui n'existe pas n'a pas de montagne");
+        assertTrue(sparseGameGrid.isOccupied(2_000_000_000, 1_500_000_000));
+        assertFalse(sparseGameGrid.isOccupied(0, 0));
+        assertFalse(sparseGameGrid.pickUpTreasure(6, 1_500_000_000));
+        assertTrue(sparseGameGrid.pickUpTreasure(5, 1_500_000_000));
+        assertFalse(sparseGameGrid.pickUpTreasure(5, 1_500_000_000), "Le trésor est épuisé");
+    }
+
+    @Test
+    void moveOccupant_whenTheTargetChunkDoesNotExist_shouldNotCreateIt_ok() {
+        Game game = createGame(1_000_000, 1_000_000);
+        game.getAdventurers().add(createAdventurer("Lara", 7, 7));
+        SparseGameGrid sparseGameGrid = new SparseGameGrid(game);
+
+        sparseGameGrid.moveOccupant(7, 7, 8, 7);
+
+        assertEquals(0, sparseGameGrid.getNbChunks());
+        assertFalse(sparseGameGrid.isOccupied(7, 7));
+        assertTrue(sparseGameGrid.isOccupied(8, 7));
+    }
+
+    /**
+     * Un aventurier qui traverse la carte en ligne droite, en croisant une montagne et un trésor, ne doit ajouter aucun bloc :
+     * seules ses cases de départ et d'arrivée sont occupées.
+     */
+    @Test
+    void moveOccupant_whenAnAdventurerWalksALongWay_shouldNotAllocateChunks_ok() {
+        Game game = createGame(1_000_000, 1_000_000);
+        game.getMountainCells().add(new Cell().setPosX(500_000).setPosY(1).setType(CellType.MOUTAIN));
+        game.getTreasureCells().add(new Cell().setPosX(250_000).setPosY(0).setNbTreasure(1).setType(CellType.TREASURE));
+        game.getAdventurers().add(createAdventurer("Lara", 0, 0));
+        game.getAdventurers().add(createAdventurer("Indiana", 0, 1));
+        SparseGameGrid sparseGameGrid = new SparseGameGrid(game);
+
+        for (int posX = 0; posX < 1_000_000; posX++) {
+            sparseGameGrid.moveOccupant(posX, 0, posX + 1, 0);
+        }
+
+        assertEquals(2, sparseGameGrid.getNbChunks());
+        assertTrue(sparseGameGrid.isOccupied(1_000_000, 0));
+        assertTrue(sparseGameGrid.isOccupied(0, 1));
+        assertFalse(sparseGameGrid.isOccupied(0, 0));
+        assertFalse(sparseGameGrid.isOccupied(500_000, 0));
+        assertTrue(sparseGameGrid.isMountain(500_000, 1));
+        assertTrue(sparseGameGrid.pickUpTreasure(250_000, 0));
+    }
+
+    @Test
+    void sparseGameGrid_whenTreasuresAndAdventurersAddChunks_shouldKeepThemAll_ok() {
+        Game game = createGame(1_000_000, 1_000_000);
+        for (int i = 0; i < 100; i++) {
+            game.getTreasureCells().add(new Cell().setPosX(i * 1_000).setPosY(0).setNbTreasure(2).setType(CellType.TREASURE));
+            game.getAdventurers().add(createAdventurer("A" + i, i * 1_000, 500_000));
+        }
+
+        SparseGameGrid sparseGameGrid = new SparseGameGrid(game);
+
+        assertEquals(100, sparseGameGrid.getNbChunks(), "Seuls les trésors ajoutent des blocs");
+        for (int i = 0; i < 100; i++) {
+            assertTrue(sparseGameGrid.isOccupied(i * 1_000, 500_000));
+            assertTrue(sparseGameGrid.pickUpTreasure(i * 1_000, 0));
+        }
+    }
+
+    /**
+     * Les montagnes, trésors et aventuriers répartis au hasard sur des centaines de blocs obligent le répertoire à s'agrandir :
+     * la carte creuse doit toujours répondre comme la grille dense, chacune jouant sur sa propre copie du jeu.
+     */
+    @Test
+    void sparseGameGrid_shouldAnswerLikeTheDenseGameGrid_ok() {
+        Game denseGame = createRandomGame();
+        Game sparseGame = createRandomGame();
+        GameGrid gameGrid = new GameGrid(denseGame);
+        SparseGameGrid sparseGameGrid = new SparseGameGrid(sparseGame);
+        Random random = new Random(7);
+
+        for (int move = 0; move < 20_000; move++) {
+            Adventurer adventurer = denseGame.getAdventurers().get(random.nextInt(denseGame.getAdventurers().size()));
+            int newPosX = adventurer.getPosX() + random.nextInt(3) - 1;
+            int newPosY = adventurer.getPosY() + random.nextInt(3) - 1;
+            assertEquals(gameGrid.isWithinMap(newPosX, newPosY), sparseGameGrid.isWithinMap(newPosX, newPosY));
+            if (!gameGrid.isWithinMap(newPosX, newPosY)) {
+                continue;
+            }
+            assertEquals(gameGrid.isMountain(newPosX, newPosY), sparseGameGrid.isMountain(newPosX, newPosY));
+            assertEquals(gameGrid.isOccupied(newPosX, newPosY), sparseGameGrid.isOccupied(newPosX, newPosY));
+            if (!gameGrid.isMountain(newPosX, newPosY) && !gameGrid.isOccupied(newPosX, newPosY)) {
+                gameGrid.moveOccupant(adventurer.getPosX(), adventurer.getPosY(), newPosX, newPosY);
+                sparseGameGrid.moveOccupant(adventurer.getPosX(), adventurer.getPosY(), newPosX, newPosY);
+                adventurer.setPosX(newPosX).setPosY(newPosY);
+                assertEquals(gameGrid.pickUpTreasure(newPosX, newPosY), sparseGameGrid.pickUpTreasure(newPosX, newPosY));
+            }
+        }
+        assertTrue(sparseGameGrid.getNbChunks() > 16, "Le répertoire des blocs doit avoir été agrandi");
+    }
+
+    private static Game createRandomGame() {
+        Random random = new Random(42);
+        Game game = createGame(299, 199);
+        boolean[][] usedCells = new boolean[300][200];
+        for (int i = 0; i < 3_000; i++) {
+            int posX = random.nextInt(300);
+            int posY = random.nextInt(200);
+            if (usedCells[posX][posY]) {
+                continue;
+            }
+            usedCells[posX][posY] = true;
+            switch (i % 3) {
+                case 0 -> game.getMountainCells().add(new Cell().setPosX(posX).setPosY(posY).setType(CellType.MOUTAIN));
+                case 1 -> game.getTreasureCells().add(new Cell().setPosX(posX).setPosY(posY).setNbTreasure(1 + random.nextInt(3)).setType(CellType.TREASURE));
+                default -> game.getAdventurers().add(createAdventurer("A" + i, posX, posY));
+            }
+        }
+        return game;
+    }
+
+    private static Game createGame(int width, int height) {
+        Game game = new Game();
+        game.setGameMap(new GameMap().setWidth(width).setHeight(height));
+        return game;
+    }
+
+    private static Adventurer createAdventurer(String name, int posX, int posY) {
+        return new Adventurer().setName(name).setPosX(posX).setPosY(posY).setOrientation(Orientation.N).setMoves("A");
+    }
+}
@@ -0,0 +1,116 @@
+package fr.exercice.treasuremap.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileScheduleTest {
+
+    @Test
+    void gameGrid_withTiles_shouldGiveEachCellAUniqueIndexInsideItsTile_ok() {
+        GameGrid gameGrid = new GameGrid(createGame(9, 6), 3);
+
+        assertEquals(2, gameGrid.getTileShiftX(), "La taille des tuiles doit être arrondie à 4");
+        assertEquals(2, gameGrid.getTileShiftY(), "La taille des tuiles doit être arrondie à 4");
+        assertEquals(3 * 2, gameGrid.getNbTiles());
+        Set<Integer> cellIndexes = new HashSet<>();
+        for (int posX = 0; posX <= 9; posX++) {
+            for (int posY = 0; posY <= 6; posY++) {
+                int cellIndex = gameGrid.cellIndex(posX, posY);
+                assertTrue(cellIndexes.add(cellIndex), "L'indice de case est déjà utilisé");
+                assertEquals(gameGrid.tileIndex(posX, posY), cellIndex / 16, "La case n'est pas rangée avec sa tuile");
+            }
+        }
+        assertTrue(cellIndexes.stream().allMatch(cellIndex -> cellIndex < gameGrid.getNbCells()));
+    }
+
+    @Test
+    void gameGrid_whenTileIsLargerThanTheMap_shouldUseASingleTile_ok() {
+        GameGrid gameGrid = new GameGrid(createGame(5, 3), 1024);
+
+        assertEquals(1, gameGrid.getNbTiles());
+        assertEquals(8 * 4, gameGrid.getNbCells());
+    }
+
+    /**
+     * Sur une carte d'une seule ligne, les tuiles ne sont pas plus hautes que la carte : leur nombre de cases reste proche de celui de la carte.
+     */
+    @Test
+    void gameGrid_withAThinMap_shouldLimitTheTileHeightToTheMap_ok() {
+        GameGrid gameGrid = new GameGrid(createGame(85_181, 1), 32_768);
+
+        assertEquals(15, gameGrid.getTileShiftX());
+        assertEquals(1, gameGrid.getTileShiftY());
+        assertEquals(3, gameGrid.getNbTiles());
+        assertEquals(3 * 32_768 * 2, gameGrid.getNbCells());
+        Set<Integer> cellIndexes = new HashSet<>();
+        for (int posX = 0; posX <= 85_181; posX++) {
+            for (int posY = 0; posY <= 1; posY++) {
+                int cellIndex = gameGrid.cellIndex(posX, posY);
+                assertTrue(cellIndex >= 0 && cellIndex < gameGrid.getNbCells(), "L'indice de case sort de la grille");
+                assertTrue(cellIndexes.add(cellIndex), "L'indice de case est déjà utilisé");
+                assertEquals(gameGrid.tileIndex(posX, posY), cellIndex / (32_768 * 2), "La case n'est pas rangée avec sa tuile");
+            }
+        }
+    }
+
+    @Test
+    void gameGrid_whenTheMapHasTooManyCellsForADenseGrid_throwsIllegalArgumentException() {
+        Game game = createGame(1 << 16, 1 << 15);
+
+        assertThrows(IllegalArgumentException.class, () -> new GameGrid(game, 0));
+    }
+
+    @Test
+    void gameGrid_whenTileSizeIsNegative_throwsIllegalArgumentException() {
+        Game game = createGame(5, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> new GameGrid(game, -1));
+    }
+
+    @Test
+    void handOffDepartures_shouldMoveAdventurersToTheirNewTileAndDropDoneAdventurers_ok() {
+        Game game = createGame(7, 7);
+        game.getAdventurers().add(createAdventurer("Lara", 1, 1));
+        game.getAdventurers().add(createAdventurer("Indiana", 3, 1));
+        game.getAdventurers().add(createAdventurer("Nathan", 5, 5));
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        GameGrid gameGrid = new GameGrid(game, 4);
+        TileSchedule tileSchedule = new TileSchedule(population, gameGrid);
+        assertEquals(List.of(0, 1), getResidents(tileSchedule, 0));
+
+        population.setPosition(1, 4, 1);
+        population.setDoneMoving(2);
+        for (int tile = 0; tile < tileSchedule.getNbTiles(); tile++) {
+            tileSchedule.removeDepartures(tile, population, gameGrid);
+        }
+        tileSchedule.handOffDepartures(population, gameGrid);
+
+        assertEquals(List.of(0), getResidents(tileSchedule, 0));
+        assertEquals(List.of(1), getResidents(tileSchedule, 1));
+        assertEquals(List.of(), getResidents(tileSchedule, 3));
+    }
+
+    private static List<Integer> getResidents(TileSchedule tileSchedule, int tile) {
+        List<Integer> residents = new ArrayList<>();
+        for (int position = 0; position < tileSchedule.getNbResidents(tile); position++) {
+            residents.add(tileSchedule.getResident(tile, position));
+        }
+        return residents;
+    }
+
+    private static Game createGame(int width, int height) {
+        Game game = new Game();
+        game.setGameMap(new GameMap().setWidth(width).setHeight(height));
+        return game;
+    }
+
+    private static Adventurer createAdventurer(String name, int posX, int posY) {
+        return new Adventurer().setName(name).setPosX(posX).setPosY(posY).setOrientation(Orientation.N).setMoves("A");
+    }
+}
@@ -0,0 +1,129 @@
+package fr.exercice.treasuremap.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrajectoryReaderTest {
+
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * Lara avance vers le sud et ramasse un trésor, Indiana tourne à droite puis recule d'une case vers l'ouest.
+     */
+    @Test
+    void readPath_shouldGiveTheStateOfOneAdventurerAtEachTurn_ok() throws IOException {
+        Path trajectoryPath = tempDir.resolve("game_trajectory.tmt");
+        AdventurerPopulation population = new AdventurerPopulation(List.of(
+                generateAdventurer("Lara", 1, 1, Orientation.S, "AA"),
+                generateAdventurer("Indiana", 3, 2, Orientation.N, "GA")));
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+
+        try (TrajectoryWriter writer = new TrajectoryWriter(trajectoryPath, population, 0)) {
+            population.setPosition(0, 1, 2);
+            population.addTreasure(0);
+            population.setOrientation(1, Orientation.O);
+            writer.writeTurn(population, turnScheduler, 0);
+            population.setPosition(0, 1, 3);
+            population.setPosition(1, 2, 2);
+            writer.writeTurn(population, turnScheduler, 1);
+        }
+
+        try (TrajectoryReader reader = TrajectoryReader.open(trajectoryPath)) {
+            assertEquals(2, reader.getNbAdventurers());
+            assertEquals(2, reader.getNbTurns());
+            assertEquals("Indiana", reader.getName(reader.findAdventurer("Indiana")));
+            assertEquals(-1, reader.findAdventurer("Sydney"));
+            assertEquals(List.of("0 - 1 - 1 - S - 0", "1 - 1 - 2 - S - 1", "2 - 1 - 3 - S - 1"), readPath(reader, 0));
+            assertEquals(List.of("0 - 3 - 2 - N - 0", "1 - 3 - 2 - O - 0", "2 - 2 - 2 - O - 0"), readPath(reader, 1));
+        }
+    }
+
+    @Test
+    void trajectoryWriter_whenARotationRunIsAlreadyPlayed_shouldWriteTheOrientationOfTheStartTurn_ok() throws IOException {
+        Path trajectoryPath = tempDir.resolve("game_trajectory.tmt");
+        AdventurerPopulation population = new AdventurerPopulation(List.of(generateAdventurer("Lara", 1, 1, Orientation.N, "ADDGA")));
+        population.playRotationRun(0, 1);
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+
+        try (TrajectoryWriter writer = new TrajectoryWriter(trajectoryPath, population, 2)) {
+            writer.writeTurn(population, turnScheduler, 2);
+            writer.writeTurn(population, turnScheduler, 3);
+        }
+
+        try (TrajectoryReader reader = TrajectoryReader.open(trajectoryPath)) {
+            assertEquals(2, reader.getStartTurn());
+            assertEquals(List.of("2 - 1 - 1 - E - 0", "3 - 1 - 1 - S - 0", "4 - 1 - 1 - E - 0"), readPath(reader, 0));
+        }
+    }
+
+    @Test
+    void open_whenTheLastBlockIsIncomplete_shouldIgnoreIt_ok() throws IOException {
+        Path trajectoryPath = tempDir.resolve("game_trajectory.tmt");
+        AdventurerPopulation population = new AdventurerPopulation(List.of(generateAdventurer("Lara", 1, 1, Orientation.S, "A".repeat(40))));
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+        try (TrajectoryWriter writer = new TrajectoryWriter(trajectoryPath, population, 0)) {
+            for (int turn = 0; turn < 40; turn++) {
+                population.setPosition(0, 1, 2 + turn);
+                writer.writeTurn(population, turnScheduler, turn);
+            }
+        }
+        byte[] trajectory = Files.readAllBytes(trajectoryPath);
+        Files.write(trajectoryPath, Arrays.copyOf(trajectory, trajectory.length - TrajectoryWriter.getBlockSize(1) + 1));
+
+        try (TrajectoryReader reader = TrajectoryReader.open(trajectoryPath)) {
+            List<String> path = readPath(reader, 0);
+            assertEquals(39, reader.getNbTurns());
+            assertEquals("39 - 1 - 40 - S - 0", path.getLast());
+        }
+    }
+
+    @Test
+    void writeTurn_whenAnAdventurerMovesMoreThanOneCell_throwsIllegalStateException() throws IOException {
+        AdventurerPopulation population = new AdventurerPopulation(List.of(generateAdventurer("Lara", 1, 1, Orientation.S, "A")));
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+
+        try (TrajectoryWriter writer = new TrajectoryWriter(tempDir.resolve("game_trajectory.tmt"), population, 0)) {
+            population.setPosition(0, 2, 2);
+            assertThrows(IllegalStateException.class, () -> writer.writeTurn(population, turnScheduler, 0));
+        }
+    }
+
+    @Test
+    void open_whenFileIsNotATrajectory_throwsIllegalArgumentException() throws IOException {
+        Path inputFilePath = Files.writeString(tempDir.resolve("game.txt"), "C - 3 - 4\nA - Lara - 1 - 1 - S - A\n");
+
+        assertThrows(IllegalArgumentException.class, () -> TrajectoryReader.open(inputFilePath));
+    }
+
+    @Test
+    void open_whenTheHeaderIsTruncated_throwsIllegalStateException() throws IOException {
+        Path trajectoryPath = tempDir.resolve("game_trajectory.tmt");
+        AdventurerPopulation population = new AdventurerPopulation(List.of(generateAdventurer("Lara", 1, 1, Orientation.S, "A")));
+        new TrajectoryWriter(trajectoryPath, population, 0).close();
+        byte[] trajectory = Files.readAllBytes(trajectoryPath);
+        Files.write(trajectoryPath, Arrays.copyOf(trajectory, trajectory.length - 1));
+
+        assertThrows(IllegalStateException.class, () -> TrajectoryReader.open(trajectoryPath));
+    }
+
+    private static List<String> readPath(TrajectoryReader reader, int id) throws IOException {
+        List<String> path = new ArrayList<>();
+        reader.readPath(id, (turn, posX, posY, orientation, nbTreasure) ->
+                path.add(turn + " - " + posX + " - " + posY + " - " + orientation + " - " + nbTreasure));
+        return path;
+    }
+
+    private static Adventurer generateAdventurer(String name, int posX, int posY, Orientation orientation, String moves) {
+        return new Adventurer().setName(name).setPosX(posX).setPosY(posY).setOrientation(orientation).setMoves(moves);
+    }
+}
@@ -0,0 +1,86 @@
+package fr.exercice.treasuremap.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TurnSchedulerTest {
+
+    @Test
+    void new_shouldOnlyScheduleTheAdventurersWhichStillHaveMoves_ok() {
+        List<Adventurer> adventurers = createAdventurers(4);
+        adventurers.get(1).setDoneMoving(true);
+        AdventurerPopulation population = new AdventurerPopulation(adventurers);
+
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+
+        assertActiveAdventurers(turnScheduler, 0, 2, 3);
+    }
+
+    @Test
+    void removeDoneAdventurers_shouldKeepTheOrderOfTheStillActiveAdventurers_ok() {
+        AdventurerPopulation population = new AdventurerPopulation(createAdventurers(5));
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+
+        population.setDoneMoving(2);
+        turnScheduler.removeDoneAdventurers(population);
+
+        assertActiveAdventurers(turnScheduler, 0, 1, 3, 4);
+    }
+
+    /**
+     * Les aventuriers qui terminent leurs mouvements pendant un même tour, au début, au milieu et à la fin de la liste,
+     * sont tous retirés à la fin du tour.
+     */
+    @Test
+    void removeDoneAdventurers_whenSeveralAdventurersAreDoneInTheSameTurn_shouldRemoveThemAll_ok() {
+        AdventurerPopulation population = new AdventurerPopulation(createAdventurers(6));
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+
+        population.setDoneMoving(0);
+        population.setDoneMoving(2);
+        population.setDoneMoving(3);
+        population.setDoneMoving(5);
+        turnScheduler.removeDoneAdventurers(population);
+
+        assertActiveAdventurers(turnScheduler, 1, 4);
+
+        population.setDoneMoving(1);
+        population.setDoneMoving(4);
+        turnScheduler.removeDoneAdventurers(population);
+
+        assertActiveAdventurers(turnScheduler);
+    }
+
+    @Test
+    void removeDoneAdventurers_withoutAdventurer_shouldStayEmpty_ok() {
+        AdventurerPopulation population = new AdventurerPopulation(new ArrayList<>());
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+
+        assertActiveAdventurers(turnScheduler);
+
+        turnScheduler.removeDoneAdventurers(population);
+
+        assertActiveAdventurers(turnScheduler);
+    }
+
+    private static void assertActiveAdventurers(TurnScheduler turnScheduler, int... expectedIndexes) {
+        assertEquals(expectedIndexes.length, turnScheduler.getNbActiveAdventurers(), "Le nombre d'aventuriers actifs est incorrect");
+        assertEquals(expectedIndexes.length > 0, turnScheduler.hasActiveAdventurers(), "La présence d'aventuriers actifs est incorrecte");
+        for (int position = 0; position < expectedIndexes.length; position++) {
+            assertEquals(expectedIndexes[position], turnScheduler.getActiveAdventurer(position),
+                    "L'aventurier actif à la position " + position + " est incorrect");
+        }
+    }
+
+    private static List<Adventurer> createAdventurers(int nbAdventurers) {
+        List<Adventurer> adventurers = new ArrayList<>();
+        for (int i = 0; i < nbAdventurers; i++) {
+            adventurers.add(new Adventurer().setName("A" + i).setPosX(i).setPosY(0).setOrientation(Orientation.S).setMoves("AA"));
+        }
+        return adventurers;
+    }
+}
@@ -0,0 +1,118 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryInputFileServiceTest {
+
+    private final GameAssetsCreatorService gameAssetsCreatorService = new GameAssetsCreatorService();
+    private final BinaryInputFileService binaryInputFileService = new BinaryInputFileService(new InputFileService(), new InputValidationService(new TreasureMapProperties()), gameAssetsCreatorService);
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void readInto_shouldCreateTheSameGameAsTheWrittenOne_ok() throws IOException {
+        Path binaryFilePath = tempDir.resolve("game.tmb");
+        binaryInputFileService.writeBinary(generateGame(), binaryFilePath);
+
+        Game game = new Game();
+        binaryInputFileService.readInto(game, binaryFilePath);
+
+        assertEquals(4, game.getGameMap().getWidth());
+        assertEquals(5, game.getGameMap().getHeight());
+        assertEquals(1, game.getMountainCells().size());
+        assertEquals(2, game.getMountainCells().getFirst().getPosX());
+        Cell treasure = game.getTreasureCells().getFirst();
+        assertEquals(List.of(0, 3, 2), List.of(treasure.getPosX(), treasure.getPosY(), treasure.getNbTreasure()));
+        Adventurer lara = game.getAdventurers().getFirst();
+        assertEquals("Lara", lara.getName());
+        assertEquals(Orientation.S, lara.getOrientation());
+        assertEquals("AADADAGGA", lara.getMoves());
+        Adventurer sydney = game.getAdventurers().get(1);
+        assertEquals("Sydney", sydney.getName());
+        assertEquals(4, sydney.getPosX());
+        assertEquals(Orientation.O, sydney.getOrientation());
+        assertEquals("AGDGG", sydney.getMoves(), "Les caractères qui ne sont ni A ni D sont des rotations à gauche");
+    }
+
+    @Test
+    void writeBinary_shouldPackFourMovesPerByte_ok() throws IOException {
+        Path binaryFilePath = tempDir.resolve("game.tmb");
+        Path textFilePath = tempDir.resolve("game.txt");
+        binaryInputFileService.writeBinary(generateGame(), binaryFilePath);
+        binaryInputFileService.writeText(generateGame(), textFilePath);
+
+        // En-tête, carte, nombres d'assets, montagne, trésor, noms, puis deux aventuriers de 9 et 5 mouvements
+        assertEquals(8 + 8 + 12 + 8 + 12 + (2 + 4) + (2 + 6) + (13 + 3) + (13 + 2), Files.size(binaryFilePath));
+        assertTrue(binaryInputFileService.isBinaryInputFile(binaryFilePath));
+        assertFalse(binaryInputFileService.isBinaryInputFile(textFilePath));
+        assertEquals(Arrays.asList("C - 4 - 5", "M - 2 - 1", "T - 0 - 3 - 2", "A - Lara - 1 - 1 - S - AADADAGGA", "A - Sydney - 4 - 0 - O - AGDGG"),
+                Files.readAllLines(textFilePath));
+    }
+
+    @Test
+    void isBinaryInputFile_whenFileIsShorterThanTheHeader_returnsFalse() throws IOException {
+        Path shortFilePath = Files.write(tempDir.resolve("game.tmb"), new byte[]{'T', 'M'});
+
+        assertFalse(binaryInputFileService.isBinaryInputFile(shortFilePath));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "8; 4; 0; La carte a une hauteur ou une largeur inférieure à 1",
+            "28; 4; 5; La position d'une des montagnes sort de la taille de la carte",
+            "28; 4; 1; Impossible de créer l'aventurier de la ligne A - Lara - 1 - 1 - S - AADADAGGA",
+            "44; 4; 0; La quantité d'un des trésors est invalide. Elle doit être de 1 ou plus",
+            "70; 1; 4; L'orientation d'un des aventuriers ne correspond pas à un point cardinal",
+            "75; 1; -1; L'un des mouvements d'un des aventuriers n'est pas valide"})
+    void readInto_whenAValueIsInvalid_throwsIllegalArgumentException(int offset, int size, int value, String errorMessage) throws IOException {
+        Path binaryFilePath = tempDir.resolve("game.tmb");
+        binaryInputFileService.writeBinary(generateGame(), binaryFilePath);
+        ByteBuffer binaryFile = ByteBuffer.wrap(Files.readAllBytes(binaryFilePath)).order(ByteOrder.LITTLE_ENDIAN);
+        if (size == Integer.BYTES) {
+            binaryFile.putInt(offset, value);
+        } else {
+            binaryFile.put(offset, (byte) value);
+        }
+        Files.write(binaryFilePath, binaryFile.array());
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> binaryInputFileService.readInto(new Game(), binaryFilePath));
+        assertEquals(errorMessage, exception.getMessage());
+    }
+
+    @Test
+    void readInto_whenFileIsTruncated_throwsIllegalStateException() throws IOException {
+        Path binaryFilePath = tempDir.resolve("game.tmb");
+        binaryInputFileService.writeBinary(generateGame(), binaryFilePath);
+        byte[] binaryFile = Files.readAllBytes(binaryFilePath);
+        Files.write(binaryFilePath, Arrays.copyOf(binaryFile, binaryFile.length - 1));
+
+        assertThrows(IllegalStateException.class, () -> binaryInputFileService.readInto(new Game(), binaryFilePath));
+    }
+
+    private Game generateGame() {
+        Game game = new Game();
+        game.setGameMap(new GameMap().setWidth(4).setHeight(5));
+        GameAssetsIndex assetsIndex = new GameAssetsIndex(game);
+        game.getMountainCells().add(gameAssetsCreatorService.createMountain(2, 1, assetsIndex, () -> "M - 2 - 1"));
+        game.getTreasureCells().add(gameAssetsCreatorService.createTreasure(0, 3, 2, assetsIndex, () -> "T - 0 - 3 - 2"));
+        game.getAdventurers().add(gameAssetsCreatorService.createAdventurer("lara", 1, 1, Orientation.S, "AADADAGGA", assetsIndex, () -> "A - lara"));
+        game.getAdventurers().add(gameAssetsCreatorService.createAdventurer("Sydney", 4, 0, Orientation.O, "a,d,g", assetsIndex, () -> "A - Sydney"));
+        return game;
+    }
+}
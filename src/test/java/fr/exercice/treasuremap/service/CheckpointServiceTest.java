@@ -0,0 +1,155 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointServiceTest {
+
+    private final TreasureMapProperties properties = new TreasureMapProperties();
+    private final CheckpointService checkpointService = new CheckpointService(properties);
+
+    @TempDir
+    private Path tempDir;
+    private Path inputFilePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        inputFilePath = Files.writeString(tempDir.resolve("game.txt"), "C - 3 - 4\nT - 1 - 1 - 2\nA - Lara - 0 - 0 - S - AADDGA\nA - Indiana - 2 - 2 - N - GGA\n");
+        properties.getCheckpoint().setEveryTurns(1);
+    }
+
+    @Test
+    void startSession_withResume_shouldRestoreTheLatestCheckpoint_ok() throws IOException {
+        Game game = generateGame();
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        CheckpointSession session = checkpointService.startSession(inputFilePath, game, population);
+        population.setPosition(0, 0, 2);
+        population.setOrientation(0, Orientation.O);
+        population.addTreasure(0);
+        population.playRotationRun(1, 0);
+        game.getTreasureCells().getFirst().setNbTreasure(1);
+        checkpointService.writeCheckpoint(session, 3, population, game.getTreasureCells());
+        population.setDoneMoving(1);
+        checkpointService.writeCheckpoint(session, 4, population, game.getTreasureCells());
+
+        properties.getCheckpoint().setResume(true);
+        Game resumedGame = generateGame();
+        AdventurerPopulation resumedPopulation = new AdventurerPopulation(resumedGame.getAdventurers());
+        CheckpointSession resumedSession = checkpointService.startSession(inputFilePath, resumedGame, resumedPopulation);
+
+        assertEquals(4, resumedSession.getStartTurn());
+        assertEquals(session.getCheckpointPaths()[0], resumedSession.getNextCheckpointPath(), "La sauvegarde reprise ne doit pas être remplacée en premier");
+        Adventurer lara = resumedGame.getAdventurers().getFirst();
+        assertEquals(0, lara.getPosX());
+        assertEquals(2, lara.getPosY());
+        assertEquals(Orientation.O, lara.getOrientation());
+        assertEquals(1, lara.getNbTreasure());
+        assertTrue(resumedPopulation.isDoneMoving(1));
+        assertTrue(resumedPopulation.isInRotationRun(1, 1), "La suite de rotations en cours doit être reprise");
+        assertEquals(1, resumedGame.getTreasureCells().getFirst().getNbTreasure());
+    }
+
+    @Test
+    void startSession_whenLatestCheckpointIsCorrupted_shouldResumeThePreviousOne() throws IOException {
+        Game game = generateGame();
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        CheckpointSession session = checkpointService.startSession(inputFilePath, game, population);
+        checkpointService.writeCheckpoint(session, 3, population, game.getTreasureCells());
+        checkpointService.writeCheckpoint(session, 4, population, game.getTreasureCells());
+        Path latestCheckpointPath = session.getCheckpointPaths()[1];
+        byte[] checkpoint = Files.readAllBytes(latestCheckpointPath);
+        checkpoint[checkpoint.length / 2] ^= 1;
+        Files.write(latestCheckpointPath, checkpoint);
+
+        properties.getCheckpoint().setResume(true);
+        Game resumedGame = generateGame();
+        CheckpointSession resumedSession = checkpointService.startSession(inputFilePath, resumedGame, new AdventurerPopulation(resumedGame.getAdventurers()));
+
+        assertEquals(3, resumedSession.getStartTurn());
+        assertEquals(latestCheckpointPath, resumedSession.getNextCheckpointPath());
+    }
+
+    @Test
+    void startSession_whenInputFileHasChanged_shouldStartAtTheFirstTurn() throws IOException {
+        Game game = generateGame();
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        checkpointService.writeCheckpoint(checkpointService.startSession(inputFilePath, game, population), 3, population, game.getTreasureCells());
+        Files.writeString(inputFilePath, "C - 3 - 5\n", StandardOpenOption.APPEND);
+
+        properties.getCheckpoint().setResume(true);
+        Game resumedGame = generateGame();
+        CheckpointSession resumedSession = checkpointService.startSession(inputFilePath, resumedGame, new AdventurerPopulation(resumedGame.getAdventurers()));
+
+        assertEquals(0, resumedSession.getStartTurn());
+    }
+
+    @Test
+    void startSession_withoutCheckpoints_shouldNotReadTheInputFile() throws IOException {
+        properties.getCheckpoint().setEveryTurns(0);
+        Game game = generateGame();
+
+        CheckpointSession session = checkpointService.startSession(tempDir.resolve("absent.txt"), game, new AdventurerPopulation(game.getAdventurers()));
+
+        assertFalse(session.isEnabled());
+        assertEquals(0, session.getStartTurn());
+    }
+
+    /**
+     * Dans un répertoire de sauvegardes commun, deux fichiers de même nom rangés dans des répertoires différents,
+     * ou de même nom de base avec une autre extension, ont chacun leurs propres sauvegardes.
+     */
+    @Test
+    void getCheckpointPaths_whenInputFilesHaveTheSameBaseName_shouldNotShareTheirCheckpoints_ok() {
+        properties.getCheckpoint().setDirectory(tempDir.resolve("checkpoints").toString());
+        List<Path> inputFilePaths = List.of(tempDir.resolve("a").resolve("game.txt"), tempDir.resolve("b").resolve("game.txt"), tempDir.resolve("game.tmb"));
+
+        Set<Path> checkpointPaths = new HashSet<>();
+        for (Path path : inputFilePaths) {
+            checkpointPaths.addAll(List.of(checkpointService.getCheckpointPaths(path)));
+        }
+
+        assertEquals(2 * inputFilePaths.size(), checkpointPaths.size(), "Chaque fichier d'entrée doit avoir ses propres sauvegardes");
+        assertArrayEquals(checkpointService.getCheckpointPaths(tempDir.resolve("a").resolve("..").resolve("a").resolve("game.txt")),
+                checkpointService.getCheckpointPaths(inputFilePaths.getFirst()), "Le chemin du fichier d'entrée doit être normalisé");
+    }
+
+    @Test
+    void deleteCheckpoints_shouldDeleteBothCheckpoints() throws IOException {
+        Game game = generateGame();
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        CheckpointSession session = checkpointService.startSession(inputFilePath, game, population);
+        checkpointService.writeCheckpoint(session, 1, population, game.getTreasureCells());
+        checkpointService.writeCheckpoint(session, 2, population, game.getTreasureCells());
+
+        checkpointService.deleteCheckpoints(session);
+
+        for (Path checkpointPath : session.getCheckpointPaths()) {
+            assertFalse(Files.exists(checkpointPath));
+        }
+        try (var files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "Seul le fichier d'entrée doit rester");
+        }
+    }
+
+    private static Game generateGame() {
+        Game game = new Game();
+        game.setGameMap(new GameMap().setWidth(3).setHeight(4));
+        game.getTreasureCells().add(new Cell().setPosX(1).setPosY(1).setNbTreasure(2).setType(CellType.TREASURE));
+        game.getAdventurers().add(new Adventurer().setName("Lara").setPosX(0).setPosY(0).setOrientation(Orientation.S).setMoves("AADDGA"));
+        game.getAdventurers().add(new Adventurer().setName("Indiana").setPosX(2).setPosY(2).setOrientation(Orientation.N).setMoves("GGA"));
+        return game;
+    }
+}
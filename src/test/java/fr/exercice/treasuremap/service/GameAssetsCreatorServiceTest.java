@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -32,7 +33,7 @@ class GameAssetsCreatorServiceTest {
         String line = "M - 1 - 2";
         String[] splitLine = inputFileService.getCleanSplitElements(line);
 
-        Cell mountain = gameAssetsCreatorService.createMountain(splitLine, game, line);
+        Cell mountain = gameAssetsCreatorService.createMountain(splitLine, new GameAssetsIndex(game), line);
 
         assertEquals(CellType.MOUTAIN, mountain.getType());
         assertEquals(1, mountain.getPosX(), "La position X de la montagne est incorrecte");
@@ -46,7 +47,7 @@ class GameAssetsCreatorServiceTest {
         Cell alreadyExistingCell = new Cell().setPosX(1).setPosY(2).setType(CellType.MOUTAIN);
         Mockito.when(game.getMountainCells()).thenReturn(List.of(alreadyExistingCell));
 
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> gameAssetsCreatorService.createMountain(splitLine, game, line));
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> gameAssetsCreatorService.createMountain(splitLine, new GameAssetsIndex(game), line));
 
         assertEquals("Impossible de créer la montagne de la ligne " + line, exception.getMessage(), "Le message d'erreur attendu est incorrect");
     }
@@ -56,7 +57,7 @@ class GameAssetsCreatorServiceTest {
         String line = "T - 1 - 2 - 3";
         String[] splitLine = inputFileService.getCleanSplitElements(line);
 
-        Cell treasure = gameAssetsCreatorService.createTreasure(splitLine, game, line);
+        Cell treasure = gameAssetsCreatorService.createTreasure(splitLine, new GameAssetsIndex(game), line);
 
         assertEquals(CellType.TREASURE, treasure.getType(), "Le type de cellule est incorrect");
         assertEquals(1, treasure.getPosX(), "La position X du trésor est incorrecte");
@@ -71,7 +72,7 @@ class GameAssetsCreatorServiceTest {
         Adventurer alreadyOccupiedCell = new Adventurer().setPosX(1).setPosY(2).setOrientation(Orientation.E).setName("Robinson").setMoves("DAAGAAADDDA");
         Mockito.when(game.getAdventurers()).thenReturn(List.of(alreadyOccupiedCell));
 
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> gameAssetsCreatorService.createTreasure(splitLine, game, line));
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> gameAssetsCreatorService.createTreasure(splitLine, new GameAssetsIndex(game), line));
 
         assertEquals("Impossible de créer le trésor de la ligne " + line, exception.getMessage(), "Le message d'erreur attendu est incorrect");
     }
@@ -83,7 +84,7 @@ class GameAssetsCreatorServiceTest {
         Adventurer alreadyExistingAdventurer = new Adventurer().setPosX(2).setPosY(3).setNbTreasure(2).setName("Laura");
         Mockito.when(game.getAdventurers()).thenReturn(List.of(alreadyExistingAdventurer));
 
-        Adventurer adventurer = gameAssetsCreatorService.createAdventurer(splitLine, game, line);
+        Adventurer adventurer = gameAssetsCreatorService.createAdventurer(splitLine, new GameAssetsIndex(game), line);
 
         assertEquals(1, adventurer.getPosX(), "La position X de l'aventurier est incorrecte");
         assertEquals(2, adventurer.getPosY(), "La position Y de l'aventurier est incorrecte");
@@ -100,7 +101,7 @@ class GameAssetsCreatorServiceTest {
         Cell alreadyExistingCell = new Cell().setPosX(1).setPosY(2).setNbTreasure(2).setType(CellType.TREASURE);
         Mockito.when(game.getTreasureCells()).thenReturn(List.of(alreadyExistingCell));
 
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> gameAssetsCreatorService.createAdventurer(splitLine, game, line));
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> gameAssetsCreatorService.createAdventurer(splitLine, new GameAssetsIndex(game), line));
 
         assertEquals("Impossible de créer l'aventurier de la ligne " + line, exception.getMessage(), "Le message d'erreur attendu est incorrect");
     }
@@ -112,8 +113,41 @@ class GameAssetsCreatorServiceTest {
         Adventurer alreadyExistingAdventurer = new Adventurer().setPosX(2).setPosY(3).setNbTreasure(2).setName("Lara");
         Mockito.when(game.getAdventurers()).thenReturn(List.of(alreadyExistingAdventurer));
 
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> gameAssetsCreatorService.createAdventurer(splitLine, game, line));
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> gameAssetsCreatorService.createAdventurer(splitLine, new GameAssetsIndex(game), line));
 
         assertEquals("Impossible de créer l'aventurier de la ligne " + line, exception.getMessage(), "Le message d'erreur attendu est incorrect");
     }
-}
\ No newline at end of file
+
+    @Test
+    void createAssets_withGameBeingBuilt_shouldDetectEveryAssetAlreadyAdded() {
+        Game realGame = new Game();
+        GameAssetsIndex assetsIndex = new GameAssetsIndex(realGame);
+        for (int posX = 0; posX < 300; posX++) {
+            for (int posY = 0; posY < 300; posY++) {
+                realGame.getMountainCells().add(gameAssetsCreatorService.createMountain(posX, posY, assetsIndex, () -> "M"));
+            }
+        }
+        realGame.getTreasureCells().add(gameAssetsCreatorService.createTreasure(300, 0, 2, assetsIndex, () -> "T"));
+        realGame.getAdventurers().add(gameAssetsCreatorService.createAdventurer("lara", 300, 1, Orientation.N, "A", assetsIndex, () -> "A"));
+
+        assertEquals(90_000, realGame.getMountainCells().size());
+        assertThrows(IllegalArgumentException.class, () -> gameAssetsCreatorService.createMountain(299, 299, assetsIndex, () -> "M - 299 - 299"));
+        assertThrows(IllegalArgumentException.class, () -> gameAssetsCreatorService.createAdventurer("Bob", 300, 0, Orientation.N, "A", assetsIndex, () -> "A"));
+        Exception exception = assertThrows(IllegalArgumentException.class,
+                () -> gameAssetsCreatorService.createAdventurer("Lara", 300, 2, Orientation.N, "A", assetsIndex, () -> "A - Lara - 300 - 2 - N - A"));
+        assertEquals("Impossible de créer l'aventurier de la ligne A - Lara - 300 - 2 - N - A", exception.getMessage(), "Le message d'erreur attendu est incorrect");
+    }
+
+    @Test
+    void createMountain_whenGameListsAreReplaced_shouldUseTheNewAssets() {
+        Game realGame = new Game();
+        GameAssetsIndex assetsIndex = new GameAssetsIndex(realGame);
+        realGame.getMountainCells().add(gameAssetsCreatorService.createMountain(1, 2, assetsIndex, () -> "M - 1 - 2"));
+        realGame.setMountainCells(new ArrayList<>());
+
+        Cell mountain = gameAssetsCreatorService.createMountain(1, 2, assetsIndex, () -> "M - 1 - 2");
+
+        assertEquals(1, mountain.getPosX(), "La position X de la montagne est incorrecte");
+        assertEquals(2, mountain.getPosY(), "La position Y de la montagne est incorrecte");
+    }
+}
@@ -0,0 +1,180 @@
+package fr.exercice.treasuremap.service;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.AdventurerPopulation;
+import fr.exercice.treasuremap.model.EventLevel;
+import fr.exercice.treasuremap.model.FullBufferPolicy;
+import fr.exercice.treasuremap.model.GameEventType;
+import fr.exercice.treasuremap.model.Orientation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import static fr.exercice.treasuremap.utils.TestUtils.generateGame;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameEventServiceTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(GameEventService.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void trace_shouldWriteEveryEventInOrderBeforeShutdown_ok() throws InterruptedException {
+        GameEventService gameEventService = createGameEventService(EventLevel.TRACE);
+
+        gameEventService.enterGame("game1.txt");
+        gameEventService.turnStarted(0);
+        gameEventService.newPosition("Lara", 1, 2, Orientation.E);
+        gameEventService.newTreasure("Lara", 3);
+        gameEventService.moveBlocked(GameEventType.MOUNTAIN, "Lara");
+        gameEventService.doneMoving("Lara", 3);
+        gameEventService.gameOver(Paths.get("game1.txt"), 1, new AdventurerPopulation(generateGame().getAdventurers()));
+        gameEventService.destroy();
+
+        List<String> messages = appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+        // Le bilan est écrit directement par le thread de la partie, le détail par le thread dédié
+        assertTrue(messages.contains("Partie game1.txt terminée en 1 tour(s) : 1 aventurier(s), 0 trésor(s) ramassé(s)"));
+        assertEquals(List.of(
+                "[game1.txt] Tour n°0",
+                "[game1.txt] Nouvelle position de Lara: 1, 2 et orientation : E",
+                "[game1.txt] Nouveau trésor pour Lara ! L'aventurier possède désormais 3 trésor(s)",
+                "[game1.txt] Il y a une montagne sur cette case, l'aventurier Lara ne bouge pas sur ce tour",
+                "[game1.txt] L'aventurier Lara a terminé tous ses mouvements et possède 3 trésor(s)"),
+                messages.stream().filter(message -> !message.startsWith("Partie")).toList());
+    }
+
+    /**
+     * Les événements de parties jouées en même temps sont préfixés par la partie de leur thread,
+     * et aucun n'est perdu lorsque le buffer est plus petit que le nombre d'événements publiés et que la simulation attend leur écriture.
+     */
+    @Test
+    void trace_whenGamesArePlayedTogether_shouldPrefixEachEventWithItsGameWithoutLosingAny_ok() throws InterruptedException {
+        TreasureMapProperties properties = new TreasureMapProperties();
+        properties.getEvents().setLevel(EventLevel.TRACE);
+        properties.getEvents().setBufferSize(4);
+        properties.getEvents().setFullBufferPolicy(FullBufferPolicy.BLOCK);
+        GameEventService gameEventService = new GameEventService(properties);
+        int nbTurns = 1_000;
+        List<Thread> threads = new ArrayList<>();
+        for (String game : List.of("game1.txt", "game2.txt")) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                String previousGame = gameEventService.enterGame(game);
+                for (int turn = 0; turn < nbTurns; turn++) {
+                    gameEventService.turnStarted(turn);
+                }
+                gameEventService.exitGame(previousGame);
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        gameEventService.turnStarted(0);
+        gameEventService.destroy();
+
+        List<String> messages = appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+        assertEquals(2 * nbTurns + 1, messages.size());
+        for (String game : List.of("game1.txt", "game2.txt")) {
+            assertEquals(IntStream.range(0, nbTurns).mapToObj(turn -> "[" + game + "] Tour n°" + turn).toList(),
+                    messages.stream().filter(message -> message.startsWith("[" + game + "]")).toList());
+        }
+        assertEquals("[-] Tour n°0", messages.getLast());
+    }
+
+    /**
+     * Le thread d'écriture est bloqué sur le premier événement : la case qu'il lit n'est pas libérée et tous les événements suivants
+     * sont perdus sans que la simulation attende. Ils sont comptés dans le bilan de leur partie.
+     */
+    @Test
+    void trace_whenTheBufferIsFull_shouldDropAndCountTheEventsWithoutWaiting_ok() throws InterruptedException {
+        CountDownLatch writerReleased = new CountDownLatch(1);
+        ListAppender<ILoggingEvent> blockingAppender = new ListAppender<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                if (Thread.currentThread().getName().equals("evenements-jeu")) {
+                    try {
+                        writerReleased.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        blockingAppender.start();
+        logger.addAppender(blockingAppender);
+        TreasureMapProperties properties = new TreasureMapProperties();
+        properties.getEvents().setLevel(EventLevel.TRACE);
+        properties.getEvents().setBufferSize(1);
+        GameEventService gameEventService = new GameEventService(properties);
+
+        try {
+            gameEventService.enterGame("game1.txt");
+            for (int turn = 0; turn < 100; turn++) {
+                gameEventService.turnStarted(turn);
+            }
+            writerReleased.countDown();
+            long nbDroppedEvents = gameEventService.gameOver(Paths.get("game1.txt"), 100, new AdventurerPopulation(generateGame().getAdventurers()));
+            gameEventService.destroy();
+
+            assertEquals(99, nbDroppedEvents);
+        } finally {
+            writerReleased.countDown();
+            logger.detachAppender(blockingAppender);
+        }
+        List<String> messages = appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+        assertTrue(messages.contains("Partie game1.txt terminée en 100 tour(s) : 1 aventurier(s), 0 trésor(s) ramassé(s), 99 événement(s) perdu(s) car le buffer était plein"));
+        assertEquals(List.of("[game1.txt] Tour n°0"), messages.stream().filter(message -> message.startsWith("[")).toList());
+    }
+
+    @Test
+    void summary_shouldOnlyWriteTheGameSummary_ok() throws InterruptedException {
+        GameEventService gameEventService = createGameEventService(EventLevel.SUMMARY);
+
+        gameEventService.turnStarted(0);
+        gameEventService.newPosition("Lara", 1, 2, Orientation.E);
+        gameEventService.gameOver(Paths.get("game1.txt"), 4, new AdventurerPopulation(generateGame().getAdventurers()));
+        gameEventService.destroy();
+
+        assertEquals(List.of("Partie game1.txt terminée en 4 tour(s) : 1 aventurier(s), 0 trésor(s) ramassé(s)"),
+                appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList());
+    }
+
+    @Test
+    void off_shouldNotWriteAnyEvent_ok() throws InterruptedException {
+        GameEventService gameEventService = createGameEventService(EventLevel.OFF);
+
+        gameEventService.turnStarted(0);
+        gameEventService.doneMoving("Lara", 3);
+        gameEventService.gameOver(Paths.get("game1.txt"), 4, new AdventurerPopulation(generateGame().getAdventurers()));
+        gameEventService.destroy();
+
+        assertTrue(appender.list.isEmpty());
+    }
+
+    private GameEventService createGameEventService(EventLevel level) {
+        TreasureMapProperties properties = new TreasureMapProperties();
+        properties.getEvents().setLevel(level);
+        return new GameEventService(properties);
+    }
+}
@@ -0,0 +1,142 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameMetricsServiceTest {
+
+    private final GameAssetsCreatorService gameAssetsCreatorService = new GameAssetsCreatorService();
+    private final TreasureMapProperties properties = createProperties();
+    private final GameEventService gameEventService = new GameEventService(properties);
+    private final GameMetricsService gameMetricsService = new GameMetricsService(properties);
+    private final MoveAdventurerService moveAdventurerService = new MoveAdventurerService(gameEventService, gameMetricsService);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gameEventService.destroy();
+    }
+
+    /**
+     * Lara ramasse le trésor puis sort de la carte à son dernier mouvement, Indiana bute sur la montagne puis deux fois sur Sydney qui tourne sur place.
+     */
+    @Test
+    void simulationOver_shouldCountTheMovesOfTheGame_ok() {
+        Game game = generateGame();
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        long nbTreasuresAtStart = gameMetricsService.countTreasures(population);
+
+        int nbTurns = playAllTurns(game, population);
+        gameMetricsService.simulationOver(population, 0, nbTurns, nbTreasuresAtStart);
+
+        MeterRegistry registry = gameMetricsService.getRegistry();
+        assertEquals(nbTurns, registry.get("treasuremap.turns").counter().count());
+        assertEquals(8, registry.get("treasuremap.moves.forward.attempted").counter().count());
+        assertEquals(3, registry.get("treasuremap.moves.rotation").counter().count());
+        assertEquals(1, registry.get("treasuremap.treasures.collected").counter().count());
+        assertEquals(1, registry.get("treasuremap.moves.blocked").tag("reason", "out_of_map").counter().count());
+        assertEquals(1, registry.get("treasuremap.moves.blocked").tag("reason", "mountain").counter().count());
+        assertEquals(2, registry.get("treasuremap.moves.blocked").tag("reason", "adventurer").counter().count());
+        assertEquals(4, registry.get("treasuremap.moves.forward.attempted").counter().count() - gameMetricsService.getNbBlockedMoves(),
+                "Les déplacements réussis sont les déplacements tentés moins les déplacements refusés");
+    }
+
+    @Test
+    void simulationOver_whenGameIsResumed_shouldOnlyCountTheMovesAfterTheStartTurn_ok() {
+        Game game = new Game();
+        game.setGameMap(new GameMap().setWidth(2).setHeight(2));
+        GameAssetsIndex assetsIndex = new GameAssetsIndex(game);
+        game.getAdventurers().add(gameAssetsCreatorService.createAdventurer("Lara", 0, 0, Orientation.E, "AGDAG", assetsIndex, () -> "A - Lara"));
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+
+        gameMetricsService.simulationOver(population, 2, 6, 0);
+
+        MeterRegistry registry = gameMetricsService.getRegistry();
+        assertEquals(4, registry.get("treasuremap.turns").counter().count());
+        assertEquals(1, registry.get("treasuremap.moves.forward.attempted").counter().count());
+        assertEquals(2, registry.get("treasuremap.moves.rotation").counter().count());
+    }
+
+    @Test
+    void gameOver_shouldRecordEveryPhaseOfTheGame_ok() {
+        GamePhaseClock clock = gameMetricsService.startClock();
+        for (GamePhase phase : GamePhase.values()) {
+            clock.lap(phase);
+        }
+        gameMetricsService.simulationOver(new AdventurerPopulation(generateGame().getAdventurers()), 0, 10, 0);
+
+        gameMetricsService.gameOver(clock);
+
+        MeterRegistry registry = gameMetricsService.getRegistry();
+        for (GamePhase phase : GamePhase.values()) {
+            assertEquals(1, registry.get("treasuremap.phase").tag("phase", phase.name().toLowerCase()).timer().count(), "Étape " + phase);
+        }
+        assertTrue(registry.get("treasuremap.turns.per.second").gauge().value() > 0);
+    }
+
+    @Test
+    void eventsDropped_shouldAddTheDroppedEventsOfEachGame_ok() {
+        gameMetricsService.eventsDropped(3);
+        gameMetricsService.eventsDropped(0);
+        gameMetricsService.eventsDropped(2);
+
+        assertEquals(5, gameMetricsService.getRegistry().get("treasuremap.events.dropped").counter().count());
+    }
+
+    @Test
+    void gameMetricsService_whenMetricsAreDisabled_shouldNeitherCountNorReadTheClock_ok() {
+        GameMetricsService disabledGameMetricsService = new GameMetricsService(new TreasureMapProperties());
+        GamePhaseClock clock = disabledGameMetricsService.startClock();
+
+        clock.lap(GamePhase.READ);
+        disabledGameMetricsService.moveBlocked(GameEventType.MOUNTAIN);
+        disabledGameMetricsService.eventsDropped(3);
+        disabledGameMetricsService.gameOver(clock);
+
+        assertFalse(disabledGameMetricsService.isEnabled());
+        assertNull(disabledGameMetricsService.getRegistry());
+        assertEquals(0, clock.getNanos(GamePhase.READ));
+        assertEquals(0, disabledGameMetricsService.getNbBlockedMoves());
+    }
+
+    private int playAllTurns(Game game, AdventurerPopulation population) {
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+        GameGrid gameGrid = new GameGrid(game);
+        int turn = 0;
+        while (turnScheduler.hasActiveAdventurers()) {
+            for (int position = 0; position < turnScheduler.getNbActiveAdventurers(); position++) {
+                int index = turnScheduler.getActiveAdventurer(position);
+                moveAdventurerService.checkIfAdventurerIsDoneMoving(population, index, turn);
+                if (!population.isDoneMoving(index)) {
+                    moveAdventurerService.playMove(gameGrid, population, index, turn);
+                }
+            }
+            turnScheduler.removeDoneAdventurers(population);
+            turn++;
+        }
+        return turn;
+    }
+
+    private Game generateGame() {
+        Game game = new Game();
+        game.setGameMap(new GameMap().setWidth(2).setHeight(2));
+        GameAssetsIndex assetsIndex = new GameAssetsIndex(game);
+        game.getMountainCells().add(gameAssetsCreatorService.createMountain(1, 0, assetsIndex, () -> "M - 1 - 0"));
+        game.getTreasureCells().add(gameAssetsCreatorService.createTreasure(0, 1, 1, assetsIndex, () -> "T - 0 - 1 - 1"));
+        game.getAdventurers().add(gameAssetsCreatorService.createAdventurer("Lara", 0, 0, Orientation.S, "AAGAAA", assetsIndex, () -> "A - Lara"));
+        game.getAdventurers().add(gameAssetsCreatorService.createAdventurer("Indiana", 1, 1, Orientation.N, "ADAA", assetsIndex, () -> "A - Indiana"));
+        game.getAdventurers().add(gameAssetsCreatorService.createAdventurer("Sydney", 2, 1, Orientation.N, "G", assetsIndex, () -> "A - Sydney"));
+        return game;
+    }
+
+    private static TreasureMapProperties createProperties() {
+        TreasureMapProperties properties = new TreasureMapProperties();
+        properties.getEvents().setLevel(EventLevel.OFF);
+        properties.getMetrics().setEnabled(true);
+        return properties;
+    }
+}
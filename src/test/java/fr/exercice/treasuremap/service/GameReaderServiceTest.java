@@ -0,0 +1,60 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.model.GamePhaseClock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameReaderServiceTest {
+
+    private static final Path TEST_FILES_DIR = Paths.get("", "src", "test", "java", "resources", "testFiles");
+
+    private final TreasureMapProperties properties = new TreasureMapProperties();
+    private final InputFileService inputFileService = new InputFileService();
+    private final InputValidationService inputValidationService = new InputValidationService(properties);
+    private final GameAssetsCreatorService gameAssetsCreatorService = new GameAssetsCreatorService();
+    private final BinaryInputFileService binaryInputFileService = new BinaryInputFileService(inputFileService, inputValidationService, gameAssetsCreatorService);
+    private final GameReaderService gameReaderService = new GameReaderService(inputFileService, inputValidationService, gameAssetsCreatorService,
+            new MappedInputParserService(inputFileService, inputValidationService, gameAssetsCreatorService), binaryInputFileService, properties);
+    private final OutputFileService outputFileService = new OutputFileService();
+
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * Le même jeu est créé depuis le fichier texte, lu ligne par ligne, depuis son contenu reçu par le serveur et depuis sa conversion au format binaire.
+     */
+    @Test
+    void generateGame_withEveryInputFormat_shouldCreateTheSameGame_ok() throws IOException {
+        Path inputFilePath = TEST_FILES_DIR.resolve("game2.txt");
+        Path binaryFilePath = tempDir.resolve("game2.tmb");
+
+        Game fileGame = gameReaderService.generateGame(inputFilePath, new GamePhaseClock(false));
+        binaryInputFileService.writeBinary(fileGame, binaryFilePath);
+        Game contentGame = gameReaderService.generateGame(Files.readAllBytes(inputFilePath), new GamePhaseClock(false));
+        Game binaryContentGame = gameReaderService.generateGame(Files.readAllBytes(binaryFilePath), new GamePhaseClock(false));
+        Game binaryFileGame = gameReaderService.generateGame(binaryFilePath, new GamePhaseClock(false));
+
+        byte[] expectedOutput = outputFileService.getOutput(fileGame);
+        assertArrayEquals(expectedOutput, outputFileService.getOutput(contentGame), "Le jeu créé depuis le contenu texte est incorrect");
+        assertArrayEquals(expectedOutput, outputFileService.getOutput(binaryContentGame), "Le jeu créé depuis le contenu binaire est incorrect");
+        assertArrayEquals(expectedOutput, outputFileService.getOutput(binaryFileGame), "Le jeu créé depuis le fichier binaire est incorrect");
+    }
+
+    @Test
+    void generateGame_whenTheCellIsNotEmpty_throwsIllegalArgumentException() throws IOException {
+        byte[] inputContent = Files.readAllBytes(TEST_FILES_DIR.resolve("game5_notWorking_becauseNotEmptyCell.txt"));
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> gameReaderService.generateGame(inputContent, new GamePhaseClock(false)));
+
+        assertTrue(exception.getMessage().startsWith("Impossible de créer l'aventurier de la ligne A - Minnesota - 1 - 1 - E - GGADADDAAA"));
+    }
+}
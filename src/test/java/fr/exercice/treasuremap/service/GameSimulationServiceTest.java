@@ -0,0 +1,67 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.Adventurer;
+import fr.exercice.treasuremap.model.AdventurerPopulation;
+import fr.exercice.treasuremap.model.EventLevel;
+import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.model.Orientation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static fr.exercice.treasuremap.utils.TestUtils.generateGame;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSimulationServiceTest {
+
+    private final TreasureMapProperties properties = createProperties();
+    private final GameEventService gameEventService = new GameEventService(properties);
+    private final GameMetricsService gameMetricsService = new GameMetricsService(properties);
+    private final MoveAdventurerService moveAdventurerService = new MoveAdventurerService(gameEventService, gameMetricsService);
+    private final GameSimulationService gameSimulationService = new GameSimulationService(properties, gameEventService, moveAdventurerService,
+            new ParallelTurnService(moveAdventurerService, gameEventService, gameMetricsService), new CheckpointService(properties), new TrajectoryService(properties));
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gameEventService.destroy();
+    }
+
+    /**
+     * Lara ramasse le trésor, est arrêtée par le bord de la carte puis revient au sud : la partie est la même avec la grille dense et la carte creuse.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void playAllTurns_shouldPlayEveryMoveOfTheAdventurers_ok(boolean sparseMap) {
+        properties.getSimulation().setSparseMap(sparseMap);
+        Game game = generateGame();
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+
+        int nbTurns = gameSimulationService.playAllTurns(game, population);
+        population.writeTo(game.getAdventurers());
+
+        assertEquals(10, nbTurns, "Les 9 mouvements de Lara sont joués, la fin de ses mouvements est constatée au tour suivant");
+        Adventurer lara = game.getAdventurers().getFirst();
+        assertTrue(lara.isDoneMoving(), "L'aventurier doit avoir terminé ses mouvements");
+        assertEquals(0, lara.getPosX(), "La position X de l'aventurier est incorrecte");
+        assertEquals(3, lara.getPosY(), "La position Y de l'aventurier est incorrecte");
+        assertEquals(Orientation.S, lara.getOrientation(), "L'orientation de l'aventurier est incorrecte");
+        assertEquals(1, lara.getNbTreasure(), "Le nombre de trésors de l'aventurier est incorrect");
+        assertEquals(1, game.getTreasureCells().getFirst().getNbTreasure(), "Le nombre de trésors restants est incorrect");
+    }
+
+    @Test
+    void playAllTurns_whenEveryAdventurerIsDone_shouldNotPlayAnyTurn_ok() {
+        Game game = generateGame();
+        game.getAdventurers().getFirst().setDoneMoving(true);
+
+        assertEquals(0, gameSimulationService.playAllTurns(game, new AdventurerPopulation(game.getAdventurers())));
+    }
+
+    private static TreasureMapProperties createProperties() {
+        TreasureMapProperties properties = new TreasureMapProperties();
+        properties.getEvents().setLevel(EventLevel.OFF);
+        return properties;
+    }
+}
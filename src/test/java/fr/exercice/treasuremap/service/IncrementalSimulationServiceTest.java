@@ -0,0 +1,145 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static fr.exercice.treasuremap.utils.TestUtils.generateAdventurer;
+import static fr.exercice.treasuremap.utils.TestUtils.generateGame;
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalSimulationServiceTest {
+
+    private final TreasureMapProperties properties = new TreasureMapProperties();
+    private final IncrementalSimulationService incrementalSimulationService = new IncrementalSimulationService(properties);
+
+    @TempDir
+    private Path tempDir;
+
+    private Path inputFilePath;
+
+    @BeforeEach
+    void setUp() {
+        properties.getIncremental().setEnabled(true);
+        inputFilePath = tempDir.resolve("game.txt");
+    }
+
+    /**
+     * Lara et Indiana ont les plus longs scripts de la partie précédente et sont allongés, Sydney avait terminé avant eux et reste terminée.
+     */
+    @Test
+    void resume_whenOnlyTheLongestMovesAreAppended_shouldReloadTheFinalState_ok() {
+        saveFinalState("AADADAGGA", "GGADADAAA", "AAD");
+
+        Game game = generateGameWithMoves("AADADAGGAD", "GGADADAAAAA", "AAD");
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        IncrementalSession session = incrementalSimulationService.startSession(inputFilePath, game);
+
+        assertEquals(9, incrementalSimulationService.resume(session, game, population));
+        assertEquals(9, session.getStartTurn());
+        assertEquals(0, population.getPosX(0));
+        assertEquals(3, population.getPosY(0));
+        assertEquals(Orientation.O, population.getOrientation(0));
+        assertEquals(1, population.getNbTreasure(0));
+        assertFalse(population.isDoneMoving(0));
+        assertFalse(population.isDoneMoving(1));
+        assertTrue(population.isDoneMoving(2));
+        assertEquals(1, game.getTreasureCells().getFirst().getNbTreasure());
+        assertEquals(3, game.getAdventurers().getFirst().getPosY(), "L'état repris doit être recopié dans les aventuriers du jeu");
+    }
+
+    @Test
+    void resume_whenTheMovesOfAnAdventurerWhoFinishedEarlierAreAppended_returnsZero() {
+        saveFinalState("AADADAGGA", "GGADADAAA", "AAD");
+
+        assertResumeFails(generateGameWithMoves("AADADAGGA", "GGADADAAA", "AADA"));
+    }
+
+    @Test
+    void resume_whenTheMovesOfAnAdventurerNoLongerStartWithThePreviousOnes_returnsZero() {
+        saveFinalState("AADADAGGA", "GGADADAAA", "AAD");
+
+        assertResumeFails(generateGameWithMoves("AADADAGGD", "GGADADAAA", "AAD"));
+        assertResumeFails(generateGameWithMoves("AADADAGG", "GGADADAAA", "AAD"));
+    }
+
+    @Test
+    void resume_whenTheGameChangesOtherwise_returnsZero() {
+        saveFinalState("AADADAGGA", "GGADADAAA", "AAD");
+
+        Game gameWithTreasures = generateGameWithMoves("AADADAGGA", "GGADADAAA", "AAD");
+        gameWithTreasures.getTreasureCells().getFirst().setNbTreasure(3);
+        assertResumeFails(gameWithTreasures);
+        Game gameWithMountains = generateGameWithMoves("AADADAGGA", "GGADADAAA", "AAD");
+        gameWithMountains.getMountainCells().getFirst().setPosX(2);
+        assertResumeFails(gameWithMountains);
+        Game gameWithAnotherStart = generateGameWithMoves("AADADAGGA", "GGADADAAA", "AAD");
+        gameWithAnotherStart.getAdventurers().getLast().setOrientation(Orientation.N);
+        assertResumeFails(gameWithAnotherStart);
+    }
+
+    @Test
+    void resume_whenTheStateIsCorrupted_returnsZero() throws IOException {
+        saveFinalState("AADADAGGA", "GGADADAAA", "AAD");
+        Path statePath = incrementalSimulationService.getStatePath(inputFilePath);
+        byte[] state = Files.readAllBytes(statePath);
+        state[state.length / 2] ^= 1;
+        Files.write(statePath, state);
+
+        assertResumeFails(generateGameWithMoves("AADADAGGAD", "GGADADAAAAA", "AAD"));
+    }
+
+    @Test
+    void saveState_whenIncrementalSimulationIsDisabled_shouldNotWriteAnything() {
+        properties.getIncremental().setEnabled(false);
+        Game game = generateGameWithMoves("AADADAGGA", "GGADADAAA", "AAD");
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        IncrementalSession session = incrementalSimulationService.startSession(inputFilePath, game);
+
+        incrementalSimulationService.saveState(session, population, game.getTreasureCells());
+
+        assertFalse(session.isEnabled());
+        assertEquals(0, incrementalSimulationService.resume(session, game, population));
+        assertFalse(Files.exists(incrementalSimulationService.getStatePath(inputFilePath)));
+    }
+
+    /**
+     * Écrit l'état final d'une partie dont Lara a ramassé un trésor et fini en 0 - 3 vers l'ouest
+     */
+    private void saveFinalState(String laraMoves, String indianaMoves, String sydneyMoves) {
+        Game game = generateGameWithMoves(laraMoves, indianaMoves, sydneyMoves);
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        IncrementalSession session = incrementalSimulationService.startSession(inputFilePath, game);
+        population.setPosition(0, 0, 3);
+        population.setOrientation(0, Orientation.O);
+        population.addTreasure(0);
+        game.getTreasureCells().getFirst().setNbTreasure(1);
+        for (int index = 0; index < population.getSize(); index++) {
+            population.setDoneMoving(index);
+        }
+        incrementalSimulationService.saveState(session, population, game.getTreasureCells());
+    }
+
+    private void assertResumeFails(Game game) {
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        IncrementalSession session = incrementalSimulationService.startSession(inputFilePath, game);
+
+        assertEquals(0, incrementalSimulationService.resume(session, game, population));
+        assertEquals(1, population.getPosY(0), "La population ne doit pas être modifiée");
+        assertFalse(population.isDoneMoving(2));
+    }
+
+    private static Game generateGameWithMoves(String laraMoves, String indianaMoves, String sydneyMoves) {
+        Game game = generateGame();
+        game.getAdventurers().getFirst().setMoves(laraMoves);
+        game.getAdventurers().add(generateAdventurer("Indiana").setPosX(3).setPosY(2).setOrientation(Orientation.N).setMoves(indianaMoves));
+        game.getAdventurers().add(generateAdventurer("Sydney").setPosX(0).setPosY(0).setOrientation(Orientation.E).setMoves(sydneyMoves));
+        return game;
+    }
+}
@@ -1,14 +1,18 @@
 package fr.exercice.treasuremap.service;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
@@ -44,8 +48,8 @@ class InputFileServiceTest {
 
     private static Stream<Arguments> wrongInputFilePaths() {
         return Stream.of(
-                Arguments.of(Paths.get("src/test/java/resources/inputFiles/game.pdf").toString(), IllegalArgumentException.class, "L'extension du fichier doit être '.txt', veuillez réessayer."),
-                Arguments.of(Paths.get("src/test/java/resources/inputFiles/game.pdf").toString(), IllegalArgumentException.class, "L'extension du fichier doit être '.txt', veuillez réessayer."),
+                Arguments.of(Paths.get("src/test/java/resources/inputFiles/game.pdf").toString(), IllegalArgumentException.class, "L'extension du fichier doit être '.txt' ou '.tmb', veuillez réessayer."),
+                Arguments.of(Paths.get("src/test/java/resources/inputFiles/game.pdf").toString(), IllegalArgumentException.class, "L'extension du fichier doit être '.txt' ou '.tmb', veuillez réessayer."),
                 Arguments.of(" ", IllegalStateException.class, "Le chemin de fichier entré est vide, veuillez réessayer.")
         );
     }
@@ -55,19 +59,21 @@ class InputFileServiceTest {
             ("src/test/java/resources/testFiles/game1.txt, 6"),
             ("src/test/java/resources/testFiles/game2.txt, 8"),
             ("src/test/java/resources/testFiles/game3.txt, 7")})
-    void readFile_ok(String filePath, Integer expectedSize) throws IOException {
+    void openFile_ok(String filePath, Integer expectedSize) throws IOException {
 
-        assertDoesNotThrow(() -> inputFileService.readFile(filePath));
-        List<String> inputLines = inputFileService.readFile(filePath);
-        assertThat(inputLines).as("La liste des inputs ne doit pas être vide").isNotEmpty()
-                .as("La liste des inputs n'a pas la taille attendue").hasSize(expectedSize);
+        assertDoesNotThrow(() -> inputFileService.openFile(filePath).close());
+        try (BufferedReader reader = inputFileService.openFile(filePath)) {
+            List<String> inputLines = reader.lines().toList();
+            assertThat(inputLines).as("La liste des inputs ne doit pas être vide").isNotEmpty()
+                    .as("La liste des inputs n'a pas la taille attendue").hasSize(expectedSize);
+        }
     }
 
     @Test
-    void readFile_whenFileDoesNotExist_throwsNoSuchFileException() {
+    void openFile_whenFileDoesNotExist_throwsNoSuchFileException() {
         String filePath = "src/test/java/resources/inputFiles/game.txt";
 
-        Exception exception = assertThrowsExactly(NoSuchFileException.class, () -> inputFileService.readFile(filePath));
+        Exception exception = assertThrowsExactly(NoSuchFileException.class, () -> inputFileService.openFile(filePath));
 
         assertThat(exception.getMessage()).contains("Le fichier spécifié est introuvable : " + Paths.get(filePath));
     }
@@ -86,4 +92,37 @@ class InputFileServiceTest {
         //Les éléments de l'array ne doivent pas contenir de whitespace
         assertFalse(Arrays.stream(cleanSplitElements).anyMatch(s -> s.contains(" ")));
     }
+
+    @Test
+    void findInputFiles_withDirectory_shouldIgnoreResultFiles_ok(@TempDir Path tempDir) throws IOException {
+        Files.createFile(tempDir.resolve("game2.txt"));
+        Files.createFile(tempDir.resolve("game1.txt"));
+        Files.createFile(tempDir.resolve("game1_result.txt"));
+        Files.createFile(tempDir.resolve("notes.md"));
+
+        List<Path> inputFiles = inputFileService.findInputFiles(tempDir.toString());
+
+        assertEquals(List.of(tempDir.resolve("game1.txt"), tempDir.resolve("game2.txt")), inputFiles);
+    }
+
+    @Test
+    void findInputFiles_withGlob_ok(@TempDir Path tempDir) throws IOException {
+        Files.createDirectories(tempDir.resolve("europe"));
+        Files.createFile(tempDir.resolve("game1.txt"));
+        Files.createFile(tempDir.resolve("europe").resolve("game2.txt"));
+        Files.createFile(tempDir.resolve("europe").resolve("carte.txt"));
+
+        assertEquals(List.of(tempDir.resolve("europe").resolve("game2.txt"), tempDir.resolve("game1.txt")),
+                inputFileService.findInputFiles(tempDir + "/**game*.txt"));
+        assertEquals(List.of(tempDir.resolve("game1.txt")), inputFileService.findInputFiles(tempDir + "/game*.txt"));
+    }
+
+    @Test
+    void findInputFiles_whenDirectoryDoesNotExist_throwsIllegalArgumentException(@TempDir Path tempDir) {
+        String directory = tempDir.resolve("inconnu").toString();
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> inputFileService.findInputFiles(directory));
+
+        assertThat(exception.getMessage()).contains("Le répertoire des fichiers d'entrée est introuvable : ");
+    }
 }
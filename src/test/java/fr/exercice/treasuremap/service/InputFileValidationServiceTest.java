@@ -0,0 +1,148 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.InputValidationReport;
+import fr.exercice.treasuremap.model.InputValidationReport.LineError;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputFileValidationServiceTest {
+
+    private final InputFileService inputFileService = new InputFileService();
+    private final InputValidationService inputValidationService = new InputValidationService(new TreasureMapProperties());
+    private final GameAssetsCreatorService gameAssetsCreatorService = new GameAssetsCreatorService();
+    private final InputFileValidationService inputFileValidationService = new InputFileValidationService(inputFileService, inputValidationService, gameAssetsCreatorService);
+
+    @TempDir
+    private Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 8})
+    void validate_shouldReportAllTheErrorsWithTheirLineNumber_ko(int nbChunks) throws IOException {
+        Path inputFile = writeInputFile("""
+                C - 5 - 6
+                M - 1 - 0
+                M - 1 - 9
+                T - 2 - 3 - 0
+                T - 1 - 0 - 2
+                A - Lara - 1 - 1 - S - AADADAGGA
+                X - 1 - 1
+                A - Lara - 2 - 2 - N - A
+                A - Indiana - 3 - 3 - Z - A
+                A - Sydney - 4 - 4 - E - AXA
+                """);
+
+        InputValidationReport report = inputFileValidationService.validate(inputFile, nbChunks);
+
+        assertFalse(report.isValid());
+        assertEquals(10, report.nbLines());
+        assertEquals(List.of(3L, 4L, 5L, 7L, 8L, 9L, 10L), report.errors().stream().map(LineError::lineNumber).toList());
+        assertEquals("La quantité d'un des trésors est invalide. Elle doit être de 1 ou plus", report.errors().get(1).message());
+        assertEquals("Il existe déjà une montagne à la position 1 - 0", report.errors().get(2).message());
+        assertEquals("Il existe déjà un aventurier qui se nomme Lara", report.errors().get(4).message());
+        assertEquals("L'orientation d'un des aventuriers ne correspond pas à un point cardinal", report.errors().get(5).message());
+        assertEquals("L'un des mouvements d'un des aventuriers n'est pas valide", report.errors().get(6).message());
+        assertEquals("Ligne 10 : L'un des mouvements d'un des aventuriers n'est pas valide", report.errors().get(6).toString());
+    }
+
+    @Test
+    void validate_withAValidFile_shouldReportNoError_ok() throws IOException {
+        Path inputFile = writeInputFile("""
+                C - 3 - 4\r
+                M - 1 - 0\r
+                T - 0 - 3 - 2\r
+                A - Lara - 1 - 1 - S - AADADAGGA\r
+                """);
+
+        InputValidationReport report = inputFileValidationService.validate(inputFile);
+
+        assertTrue(report.isValid());
+        assertEquals(4, report.nbLines());
+    }
+
+    @Test
+    void validate_withAnInvalidMap_shouldStillCheckTheOtherLines_ko() throws IOException {
+        Path inputFile = writeInputFile("""
+                C - 0 - 6
+                M - 1 - 0
+                A - Lara - 1 - 0 - S - A
+                """);
+
+        InputValidationReport report = inputFileValidationService.validate(inputFile, 2);
+
+        assertEquals(List.of(1L, 3L), report.errors().stream().map(LineError::lineNumber).toList());
+        assertEquals("La carte a une hauteur ou une largeur inférieure à 1", report.errors().getFirst().message());
+    }
+
+    /**
+     * Les positions des lignes qui suivent une carte redéfinie dépendent de la nouvelle carte, même dans un autre bloc.
+     */
+    @Test
+    void validate_whenTheMapIsRedefined_shouldCheckTheNextLinesWithTheNewMap_ko() throws IOException {
+        Path inputFile = writeInputFile("""
+                C - 2 - 2
+                M - 1 - 0
+                C - 20 - 20
+                M - 10 - 10
+                M - 11 - 11
+                M - 12 - 12
+                A - Lara - 30 - 1 - S - A
+                """);
+
+        InputValidationReport report = inputFileValidationService.validate(inputFile, 4);
+
+        assertEquals(List.of(7L), report.errors().stream().map(LineError::lineNumber).toList());
+    }
+
+    @Test
+    void validate_whenTheLastLineIsNotAnAdventurer_shouldReportIt_ko() throws IOException {
+        Path inputFile = writeInputFile("""
+                C - 3 - 4
+                A - Lara - 1 - 1 - S - A
+                M - 1 - 0
+                """);
+
+        InputValidationReport report = inputFileValidationService.validate(inputFile, 2);
+
+        assertEquals(List.of(3L), report.errors().stream().map(LineError::lineNumber).toList());
+    }
+
+    @Test
+    void validate_withAnEmptyFile_shouldReportTheFirstLine_ko() throws IOException {
+        InputValidationReport report = inputFileValidationService.validate(writeInputFile(""));
+
+        assertEquals(0, report.nbLines());
+        assertEquals(List.of(1L), report.errors().stream().map(LineError::lineNumber).toList());
+    }
+
+    @Test
+    void writeReport_shouldWriteTheErrorsThenDeleteTheReportOnceTheFileIsValid_ok() throws IOException {
+        Path inputFile = writeInputFile("C - 3 - 4");
+        InputValidationReport invalidReport = new InputValidationReport(2, List.of(new LineError(2, "Erreur")));
+
+        Path reportPath = inputFileValidationService.writeReport(invalidReport, inputFile);
+
+        assertEquals(tempDir.resolve("input_errors.log"), reportPath);
+        assertEquals(List.of("Ligne 2 : Erreur"), Files.readAllLines(reportPath));
+
+        inputFileValidationService.writeReport(new InputValidationReport(2, List.of()), inputFile);
+
+        assertFalse(Files.exists(reportPath));
+    }
+
+    private Path writeInputFile(String content) throws IOException {
+        Path inputFile = tempDir.resolve("input.txt");
+        Files.writeString(inputFile, content, StandardCharsets.UTF_8);
+        return inputFile;
+    }
+}
@@ -1,11 +1,12 @@
 package fr.exercice.treasuremap.service;
 
-import lombok.extern.slf4j.Slf4j;
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.GameMap;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -15,10 +16,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-@Slf4j
 class InputValidationServiceTest {
 
-    private final InputValidationService inputValidationService = new InputValidationService();
+    private final InputValidationService inputValidationService = new InputValidationService(new TreasureMapProperties());
 
     //On utilise la vraie méthode getCleanSplitElements du service pour les lignes vérifiées afin de garantir que les tests fonctionnent toujours si elle venait à changer.
     private final InputFileService inputFileService = new InputFileService();
@@ -64,13 +64,28 @@ class InputValidationServiceTest {
         assertThat(exception.getMessage()).contains(expectedExceptionMessage);
     }
 
+    @Test
+    void checkMapSize_whenTheSurfaceOverflowsAnInt_throwsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> inputValidationService.checkMapSize(65_536, 65_536));
+    }
+
+    @Test
+    void checkMapSize_withSparseMap_shouldOnlyCheckThatTheMapIsNotEmpty_ok() {
+        TreasureMapProperties properties = new TreasureMapProperties();
+        properties.getSimulation().setSparseMap(true);
+        InputValidationService sparseInputValidationService = new InputValidationService(properties);
+
+        assertDoesNotThrow(() -> sparseInputValidationService.checkMapSize(1_000_000, 2_000_000));
+        assertThrows(IllegalArgumentException.class, () -> sparseInputValidationService.checkMapSize(0, 2_000_000));
+    }
+
     @ParameterizedTest
     @MethodSource("checkInputs_whenProcessingMountainLine_NotOk")
     void checkMountainLine_whenWrongInputs_throwsIllegalArgumentException(String line, String expectedExceptionMessage) {
-        setMapDimensions(15, 25);
+        GameMap gameMap = new GameMap().setWidth(15).setHeight(25);
         String[] split = inputFileService.getCleanSplitElements(line);
 
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> inputValidationService.checkMountainLine(line, split));
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> inputValidationService.checkMountainLine(line, split, gameMap));
 
         assertThat(exception.getMessage()).contains(expectedExceptionMessage);
     }
@@ -78,10 +93,10 @@ class InputValidationServiceTest {
     @ParameterizedTest
     @MethodSource("checkInputs_whenProcessingTreasureLine_NotOk")
     void checkTreasureLine_whenWrongInputs_throwsIllegalArgumentException(String line, String expectedExceptionMessage) {
-        setMapDimensions(18, 31);
+        GameMap gameMap = new GameMap().setWidth(18).setHeight(31);
         String[] split = inputFileService.getCleanSplitElements(line);
 
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> inputValidationService.checkTreasureLine(line, split));
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> inputValidationService.checkTreasureLine(line, split, gameMap));
 
         assertThat(exception.getMessage()).contains(expectedExceptionMessage);
     }
@@ -89,10 +104,10 @@ class InputValidationServiceTest {
     @ParameterizedTest
     @MethodSource("checkInputs_whenProcessingAdventurerLine_NotOk")
     void checkAdventurerLine_whenWrongInputs_throwsIllegalArgumentException(String line, String expectedExceptionMessage) {
-        setMapDimensions(7, 8);
+        GameMap gameMap = new GameMap().setWidth(7).setHeight(8);
         String[] split = inputFileService.getCleanSplitElements(line);
 
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> inputValidationService.checkAdventurerLine(line, split));
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> inputValidationService.checkAdventurerLine(line, split, gameMap));
 
         assertThat(exception.getMessage()).contains(expectedExceptionMessage);
     }
@@ -236,20 +251,4 @@ class InputValidationServiceTest {
                 Arguments.of(outOfMap, "La position d'un des aventuriers sort de la taille de la carte")
         );
     }
-
-    // Méthode utilitaire pour redéfinir les valeurs de mapWidth et mapHeight dans la classe
-    private void setMapDimensions(int width, int height) {
-        try {
-
-            Field fieldX = InputValidationService.class.getDeclaredField("mapWidth");
-            Field fieldY = InputValidationService.class.getDeclaredField("mapHeight");
-            fieldX.setAccessible(true);
-            fieldY.setAccessible(true);
-            fieldX.set(inputValidationService, width);
-            fieldY.set(inputValidationService, height);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            log.error(e.getMessage());
-            throw new RuntimeException(e);
-        }
-    }
 }
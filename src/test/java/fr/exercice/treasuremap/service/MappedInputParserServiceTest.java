@@ -0,0 +1,153 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.Adventurer;
+import fr.exercice.treasuremap.model.Cell;
+import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.model.Orientation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedInputParserServiceTest {
+
+    private final InputFileService inputFileService = new InputFileService();
+    private final InputValidationService inputValidationService = new InputValidationService(new TreasureMapProperties());
+    private final GameAssetsCreatorService gameAssetsCreatorService = new GameAssetsCreatorService();
+    private final MappedInputParserService mappedInputParserService = new MappedInputParserService(inputFileService, inputValidationService, gameAssetsCreatorService);
+
+    @TempDir
+    private Path tempDir;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 8})
+    void parseInto_shouldCreateAssetsInFileOrder_ok(int nbChunks) throws IOException {
+        Path inputFile = writeInputFile("""
+                C - 5 - 6\r
+                M - 1 - 0\r
+                t-2-3-  2
+                A - lara - 1 - 1 - S - AADADAGGA\r
+                M - 1 - 4
+                A - Élodie - 3 - 3 - o - GGA
+                T - 0 - 3 - 1
+                a - Sydney - 2 - 2 - e - a,d,g
+                """);
+        Game game = new Game();
+
+        assertTrue(mappedInputParserService.parseInto(game, inputFile, nbChunks));
+
+        assertEquals(5, game.getGameMap().getWidth());
+        assertEquals(6, game.getGameMap().getHeight());
+        assertEquals(2, game.getMountainCells().size());
+        assertPosition(game.getMountainCells().get(1), 1, 4);
+        assertEquals(2, game.getTreasureCells().size());
+        assertPosition(game.getTreasureCells().getFirst(), 2, 3);
+        assertEquals(2, game.getTreasureCells().getFirst().getNbTreasure());
+        assertEquals(3, game.getAdventurers().size());
+        Adventurer lara = game.getAdventurers().getFirst();
+        assertEquals("Lara", lara.getName());
+        assertEquals(Orientation.S, lara.getOrientation());
+        assertEquals("AADADAGGA", lara.getMoves());
+        assertEquals("Élodie", game.getAdventurers().get(1).getName());
+        assertEquals(Orientation.O, game.getAdventurers().get(1).getOrientation());
+        Adventurer sydney = game.getAdventurers().get(2);
+        assertEquals(2, sydney.getPosX());
+        assertEquals(Orientation.E, sydney.getOrientation());
+        assertEquals("AGDGG", sydney.getMoves(), "Les caractères qui ne sont ni A ni D sont des rotations à gauche");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    void parseInto_whenCellIsNotEmpty_throwsIllegalArgumentExceptionWithLineNumber(int nbChunks) throws IOException {
+        Path inputFile = writeInputFile("""
+                C - 3 - 4
+                M - 1 - 0
+                T - 0 - 3 - 2
+                T - 1 - 0 - 1
+                M - 8 - 8
+                A - Lara - 1 - 1 - S - A
+                """);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> mappedInputParserService.parseInto(new Game(), inputFile, nbChunks));
+
+        assertEquals("Ligne 4 : Impossible de créer le trésor de la ligne T - 1 - 0 - 1", exception.getMessage());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    void parseInto_whenLineIsInvalid_throwsTheFirstErrorWithLineNumber(int nbChunks) throws IOException {
+        Path inputFile = writeInputFile("""
+                C - 3 - 4
+                M - 1 - 0
+                T - 0 - 3 - 2
+                M - 2 - 9
+                T - 1 - 1 - 0
+                A - Lara - 1 - 1 - S - A
+                """);
+
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> mappedInputParserService.parseInto(new Game(), inputFile, nbChunks));
+
+        assertEquals("Ligne 4 : La position d'une des montagnes sort de la taille de la carte", exception.getMessage());
+    }
+
+    @Test
+    void parseInto_whenLineIsUnknown_throwsIllegalStateExceptionWithLineNumber() throws IOException {
+        Path inputFile = writeInputFile("""
+                C - 3 - 4
+                M - 1 - 0
+
+                A - Lara - 1 - 1 - S - A
+                """);
+
+        Exception exception = assertThrows(IllegalStateException.class, () -> mappedInputParserService.parseInto(new Game(), inputFile, 2));
+
+        assertEquals("Ligne 3 : " + InputValidationService.UNKNOWN_LINE_MESSAGE, exception.getMessage());
+    }
+
+    @Test
+    void parseInto_whenLastLineIsNotAnAdventurer_throwsIllegalStateExceptionWithLineNumber() throws IOException {
+        Path inputFile = writeInputFile("""
+                C - 3 - 4
+                A - Lara - 1 - 1 - S - A
+                M - 1 - 0
+                """);
+
+        Exception exception = assertThrows(IllegalStateException.class, () -> mappedInputParserService.parseInto(new Game(), inputFile, 2));
+
+        assertTrue(exception.getMessage().startsWith("Ligne 3 : Le fichier est mal formaté"));
+    }
+
+    @Test
+    void parseInto_whenMapIsRedefined_returnsFalseWithoutChangingTheGame() throws IOException {
+        Path inputFile = writeInputFile("""
+                C - 3 - 4
+                M - 1 - 0
+                C - 8 - 8
+                A - Lara - 6 - 6 - S - A
+                """);
+        Game game = new Game();
+
+        assertFalse(mappedInputParserService.parseInto(game, inputFile, 2));
+
+        assertNull(game.getGameMap());
+        assertTrue(game.getMountainCells().isEmpty());
+        assertTrue(game.getAdventurers().isEmpty());
+    }
+
+    private Path writeInputFile(String content) throws IOException {
+        return Files.writeString(tempDir.resolve("game.txt"), content, StandardCharsets.UTF_8);
+    }
+
+    private void assertPosition(Cell cell, int posX, int posY) {
+        assertEquals(posX, cell.getPosX(), "La position X est incorrecte");
+        assertEquals(posY, cell.getPosY(), "La position Y est incorrecte");
+    }
+}
@@ -1,12 +1,26 @@
 package fr.exercice.treasuremap.service;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.sun.management.ThreadMXBean;
+import fr.exercice.treasuremap.config.TreasureMapProperties;
 import fr.exercice.treasuremap.model.Adventurer;
+import fr.exercice.treasuremap.model.AdventurerPopulation;
+import fr.exercice.treasuremap.model.EventLevel;
 import fr.exercice.treasuremap.model.Game;
+import fr.exercice.treasuremap.model.GameGrid;
+import fr.exercice.treasuremap.model.GameMap;
 import fr.exercice.treasuremap.model.Orientation;
+import fr.exercice.treasuremap.model.TurnScheduler;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
 
 import static fr.exercice.treasuremap.utils.TestUtils.generateAdventurer;
 import static fr.exercice.treasuremap.utils.TestUtils.generateGame;
@@ -15,7 +29,9 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class MoveAdventurerServiceTest {
 
-    private final MoveAdventurerService moveAdventurerService = new MoveAdventurerService();
+    private final GameEventService gameEventService = new GameEventService(new TreasureMapProperties());
+    private final GameMetricsService gameMetricsService = new GameMetricsService(new TreasureMapProperties());
+    private final MoveAdventurerService moveAdventurerService = new MoveAdventurerService(gameEventService, gameMetricsService);
     private static Game game;
 
     @BeforeEach
@@ -23,100 +39,236 @@ class MoveAdventurerServiceTest {
         game = generateGame();
     }
 
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        gameEventService.destroy();
+    }
+
     @ParameterizedTest
     @CsvSource({("Sydney, 8, false"), ("Frodon, 15,true"), ("Nathan, 11,true")})
     void checkIfAdventurerIsDoneMoving_ok(String adventurerName, int turn, boolean expectedDoneMoving) {
-        Adventurer adventurer = generateAdventurer(adventurerName);
-        moveAdventurerService.checkIfAdventurerIsDoneMoving(adventurer, turn);
-        assertThat(adventurer.isDoneMoving())
+        AdventurerPopulation population = new AdventurerPopulation(List.of(generateAdventurer(adventurerName)));
+        moveAdventurerService.checkIfAdventurerIsDoneMoving(population, 0, turn);
+        assertThat(population.isDoneMoving(0))
                 .as(String.format("L'aventurier %s doit avoir le champ isDoneMoving à %s", adventurerName, expectedDoneMoving))
                 .isEqualTo(expectedDoneMoving);
     }
 
     @Test
     void playMove_ok() {
-        Adventurer adventurer = game.getAdventurers().stream().findFirst().get();
-        assertDoesNotThrow(() ->
-        {
-            for (int i = 0; i < adventurer.getMoves().length(); i++) {
-                moveAdventurerService.playMove(game, adventurer, i);
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        GameGrid gameGrid = new GameGrid(game);
+
+        for (int turn = 0; turn <= population.getNbMoves(0); turn++) {
+            moveAdventurerService.checkIfAdventurerIsDoneMoving(population, 0, turn);
+            if (!population.isDoneMoving(0)) {
+                moveAdventurerService.playMove(gameGrid, population, 0, turn);
             }
-        });
+        }
+        population.writeTo(game.getAdventurers());
+
+        Adventurer adventurer = game.getAdventurers().getFirst();
+        assertTrue(adventurer.isDoneMoving(), "L'aventurier doit avoir terminé ses mouvements");
+        assertEquals(0, adventurer.getPosX(), "La position X de l'aventurier est incorrecte");
+        assertEquals(3, adventurer.getPosY(), "La position Y de l'aventurier est incorrecte");
+        assertEquals(Orientation.S, adventurer.getOrientation(), "L'orientation de l'aventurier est incorrecte");
+        assertEquals(1, adventurer.getNbTreasure(), "Le nombre de trésors de l'aventurier est incorrect");
+        assertEquals(1, game.getTreasureCells().getFirst().getNbTreasure(), "Le nombre de trésors restants est incorrect");
     }
 
     @Test
     void playMove_whenMoveIsOutOfMap_shouldNotChangeAdventurerPositionAndOrientationAndNbTreasure() {
-        Adventurer adventurer = game.getAdventurers().stream().findFirst().get();
-        adventurer.setPosX(0);
-        adventurer.setOrientation(Orientation.O);
-        int posX = adventurer.getPosX();
-        int posY = adventurer.getPosY();
-        Orientation orientation = adventurer.getOrientation();
-        int nbTreasure = adventurer.getNbTreasure();
-
-        moveAdventurerService.playMove(game, adventurer, 0);
+        game.getAdventurers().getFirst().setPosX(0).setOrientation(Orientation.O);
 
-        assertEquals(posX, adventurer.getPosX(), "La position X de l'aventurier ne doit pas avoir changé");
-        assertEquals(posY, adventurer.getPosY(), "La position Y de l'aventurier ne doit pas avoir changé");
-        assertEquals(orientation, adventurer.getOrientation(), "L'orientation de l'aventurier ne doit pas avoir changé");
-        assertEquals(nbTreasure, adventurer.getNbTreasure(), "Le nombre de trésors de l'aventurier ne doit pas avoir changé");
+        assertFirstMoveDoesNotChangeAdventurer();
     }
 
     @Test
     void playMove_whenMoveIsOnMountainCell_shouldNotChangeAdventurerPositionAndOrientationAndNbTreasure() {
-        Adventurer adventurer = game.getAdventurers().stream().findFirst().get();
-        adventurer.setOrientation(Orientation.N);
-        int posX = adventurer.getPosX();
-        int posY = adventurer.getPosY();
-        Orientation orientation = adventurer.getOrientation();
-        int nbTreasure = adventurer.getNbTreasure();
+        game.getAdventurers().getFirst().setOrientation(Orientation.N);
 
-        moveAdventurerService.playMove(game, adventurer, 0);
-
-        assertEquals(posX, adventurer.getPosX(), "La position X de l'aventurier ne doit pas avoir changé");
-        assertEquals(posY, adventurer.getPosY(), "La position Y de l'aventurier ne doit pas avoir changé");
-        assertEquals(orientation, adventurer.getOrientation(), "L'orientation de l'aventurier ne doit pas avoir changé");
-        assertEquals(nbTreasure, adventurer.getNbTreasure(), "Le nombre de trésors de l'aventurier ne doit pas avoir changé");
+        assertFirstMoveDoesNotChangeAdventurer();
     }
 
     @Test
     void playMove_whenMoveIsOnAdventurerCell_shouldNotChangeAdventurerPositionAndOrientationAndNbTreasure() {
-        Adventurer adventurer = game.getAdventurers().stream().findFirst().get();
-
         Adventurer blockingAdventurer = generateAdventurer("Block");
         blockingAdventurer.setPosY(2);
         game.getAdventurers().add(blockingAdventurer);
 
-        int posX = adventurer.getPosX();
-        int posY = adventurer.getPosY();
-        Orientation orientation = adventurer.getOrientation();
-        int nbTreasure = adventurer.getNbTreasure();
+        assertFirstMoveDoesNotChangeAdventurer();
+    }
+
+    @Test
+    void playMove_whenMoveIsOnTreasure_shouldChangeAdventurerPositionAndNbTreasure() {
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        GameGrid gameGrid = new GameGrid(game);
+        int posX = population.getPosX(0);
+        int posY = population.getPosY(0);
+        Orientation orientation = population.getOrientation(0);
+        int nbTreasure = population.getNbTreasure(0);
 
-        moveAdventurerService.playMove(game, adventurer, 0);
+        moveAdventurerService.playMove(gameGrid, population, 0, 0);
+        moveAdventurerService.playMove(gameGrid, population, 0, 1);
 
-        assertEquals(posX, adventurer.getPosX(), "La position X de l'aventurier ne doit pas avoir changé");
-        assertEquals(posY, adventurer.getPosY(), "La position Y de l'aventurier ne doit pas avoir changé");
-        assertEquals(orientation, adventurer.getOrientation(), "L'orientation de l'aventurier ne doit pas avoir changé");
-        assertEquals(nbTreasure, adventurer.getNbTreasure(), "Le nombre de trésors de l'aventurier ne doit pas avoir changé");
+        assertEquals(posX, population.getPosX(0), "La position X de l'aventurier ne doit pas avoir changé");
+        assertNotEquals(posY, population.getPosY(0), "La position Y de l'aventurier doit avoir changé");
+        assertEquals(posY + 2, population.getPosY(0), "La position Y de l'aventurier est incorrecte");
+        assertEquals(orientation, population.getOrientation(0), "L'orientation de l'aventurier ne doit pas avoir changé");
+        assertNotEquals(nbTreasure, population.getNbTreasure(0), "Le nombre de trésors de l'aventurier doit avoir changé");
+        assertEquals(nbTreasure + 1, population.getNbTreasure(0), "Le nombre de trésors est incorrect");
     }
 
     @Test
-    void playMove_whenMoveIsOnTreasure_shouldChangeAdventurerPositionAndNbTreasure() {
-        Adventurer adventurer = game.getAdventurers().stream().findFirst().get();
-        int posX = adventurer.getPosX();
-        int posY = adventurer.getPosY();
-        Orientation orientation = adventurer.getOrientation();
-        int nbTreasure = adventurer.getNbTreasure();
-
-        moveAdventurerService.playMove(game, adventurer, 0);
-        moveAdventurerService.playMove(game, adventurer, 1);
-
-        assertEquals(posX, adventurer.getPosX(), "La position X de l'aventurier ne doit pas avoir changé");
-        assertNotEquals(posY, adventurer.getPosY(), "La position Y de l'aventurier doit avoir changé");
-        assertEquals(posY + 2, adventurer.getPosY(), "La position Y de l'aventurier est incorrecte");
-        assertEquals(orientation, adventurer.getOrientation(), "L'orientation de l'aventurier ne doit pas avoir changé");
-        assertNotEquals(nbTreasure, adventurer.getNbTreasure(), "Le nombre de trésors de l'aventurier doit avoir changé");
-        assertEquals(nbTreasure + 1, adventurer.getNbTreasure(), "Le nombre de trésors est incorrect");
+    void playMove_whenBlockingAdventurerHasMovedAway_shouldMoveOnItsPreviousCell() {
+        Adventurer blockingAdventurer = generateAdventurer("Block");
+        blockingAdventurer.setPosY(2).setOrientation(Orientation.E);
+        game.getAdventurers().add(blockingAdventurer);
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        GameGrid gameGrid = new GameGrid(game);
+
+        moveAdventurerService.playMove(gameGrid, population, 0, 0);
+        assertEquals(1, population.getPosY(0), "L'aventurier doit être bloqué par l'autre aventurier");
+
+        moveAdventurerService.playMove(gameGrid, population, 1, 0);
+        moveAdventurerService.playMove(gameGrid, population, 0, 0);
+        assertEquals(2, population.getPosX(1), "L'aventurier bloquant doit avoir avancé vers l'est");
+        assertEquals(2, population.getPosY(0), "L'aventurier doit avancer sur la case libérée");
+    }
+
+    @Test
+    void playMove_whenTreasureIsDepleted_shouldNotPickUpMoreTreasure() {
+        game.getTreasureCells().getFirst().setNbTreasure(1);
+        // L'aventurier descend sur le trésor, remonte puis redescend
+        game.getAdventurers().getFirst().setMoves("AADDADDA");
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        GameGrid gameGrid = new GameGrid(game);
+
+        for (int turn = 0; turn < population.getNbMoves(0); turn++) {
+            moveAdventurerService.playMove(gameGrid, population, 0, turn);
+        }
+
+        assertEquals(3, population.getPosY(0), "L'aventurier doit être revenu sur la case du trésor");
+        assertEquals(1, population.getNbTreasure(0), "L'aventurier ne peut ramasser qu'un seul trésor");
+        assertEquals(0, game.getTreasureCells().getFirst().getNbTreasure(), "La case ne doit plus contenir de trésor");
+    }
+
+    @Test
+    void playMove_withAdventurerPopulation_shouldNotAllocateMemory() {
+        // Les événements sont publiés au niveau TRACE, seule leur écriture par le thread dédié est désactivée
+        Logger logger = (Logger) LoggerFactory.getLogger(GameEventService.class);
+        Level level = logger.getLevel();
+        logger.setLevel(Level.OFF);
+        try {
+            // Un cycle qui ramasse le trésor, se heurte à la montagne, tourne à droite et à gauche et revient à sa position de départ
+            game.getAdventurers().getFirst().setMoves("AADDAAADDAAGGAAAGG");
+            AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+            GameGrid gameGrid = new GameGrid(game);
+            ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+            playAllMovesRepeatedly(gameGrid, population, 10_000);
+            // Le JIT peut encore allouer quelques octets pendant une mesure, une allocation par mouvement se retrouverait dans toutes les mesures
+            long allocatedBytes = Long.MAX_VALUE;
+            for (int measure = 0; measure < 5 && allocatedBytes > 0; measure++) {
+                long allocatedBytesBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+                long nbMoves = playAllMovesRepeatedly(gameGrid, population, 10_000);
+                allocatedBytes = Math.min(allocatedBytes, threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBytesBefore);
+                assertEquals(180_000, nbMoves, "Tous les mouvements doivent avoir été joués");
+            }
+
+            assertEquals(0, allocatedBytes, "Aucun octet ne doit être alloué pour jouer un mouvement");
+            assertEquals(1, population.getPosX(0), "L'aventurier doit être revenu à sa position X de départ");
+            assertEquals(1, population.getPosY(0), "L'aventurier doit être revenu à sa position Y de départ");
+        } finally {
+            logger.setLevel(level);
+        }
+    }
+
+    /**
+     * Lara tourne sur place pendant 4 tours avant d'avancer sur la case visée au même tour par Indiana, qui joue après elle dans l'ordre du fichier.
+     */
+    @Test
+    void playMove_withRotationRuns_shouldKeepTheTurnOfEachMove() throws InterruptedException {
+        TreasureMapProperties properties = new TreasureMapProperties();
+        properties.getEvents().setLevel(EventLevel.OFF);
+        GameEventService offGameEventService = new GameEventService(properties);
+        MoveAdventurerService offMoveAdventurerService = new MoveAdventurerService(offGameEventService, gameMetricsService);
+        Game traceGame = generateRotationRunGame();
+        Game offGame = generateRotationRunGame();
+
+        int nbTraceTurns = playAllTurns(moveAdventurerService, traceGame);
+        int nbOffTurns = playAllTurns(offMoveAdventurerService, offGame);
+        offGameEventService.destroy();
+
+        assertEquals(nbTraceTurns, nbOffTurns, "Le nombre de tours est incorrect");
+        Adventurer lara = offGame.getAdventurers().getFirst();
+        assertEquals(1, lara.getPosX(), "Lara doit avoir avancé au tour 4");
+        assertEquals(Orientation.O, lara.getOrientation(), "Lara doit avoir joué ses dernières rotations");
+        assertEquals(1, offGame.getAdventurers().get(1).getPosY(), "Indiana doit être bloquée par Lara");
+        for (int i = 0; i < traceGame.getAdventurers().size(); i++) {
+            Adventurer expected = traceGame.getAdventurers().get(i);
+            Adventurer actual = offGame.getAdventurers().get(i);
+            assertEquals(expected.getPosX(), actual.getPosX(), "La position X de l'aventurier est incorrecte");
+            assertEquals(expected.getPosY(), actual.getPosY(), "La position Y de l'aventurier est incorrecte");
+            assertEquals(expected.getOrientation(), actual.getOrientation(), "L'orientation de l'aventurier est incorrecte");
+            assertTrue(actual.isDoneMoving(), "L'aventurier doit avoir terminé ses mouvements");
+        }
+    }
+
+    private static Game generateRotationRunGame() {
+        Game game = new Game();
+        game.setGameMap(new GameMap().setWidth(3).setHeight(3));
+        game.getAdventurers().add(new Adventurer().setName("Lara").setPosX(0).setPosY(0).setOrientation(Orientation.O).setMoves("DGDDADD"));
+        game.getAdventurers().add(new Adventurer().setName("Indiana").setPosX(1).setPosY(1).setOrientation(Orientation.N).setMoves("DGDGA"));
+        return game;
+    }
+
+    private static int playAllTurns(MoveAdventurerService moveAdventurerService, Game game) {
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+        GameGrid gameGrid = new GameGrid(game);
+        int turn = 0;
+        while (turnScheduler.hasActiveAdventurers()) {
+            for (int position = 0; position < turnScheduler.getNbActiveAdventurers(); position++) {
+                int index = turnScheduler.getActiveAdventurer(position);
+                moveAdventurerService.checkIfAdventurerIsDoneMoving(population, index, turn);
+                if (!population.isDoneMoving(index)) {
+                    moveAdventurerService.playMove(gameGrid, population, index, turn);
+                }
+            }
+            turnScheduler.removeDoneAdventurers(population);
+            turn++;
+        }
+        population.writeTo(game.getAdventurers());
+        return turn;
+    }
+
+    private void assertFirstMoveDoesNotChangeAdventurer() {
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        GameGrid gameGrid = new GameGrid(game);
+        int posX = population.getPosX(0);
+        int posY = population.getPosY(0);
+        Orientation orientation = population.getOrientation(0);
+        int nbTreasure = population.getNbTreasure(0);
+
+        moveAdventurerService.playMove(gameGrid, population, 0, 0);
+
+        assertEquals(posX, population.getPosX(0), "La position X de l'aventurier ne doit pas avoir changé");
+        assertEquals(posY, population.getPosY(0), "La position Y de l'aventurier ne doit pas avoir changé");
+        assertEquals(orientation, population.getOrientation(0), "L'orientation de l'aventurier ne doit pas avoir changé");
+        assertEquals(nbTreasure, population.getNbTreasure(0), "Le nombre de trésors de l'aventurier ne doit pas avoir changé");
+    }
+
+    private long playAllMovesRepeatedly(GameGrid gameGrid, AdventurerPopulation population, int repetitions) {
+        long nbMoves = 0;
+        for (int i = 0; i < repetitions; i++) {
+            for (int turn = 0; turn < population.getNbMoves(0); turn++) {
+                moveAdventurerService.checkIfAdventurerIsDoneMoving(population, 0, turn);
+                moveAdventurerService.playMove(gameGrid, population, 0, turn);
+                nbMoves++;
+            }
+        }
+        return nbMoves;
     }
 
 }
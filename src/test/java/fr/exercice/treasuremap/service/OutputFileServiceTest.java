@@ -1,18 +1,23 @@
 package fr.exercice.treasuremap.service;
 
+import fr.exercice.treasuremap.model.Cell;
+import fr.exercice.treasuremap.model.CellType;
 import fr.exercice.treasuremap.model.Game;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
 
 import static fr.exercice.treasuremap.utils.TestUtils.generateGame;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertLinesMatch;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -43,4 +48,39 @@ class OutputFileServiceTest {
         List<String> expectedLines = Arrays.asList("C - 4 - 3", "M - 1 - 0", "T - 1 - 3 - 2", "A - Lara - 1 - 1 - S - 0");
         assertLinesMatch(expectedLines, outputLines, "Les lignes du fichier de sortie doivent correspondre aux objets contenus dans le Game entré en paramètre");
     }
+
+    @Test
+    void writeOutputFile_whenResultAlreadyExists_shouldReplaceItWithoutLeavingTemporaryFiles(@TempDir Path tempDir) throws IOException {
+        Path inputFilePath = tempDir.resolve("game.txt");
+        Path outputFilePath = tempDir.resolve("game_result.txt");
+        Files.writeString(outputFilePath, "Ancien résultat beaucoup plus long que le nouveau" + System.lineSeparator().repeat(100));
+
+        outputFileService.writeOutputFile(generateGame(), inputFilePath);
+
+        assertLinesMatch(List.of("C - 4 - 3", "M - 1 - 0", "T - 1 - 3 - 2", "A - Lara - 1 - 1 - S - 0"), Files.readAllLines(outputFilePath, StandardCharsets.UTF_8));
+        try (Stream<Path> fileList = Files.list(tempDir)) {
+            assertEquals(List.of(outputFilePath), fileList.toList(), "Seul le fichier de sortie doit rester dans le répertoire");
+        }
+    }
+
+    @Test
+    void writeOutputFile_whenResultIsLargerThanWriteBuffer_ok(@TempDir Path tempDir) throws IOException {
+        Game game = generateGame();
+        game.getAdventurers().getFirst().setName("Éléonore");
+        List<String> expectedLines = new ArrayList<>(List.of("C - 4 - 3", "M - 1 - 0"));
+        for (int i = 0; i < 20_000; i++) {
+            game.getTreasureCells().add(new Cell().setPosX(i).setPosY(i * 7).setNbTreasure(i % 3).setType(CellType.TREASURE));
+        }
+        expectedLines.add("T - 1 - 3 - 2");
+        for (int i = 0; i < 20_000; i++) {
+            if (i % 3 > 0) {
+                expectedLines.add("T - " + i + " - " + i * 7 + " - " + i % 3);
+            }
+        }
+        expectedLines.add("A - Éléonore - 1 - 1 - S - 0");
+
+        outputFileService.writeOutputFile(game, tempDir.resolve("game.txt"));
+
+        assertLinesMatch(expectedLines, Files.readAllLines(tempDir.resolve("game_result.txt"), StandardCharsets.UTF_8));
+    }
 }
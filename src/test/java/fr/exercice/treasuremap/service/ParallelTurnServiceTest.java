@@ -0,0 +1,130 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelTurnServiceTest {
+
+    private static final String MOVES = "AAAADG";
+
+    private final GameEventService gameEventService = createGameEventService();
+    private final GameMetricsService gameMetricsService = new GameMetricsService(new TreasureMapProperties());
+    private final MoveAdventurerService moveAdventurerService = new MoveAdventurerService(gameEventService, gameMetricsService);
+    private final ParallelTurnService parallelTurnService = new ParallelTurnService(moveAdventurerService, gameEventService, gameMetricsService);
+
+    /**
+     * Les parties sont très denses pour que des aventuriers se disputent les mêmes cases à chaque tour,
+     * et les trésors s'épuisent vite pour vérifier l'ordre des ramassages. Avec des tuiles, les aventuriers changent souvent de tuile.
+     */
+    @ParameterizedTest
+    @CsvSource({("1, 1, 0"), ("2, 3, 0"), ("3, 8, 0"), ("4, 16, 0"), ("5, 64, 0"), ("6, 1, 4"), ("7, 3, 2"), ("8, 8, 8"), ("9, 64, 4")})
+    void playTurn_shouldGiveTheSameResultAsTheSequentialEngine_ok(long seed, int nbWorkers, int tileSize) {
+        Game sequentialGame = generateDenseGame(seed);
+        Game parallelGame = generateDenseGame(seed);
+
+        int nbSequentialTurns = playSequentially(sequentialGame);
+        int nbParallelTurns = playInParallel(parallelGame, nbWorkers, tileSize);
+
+        assertEquals(nbSequentialTurns, nbParallelTurns, "Le nombre de tours est incorrect");
+        for (int i = 0; i < sequentialGame.getAdventurers().size(); i++) {
+            Adventurer expected = sequentialGame.getAdventurers().get(i);
+            Adventurer actual = parallelGame.getAdventurers().get(i);
+            String message = "L'aventurier " + expected.getName() + " est incorrect";
+            assertEquals(expected.getPosX(), actual.getPosX(), message);
+            assertEquals(expected.getPosY(), actual.getPosY(), message);
+            assertEquals(expected.getOrientation(), actual.getOrientation(), message);
+            assertEquals(expected.getNbTreasure(), actual.getNbTreasure(), message);
+            assertEquals(expected.isDoneMoving(), actual.isDoneMoving(), message);
+        }
+        for (int i = 0; i < sequentialGame.getTreasureCells().size(); i++) {
+            assertEquals(sequentialGame.getTreasureCells().get(i).getNbTreasure(), parallelGame.getTreasureCells().get(i).getNbTreasure(),
+                    "Le nombre de trésors restants est incorrect");
+        }
+    }
+
+    private int playSequentially(Game game) {
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+        GameGrid gameGrid = new GameGrid(game);
+        int turn = 0;
+        while (turnScheduler.hasActiveAdventurers()) {
+            for (int position = 0; position < turnScheduler.getNbActiveAdventurers(); position++) {
+                int index = turnScheduler.getActiveAdventurer(position);
+                moveAdventurerService.checkIfAdventurerIsDoneMoving(population, index, turn);
+                if (!population.isDoneMoving(index)) {
+                    moveAdventurerService.playMove(gameGrid, population, index, turn);
+                }
+            }
+            turnScheduler.removeDoneAdventurers(population);
+            turn++;
+        }
+        population.writeTo(game.getAdventurers());
+        return turn;
+    }
+
+    private int playInParallel(Game game, int nbWorkers, int tileSize) {
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+        GameGrid gameGrid = new GameGrid(game, tileSize);
+        ParallelTurnState state = new ParallelTurnState(population, gameGrid);
+        int turn = 0;
+        while (turnScheduler.hasActiveAdventurers()) {
+            parallelTurnService.playTurn(state, gameGrid, population, turnScheduler, turn, nbWorkers);
+            turnScheduler.removeDoneAdventurers(population);
+            turn++;
+        }
+        population.writeTo(game.getAdventurers());
+        return turn;
+    }
+
+    private static Game generateDenseGame(long seed) {
+        Random random = new Random(seed);
+        int width = 30;
+        int height = 25;
+        List<int[]> cells = new ArrayList<>();
+        for (int posX = 0; posX <= width; posX++) {
+            for (int posY = 0; posY <= height; posY++) {
+                cells.add(new int[]{posX, posY});
+            }
+        }
+        Collections.shuffle(cells, random);
+
+        Game game = new Game();
+        game.setGameMap(new GameMap().setWidth(width).setHeight(height));
+        int cell = 0;
+        for (int i = 0; i < 60; i++, cell++) {
+            game.getMountainCells().add(new Cell().setPosX(cells.get(cell)[0]).setPosY(cells.get(cell)[1]).setType(CellType.MOUTAIN));
+        }
+        for (int i = 0; i < 80; i++, cell++) {
+            game.getTreasureCells().add(new Cell().setPosX(cells.get(cell)[0]).setPosY(cells.get(cell)[1]).setNbTreasure(1 + random.nextInt(2)).setType(CellType.TREASURE));
+        }
+        for (int i = 0; i < 400; i++, cell++) {
+            StringBuilder moves = new StringBuilder();
+            for (int move = random.nextInt(60); move > 0; move--) {
+                moves.append(MOVES.charAt(random.nextInt(MOVES.length())));
+            }
+            game.getAdventurers().add(new Adventurer()
+                    .setName("Aventurier" + i)
+                    .setPosX(cells.get(cell)[0])
+                    .setPosY(cells.get(cell)[1])
+                    .setOrientation(Orientation.values()[random.nextInt(4)])
+                    .setMoves(moves.toString()));
+        }
+        return game;
+    }
+
+    private static GameEventService createGameEventService() {
+        TreasureMapProperties properties = new TreasureMapProperties();
+        properties.getEvents().setLevel(EventLevel.OFF);
+        return new GameEventService(properties);
+    }
+}
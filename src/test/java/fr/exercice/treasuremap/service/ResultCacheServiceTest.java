@@ -0,0 +1,152 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultCacheServiceTest {
+
+    private final TreasureMapProperties properties = new TreasureMapProperties();
+    private final OutputFileService outputFileService = new OutputFileService();
+    private final ResultCacheService resultCacheService = new ResultCacheService(properties, outputFileService);
+
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        properties.getCache().setEnabled(true);
+        properties.getCache().setDirectory(tempDir.resolve("cache").toString());
+    }
+
+    @Test
+    void computeKey_shouldDependOnTheContentOfTheFileAndNotOnItsPath_ok() throws IOException {
+        Path inputFilePath = Files.writeString(tempDir.resolve("game.txt"), "C - 3 - 4\nA - Lara - 1 - 1 - S - A\n");
+        Path copyFilePath = Files.writeString(tempDir.resolve("copy.txt"), "C - 3 - 4\nA - Lara - 1 - 1 - S - A\n");
+        Path otherFilePath = Files.writeString(tempDir.resolve("other.txt"), "C - 3 - 4\nA - Lara - 1 - 1 - S - AA\n");
+
+        String key = resultCacheService.computeKey(inputFilePath);
+
+        assertEquals(64, key.length());
+        assertEquals(key, resultCacheService.computeKey(copyFilePath));
+        assertNotEquals(key, resultCacheService.computeKey(otherFilePath));
+    }
+
+    @Test
+    void computeKey_shouldDependOnTheSparseMapOption_ok() throws IOException {
+        Path inputFilePath = Files.writeString(tempDir.resolve("game.txt"), "C - 300 - 400\nA - Lara - 1 - 1 - S - A\n");
+
+        String denseKey = resultCacheService.computeKey(inputFilePath);
+        properties.getSimulation().setSparseMap(true);
+
+        assertNotEquals(denseKey, resultCacheService.computeKey(inputFilePath), "La carte creuse change la validation de la taille de la carte");
+    }
+
+    @Test
+    void computeKey_whenCacheIsDisabledOrTrajectoryIsEnabled_returnsNull() throws IOException {
+        Path inputFilePath = Files.writeString(tempDir.resolve("game.txt"), "C - 3 - 4\n");
+        properties.getTrajectory().setEnabled(true);
+        assertNull(resultCacheService.computeKey(inputFilePath));
+
+        properties.getTrajectory().setEnabled(false);
+        properties.getCache().setEnabled(false);
+        assertNull(resultCacheService.computeKey(inputFilePath));
+    }
+
+    @Test
+    void writeCachedResult_shouldWriteTheStoredResultNextToAnotherInputFile_ok() throws IOException {
+        Path inputFilePath = writeGame("game", "C - 3 - 4");
+        String key = resultCacheService.computeKey(inputFilePath);
+        Path copyFilePath = Files.copy(inputFilePath, Files.createDirectories(tempDir.resolve("copies")).resolve("copy.txt"));
+
+        assertFalse(resultCacheService.writeCachedResult(key, copyFilePath));
+        resultCacheService.storeResult(key, inputFilePath);
+
+        assertTrue(resultCacheService.writeCachedResult(key, copyFilePath));
+        assertEquals("C - 3 - 4", Files.readString(tempDir.resolve("copies").resolve("copy_result.txt")));
+        assertTrue(Files.exists(resultCacheService.getCacheDirectory().resolve(key + ".txt")));
+    }
+
+    @Test
+    void writeCachedResult_whenOnlyOnDisk_shouldReadTheDiskCacheOfAPreviousRun_ok() throws IOException {
+        Path inputFilePath = writeGame("game", "C - 3 - 4");
+        String key = resultCacheService.computeKey(inputFilePath);
+        resultCacheService.storeResult(key, inputFilePath);
+        Files.delete(tempDir.resolve("game_result.txt"));
+
+        ResultCacheService restartedResultCacheService = new ResultCacheService(properties, outputFileService);
+
+        assertTrue(restartedResultCacheService.writeCachedResult(key, inputFilePath));
+        assertEquals("C - 3 - 4", Files.readString(tempDir.resolve("game_result.txt")));
+    }
+
+    @Test
+    void storeResult_whenTheDiskCacheIsFull_shouldRemoveTheLeastRecentlyUsedResult_ok() throws IOException {
+        properties.getCache().setMaxSize(DataSize.ofBytes(20));
+        properties.getCache().setMemoryMaxSize(DataSize.ofBytes(0));
+        Path firstFilePath = writeGame("first", "C - 1 - 1");
+        Path secondFilePath = writeGame("second", "C - 2 - 2");
+        Path thirdFilePath = writeGame("third", "C - 3 - 3");
+        String firstKey = resultCacheService.computeKey(firstFilePath);
+        String secondKey = resultCacheService.computeKey(secondFilePath);
+        String thirdKey = resultCacheService.computeKey(thirdFilePath);
+        resultCacheService.storeResult(firstKey, firstFilePath);
+        resultCacheService.storeResult(secondKey, secondFilePath);
+
+        assertTrue(resultCacheService.writeCachedResult(firstKey, firstFilePath), "Le premier résultat devient le plus récemment utilisé");
+        resultCacheService.storeResult(thirdKey, thirdFilePath);
+
+        assertTrue(resultCacheService.writeCachedResult(firstKey, firstFilePath));
+        assertFalse(resultCacheService.writeCachedResult(secondKey, secondFilePath));
+        assertTrue(resultCacheService.writeCachedResult(thirdKey, thirdFilePath));
+        assertFalse(Files.exists(resultCacheService.getCacheDirectory().resolve(secondKey + ".txt")));
+    }
+
+    @Test
+    void writeCachedResult_whenTheMaxSizeHasBeenReduced_shouldRemoveTheOldestResultsOfAPreviousRun_ok() throws IOException {
+        Path firstFilePath = writeGame("first", "C - 1 - 1");
+        Path secondFilePath = writeGame("second", "C - 2 - 2");
+        String firstKey = resultCacheService.computeKey(firstFilePath);
+        String secondKey = resultCacheService.computeKey(secondFilePath);
+        resultCacheService.storeResult(firstKey, firstFilePath);
+        resultCacheService.storeResult(secondKey, secondFilePath);
+        Files.setLastModifiedTime(resultCacheService.getCacheDirectory().resolve(secondKey + ".txt"), FileTime.fromMillis(0));
+        properties.getCache().setMaxSize(DataSize.ofBytes(10));
+
+        ResultCacheService restartedResultCacheService = new ResultCacheService(properties, outputFileService);
+
+        assertFalse(restartedResultCacheService.writeCachedResult(secondKey, secondFilePath));
+        assertTrue(restartedResultCacheService.writeCachedResult(firstKey, firstFilePath));
+    }
+
+    @Test
+    void storeResult_whenTheResultIsLargerThanTheCache_shouldNotStoreIt_ok() throws IOException {
+        properties.getCache().setMaxSize(DataSize.ofBytes(4));
+        properties.getCache().setMemoryMaxSize(DataSize.ofBytes(4));
+        Path inputFilePath = writeGame("game", "C - 3 - 4");
+        String key = resultCacheService.computeKey(inputFilePath);
+
+        resultCacheService.storeResult(key, inputFilePath);
+
+        assertFalse(resultCacheService.writeCachedResult(key, inputFilePath));
+        assertFalse(Files.exists(resultCacheService.getCacheDirectory()));
+    }
+
+    /**
+     * Écrit un fichier d'entrée et son fichier de sortie, le résultat étant ici la carte seule
+     */
+    private Path writeGame(String name, String result) throws IOException {
+        Path inputFilePath = Files.writeString(tempDir.resolve(name + ".txt"), result + "\n");
+        Files.writeString(tempDir.resolve(name + "_result.txt"), result);
+        return inputFilePath;
+    }
+}
@@ -0,0 +1,153 @@
+package fr.exercice.treasuremap.service;
+
+import fr.exercice.treasuremap.config.TreasureMapProperties;
+import fr.exercice.treasuremap.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fr.exercice.treasuremap.utils.TestUtils.generateAdventurer;
+import static fr.exercice.treasuremap.utils.TestUtils.generateGame;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrajectoryServiceTest {
+
+    private final TreasureMapProperties properties = new TreasureMapProperties();
+    private final TrajectoryService trajectoryService = new TrajectoryService(properties);
+
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * Hors du niveau TRACE, les suites de rotations sont jouées d'un coup : la trajectoire doit quand même donner l'orientation de chaque tour,
+     * celle des tours joués un par un au niveau TRACE.
+     */
+    @Test
+    void startTrajectory_shouldWriteTheStateOfEachTurnAsPlayedOneMoveAtATime_ok() throws IOException, InterruptedException {
+        properties.getTrajectory().setEnabled(true);
+        Path inputFilePath = tempDir.resolve("game.txt");
+        List<List<String>> tracePaths = new ArrayList<>();
+        playAllTurns(EventLevel.TRACE, null, tracePaths);
+
+        playAllTurns(EventLevel.OFF, inputFilePath, null);
+
+        try (TrajectoryReader reader = TrajectoryReader.open(trajectoryService.getTrajectoryPath(inputFilePath))) {
+            for (int id = 0; id < reader.getNbAdventurers(); id++) {
+                List<String> path = new ArrayList<>();
+                reader.readPath(id, (turn, posX, posY, orientation, nbTreasure) -> path.add(turn + " - " + posX + " - " + posY + " - " + orientation + " - " + nbTreasure));
+                assertEquals(tracePaths.get(id), path, "Trajectoire de " + reader.getName(id));
+            }
+        }
+    }
+
+    @Test
+    void startTrajectory_whenTrajectoryIsDisabled_returnsNull() {
+        AdventurerPopulation population = new AdventurerPopulation(generateGame().getAdventurers());
+
+        assertNull(trajectoryService.startTrajectory(tempDir.resolve("game.txt"), population, 0));
+        assertFalse(Files.exists(tempDir.resolve("game_trajectory.tmt")));
+    }
+
+    @Test
+    void exportPath_shouldWriteOneLinePerTurn_ok() throws IOException, InterruptedException {
+        properties.getTrajectory().setEnabled(true);
+        properties.getTrajectory().setDirectory(tempDir.resolve("trajectories").toString());
+        Files.createDirectories(tempDir.resolve("trajectories"));
+        Path inputFilePath = tempDir.resolve("game.txt");
+        playAllTurns(EventLevel.OFF, inputFilePath, null);
+
+        Path pathFilePath = trajectoryService.exportPath(trajectoryService.getTrajectoryPath(inputFilePath), "Lara");
+
+        assertEquals(tempDir.resolve("trajectories").resolve(InputFileService.getGameFileName(inputFilePath) + "_trajectory_Lara.csv"), pathFilePath);
+        List<String> lines = Files.readAllLines(pathFilePath);
+        assertEquals("0,1,1,S,0", lines.getFirst());
+        assertEquals(17, lines.size(), "Un état de départ puis un état par tour joué");
+        assertEquals("16,0,3,S,1", lines.getLast());
+    }
+
+    /**
+     * Un nom d'aventurier qui contient un séparateur de répertoire ne doit pas faire écrire la trajectoire ailleurs qu'à côté du fichier de trajectoire.
+     */
+    @Test
+    void exportPath_whenTheNameIsNotAFileName_shouldWriteNextToTheTrajectory_ok() throws IOException {
+        properties.getTrajectory().setEnabled(true);
+        Path inputFilePath = tempDir.resolve("game.txt");
+        AdventurerPopulation population = new AdventurerPopulation(List.of(generateAdventurer("../Lara.txt")));
+        trajectoryService.finishTrajectory(trajectoryService.startTrajectory(inputFilePath, population, 0));
+        Path trajectoryPath = trajectoryService.getTrajectoryPath(inputFilePath);
+
+        Path pathFilePath = trajectoryService.exportPath(trajectoryPath, "../Lara.txt");
+
+        assertEquals(tempDir.resolve(InputFileService.getGameFileName(inputFilePath) + "_trajectory____Lara_txt.csv"), pathFilePath);
+        assertEquals(List.of("0,1,1,S,0"), Files.readAllLines(pathFilePath));
+    }
+
+    @Test
+    void exportPath_whenNoAdventurerHasTheName_throwsIllegalArgumentException() throws IOException, InterruptedException {
+        properties.getTrajectory().setEnabled(true);
+        Path inputFilePath = tempDir.resolve("game.txt");
+        playAllTurns(EventLevel.OFF, inputFilePath, null);
+        Path trajectoryPath = trajectoryService.getTrajectoryPath(inputFilePath);
+
+        assertThrows(IllegalArgumentException.class, () -> trajectoryService.exportPath(trajectoryPath, "Sydney"));
+    }
+
+    /**
+     * Joue la partie tour par tour, comme le {@code GameController}, en écrivant sa trajectoire ou en relevant l'état des aventuriers à chaque tour.
+     */
+    private void playAllTurns(EventLevel level, Path inputFilePath, List<List<String>> paths) throws InterruptedException {
+        TreasureMapProperties eventProperties = new TreasureMapProperties();
+        eventProperties.getEvents().setLevel(level);
+        GameEventService gameEventService = new GameEventService(eventProperties);
+        MoveAdventurerService moveAdventurerService = new MoveAdventurerService(gameEventService, new GameMetricsService(eventProperties));
+        Game game = generateTrajectoryGame();
+        AdventurerPopulation population = new AdventurerPopulation(game.getAdventurers());
+        TurnScheduler turnScheduler = new TurnScheduler(population);
+        GameGrid gameGrid = new GameGrid(game);
+        TrajectoryWriter trajectoryWriter = inputFilePath == null ? null : trajectoryService.startTrajectory(inputFilePath, population, 0);
+        int turn = 0;
+        addStates(population, turn, paths);
+        while (turnScheduler.hasActiveAdventurers()) {
+            for (int position = 0; position < turnScheduler.getNbActiveAdventurers(); position++) {
+                int index = turnScheduler.getActiveAdventurer(position);
+                moveAdventurerService.checkIfAdventurerIsDoneMoving(population, index, turn);
+                if (!population.isDoneMoving(index)) {
+                    moveAdventurerService.playMove(gameGrid, population, index, turn);
+                }
+            }
+            turnScheduler.removeDoneAdventurers(population);
+            if (trajectoryWriter != null) {
+                assertTrue(trajectoryService.writeTurn(trajectoryWriter, population, turnScheduler, turn));
+            }
+            turn++;
+            addStates(population, turn, paths);
+        }
+        trajectoryService.finishTrajectory(trajectoryWriter);
+        gameEventService.destroy();
+    }
+
+    private static void addStates(AdventurerPopulation population, int turn, List<List<String>> paths) {
+        if (paths == null) {
+            return;
+        }
+        for (int index = 0; index < population.getSize(); index++) {
+            if (paths.size() <= index) {
+                paths.add(new ArrayList<>());
+            }
+            paths.get(index).add(turn + " - " + population.getPosX(index) + " - " + population.getPosY(index) + " - "
+                    + population.getOrientation(index) + " - " + population.getNbTreasure(index));
+        }
+    }
+
+    private static Game generateTrajectoryGame() {
+        Game game = generateGame();
+        game.getAdventurers().add(generateAdventurer("Indiana").setPosX(3).setPosY(2).setOrientation(Orientation.N).setMoves("GGDAADDDAGA"));
+        game.getAdventurers().add(generateAdventurer("Minnesota").setPosX(0).setPosY(0).setOrientation(Orientation.E).setMoves("DDDDAAGAGGGGGDA"));
+        return game;
+    }
+}
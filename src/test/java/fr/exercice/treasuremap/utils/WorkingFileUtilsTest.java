@@ -0,0 +1,55 @@
+package fr.exercice.treasuremap.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkingFileUtilsTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void writeAtomically_shouldReplaceTheFileWithoutLeavingATemporaryFile_ok() throws IOException {
+        Path target = Files.writeString(tempDir.resolve("game_result.txt"), "ancien résultat");
+
+        WorkingFileUtils.writeAtomically(target, tempFilePath -> Files.writeString(tempFilePath, "nouveau résultat"));
+
+        assertEquals("nouveau résultat", Files.readString(target));
+        assertEquals(1, countFiles());
+    }
+
+    /**
+     * Une écriture interrompue ne doit ni remplacer le fichier existant, ni laisser son fichier temporaire dans le répertoire.
+     */
+    @Test
+    void writeAtomically_whenTheWritingFails_shouldKeepThePreviousFile_ko() throws IOException {
+        Path target = Files.writeString(tempDir.resolve("game_result.txt"), "ancien résultat");
+
+        assertThrows(IOException.class, () -> WorkingFileUtils.writeAtomically(target, tempFilePath -> {
+            Files.writeString(tempFilePath, "résultat à moitié écrit");
+            throw new IOException("disque plein");
+        }));
+
+        assertEquals("ancien résultat", Files.readString(target));
+        assertEquals(1, countFiles());
+    }
+
+    @Test
+    void newSha256Digest_shouldReturnANewDigestOnEachCall_ok() {
+        assertNotSame(WorkingFileUtils.newSha256Digest(), WorkingFileUtils.newSha256Digest());
+        assertEquals(32, WorkingFileUtils.newSha256Digest().getDigestLength());
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+}